@@ -0,0 +1,38 @@
+package ai.hack.controller;
+
+import ai.hack.rocketmq.RocketMQAsyncClient;
+import ai.hack.rocketmq.monitoring.OpenMetricsWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Prometheus/OpenMetrics scrape endpoint for every RocketMQ client registered in the context.
+ */
+@RestController
+public class MetricsController {
+
+    private final ObjectProvider<RocketMQAsyncClient> clients;
+
+    // Reused across scrapes so a steady-state scrape does not allocate a new buffer
+    private final OpenMetricsWriter writer = new OpenMetricsWriter();
+
+    public MetricsController(ObjectProvider<RocketMQAsyncClient> clients) {
+        this.clients = clients;
+    }
+
+    @GetMapping("/metrics")
+    public void metrics(HttpServletResponse response) throws IOException {
+        response.setContentType(OpenMetricsWriter.CONTENT_TYPE);
+        synchronized (writer) {
+            writer.reset();
+            clients.orderedStream().forEach(client -> client.exportMetrics(writer));
+            writer.finish();
+            response.setContentLength(writer.size());
+            writer.writeTo(response.getOutputStream());
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package ai.hack.rocketmq;
 
+import ai.hack.rocketmq.callback.BatchMessageCallback;
 import ai.hack.rocketmq.callback.MessageCallback;
+import ai.hack.rocketmq.compression.PayloadCompressor;
 import ai.hack.rocketmq.config.ClientConfiguration;
 import ai.hack.rocketmq.core.CallbackManager;
 import ai.hack.rocketmq.core.ConnectionManager;
+import ai.hack.rocketmq.core.ConnectionPoolStats;
 import ai.hack.rocketmq.core.MessageConsumer;
 import ai.hack.rocketmq.core.MessagePublisher;
+import ai.hack.rocketmq.core.ProducerShards;
 import ai.hack.rocketmq.exception.RocketMQException;
 import ai.hack.rocketmq.exception.TimeoutException;
 import ai.hack.rocketmq.model.Message;
 import ai.hack.rocketmq.monitoring.MetricsCollector;
+import ai.hack.rocketmq.monitoring.OpenMetricsWriter;
 import ai.hack.rocketmq.persistence.H2MetadataStore;
+import ai.hack.rocketmq.persistence.MetadataStore;
 import ai.hack.rocketmq.persistence.RocksDBMessageStore;
+import ai.hack.rocketmq.persistence.RocksDBMetadataStore;
 import ai.hack.rocketmq.result.BatchSendResult;
 import ai.hack.rocketmq.result.SendResult;
 import ai.hack.rocketmq.security.AuthenticationManager;
@@ -46,11 +53,14 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultRocketMQAsyncClient.class);
 
-    @Autowired
+    private static final int DEFAULT_WRITE_BUFFER_SIZE = 64 * 1024 * 1024;
+    private static final long DEFAULT_CACHE_SIZE = 128L * 1024 * 1024;
+
+    @Autowired(required = false)
     private RocksDBMessageStore messageStore;
 
-    @Autowired
-    private H2MetadataStore metadataStore;
+    @Autowired(required = false)
+    private MetadataStore metadataStore;
 
     private ClientConfiguration config;
     private ConnectionManager connectionManager;
@@ -67,10 +77,12 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
 
     private final ExecutorService clientExecutor;
     private final ConcurrentHashMap<String, MessageCallback> subscriptions;
+    private final ConcurrentHashMap<String, BatchMessageCallback> batchSubscriptions;
 
     public DefaultRocketMQAsyncClient() {
         this.clientExecutor = Executors.newCachedThreadPool(new ClientThreadFactory());
         this.subscriptions = new ConcurrentHashMap<>();
+        this.batchSubscriptions = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -95,11 +107,12 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
                 metricsCollector.afterPropertiesSet();
 
                 // Initialize connection manager
-                connectionManager = new ConnectionManager(
-                        config.getNamesrvAddr(),
-                        config.getMaxConnections(),
-                        config.isTlsEnabled()
-                );
+                connectionManager = new ConnectionManager(config);
+
+                // Initialize persistence stores if enabled; the publisher's outbox needs the message store open
+                if (config.isPersistenceEnabled()) {
+                    initializePersistence();
+                }
 
                 // Initialize message publisher
                 messagePublisher = new MessagePublisher(config, connectionManager, metricsCollector, messageStore);
@@ -134,16 +147,23 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
                 // Start message consumption
                 messageConsumer.start();
 
+                // Re-publish messages a previous run persisted but never got acknowledged. The replay set is
+                // fixed before the client accepts sends, so no live send's outbox entry is published twice
+                if (config.isOutboxEnabled()) {
+                    messagePublisher.replayOutbox(config.getOutboxReplayRate(), config.getOutboxReplayParallelism())
+                            .whenComplete((replayed, throwable) -> {
+                                if (throwable != null) {
+                                    logger.error("Outbox recovery failed", throwable);
+                                } else if (replayed > 0) {
+                                    logger.info("Outbox recovery re-published {} messages", replayed);
+                                }
+                            });
+                }
+
                 setState(ClientState.READY);
 
                 logger.info("RocketMQ async client initialized successfully with configuration: {}", config);
 
-                // Initialize persistence stores if enabled
-                if (config.isPersistenceEnabled()) {
-                    messageStore.afterPropertiesSet();
-                    metadataStore.afterPropertiesSet();
-                }
-
                 // Start maintenance tasks
                 startMaintenanceTasks();
 
@@ -164,12 +184,12 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
         long startTime = System.nanoTime();
 
         try {
-            metricsCollector.incrementMessagesSent();
+            // Sent/failed counters are maintained by the publisher once the broker outcome is known
             CompletableFuture<ai.hack.rocketmq.result.SendResult> sendFuture = messagePublisher.sendMessageAsync(message);
 
             return sendFuture.whenComplete((result, throwable) -> {
                 long latency = System.nanoTime() - startTime;
-                metricsCollector.recordLatency(latency);
+                metricsCollector.recordPublishLatency(latency);
 
                 if (throwable != null) {
                     logger.error("Async message send failed: {}", message.getMessageId(), throwable);
@@ -187,12 +207,16 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
     public SendResult sendMessageSync(Message message, Duration timeout) throws RocketMQException, TimeoutException {
         ensureReady();
 
+        long startTime = System.nanoTime();
+
         try {
             logger.debug("Sending message synchronously: {}", message.getMessageId());
             return messagePublisher.sendMessageSync(message, timeout);
         } catch (TimeoutException e) {
             metricsCollector.incrementTimeouts();
             throw e;
+        } finally {
+            metricsCollector.recordPublishLatency(System.nanoTime() - startTime);
         }
     }
 
@@ -207,28 +231,11 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
         long startTime = System.nanoTime();
 
         try {
-            List<CompletableFuture<SendResult>> futures = new ArrayList<>();
-
-            for (Message message : messages) {
-               CompletableFuture<SendResult> future = messagePublisher.sendMessageAsync(message);
-                futures.add(future);
-            }
-
-            // Wait for all futures to complete
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                    futures.toArray(new CompletableFuture[0]));
-
-            CompletableFuture<BatchSendResult> batchFuture = allFutures.thenApply(v -> {
-                List<SendResult> results = new ArrayList<>();
-                for (CompletableFuture<SendResult> future : futures) {
-                    results.add(future.join());
-                }
-                return new BatchSendResult(results);
-            });
+            CompletableFuture<BatchSendResult> batchFuture = messagePublisher.sendBatchAsync(messages);
 
             return batchFuture.whenComplete((result, throwable) -> {
                 long latency = System.nanoTime() - startTime;
-                metricsCollector.recordLatency(latency);
+                metricsCollector.recordPublishLatency(latency);
 
                 if (throwable != null) {
                     logger.error("Batch async message send failed", throwable);
@@ -258,8 +265,15 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
         logger.info("🔄 Starting request-response: {} (timeout: {}s)", message.getMessageId(), timeout.toSeconds());
 
         try {
+            long startTime = System.nanoTime();
+
             // Register the pending request with callback manager
             CompletableFuture<Message> responseFuture = callbackManager.sendWithCallback(message, timeout);
+            responseFuture.whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    metricsCollector.recordRequestResponseLatency(System.nanoTime() - startTime);
+                }
+            });
 
             // Send the message asynchronously
             CompletableFuture<ai.hack.rocketmq.result.SendResult> sendFuture = sendMessageAsync(message);
@@ -292,6 +306,7 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
         ensureReady();
         logger.info("Subscribing to topic: {}", topic);
         messageConsumer.subscribe(topic, callback);
+        batchSubscriptions.remove(topic);
         subscriptions.put(topic, callback);
 
             // Also subscribe to response handling if we have a callback topic that points to this topic
@@ -307,12 +322,22 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
             }
     }
 
+    @Override
+    public void subscribeBatch(String topic, BatchMessageCallback callback) throws RocketMQException {
+        ensureReady();
+        logger.info("Subscribing to topic with batch callback: {}", topic);
+        messageConsumer.subscribeBatch(topic, callback);
+        subscriptions.remove(topic);
+        batchSubscriptions.put(topic, callback);
+    }
+
     @Override
     public void unsubscribe(String topic) throws RocketMQException {
         ensureReady();
         logger.info("Unsubscribing from topic: {}", topic);
         messageConsumer.unsubscribe(topic);
         subscriptions.remove(topic);
+        batchSubscriptions.remove(topic);
     }
 
     @Override
@@ -342,7 +367,133 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
         }
 
         ClientState state = currentState.get();
-        return new ClientStatus(state, performanceSnapshot, new ArrayList<>(subscriptions.keySet()), Instant.now());
+        List<String> subscribedTopics = new ArrayList<>(subscriptions.keySet());
+        subscribedTopics.addAll(batchSubscriptions.keySet());
+        return new ClientStatus(state, performanceSnapshot, subscribedTopics, Instant.now());
+    }
+
+    @Override
+    public void exportMetrics(OpenMetricsWriter writer) {
+        if (!initialized.get() || shuttingDown.get() || metricsCollector == null) {
+            return;
+        }
+
+        String group = config.getProducerGroup();
+        metricsCollector.writeMetrics(writer, "producer_group", group);
+
+        writer.family("rocketmq_client_state", "gauge", "Client lifecycle state");
+        writer.sample("rocketmq_client_state", "producer_group", group, "state", currentState.get().name(), 1);
+        writer.family("rocketmq_client_subscriptions", "gauge", "Subscribed topics");
+        writer.sample("rocketmq_client_subscriptions", "producer_group", group, subscriptions.size() + batchSubscriptions.size());
+
+        if (messagePublisher != null) {
+            MessagePublisher.PublisherStats stats = messagePublisher.getStats();
+            writer.family("rocketmq_publisher_in_flight", "gauge", "Sends awaiting a broker acknowledgement");
+            writer.sample("rocketmq_publisher_in_flight", "producer_group", group, stats.getActiveOperations());
+            writer.family("rocketmq_publisher_available_permits", "gauge", "Remaining in-flight send permits");
+            writer.sample("rocketmq_publisher_available_permits", "producer_group", group, stats.getAvailablePermits());
+            writer.family("rocketmq_publisher_backpressure_active", "gauge", "Whether publisher backpressure is engaged");
+            writer.sample("rocketmq_publisher_backpressure_active", "producer_group", group, stats.isBackpressureActive() ? 1 : 0);
+            writer.family("rocketmq_publisher_concurrency_limit", "gauge", "Adaptive in-flight send limit");
+            writer.sample("rocketmq_publisher_concurrency_limit", "producer_group", group, stats.getConcurrencyLimit());
+            writer.family("rocketmq_publisher_limit_rejections", "counter", "Sends refused by the in-flight limit");
+            writer.sample("rocketmq_publisher_limit_rejections_total", "producer_group", group, stats.getRejectedByLimit());
+            writer.family("rocketmq_publisher_backlog", "gauge", "Sends waiting in the backlog for a permit");
+            writer.sample("rocketmq_publisher_backlog", "producer_group", group, stats.getBackloggedSends());
+
+            PayloadCompressor.CompressionStats compression = messagePublisher.getCompressionStats();
+            writer.family("rocketmq_publisher_compressed_messages", "counter", "Payloads sent compressed");
+            writer.sample("rocketmq_publisher_compressed_messages_total", "producer_group", group, compression.getCompressedMessages());
+            writer.family("rocketmq_publisher_incompressible_messages", "counter", "Payloads sent as is because compression did not shrink them");
+            writer.sample("rocketmq_publisher_incompressible_messages_total", "producer_group", group, compression.getIncompressibleMessages());
+            writer.family("rocketmq_publisher_compression_ratio", "gauge", "Original over compressed size of compressed payloads");
+            writer.sample("rocketmq_publisher_compression_ratio", "producer_group", group, compression.getCompressionRatio());
+            writer.family("rocketmq_publisher_compression_seconds", "counter", "Time spent compressing payloads");
+            writer.sample("rocketmq_publisher_compression_seconds_total", "producer_group", group, compression.getCompressionNanos() / 1e9);
+
+            List<ProducerShards.ShardStats> shards = messagePublisher.getShardStats();
+            writer.family("rocketmq_producer_shard_in_flight", "gauge", "Send calls awaiting a broker acknowledgement per producer shard");
+            for (ProducerShards.ShardStats shard : shards) {
+                writer.sample("rocketmq_producer_shard_in_flight", "producer_group", group,
+                        "shard", String.valueOf(shard.getShard()), shard.getInflightSends());
+            }
+            writer.family("rocketmq_producer_shard_messages_sent", "counter", "Messages acknowledged per producer shard");
+            for (ProducerShards.ShardStats shard : shards) {
+                writer.sample("rocketmq_producer_shard_messages_sent_total", "producer_group", group,
+                        "shard", String.valueOf(shard.getShard()), shard.getMessagesSent());
+            }
+            writer.family("rocketmq_producer_shard_messages_failed", "counter", "Messages failed per producer shard");
+            for (ProducerShards.ShardStats shard : shards) {
+                writer.sample("rocketmq_producer_shard_messages_failed_total", "producer_group", group,
+                        "shard", String.valueOf(shard.getShard()), shard.getMessagesFailed());
+            }
+        }
+
+        if (messageConsumer != null) {
+            String consumerGroup = config.getConsumerGroup();
+            MessageConsumer.ConsumerStats stats = messageConsumer.getStats();
+            writer.family("rocketmq_consumer_in_flight", "gauge", "Messages being processed by callbacks");
+            writer.sample("rocketmq_consumer_in_flight", "consumer_group", consumerGroup, stats.getActiveProcessingOperations());
+            writer.family("rocketmq_consumer_available_permits", "gauge", "Remaining concurrent processing permits");
+            writer.sample("rocketmq_consumer_available_permits", "consumer_group", consumerGroup, stats.getAvailablePermits());
+            writer.family("rocketmq_consumer_concurrency_limit", "gauge", "Adaptive concurrent processing limit");
+            writer.sample("rocketmq_consumer_concurrency_limit", "consumer_group", consumerGroup, stats.getConcurrencyLimit());
+            writer.family("rocketmq_consumer_limit_rejections", "counter", "Batches refused by the processing limit");
+            writer.sample("rocketmq_consumer_limit_rejections_total", "consumer_group", consumerGroup, stats.getRejectedByLimit());
+            writer.family("rocketmq_consumer_lane_queued_messages", "gauge", "Messages queued on ordered dispatch lanes");
+            writer.sample("rocketmq_consumer_lane_queued_messages", "consumer_group", consumerGroup, stats.getLaneQueuedMessages());
+            writer.family("rocketmq_consumer_lane_max_depth", "gauge", "Deepest ordered dispatch lane");
+            writer.sample("rocketmq_consumer_lane_max_depth", "consumer_group", consumerGroup, stats.getMaxLaneDepth());
+            writer.family("rocketmq_consumer_lanes_busy", "gauge", "Ordered dispatch lanes holding work");
+            writer.sample("rocketmq_consumer_lanes_busy", "consumer_group", consumerGroup, stats.getBusyLanes());
+
+            PayloadCompressor.CompressionStats compression = messageConsumer.getCompressionStats();
+            writer.family("rocketmq_consumer_decompressed_messages", "counter", "Compressed payloads restored");
+            writer.sample("rocketmq_consumer_decompressed_messages_total", "consumer_group", consumerGroup, compression.getDecompressedMessages());
+            writer.family("rocketmq_consumer_decompression_seconds", "counter", "Time spent restoring compressed payloads");
+            writer.sample("rocketmq_consumer_decompression_seconds_total", "consumer_group", consumerGroup, compression.getDecompressionNanos() / 1e9);
+        }
+
+        if (callbackManager != null) {
+            CallbackManager.CallbackStats stats = callbackManager.getStats();
+            writer.family("rocketmq_callback_pending", "gauge", "Requests awaiting a correlated response");
+            writer.sample("rocketmq_callback_pending", "producer_group", group, stats.getPendingRequests());
+            writer.family("rocketmq_callback_oldest_pending_age_seconds", "gauge", "Age of the oldest pending request");
+            writer.sample("rocketmq_callback_oldest_pending_age_seconds", "producer_group", group, stats.getOldestPendingAgeSeconds());
+            writer.family("rocketmq_callback_wheel_timeouts", "gauge", "Timeouts scheduled on the timing wheel");
+            writer.sample("rocketmq_callback_wheel_timeouts", "producer_group", group, stats.getScheduledTimeouts());
+            writer.family("rocketmq_callback_timeouts_expired", "counter", "Requests that timed out");
+            writer.sample("rocketmq_callback_timeouts_expired_total", "producer_group", group, stats.getExpiredTimeouts());
+            writer.summary("rocketmq_callback_timeout_expiry_lag_seconds", "Delay between a request deadline and its expiry",
+                    "producer_group", group, stats.getExpiryLag());
+        }
+
+        if (connectionManager != null) {
+            ConnectionPoolStats stats = connectionManager.getPoolStats();
+            writer.family("rocketmq_pool_connections", "gauge", "Connection pool usage");
+            writer.sample("rocketmq_pool_connections", "producer_group", group, "state", "active", stats.getActiveConnections());
+            writer.sample("rocketmq_pool_connections", "producer_group", group, "state", "available", stats.getAvailableConnections());
+            writer.sample("rocketmq_pool_connections", "producer_group", group, "state", "max", stats.getMaxConnections());
+            writer.family("rocketmq_pool_circuit_open", "gauge", "Whether the connection circuit breaker is open");
+            writer.sample("rocketmq_pool_circuit_open", "producer_group", group, stats.isCircuitOpen() ? 1 : 0);
+        }
+
+        if (metadataStore != null) {
+            MetadataStore.WriteBehindStats stats = metadataStore.getWriteBehindStats();
+            writer.family("rocketmq_metadata_pending_rows", "gauge", "Metadata rows waiting for the write-behind flush");
+            writer.sample("rocketmq_metadata_pending_rows", "producer_group", group, stats.getPendingRows());
+            writer.family("rocketmq_metadata_flushed_rows", "counter", "Metadata rows written in batches");
+            writer.sample("rocketmq_metadata_flushed_rows_total", "producer_group", group, stats.getFlushedRows());
+            writer.family("rocketmq_metadata_failed_rows", "counter", "Metadata rows lost to failed flushes");
+            writer.sample("rocketmq_metadata_failed_rows_total", "producer_group", group, stats.getFailedRows());
+            writer.family("rocketmq_metadata_blocked_writes", "counter", "Writes that waited for a full write-behind buffer");
+            writer.sample("rocketmq_metadata_blocked_writes_total", "producer_group", group, stats.getBlockedWrites());
+        }
+
+        if (messageStore != null) {
+            writer.family("rocketmq_outbox_messages", "gauge", "Messages persisted but not yet acknowledged");
+            writer.sample("rocketmq_outbox_messages", "producer_group", group, messageStore.getOutboxSize());
+        }
     }
 
     @Override
@@ -425,6 +576,22 @@ public class DefaultRocketMQAsyncClient implements RocketMQAsyncClient, Initiali
         }
     }
 
+    private void initializePersistence() throws Exception {
+        if (messageStore == null) {
+            messageStore = new RocksDBMessageStore(config.getPersistencePath(), config.getPersistenceFlushInterval(),
+                    DEFAULT_WRITE_BUFFER_SIZE, DEFAULT_CACHE_SIZE, config.getWalPolicy());
+        }
+        messageStore.afterPropertiesSet();
+
+        if (metadataStore == null) {
+            metadataStore = switch (config.getMetadataBackend()) {
+                case H2 -> new H2MetadataStore("rocketmq-metadata-" + config.getConsumerGroup());
+                case ROCKSDB -> new RocksDBMetadataStore(config.getPersistencePath() + "-metadata");
+            };
+        }
+        metadataStore.afterPropertiesSet();
+    }
+
     private void initializeSecurity() throws RocketMQException {
         try {
             // Initialize authentication manager
@@ -1,10 +1,12 @@
 package ai.hack.rocketmq;
 
+import ai.hack.rocketmq.callback.BatchMessageCallback;
 import ai.hack.rocketmq.callback.MessageCallback;
 import ai.hack.rocketmq.config.ClientConfiguration;
 import ai.hack.rocketmq.exception.RocketMQException;
 import ai.hack.rocketmq.exception.TimeoutException;
 import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.monitoring.OpenMetricsWriter;
 import ai.hack.rocketmq.result.BatchSendResult;
 import ai.hack.rocketmq.result.SendResult;
 
@@ -75,6 +77,16 @@ public interface RocketMQAsyncClient extends AutoCloseable {
      */
     void subscribe(String topic, MessageCallback callback) throws RocketMQException;
 
+    /**
+     * Subscribe to a topic with a callback that processes whole batches.
+     * Only the messages the callback reports as failed are consumed again.
+     *
+     * @param topic the topic to subscribe to
+     * @param callback the batch processing callback
+     * @throws RocketMQException if subscription fails
+     */
+    void subscribeBatch(String topic, BatchMessageCallback callback) throws RocketMQException;
+
     /**
      * Unsubscribe from a topic.
      *
@@ -113,4 +125,14 @@ public interface RocketMQAsyncClient extends AutoCloseable {
     default boolean isShuttingDown() {
         return !isReady();
     }
+
+    /**
+     * Write the client's metrics in OpenMetrics text format.
+     * The caller owns the writer and is responsible for {@link OpenMetricsWriter#finish()}. Several clients may
+     * export into one writer, so every sample must carry a label that identifies the client.
+     *
+     * @param writer writer to append metric families to
+     */
+    default void exportMetrics(OpenMetricsWriter writer) {
+    }
 }
\ No newline at end of file
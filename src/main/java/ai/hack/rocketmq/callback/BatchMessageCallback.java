@@ -0,0 +1,23 @@
+package ai.hack.rocketmq.callback;
+
+import ai.hack.rocketmq.model.Message;
+
+import java.util.List;
+
+/**
+ * Functional interface for handling messages in bulk.
+ * Receives every message of a pulled batch in one call, so handlers can use bulk inserts or vectorized work.
+ * Failed messages are redelivered individually; successful ones in the same batch are not.
+ */
+@FunctionalInterface
+public interface BatchMessageCallback {
+
+    /**
+     * Handle a batch of received messages from a single topic.
+     *
+     * @param messages the received messages, in delivery order
+     * @return one processing result per message, in the same order as {@code messages}
+     * @throws Exception if processing fails (the whole batch is treated as a retryable failure)
+     */
+    List<MessageProcessingResult> processMessages(List<Message> messages) throws Exception;
+}
@@ -0,0 +1,50 @@
+package ai.hack.rocketmq.compression;
+
+import java.util.Locale;
+
+/**
+ * Payload compression algorithms. The lower-case name is written to each compressed message,
+ * so constants must not be renamed.
+ */
+public enum CompressionAlgorithm {
+
+    /**
+     * Send payloads as they are; used to exempt a topic from compression.
+     */
+    NONE,
+
+    /**
+     * Fastest to compress and decompress, moderate ratio. Suited to latency-sensitive topics.
+     */
+    LZ4,
+
+    /**
+     * Best ratio, especially on small structured payloads when a shared dictionary is configured.
+     */
+    ZSTD,
+
+    /**
+     * JDK zlib; slower and weaker than the others but needs no native library.
+     */
+    DEFLATE;
+
+    private final String wireName = name().toLowerCase(Locale.ROOT);
+
+    public String wireName() {
+        return wireName;
+    }
+
+    /**
+     * Resolves a name written by {@link #wireName()}.
+     *
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static CompressionAlgorithm fromWireName(String name) {
+        for (CompressionAlgorithm algorithm : values()) {
+            if (algorithm.wireName.equals(name)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression algorithm: " + name);
+    }
+}
@@ -0,0 +1,17 @@
+package ai.hack.rocketmq.compression;
+
+/**
+ * Compresses and restores message payloads with one algorithm. Implementations are thread-safe.
+ */
+interface CompressionCodec {
+
+    byte[] compress(byte[] data);
+
+    /**
+     * Restores a payload compressed by this codec.
+     *
+     * @param originalLength the payload length before compression
+     * @throws IllegalArgumentException if {@code data} is corrupt or does not restore to {@code originalLength} bytes
+     */
+    byte[] decompress(byte[] data, int originalLength);
+}
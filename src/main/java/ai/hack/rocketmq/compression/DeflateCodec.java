@@ -0,0 +1,63 @@
+package ai.hack.rocketmq.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * zlib compression from the JDK. Deflaters hold native memory, so each call ends the one it used.
+ */
+final class DeflateCodec implements CompressionCodec {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final int level;
+
+    DeflateCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] chunk = new byte[Math.min(CHUNK_SIZE, Math.max(64, data.length))];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] restored = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength && !inflater.finished()) {
+                int read = inflater.inflate(restored, length, originalLength - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != originalLength || !inflater.finished()) {
+                throw new IllegalArgumentException("zlib stream restored " + length + " bytes, expected " + originalLength);
+            }
+            return restored;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt zlib stream", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ai.hack.rocketmq.compression;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * LZ4 block compression. The original length travels with the message, so raw blocks need no frame header.
+ * Decompression uses the bounds-checked decompressor, because payloads come from the network.
+ */
+final class Lz4Codec implements CompressionCodec {
+
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    Lz4Codec() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        return compressor.compress(data);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalLength) {
+        byte[] restored = new byte[originalLength];
+        try {
+            int length = decompressor.decompress(data, 0, data.length, restored, 0, originalLength);
+            if (length != originalLength) {
+                throw new IllegalArgumentException("LZ4 block restored " + length + " bytes, expected " + originalLength);
+            }
+        } catch (LZ4Exception e) {
+            throw new IllegalArgumentException("Corrupt LZ4 block", e);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,211 @@
+package ai.hack.rocketmq.compression;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * Applies the configured compression policy to outgoing payloads and restores incoming ones.
+ * A payload is compressed when compression is enabled, it reaches the size threshold and its topic's algorithm
+ * is not {@link CompressionAlgorithm#NONE}; it is sent as is if compressing did not make it smaller.
+ * Decompression works regardless of the local policy, so any consumer reads what any producer wrote.
+ * Time spent in codecs is measured on the calling thread and reported with the compression ratio.
+ */
+public final class PayloadCompressor {
+
+    private final boolean enabled;
+    private final CompressionAlgorithm defaultAlgorithm;
+    private final int threshold;
+    private final int maxUncompressedLength;
+    private final Map<String, CompressionAlgorithm> topicAlgorithms;
+    private final AtomicReferenceArray<CompressionCodec> codecs =
+            new AtomicReferenceArray<>(CompressionAlgorithm.values().length);
+    private final List<byte[]> zstdDictionaries;
+
+    private final LongAdder compressedMessages = new LongAdder();
+    private final LongAdder incompressibleMessages = new LongAdder();
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+    private final LongAdder bytesAfterCompression = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder decompressedMessages = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    /**
+     * @param topicAlgorithms per-topic overrides of {@code defaultAlgorithm}
+     * @param zstdDictionaries shared zstd dictionaries; the last one is used for compression
+     * @param maxUncompressedLength largest length a received payload may claim to restore to
+     */
+    public PayloadCompressor(boolean enabled, CompressionAlgorithm defaultAlgorithm, int threshold,
+                             Map<String, CompressionAlgorithm> topicAlgorithms, List<byte[]> zstdDictionaries,
+                             int maxUncompressedLength) {
+        this.enabled = enabled;
+        this.defaultAlgorithm = defaultAlgorithm;
+        this.threshold = threshold;
+        this.maxUncompressedLength = maxUncompressedLength;
+        this.topicAlgorithms = Map.copyOf(topicAlgorithms);
+        this.zstdDictionaries = List.copyOf(zstdDictionaries);
+    }
+
+    public static PayloadCompressor fromConfig(ClientConfiguration config) {
+        return new PayloadCompressor(config.isCompressionEnabled(), config.getCompressionAlgorithm(),
+                config.getCompressionThreshold(), config.getTopicCompression(), config.getZstdDictionaries(),
+                config.getMaxMessageSize());
+    }
+
+    /**
+     * Compresses a payload if the policy applies to it.
+     *
+     * @return the compressed payload, or {@code null} if {@code payload} should be sent as is
+     */
+    public CompressedPayload compress(String topic, byte[] payload) {
+        if (!enabled || payload.length < threshold) {
+            return null;
+        }
+        CompressionAlgorithm algorithm = topicAlgorithms.getOrDefault(topic, defaultAlgorithm);
+        if (algorithm == CompressionAlgorithm.NONE) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        byte[] compressed = codec(algorithm).compress(payload);
+        compressionNanos.add(System.nanoTime() - start);
+
+        if (compressed.length >= payload.length) {
+            incompressibleMessages.increment();
+            return null;
+        }
+        compressedMessages.increment();
+        bytesBeforeCompression.add(payload.length);
+        bytesAfterCompression.add(compressed.length);
+        return new CompressedPayload(compressed, algorithm, payload.length);
+    }
+
+    /**
+     * Restores a payload written by {@link #compress(String, byte[])}.
+     * {@code originalLength} comes from the sender, so it is checked against the configured maximum before any
+     * codec allocates the output buffer.
+     *
+     * @throws IllegalArgumentException if the length is out of range, or the data is corrupt or restores to a
+     *                                  different length
+     */
+    public byte[] decompress(CompressionAlgorithm algorithm, byte[] data, int originalLength) {
+        if (algorithm == CompressionAlgorithm.NONE) {
+            return data;
+        }
+        if (originalLength < 0) {
+            throw new IllegalArgumentException("Negative uncompressed length: " + originalLength);
+        }
+        if (originalLength > maxUncompressedLength) {
+            throw new IllegalArgumentException("Uncompressed length " + originalLength
+                    + " exceeds the maximum of " + maxUncompressedLength + " bytes");
+        }
+
+        long start = System.nanoTime();
+        byte[] restored = codec(algorithm).decompress(data, originalLength);
+        decompressionNanos.add(System.nanoTime() - start);
+        decompressedMessages.increment();
+        return restored;
+    }
+
+    public CompressionStats getStats() {
+        return new CompressionStats(
+                compressedMessages.sum(),
+                incompressibleMessages.sum(),
+                bytesBeforeCompression.sum(),
+                bytesAfterCompression.sum(),
+                compressionNanos.sum(),
+                decompressedMessages.sum(),
+                decompressionNanos.sum()
+        );
+    }
+
+    // Codecs are created on first use, so native libraries only load for algorithms actually in use
+    private CompressionCodec codec(CompressionAlgorithm algorithm) {
+        CompressionCodec codec = codecs.get(algorithm.ordinal());
+        if (codec == null) {
+            codecs.compareAndSet(algorithm.ordinal(), null, newCodec(algorithm));
+            codec = codecs.get(algorithm.ordinal());
+        }
+        return codec;
+    }
+
+    private CompressionCodec newCodec(CompressionAlgorithm algorithm) {
+        return switch (algorithm) {
+            case LZ4 -> new Lz4Codec();
+            case ZSTD -> new ZstdCodec(ZstdCodec.DEFAULT_LEVEL, zstdDictionaries);
+            case DEFLATE -> new DeflateCodec(Deflater.BEST_SPEED);
+            case NONE -> throw new IllegalArgumentException("No codec for " + algorithm);
+        };
+    }
+
+    /**
+     * A compressed payload together with what is needed to restore it.
+     */
+    public static final class CompressedPayload {
+        private final byte[] data;
+        private final CompressionAlgorithm algorithm;
+        private final int originalLength;
+
+        CompressedPayload(byte[] data, CompressionAlgorithm algorithm, int originalLength) {
+            this.data = data;
+            this.algorithm = algorithm;
+            this.originalLength = originalLength;
+        }
+
+        public byte[] getData() { return data; }
+        public CompressionAlgorithm getAlgorithm() { return algorithm; }
+        public int getOriginalLength() { return originalLength; }
+    }
+
+    /**
+     * Compression counters since the compressor was created.
+     */
+    public static class CompressionStats {
+        private final long compressedMessages;
+        private final long incompressibleMessages;
+        private final long bytesBeforeCompression;
+        private final long bytesAfterCompression;
+        private final long compressionNanos;
+        private final long decompressedMessages;
+        private final long decompressionNanos;
+
+        public CompressionStats(long compressedMessages, long incompressibleMessages, long bytesBeforeCompression,
+                                long bytesAfterCompression, long compressionNanos, long decompressedMessages,
+                                long decompressionNanos) {
+            this.compressedMessages = compressedMessages;
+            this.incompressibleMessages = incompressibleMessages;
+            this.bytesBeforeCompression = bytesBeforeCompression;
+            this.bytesAfterCompression = bytesAfterCompression;
+            this.compressionNanos = compressionNanos;
+            this.decompressedMessages = decompressedMessages;
+            this.decompressionNanos = decompressionNanos;
+        }
+
+        public long getCompressedMessages() { return compressedMessages; }
+        public long getIncompressibleMessages() { return incompressibleMessages; }
+        public long getBytesBeforeCompression() { return bytesBeforeCompression; }
+        public long getBytesAfterCompression() { return bytesAfterCompression; }
+        public long getCompressionNanos() { return compressionNanos; }
+        public long getDecompressedMessages() { return decompressedMessages; }
+        public long getDecompressionNanos() { return decompressionNanos; }
+
+        /**
+         * Original size divided by compressed size over all compressed messages, or 1 if none were compressed.
+         */
+        public double getCompressionRatio() {
+            return bytesAfterCompression > 0 ? (double) bytesBeforeCompression / bytesAfterCompression : 1.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CompressionStats{compressed=%d, incompressible=%d, ratio=%.2f, " +
+                               "compressTime=%.1fms, decompressed=%d, decompressTime=%.1fms}",
+                               compressedMessages, incompressibleMessages, getCompressionRatio(),
+                               compressionNanos / 1e6, decompressedMessages, decompressionNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ai.hack.rocketmq.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zstandard compression with optional shared dictionaries.
+ * Every frame records the id of the dictionary it was compressed with, so consumers pick the matching
+ * dictionary without extra message properties and keep reading older messages after the producer moves on
+ * to a newer dictionary. The most recently configured dictionary is used for compression.
+ */
+final class ZstdCodec implements CompressionCodec {
+
+    static final int DEFAULT_LEVEL = 3;
+
+    private final int level;
+    private final ZstdDictCompress compressDictionary;
+    private final Map<Long, ZstdDictDecompress> decompressDictionaries;
+
+    ZstdCodec(int level, List<byte[]> dictionaries) {
+        this.level = level;
+        this.decompressDictionaries = new HashMap<>();
+        for (byte[] dictionary : dictionaries) {
+            long dictionaryId = Zstd.getDictIdFromDict(dictionary);
+            if (dictionaryId == 0) {
+                // Frames only name the dictionary by id, so raw-content dictionaries could not be told apart
+                throw new IllegalArgumentException("zstd dictionary has no id; use a trained dictionary");
+            }
+            decompressDictionaries.put(dictionaryId, new ZstdDictDecompress(dictionary));
+        }
+        this.compressDictionary = dictionaries.isEmpty() ? null
+                : new ZstdDictCompress(dictionaries.get(dictionaries.size() - 1), level);
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        return compressDictionary != null ? Zstd.compress(data, compressDictionary) : Zstd.compress(data, level);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalLength) {
+        try {
+            long dictionaryId = Zstd.getDictIdFromFrame(data);
+            if (dictionaryId == 0) {
+                return Zstd.decompress(data, originalLength);
+            }
+            ZstdDictDecompress dictionary = decompressDictionaries.get(dictionaryId);
+            if (dictionary == null) {
+                throw new IllegalArgumentException("No zstd dictionary configured with id " + dictionaryId);
+            }
+            return Zstd.decompress(data, dictionary, originalLength);
+        } catch (ZstdException e) {
+            throw new IllegalArgumentException("Corrupt zstd frame", e);
+        }
+    }
+}
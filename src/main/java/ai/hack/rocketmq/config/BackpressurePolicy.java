@@ -0,0 +1,30 @@
+package ai.hack.rocketmq.config;
+
+/**
+ * What the publisher does with an asynchronous send once its concurrency limit is exhausted.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Complete the send immediately with a failed result.
+     */
+    REJECT,
+
+    /**
+     * Park the calling thread until a permit frees up or the configured wait elapses.
+     * The wait is a lock condition rather than a monitor, so virtual threads unmount while they wait.
+     */
+    BLOCK_WITH_TIMEOUT,
+
+    /**
+     * Return at once and hold the send in a bounded backlog until a permit frees up.
+     * Sends are failed when the backlog is full or when they waited longer than the configured wait.
+     */
+    QUEUE_BOUNDED,
+
+    /**
+     * Like {@link #QUEUE_BOUNDED}, but a full backlog makes room by dropping its oldest send of the lowest
+     * priority, as long as that priority does not exceed the incoming send's priority.
+     */
+    DROP_OLDEST_LOW_PRIORITY
+}
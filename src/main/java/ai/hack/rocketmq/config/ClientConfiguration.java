@@ -1,5 +1,6 @@
 package ai.hack.rocketmq.config;
 
+import ai.hack.rocketmq.compression.CompressionAlgorithm;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -7,6 +8,10 @@ import jakarta.validation.constraints.NotNull;
 
 import javax.security.auth.x500.X500Principal;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -49,9 +54,16 @@ public class ClientConfiguration {
     private boolean persistenceEnabled = true;
     private String persistencePath = "./rocketmq-data";
     private Duration persistenceFlushInterval = Duration.ofSeconds(5);
+    private MetadataBackend metadataBackend = MetadataBackend.H2;
+    private WalPolicy walPolicy = WalPolicy.ASYNC;
 
     // Advanced configuration
-    private boolean compressionEnabled = true;
+    // Client-side codecs are opt-in: consumers outside this client cannot read payloads they compress
+    private boolean compressionEnabled = false;
+    private CompressionAlgorithm compressionAlgorithm = CompressionAlgorithm.LZ4;
+    private int compressionThreshold = 4 * 1024;
+    private final Map<String, CompressionAlgorithm> topicCompression = new HashMap<>();
+    private final List<byte[]> zstdDictionaries = new ArrayList<>();
     private boolean orderedProcessing = true;
     private int maxConsumeThreads = 64;
     private Duration healthCheckInterval = Duration.ofSeconds(30);
@@ -64,6 +76,32 @@ public class ClientConfiguration {
     private int maxConcurrentOperations = 1000;
     private boolean backpressureEnabled = true;
     private double backpressureThreshold = 0.8;
+    private LimitAlgorithm concurrencyLimitAlgorithm = LimitAlgorithm.GRADIENT;
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.REJECT;
+    private Duration backpressureMaxWait = Duration.ofSeconds(3);
+    private int backpressureQueueCapacity = 10_000;
+    private double priorityReservedShare = 0.1;
+
+    // Producer sharding configuration
+    private int producerShards = 1;
+    private ShardRouting shardRouting = ShardRouting.LEAST_INFLIGHT;
+
+    // Producer auto-batching configuration
+    private boolean autoBatchEnabled = false;
+    private Duration batchLingerTime = Duration.ofMillis(2);
+    private int batchMaxMessages = 256;
+    private int batchMaxBytes = 256 * 1024;
+
+    // Durable outbox configuration
+    private boolean outboxEnabled = false;
+    private int outboxReplayRate = 1000;
+    private int outboxReplayParallelism = 16;
+
+    // Consumer batching configuration
+    private int consumeBatchMaxSize = 32;
+    private int pullBatchSize = 64;
+    private Duration pullInterval = Duration.ZERO;
+    private int orderedDispatchLanes = Runtime.getRuntime().availableProcessors() * 4;
 
     // Private constructor for builder
     private ClientConfiguration() {}
@@ -133,10 +171,46 @@ public class ClientConfiguration {
         return persistenceFlushInterval;
     }
 
+    public MetadataBackend getMetadataBackend() {
+        return metadataBackend;
+    }
+
+    public WalPolicy getWalPolicy() {
+        return walPolicy;
+    }
+
     public boolean isCompressionEnabled() {
         return compressionEnabled;
     }
 
+    /**
+     * Whether any payload may be compressed by the client-side codecs, in which case RocketMQ's own body
+     * compression is switched off.
+     */
+    public boolean usesClientCompression() {
+        if (!compressionEnabled) {
+            return false;
+        }
+        return compressionAlgorithm != CompressionAlgorithm.NONE
+                || topicCompression.values().stream().anyMatch(algorithm -> algorithm != CompressionAlgorithm.NONE);
+    }
+
+    public CompressionAlgorithm getCompressionAlgorithm() {
+        return compressionAlgorithm;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public Map<String, CompressionAlgorithm> getTopicCompression() {
+        return Map.copyOf(topicCompression);
+    }
+
+    public List<byte[]> getZstdDictionaries() {
+        return List.copyOf(zstdDictionaries);
+    }
+
     public boolean isOrderedProcessing() {
         return orderedProcessing;
     }
@@ -177,6 +251,78 @@ public class ClientConfiguration {
         return backpressureThreshold;
     }
 
+    public LimitAlgorithm getConcurrencyLimitAlgorithm() {
+        return concurrencyLimitAlgorithm;
+    }
+
+    public BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    public Duration getBackpressureMaxWait() {
+        return backpressureMaxWait;
+    }
+
+    public int getBackpressureQueueCapacity() {
+        return backpressureQueueCapacity;
+    }
+
+    public double getPriorityReservedShare() {
+        return priorityReservedShare;
+    }
+
+    public int getProducerShards() {
+        return producerShards;
+    }
+
+    public ShardRouting getShardRouting() {
+        return shardRouting;
+    }
+
+    public boolean isAutoBatchEnabled() {
+        return autoBatchEnabled;
+    }
+
+    public Duration getBatchLingerTime() {
+        return batchLingerTime;
+    }
+
+    public int getBatchMaxMessages() {
+        return batchMaxMessages;
+    }
+
+    public int getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public boolean isOutboxEnabled() {
+        return outboxEnabled;
+    }
+
+    public int getOutboxReplayRate() {
+        return outboxReplayRate;
+    }
+
+    public int getOutboxReplayParallelism() {
+        return outboxReplayParallelism;
+    }
+
+    public int getConsumeBatchMaxSize() {
+        return consumeBatchMaxSize;
+    }
+
+    public int getPullBatchSize() {
+        return pullBatchSize;
+    }
+
+    public Duration getPullInterval() {
+        return pullInterval;
+    }
+
+    public int getOrderedDispatchLanes() {
+        return orderedDispatchLanes;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -261,11 +407,54 @@ public class ClientConfiguration {
             return this;
         }
 
+        public Builder metadataBackend(MetadataBackend metadataBackend) {
+            config.metadataBackend = metadataBackend;
+            return this;
+        }
+
+        public Builder walPolicy(WalPolicy walPolicy) {
+            config.walPolicy = walPolicy;
+            return this;
+        }
+
+        /**
+         * Turns on the client-side compression codecs; off by default. Compressed payloads are marked with
+         * message properties that only this client understands, so enable it only when every consumer of the
+         * affected topics uses this client. While it is off RocketMQ's own zlib body compression applies,
+         * which any RocketMQ consumer reads.
+         */
         public Builder compressionEnabled(boolean enabled) {
             config.compressionEnabled = enabled;
             return this;
         }
 
+        /**
+         * Compresses payloads of at least {@code thresholdBytes} with {@code algorithm} unless their topic
+         * has its own algorithm. Takes effect only with {@link #compressionEnabled(boolean)} on.
+         */
+        public Builder compression(CompressionAlgorithm algorithm, int thresholdBytes) {
+            config.compressionAlgorithm = algorithm;
+            config.compressionThreshold = thresholdBytes;
+            return this;
+        }
+
+        /**
+         * Overrides the compression algorithm for one topic; {@link CompressionAlgorithm#NONE} exempts it.
+         */
+        public Builder topicCompression(String topic, CompressionAlgorithm algorithm) {
+            config.topicCompression.put(topic, algorithm);
+            return this;
+        }
+
+        /**
+         * Registers a shared zstd dictionary. Producers compress with the last one registered; consumers need
+         * every dictionary still in use by producers.
+         */
+        public Builder zstdDictionary(byte[] dictionary) {
+            config.zstdDictionaries.add(dictionary.clone());
+            return this;
+        }
+
         public Builder orderedProcessing(boolean enabled) {
             config.orderedProcessing = enabled;
             return this;
@@ -316,6 +505,110 @@ public class ClientConfiguration {
             return this;
         }
 
+        /**
+         * Selects how the adaptive in-flight limits of the publisher and consumer follow measured latency.
+         */
+        public Builder concurrencyLimitAlgorithm(LimitAlgorithm algorithm) {
+            config.concurrencyLimitAlgorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Selects what asynchronous sends do once the concurrency limit is exhausted, and how long a send
+         * may wait for capacity under the blocking and queueing policies.
+         */
+        public Builder backpressurePolicy(BackpressurePolicy policy, Duration maxWait) {
+            config.backpressurePolicy = policy;
+            config.backpressureMaxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Maximum number of sends held back under the queueing policies.
+         */
+        public Builder backpressureQueueCapacity(int capacity) {
+            config.backpressureQueueCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Share of the publisher's concurrency limit that only HIGH and CRITICAL sends may use.
+         */
+        public Builder priorityReservedShare(double share) {
+            config.priorityReservedShare = Math.max(0.0, Math.min(0.9, share));
+            return this;
+        }
+
+        /**
+         * Runs {@code shards} producer instances, routing sends between them by least in-flight sends.
+         */
+        public Builder producerShards(int shards) {
+            config.producerShards = shards;
+            return this;
+        }
+
+        /**
+         * Runs {@code shards} producer instances and routes sends between them with {@code routing}.
+         */
+        public Builder producerShards(int shards, ShardRouting routing) {
+            config.producerShards = shards;
+            config.shardRouting = routing;
+            return this;
+        }
+
+        public Builder autoBatching(boolean enabled) {
+            config.autoBatchEnabled = enabled;
+            return this;
+        }
+
+        public Builder batchLingerTime(Duration lingerTime) {
+            config.batchLingerTime = lingerTime;
+            return this;
+        }
+
+        public Builder batchMaxMessages(int maxMessages) {
+            config.batchMaxMessages = Math.max(1, maxMessages);
+            return this;
+        }
+
+        public Builder batchMaxBytes(int maxBytes) {
+            config.batchMaxBytes = Math.max(1024, maxBytes);
+            return this;
+        }
+
+        public Builder outbox(boolean enabled) {
+            config.outboxEnabled = enabled;
+            return this;
+        }
+
+        public Builder outboxReplay(int messagesPerSecond, int parallelism) {
+            config.outboxReplayRate = Math.max(1, messagesPerSecond);
+            config.outboxReplayParallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        /**
+         * Sets how many messages one listener invocation receives and how many are pulled per queue request.
+         */
+        public Builder consumeBatch(int consumeBatchMaxSize, int pullBatchSize) {
+            config.consumeBatchMaxSize = consumeBatchMaxSize;
+            config.pullBatchSize = pullBatchSize;
+            return this;
+        }
+
+        public Builder pullInterval(Duration pullInterval) {
+            config.pullInterval = pullInterval;
+            return this;
+        }
+
+        /**
+         * Sets how many serial lanes ordered consumption spreads order keys over.
+         */
+        public Builder orderedDispatchLanes(int lanes) {
+            config.orderedDispatchLanes = Math.max(1, lanes);
+            return this;
+        }
+
         public ClientConfiguration build() {
             validate();
             return config;
@@ -328,10 +621,60 @@ public class ClientConfiguration {
                 throw new IllegalArgumentException("TLS enabled requires access key and secret key");
             }
 
+            Objects.requireNonNull(config.compressionAlgorithm, "Compression algorithm is required");
+
+            if (config.compressionThreshold < 0) {
+                throw new IllegalArgumentException("Compression threshold must be non-negative");
+            }
+
+            if (config.topicCompression.containsKey(null) || config.topicCompression.containsValue(null)) {
+                throw new IllegalArgumentException("Topic compression requires a topic and an algorithm");
+            }
+
+            Objects.requireNonNull(config.concurrencyLimitAlgorithm, "Concurrency limit algorithm is required");
+            Objects.requireNonNull(config.backpressurePolicy, "Backpressure policy is required");
+
+            if (config.backpressureMaxWait == null || config.backpressureMaxWait.isNegative()) {
+                throw new IllegalArgumentException("Backpressure max wait must be non-negative");
+            }
+
+            if (config.backpressureQueueCapacity < 1) {
+                throw new IllegalArgumentException("Backpressure queue capacity must be positive");
+            }
+
+            if (config.producerShards < 1 || config.producerShards > 64 || config.shardRouting == null) {
+                throw new IllegalArgumentException("Producer shards must be between 1 and 64 with a routing mode");
+            }
+
+            if (config.autoBatchEnabled && (config.batchLingerTime == null || config.batchLingerTime.isNegative())) {
+                throw new IllegalArgumentException("Auto-batching requires a non-negative linger time");
+            }
+
             if (config.persistenceEnabled && config.persistencePath == null) {
                 throw new IllegalArgumentException("Persistence enabled requires a persistence path");
             }
 
+            if (config.metadataBackend == null) {
+                throw new IllegalArgumentException("Metadata backend must not be null");
+            }
+
+            if (config.walPolicy == null) {
+                throw new IllegalArgumentException("WAL policy must not be null");
+            }
+
+            if (config.outboxEnabled && !config.persistenceEnabled) {
+                throw new IllegalArgumentException("Outbox requires persistence to be enabled");
+            }
+
+            if (config.consumeBatchMaxSize < 1 || config.consumeBatchMaxSize > 1024
+                    || config.pullBatchSize < 1 || config.pullBatchSize > 1024) {
+                throw new IllegalArgumentException("Consume and pull batch sizes must be between 1 and 1024");
+            }
+
+            if (config.pullInterval == null || config.pullInterval.isNegative()) {
+                throw new IllegalArgumentException("Pull interval must be non-negative");
+            }
+
             // Auto-generate group names if not provided
             if (config.producerGroup == null) {
                 config.producerGroup = "rocketmq-producer-" + System.currentTimeMillis();
@@ -355,7 +698,13 @@ public class ClientConfiguration {
                 ", maxConnections=" + maxConnections +
                 ", tlsEnabled=" + tlsEnabled +
                 ", persistenceEnabled=" + persistenceEnabled +
+                ", metadataBackend=" + metadataBackend +
+                ", walPolicy=" + walPolicy +
                 ", compressionEnabled=" + compressionEnabled +
+                ", compressionAlgorithm=" + compressionAlgorithm +
+                ", compressionThreshold=" + compressionThreshold +
+                ", topicCompression=" + topicCompression +
+                ", zstdDictionaries=" + zstdDictionaries.size() +
                 ", orderedProcessing=" + orderedProcessing +
                 ", maxConsumeThreads=" + maxConsumeThreads +
                 ", connectionPoolSize=" + connectionPoolSize +
@@ -365,6 +714,24 @@ public class ClientConfiguration {
                 ", maxConcurrentOperations=" + maxConcurrentOperations +
                 ", backpressureEnabled=" + backpressureEnabled +
                 ", backpressureThreshold=" + backpressureThreshold +
+                ", concurrencyLimitAlgorithm=" + concurrencyLimitAlgorithm +
+                ", backpressurePolicy=" + backpressurePolicy +
+                ", backpressureMaxWait=" + backpressureMaxWait +
+                ", backpressureQueueCapacity=" + backpressureQueueCapacity +
+                ", priorityReservedShare=" + priorityReservedShare +
+                ", producerShards=" + producerShards +
+                ", shardRouting=" + shardRouting +
+                ", autoBatchEnabled=" + autoBatchEnabled +
+                ", batchLingerTime=" + batchLingerTime +
+                ", batchMaxMessages=" + batchMaxMessages +
+                ", batchMaxBytes=" + batchMaxBytes +
+                ", outboxEnabled=" + outboxEnabled +
+                ", outboxReplayRate=" + outboxReplayRate +
+                ", outboxReplayParallelism=" + outboxReplayParallelism +
+                ", consumeBatchMaxSize=" + consumeBatchMaxSize +
+                ", pullBatchSize=" + pullBatchSize +
+                ", pullInterval=" + pullInterval +
+                ", orderedDispatchLanes=" + orderedDispatchLanes +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package ai.hack.rocketmq.config;
+
+/**
+ * How the adaptive concurrency limiter moves its in-flight limit from latency samples.
+ */
+public enum LimitAlgorithm {
+
+    /**
+     * Additive increase, multiplicative decrease.
+     * Grows by one per sample and backs off by 10% on a failure or a sample slower than the timeout.
+     * Reacts only to hard errors, so it tends to run close to the broker's saturation point.
+     */
+    AIMD,
+
+    /**
+     * TCP Vegas style: estimates the queue from the ratio of the minimum observed RTT to the current RTT,
+     * growing while the estimated queue is small and shrinking once it builds up.
+     */
+    VEGAS,
+
+    /**
+     * Compares the current RTT with a long-term average and scales the limit by that gradient,
+     * plus a small queue allowance. Tracks latency drift smoothly and is the default.
+     */
+    GRADIENT
+}
@@ -0,0 +1,19 @@
+package ai.hack.rocketmq.config;
+
+/**
+ * Storage engine used for message metadata, correlations and metrics.
+ */
+public enum MetadataBackend {
+
+    /**
+     * Embedded in-memory H2 database with write-behind batching.
+     * Supports ad-hoc SQL over the tables; contents do not survive a restart.
+     */
+    H2,
+
+    /**
+     * RocksDB with one column family per table, merge-based status updates and TTL compaction.
+     * Persists across restarts and keeps writes off any shared lock; status queries scan the table.
+     */
+    ROCKSDB
+}
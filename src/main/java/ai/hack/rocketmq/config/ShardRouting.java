@@ -0,0 +1,23 @@
+package ai.hack.rocketmq.config;
+
+/**
+ * How the publisher picks one of its producer shards for a send.
+ * Sends to an explicitly selected queue are always routed by queue hash, so ordered traffic for a queue
+ * leaves through a single producer regardless of this setting. With ordered processing every send, single
+ * or batched, selects the queue of its order key; otherwise the routing below applies.
+ */
+public enum ShardRouting {
+
+    /**
+     * Hash the target queue, or the topic when no queue is selected.
+     * Keeps each topic's traffic on one producer, which maximizes per-producer batching and route caching,
+     * but also puts all of a hot topic's sends on that one producer. Opt in only when topics are evenly loaded.
+     */
+    HASH,
+
+    /**
+     * Pick the less loaded of two randomly chosen shards, by in-flight sends. This is the default.
+     * Spreads a single hot topic across all producers and steers around a slow one.
+     */
+    LEAST_INFLIGHT
+}
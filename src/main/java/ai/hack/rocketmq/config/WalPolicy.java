@@ -0,0 +1,24 @@
+package ai.hack.rocketmq.config;
+
+/**
+ * Write-ahead log durability policy for the RocksDB group-commit writer.
+ */
+public enum WalPolicy {
+
+    /**
+     * Every committed group is fsynced before its callers are completed.
+     * Survives power loss; one fsync is amortized across the whole group.
+     */
+    SYNC,
+
+    /**
+     * Groups are appended to the WAL without fsync; the WAL is synced periodically.
+     * Survives process crashes, may lose the last sync interval on power loss.
+     */
+    ASYNC,
+
+    /**
+     * The WAL is bypassed entirely; data is durable only after a memtable flush.
+     */
+    DISABLED
+}
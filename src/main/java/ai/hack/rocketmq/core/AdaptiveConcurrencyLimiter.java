@@ -0,0 +1,322 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.config.LimitAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of in-flight operations with a limit that follows measured latency.
+ * Every released permit reports the round-trip time of the work it covered; the configured
+ * {@link LimitAlgorithm} raises the limit while latency stays flat and lowers it once latency
+ * grows or operations fail, so the limit settles near the concurrency the downstream can actually absorb.
+ * The limit only grows while at least {@code utilizationThreshold} of it is in use, which keeps an
+ * idle or lightly loaded client from inflating it without evidence.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    // AIMD multiplicative decrease
+    private static final double BACKOFF_RATIO = 0.9;
+
+    // Vegas re-learns its no-load RTT this often, so a permanently slower broker is not mistaken for a queue
+    private static final int VEGAS_PROBE_INTERVAL = 1_000;
+
+    // Gradient tuning, as in Netflix concurrency-limits' Gradient2Limit
+    private static final double GRADIENT_TOLERANCE = 1.5;
+    private static final double GRADIENT_SMOOTHING = 0.2;
+    private static final int GRADIENT_LONG_WINDOW = 600;
+
+    private final String name;
+    private final LimitAlgorithm algorithm;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double utilizationThreshold;
+    private final long timeoutNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition permitReleased = waitLock.newCondition();
+    private volatile int limit;
+
+    // Algorithm state, guarded by this
+    private double estimatedLimit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samplesSinceProbe;
+    private double longRttNanos;
+    private long samples;
+
+    /**
+     * @param name                 component name used in log messages
+     * @param algorithm            how the limit reacts to samples
+     * @param initialLimit         limit before the first sample
+     * @param minLimit             lower bound of the limit
+     * @param maxLimit             upper bound of the limit
+     * @param utilizationThreshold fraction of the limit that must be in flight for the limit to grow
+     * @param timeout              samples slower than this count as failures
+     */
+    public AdaptiveConcurrencyLimiter(String name, LimitAlgorithm algorithm, int initialLimit, int minLimit,
+                                      int maxLimit, double utilizationThreshold, Duration timeout) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+        this.name = name;
+        this.algorithm = algorithm;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.utilizationThreshold = utilizationThreshold;
+        this.timeoutNanos = timeout.toNanos();
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Creates a limiter for a client component, capped at {@code maxLimit}.
+     * With backpressure disabled the limit is pinned at {@code maxLimit} and never adapts.
+     */
+    static AdaptiveConcurrencyLimiter fromConfig(String name, ClientConfiguration config, int maxLimit) {
+        if (!config.isBackpressureEnabled()) {
+            return new AdaptiveConcurrencyLimiter(name, config.getConcurrencyLimitAlgorithm(), maxLimit, maxLimit,
+                    maxLimit, config.getBackpressureThreshold(), config.getSendTimeout());
+        }
+        int minLimit = Math.min(maxLimit, 10);
+        return new AdaptiveConcurrencyLimiter(name, config.getConcurrencyLimitAlgorithm(),
+                Math.max(minLimit, maxLimit / 10), minLimit, maxLimit,
+                config.getBackpressureThreshold(), config.getSendTimeout());
+    }
+
+    /**
+     * Acquires one permit if the limit allows it.
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Acquires {@code permits} permits if they all fit under the current limit.
+     */
+    public boolean tryAcquire(int permits) {
+        return tryAcquireWithin(permits, 1.0);
+    }
+
+    /**
+     * Acquires {@code permits} permits, waiting up to {@code timeout} for in-flight work to release them.
+     */
+    public boolean tryAcquire(int permits, Duration timeout) throws InterruptedException {
+        return tryAcquireWithin(permits, 1.0, timeout);
+    }
+
+    /**
+     * Acquires {@code permits} permits if they fit under {@code share} of the current limit.
+     * Callers that are limited to a share below 1.0 leave the rest of the limit to callers that are not.
+     */
+    public boolean tryAcquireWithin(int permits, double share) {
+        if (tryReserve(permits, share)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Acquires {@code permits} permits under {@code share} of the current limit, waiting up to {@code timeout}.
+     */
+    public boolean tryAcquireWithin(int permits, double share, Duration timeout) throws InterruptedException {
+        if (tryReserve(permits, share)) {
+            return true;
+        }
+
+        long remaining = timeout.toNanos();
+        waiters.incrementAndGet();
+        waitLock.lock();
+        try {
+            while (!tryReserve(permits, share)) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    return false;
+                }
+                remaining = permitReleased.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            waitLock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Like {@link #tryAcquireWithin(int, double)}, but a refusal is not counted as a rejection.
+     * For schedulers that probe for spare capacity on behalf of work that is already queued.
+     */
+    boolean tryReserve(int permits, double share) {
+        for (;;) {
+            int current = inflight.get();
+            int ceiling = share >= 1.0 ? limit : Math.max(1, (int) (limit * share));
+            if (current + permits > ceiling) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + permits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases permits and feeds the latency of the work they covered into the limit.
+     *
+     * @param rttNanos round-trip time of the operation
+     * @param failed   whether the operation failed; failures count as an overload signal
+     */
+    public void release(int permits, long rttNanos, boolean failed) {
+        int inflightBefore = inflight.getAndAdd(-permits);
+        onSample(rttNanos, inflightBefore, failed);
+        signalWaiters();
+    }
+
+    /**
+     * Releases permits without a sample, for work that was abandoned before it reached the downstream.
+     */
+    public void release(int permits) {
+        inflight.addAndGet(-permits);
+        signalWaiters();
+    }
+
+    private void signalWaiters() {
+        if (waiters.get() > 0) {
+            waitLock.lock();
+            try {
+                permitReleased.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtSample, boolean failed) {
+        if (rttNanos <= 0 || minLimit == maxLimit) {
+            return;
+        }
+
+        boolean dropped = failed || rttNanos > timeoutNanos;
+        boolean appLimited = inflightAtSample < estimatedLimit * utilizationThreshold;
+
+        double next = switch (algorithm) {
+            case AIMD -> aimd(dropped, appLimited);
+            case VEGAS -> vegas(rttNanos, dropped, appLimited);
+            case GRADIENT -> gradient(rttNanos, dropped, appLimited);
+        };
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        int newLimit = (int) estimatedLimit;
+        if (newLimit != limit) {
+            logger.debug("{} concurrency limit {} -> {} (rtt={}us, inflight={})",
+                       name, limit, newLimit, TimeUnit.NANOSECONDS.toMicros(rttNanos), inflightAtSample);
+            limit = newLimit;
+        }
+    }
+
+    private double aimd(boolean dropped, boolean appLimited) {
+        if (dropped) {
+            return estimatedLimit * BACKOFF_RATIO;
+        }
+        return appLimited ? estimatedLimit : estimatedLimit + 1;
+    }
+
+    private double vegas(long rttNanos, boolean dropped, boolean appLimited) {
+        if (++samplesSinceProbe >= VEGAS_PROBE_INTERVAL) {
+            samplesSinceProbe = 0;
+            minRttNanos = rttNanos;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+
+        double log = Math.max(1, Math.log10(estimatedLimit));
+        if (dropped) {
+            return estimatedLimit - log;
+        }
+        if (appLimited) {
+            return estimatedLimit;
+        }
+
+        // Operations queued beyond what the no-load RTT would allow
+        double queue = Math.ceil(estimatedLimit * (1 - (double) minRttNanos / rttNanos));
+        if (queue <= log) {
+            return estimatedLimit + 6 * log;
+        } else if (queue < 3 * log) {
+            return estimatedLimit + log;
+        } else if (queue > 6 * log) {
+            return estimatedLimit - log;
+        }
+        return estimatedLimit;
+    }
+
+    private double gradient(long rttNanos, boolean dropped, boolean appLimited) {
+        samples++;
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / Math.min(samples, GRADIENT_LONG_WINDOW);
+        }
+
+        // Recover quickly once latency drops well below a long-term average inflated by a past spike
+        if (longRttNanos > 2.0 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+
+        if (appLimited && !dropped) {
+            return estimatedLimit;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, GRADIENT_TOLERANCE * longRttNanos / rttNanos));
+        if (dropped) {
+            gradient = Math.min(gradient, BACKOFF_RATIO);
+        }
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        return estimatedLimit * (1 - GRADIENT_SMOOTHING) + target * GRADIENT_SMOOTHING;
+    }
+
+    /**
+     * Current in-flight limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * Permits that can be acquired right now without waiting.
+     */
+    public int getAvailablePermits() {
+        return Math.max(0, limit - inflight.get());
+    }
+
+    /**
+     * Number of acquisitions refused because the limit was reached.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Whether in-flight work has reached the utilization threshold of the current limit.
+     */
+    public boolean isBackpressureActive() {
+        return inflight.get() >= limit * utilizationThreshold;
+    }
+
+    public LimitAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+}
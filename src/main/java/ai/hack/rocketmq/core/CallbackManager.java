@@ -2,6 +2,8 @@ package ai.hack.rocketmq.core;
 
 import ai.hack.rocketmq.exception.TimeoutException;
 import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageHeaders;
+import ai.hack.rocketmq.monitoring.LatencyHistogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -13,43 +15,37 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages request-response correlation and timeout handling.
- * Provides complete correlation ID mapping with timeout management.
+ * Provides complete correlation ID mapping with timeout management. Timeouts are tracked on a hashed timing
+ * wheel and cancelled as soon as the response arrives, so outstanding requests cost O(1) to add and remove.
  */
 public class CallbackManager implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(CallbackManager.class);
 
-    // Map correlation IDs to pending requests
-    private final Map<String, CompletableFuture<Message>> pendingRequests;
+    // 10ms resolution; one rotation covers ~5s, longer timeouts take extra rounds
+    private static final Duration TIMEOUT_TICK = Duration.ofMillis(10);
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
 
-    // Map correlation IDs to request metadata for cleanup
-    private final Map<String, PendingRequestMetadata> requestMetadata;
+    // Map correlation IDs to pending requests
+    private final Map<String, PendingRequest> pendingRequests;
 
-    private final ScheduledExecutorService timeoutExecutor;
+    private final HashedTimingWheel timeoutWheel;
     private final Duration defaultTimeout;
     private final AtomicLong correlationIdSequence;
 
     public CallbackManager(Duration defaultTimeout) {
         this.defaultTimeout = defaultTimeout;
         this.pendingRequests = new ConcurrentHashMap<>();
-        this.requestMetadata = new ConcurrentHashMap<>();
-        this.timeoutExecutor = Executors.newScheduledThreadPool(2, new CallbackThreadFactory());
+        this.timeoutWheel = new HashedTimingWheel(TIMEOUT_TICK, TIMEOUT_WHEEL_SIZE, "rocketmq-callback-timeout");
         this.correlationIdSequence = new AtomicLong(0);
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        // Start periodic cleanup task
-        timeoutExecutor.scheduleAtFixedRate(this::cleanupExpiredRequests, 30, 30, TimeUnit.SECONDS);
         logger.info("CallbackManager initialized with default timeout: {}", defaultTimeout);
     }
 
@@ -57,26 +53,16 @@ public class CallbackManager implements InitializingBean, DisposableBean {
     public void destroy() throws Exception {
         logger.info("Shutting down CallbackManager");
 
+        timeoutWheel.stop();
+
         // Cancel all pending requests
-        for (Map.Entry<String, CompletableFuture<Message>> entry : pendingRequests.entrySet()) {
-            CompletableFuture<Message> future = entry.getValue();
-            if (!future.isDone()) {
-                future.completeExceptionally(new TimeoutException("shutdown", Duration.ZERO,
+        for (PendingRequest request : pendingRequests.values()) {
+            if (!request.future.isDone()) {
+                request.future.completeExceptionally(new TimeoutException("shutdown", Duration.ZERO,
                         "CallbackManager is shutting down"));
             }
         }
         pendingRequests.clear();
-        requestMetadata.clear();
-
-        timeoutExecutor.shutdown();
-        try {
-            if (!timeoutExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                timeoutExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            timeoutExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
 
         logger.info("CallbackManager shutdown complete");
     }
@@ -99,19 +85,20 @@ public class CallbackManager implements InitializingBean, DisposableBean {
         String correlationId = generateCorrelationId();
 
         // Add correlation ID as header
-        message.withHeader("correlation-id", correlationId);
+        message.withHeader(MessageHeaders.CORRELATION_ID, correlationId);
 
         // Create CompletableFuture for response
         CompletableFuture<Message> responseFuture = new CompletableFuture<>();
 
         // Store pending request
-        pendingRequests.put(correlationId, responseFuture);
-        requestMetadata.put(correlationId, new PendingRequestMetadata(message, Instant.now(), timeout));
+        PendingRequest request = new PendingRequest(responseFuture, Instant.now(), timeout);
+        pendingRequests.put(correlationId, request);
 
-        // Schedule timeout
-        timeoutExecutor.schedule(() -> {
-            handleTimeout(correlationId, timeout);
-        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        // Schedule timeout; a response that raced ahead of the registration cancels it here
+        request.timeoutHandle = timeoutWheel.newTimeout(() -> handleTimeout(correlationId, request), timeout);
+        if (responseFuture.isDone()) {
+            request.timeoutHandle.cancel();
+        }
 
         logger.debug("Registered pending request with correlation ID: {} (timeout: {})", correlationId, timeout);
 
@@ -130,9 +117,9 @@ public class CallbackManager implements InitializingBean, DisposableBean {
         }
 
         // Extract correlation ID from headers
-        String correlationId = response.getHeader("response-to");
+        String correlationId = response.getHeader(MessageHeaders.RESPONSE_TO);
         if (correlationId == null) {
-            correlationId = response.getHeader("correlation-id");
+            correlationId = response.getHeader(MessageHeaders.CORRELATION_ID);
         }
 
         if (correlationId == null) {
@@ -141,16 +128,16 @@ public class CallbackManager implements InitializingBean, DisposableBean {
         }
 
         // Lookup pending request
-        CompletableFuture<Message> future = pendingRequests.remove(correlationId);
-        if (future == null) {
+        PendingRequest request = pendingRequests.remove(correlationId);
+        if (request == null) {
             logger.debug("No pending request found for correlation ID: {}", correlationId);
             return false;
         }
 
-        // Clean up metadata
-        requestMetadata.remove(correlationId);
+        request.cancelTimeout();
 
         // Complete the future with response
+        CompletableFuture<Message> future = request.future;
         if (!future.isDone()) {
             future.complete(response);
             logger.debug("Response delivered for correlation ID: {}", correlationId);
@@ -168,12 +155,12 @@ public class CallbackManager implements InitializingBean, DisposableBean {
      * @return true if request was found and cancelled
      */
     public boolean cancelPendingRequest(String correlationId) {
-        CompletableFuture<Message> future = pendingRequests.remove(correlationId);
-        if (future != null) {
-            requestMetadata.remove(correlationId);
+        PendingRequest request = pendingRequests.remove(correlationId);
+        if (request != null) {
+            request.cancelTimeout();
 
-            if (!future.isDone()) {
-                future.cancel(true);
+            if (!request.future.isDone()) {
+                request.future.cancel(true);
                 logger.info("Cancelled pending request: {}", correlationId);
                 return true;
             }
@@ -195,60 +182,36 @@ public class CallbackManager implements InitializingBean, DisposableBean {
         int pending = pendingRequests.size();
         long oldestAge = 0;
 
-        if (!requestMetadata.isEmpty()) {
+        if (!pendingRequests.isEmpty()) {
             Instant now = Instant.now();
-            oldestAge = requestMetadata.values().stream()
-                    .mapToLong(metadata -> Duration.between(metadata.createdAt, now).toSeconds())
+            oldestAge = pendingRequests.values().stream()
+                    .mapToLong(request -> Duration.between(request.createdAt, now).toSeconds())
                     .max()
                     .orElse(0L);
         }
 
-        return new CallbackStats(pending, oldestAge, correlationIdSequence.get());
+        return new CallbackStats(pending, oldestAge, correlationIdSequence.get(),
+                timeoutWheel.getPendingTimeouts(), timeoutWheel.getExpiredTimeouts(),
+                timeoutWheel.getCancelledTimeouts(), timeoutWheel.getExpiryLag());
     }
 
-    private void handleTimeout(String correlationId, Duration timeout) {
-        CompletableFuture<Message> future = pendingRequests.get(correlationId);
-        if (future != null && !future.isDone()) {
-            // Remove from pending map
-            pendingRequests.remove(correlationId);
-            requestMetadata.remove(correlationId);
+    private void handleTimeout(String correlationId, PendingRequest request) {
+        // Runs on the wheel thread; only the exact registration is removed in case the ID was reused
+        if (!pendingRequests.remove(correlationId, request)) {
+            return;
+        }
 
-            // Complete with timeout exception
+        if (!request.future.isDone()) {
+            Duration timeout = request.timeout;
             TimeoutException timeoutException = new TimeoutException(
                     "request-response", timeout,
                     "Request timed out after " + timeout.toSeconds() + " seconds", correlationId);
-            future.completeExceptionally(timeoutException);
+            request.future.completeExceptionally(timeoutException);
 
             logger.debug("Request timed out for correlation ID: {}", correlationId);
         }
     }
 
-    private void cleanupExpiredRequests() {
-        Instant now = Instant.now();
-
-        requestMetadata.entrySet().removeIf(entry -> {
-            String correlationId = entry.getKey();
-            PendingRequestMetadata metadata = entry.getValue();
-
-            // Check if request has expired
-            if (metadata.isExpired(now)) {
-                CompletableFuture<Message> future = pendingRequests.remove(correlationId);
-
-                if (future != null && !future.isDone()) {
-                    TimeoutException timeoutException = new TimeoutException(
-                            "request-response", metadata.timeout,
-                            "Request expired due to age limit", correlationId);
-                    future.completeExceptionally(timeoutException);
-                }
-
-                logger.debug("Cleaned up expired request: {}", correlationId);
-                return true; // Remove from map
-            }
-
-            return false; // Keep in map
-        });
-    }
-
     private String generateCorrelationId() {
         return Long.toHexString(System.currentTimeMillis()) + "-" +
                correlationIdSequence.incrementAndGet() + "-" +
@@ -256,36 +219,25 @@ public class CallbackManager implements InitializingBean, DisposableBean {
     }
 
     /**
-     * Metadata for pending requests.
+     * A request awaiting its correlated response.
      */
-    private static class PendingRequestMetadata {
-        private final Message originalMessage;
+    private static class PendingRequest {
+        private final CompletableFuture<Message> future;
         private final Instant createdAt;
         private final Duration timeout;
+        private volatile HashedTimingWheel.Timeout timeoutHandle;
 
-        public PendingRequestMetadata(Message originalMessage, Instant createdAt, Duration timeout) {
-            this.originalMessage = originalMessage;
+        PendingRequest(CompletableFuture<Message> future, Instant createdAt, Duration timeout) {
+            this.future = future;
             this.createdAt = createdAt;
             this.timeout = timeout;
         }
 
-        public boolean isExpired(Instant now) {
-            // Consider expired if more than double the timeout has passed
-            return Duration.between(createdAt, now).toMillis() > timeout.toMillis() * 2;
-        }
-    }
-
-    /**
-     * Thread factory for callback manager threads.
-     */
-    private static class CallbackThreadFactory implements ThreadFactory {
-        private final AtomicInteger threadNumber = new AtomicInteger(1);
-
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread t = new Thread(r, "rocketmq-callback-" + threadNumber.getAndIncrement());
-            t.setDaemon(true);
-            return t;
+        void cancelTimeout() {
+            HashedTimingWheel.Timeout handle = timeoutHandle;
+            if (handle != null) {
+                handle.cancel();
+            }
         }
     }
 
@@ -296,11 +248,26 @@ public class CallbackManager implements InitializingBean, DisposableBean {
         private final int pendingRequests;
         private final long oldestPendingAgeSeconds;
         private final long totalCorrelationIdsGenerated;
+        private final long scheduledTimeouts;
+        private final long expiredTimeouts;
+        private final long cancelledTimeouts;
+        private final LatencyHistogram.Snapshot expiryLag;
 
         public CallbackStats(int pendingRequests, long oldestPendingAgeSeconds, long totalCorrelationIdsGenerated) {
+            this(pendingRequests, oldestPendingAgeSeconds, totalCorrelationIdsGenerated,
+                 0, 0, 0, LatencyHistogram.Snapshot.empty());
+        }
+
+        public CallbackStats(int pendingRequests, long oldestPendingAgeSeconds, long totalCorrelationIdsGenerated,
+                             long scheduledTimeouts, long expiredTimeouts, long cancelledTimeouts,
+                             LatencyHistogram.Snapshot expiryLag) {
             this.pendingRequests = pendingRequests;
             this.oldestPendingAgeSeconds = oldestPendingAgeSeconds;
             this.totalCorrelationIdsGenerated = totalCorrelationIdsGenerated;
+            this.scheduledTimeouts = scheduledTimeouts;
+            this.expiredTimeouts = expiredTimeouts;
+            this.cancelledTimeouts = cancelledTimeouts;
+            this.expiryLag = expiryLag;
         }
 
         public int getPendingRequests() {
@@ -315,10 +282,34 @@ public class CallbackManager implements InitializingBean, DisposableBean {
             return totalCorrelationIdsGenerated;
         }
 
+        /**
+         * Timeouts currently occupying the timing wheel.
+         */
+        public long getScheduledTimeouts() {
+            return scheduledTimeouts;
+        }
+
+        public long getExpiredTimeouts() {
+            return expiredTimeouts;
+        }
+
+        public long getCancelledTimeouts() {
+            return cancelledTimeouts;
+        }
+
+        /**
+         * Delay between a request's deadline and the moment it was timed out.
+         */
+        public LatencyHistogram.Snapshot getExpiryLag() {
+            return expiryLag;
+        }
+
         @Override
         public String toString() {
-            return String.format("CallbackStats{pending=%d, oldestAge=%ds, totalGenerated=%d}",
-                               pendingRequests, oldestPendingAgeSeconds, totalCorrelationIdsGenerated);
+            return String.format("CallbackStats{pending=%d, oldestAge=%ds, totalGenerated=%d, " +
+                               "wheelOccupancy=%d, expired=%d, cancelled=%d, expiryLagP99=%.2fms}",
+                               pendingRequests, oldestPendingAgeSeconds, totalCorrelationIdsGenerated,
+                               scheduledTimeouts, expiredTimeouts, cancelledTimeouts, expiryLag.getP99Millis());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ai.hack.rocketmq.core;
+
+/**
+ * Creates the physical connections held by a {@link ConnectionPool}.
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+
+    /**
+     * Opens a new connection. Called outside any pool lock, at most once per free pool slot.
+     *
+     * @param id pool-assigned identifier, unique for the lifetime of the pool
+     * @return a started, healthy connection
+     * @throws Exception if the connection cannot be opened
+     */
+    PooledConnection create(String id) throws Exception;
+}
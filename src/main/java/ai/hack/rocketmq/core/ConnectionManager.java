@@ -1,22 +1,23 @@
 package ai.hack.rocketmq.core;
 
+import ai.hack.rocketmq.config.ClientConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 
 import java.time.Duration;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages RocketMQ broker connections with TLS support and connection pooling.
  * Provides thread-safe connection management for both producers and consumers.
+ * By default the pool holds dedicated {@code DefaultMQProducer} instances, sized by
+ * {@link ClientConfiguration#getConnectionPoolSize()}.
  */
 public class ConnectionManager implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(ConnectionManager.class);
 
-    private final AtomicInteger activeConnections = new AtomicInteger(0);
     private final int maxConnections;
     private final String namesrvAddr;
     private final boolean tlsEnabled;
@@ -24,19 +25,31 @@ public class ConnectionManager implements InitializingBean, DisposableBean {
 
     private volatile boolean shutdown = false;
 
-    public ConnectionManager(String namesrvAddr, int maxConnections, boolean tlsEnabled) {
-        this.namesrvAddr = namesrvAddr;
-        this.maxConnections = maxConnections;
-        this.tlsEnabled = tlsEnabled;
+    public ConnectionManager(ClientConfiguration config) {
+        this(config, ProducerConnection.factory(config));
+    }
+
+    /**
+     * @param connectionFactory opens the pooled connections
+     */
+    public ConnectionManager(ClientConfiguration config, ConnectionFactory connectionFactory) {
+        this.namesrvAddr = config.getNamesrvAddr();
+        this.maxConnections = config.getConnectionPoolSize();
+        this.tlsEnabled = config.isTlsEnabled();
         this.connectionPool = new ConnectionPool(
                 maxConnections,
-                Duration.ofMinutes(5),  // max idle time
-                Duration.ofSeconds(30) // health check interval
+                config.getConnectionMaxIdleTime(),
+                Duration.ofSeconds(30), // health check interval
+                config.getSendTimeout(),
+                config.getCircuitBreakerThreshold(),
+                config.getCircuitBreakerTimeout(),
+                connectionFactory
         );
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
+        connectionPool.afterPropertiesSet();
         logger.info("Initializing RocketMQ connection manager - NameServer: {}, TLS: {}, Max connections: {}",
                    namesrvAddr, tlsEnabled, maxConnections);
     }
@@ -51,18 +64,31 @@ public class ConnectionManager implements InitializingBean, DisposableBean {
         }
 
         logger.info("RocketMQ connection manager shutdown complete - final active: {}",
-                   activeConnections.get());
+                   getActiveConnections());
     }
 
     /**
-     * Acquires a connection from the pool.
+     * Acquires a connection from the pool, waiting at most the configured send timeout.
      *
      * @return PooledConnection that must be returned via releaseConnection
      * @throws IllegalStateException if manager is shutdown or circuit is open
      */
     public PooledConnection acquireConnection() {
+        return acquireConnection(null);
+    }
+
+    /**
+     * Acquires a connection from the pool.
+     *
+     * @param timeout how long to wait for a connection when the pool is exhausted, or {@code null} for the default
+     * @return PooledConnection that must be returned via releaseConnection
+     * @throws IllegalStateException if manager is shutdown or circuit is open
+     */
+    public PooledConnection acquireConnection(Duration timeout) {
         try {
-            PooledConnection connection = connectionPool.acquireConnection();
+            PooledConnection connection = timeout != null
+                    ? connectionPool.acquireConnection(timeout)
+                    : connectionPool.acquireConnection();
             logger.debug("Pooled connection acquired: {}", connection.getId());
             return connection;
         } catch (InterruptedException e) {
@@ -85,14 +111,21 @@ public class ConnectionManager implements InitializingBean, DisposableBean {
      * Performs health check on the connection pool.
      */
     public boolean isHealthy() {
-        return !shutdown && activeConnections.get() <= maxConnections;
+        return !shutdown && getActiveConnections() <= maxConnections;
     }
 
     /**
      * Gets the current number of active connections.
      */
     public int getActiveConnections() {
-        return activeConnections.get();
+        return connectionPool.getStats().getActiveConnections();
+    }
+
+    /**
+     * Gets snapshot statistics about the underlying connection pool.
+     */
+    public ConnectionPoolStats getPoolStats() {
+        return connectionPool.getStats();
     }
 
     /**
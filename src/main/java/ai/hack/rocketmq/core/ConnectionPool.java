@@ -4,39 +4,68 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.util.Assert;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * High-performance connection pool for RocketMQ client connections.
  * Provides thread-safe connection management with health checking and circuit breaking.
+ *
+ * <p>Acquire and release are lock-free. Every connection carries an atomic state and is claimed by CAS
+ * from {@code NOT_IN_USE} to {@code IN_USE}. A released connection is parked in the affinity slot of the
+ * releasing thread, so the next acquire from the same thread usually takes it back without touching shared
+ * state; otherwise it goes onto a shared LIFO stack, which keeps a hot working set and lets surplus
+ * connections age out. When the pool is exhausted, callers wait up to a timeout and are handed released
+ * connections directly. Connections idle for longer than {@code maxIdleTime} are evicted by the
+ * maintenance task and reopened on demand through the {@link ConnectionFactory}.
  */
 public class ConnectionPool implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
 
+    private static final int NOT_IN_USE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = -1;
+
+    private static final int MAX_AFFINITY_SLOTS = 64;
+    private static final long HANDOFF_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(3);
+
     private final int maxConnections;
     private final Duration maxIdleTime;
     private final Duration healthCheckInterval;
-    private final BlockingQueue<PooledConnection> availableConnections;
+    private final Duration acquireTimeout;
+    private final ConnectionFactory connectionFactory;
+
+    // Every open connection; only used by sweeps and shutdown, so copy-on-write is cheap enough
+    private final CopyOnWriteArrayList<PoolEntry> allEntries = new CopyOnWriteArrayList<>();
+    private final AtomicReferenceArray<PoolEntry> affinitySlots;
+    private final int affinityMask;
+    private final ConcurrentLinkedDeque<PoolEntry> idleStack = new ConcurrentLinkedDeque<>();
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>();
+
+    private final AtomicInteger totalConnections = new AtomicInteger(0);
     private final AtomicInteger activeConnections = new AtomicInteger(0);
-    private final AtomicInteger totalConnectionsCreated = new AtomicInteger(0);
+    private final AtomicInteger idleConnections = new AtomicInteger(0);
+    private final AtomicInteger waitingAcquires = new AtomicInteger(0);
+    private final AtomicInteger connectionSequence = new AtomicInteger(0);
+    private final LongAdder totalAcquires = new LongAdder();
+    private final LongAdder affinityHits = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder evictedConnections = new LongAdder();
 
-    private final ReentrantReadWriteLock poolLock = new ReentrantReadWriteLock();
     private volatile boolean shutdown = false;
 
     private ScheduledExecutorService maintenanceExecutor;
@@ -47,22 +76,43 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
     private volatile boolean circuitOpen = false;
     private final int circuitBreakerThreshold;
     private final Duration circuitBreakerTimeout;
-    private Instant circuitOpenTime;
+    private volatile Instant circuitOpenTime;
+
+    public ConnectionPool(int maxConnections, Duration maxIdleTime, Duration healthCheckInterval,
+                          ConnectionFactory connectionFactory) {
+        this(maxConnections, maxIdleTime, healthCheckInterval, DEFAULT_ACQUIRE_TIMEOUT,
+             10, Duration.ofSeconds(30), connectionFactory);
+    }
 
-    public ConnectionPool(int maxConnections, Duration maxIdleTime, Duration healthCheckInterval) {
+    /**
+     * @param acquireTimeout          how long {@link #acquireConnection()} waits when the pool is exhausted
+     * @param circuitBreakerThreshold consecutive connection failures that open the circuit
+     * @param circuitBreakerTimeout   how long the circuit stays open
+     */
+    public ConnectionPool(int maxConnections, Duration maxIdleTime, Duration healthCheckInterval,
+                          Duration acquireTimeout, int circuitBreakerThreshold, Duration circuitBreakerTimeout,
+                          ConnectionFactory connectionFactory) {
         this.maxConnections = Math.max(1, maxConnections);
         this.maxIdleTime = maxIdleTime;
         this.healthCheckInterval = healthCheckInterval;
-        this.availableConnections = new LinkedBlockingQueue<>(this.maxConnections);
-        this.circuitBreakerThreshold = 10; // Open circuit after 10 consecutive failures
-        this.circuitBreakerTimeout = Duration.ofSeconds(30); // Open for 30 seconds
+        this.acquireTimeout = acquireTimeout;
+        this.circuitBreakerThreshold = Math.max(1, circuitBreakerThreshold);
+        this.circuitBreakerTimeout = circuitBreakerTimeout;
+        this.connectionFactory = connectionFactory;
+
+        int slots = 1;
+        while (slots < Math.min(this.maxConnections, MAX_AFFINITY_SLOTS)) {
+            slots <<= 1;
+        }
+        this.affinitySlots = new AtomicReferenceArray<>(slots);
+        this.affinityMask = slots - 1;
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
         startMaintenanceTasks();
-        logger.info("ConnectionPool initialized: maxConnections={}, maxIdleTime={}, healthCheckInterval={}",
-                   maxConnections, maxIdleTime, healthCheckInterval);
+        logger.info("ConnectionPool initialized: maxConnections={}, maxIdleTime={}, healthCheckInterval={}, acquireTimeout={}",
+                   maxConnections, maxIdleTime, healthCheckInterval, acquireTimeout);
     }
 
     @Override
@@ -86,83 +136,81 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
             }
         }
 
-        // Close all connections
-        poolLock.writeLock().lock();
-        try {
-            PooledConnection connection;
-            while ((connection = availableConnections.poll()) != null) {
-                closeConnection(connection);
+        // Close idle connections now; borrowed ones are closed when they are returned
+        for (PoolEntry entry : allEntries) {
+            if (entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+                idleConnections.decrementAndGet();
+                discard(entry);
             }
-        } finally {
-            poolLock.writeLock().unlock();
         }
 
-        logger.info("ConnectionPool shutdown complete. Total connections created: {}", totalConnectionsCreated.get());
+        logger.info("ConnectionPool shutdown complete. Connections still borrowed: {}", activeConnections.get());
     }
 
     /**
-     * Acquires a connection from the pool.
+     * Acquires a connection from the pool, waiting up to the configured acquire timeout.
      *
      * @return a PooledConnection
      * @throws InterruptedException if the thread is interrupted while waiting
      */
     public PooledConnection acquireConnection() throws InterruptedException {
-        if (shutdown) {
-            throw new IllegalStateException("ConnectionPool is shutdown");
-        }
+        return acquireConnection(acquireTimeout);
+    }
+
+    /**
+     * Acquires a connection from the pool.
+     *
+     * @param timeout how long to wait when every connection is borrowed and the pool is at capacity
+     * @return a PooledConnection
+     * @throws InterruptedException    if the thread is interrupted while waiting
+     * @throws ConnectionPoolException if the circuit is open, a connection cannot be opened, or the wait times out
+     */
+    public PooledConnection acquireConnection(Duration timeout) throws InterruptedException {
+        ensureOpen();
 
         // Check circuit breaker
         if (isCircuitOpen()) {
             throw new ConnectionPoolException("Circuit breaker is open due to recent failures", null);
         }
 
-        // Try to get from pool first
-        PooledConnection connection = availableConnections.poll();
-        if (connection != null) {
-            // Check if connection is still healthy
-            if (connection.isHealthy()) {
-                activeConnections.incrementAndGet();
-                connection.borrowed();
-                logger.debug("Acquired reusable connection: {}", connection.getId());
-                return connection;
-            } else {
-                closeConnection(connection);
-                totalConnectionsCreated.decrementAndGet();
-            }
-        }
+        totalAcquires.increment();
 
-        // Create new connection if we haven't reached max
-        int currentTotal = totalConnectionsCreated.get();
-        int currentActive = activeConnections.get();
+        PoolEntry entry = pollIdle();
+        if (entry == null) {
+            entry = tryCreate();
+        }
+        if (entry != null) {
+            return entry;
+        }
 
-        if (currentTotal < maxConnections && currentActive < maxConnections) {
-            try {
-                PooledConnection newConnection = createNewConnection();
-                activeConnections.incrementAndGet();
-                totalConnectionsCreated.incrementAndGet();
+        // Pool is exhausted, wait for a connection to be handed over or for capacity to free up
+        long deadline = System.nanoTime() + timeout.toNanos();
+        waitingAcquires.incrementAndGet();
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    acquireTimeouts.increment();
+                    throw new ConnectionPoolException("Timed out after " + timeout.toMillis()
+                            + "ms waiting for a connection, pool size " + maxConnections);
+                }
 
-                connection = availableConnections.offer(newConnection) ? availableConnections.poll() : newConnection;
-                connection.borrowed();
+                PoolEntry handed = handoffQueue.poll(Math.min(remaining, HANDOFF_POLL_NANOS), TimeUnit.NANOSECONDS);
+                if (handed != null && claim(handed)) {
+                    return handed;
+                }
 
-                logger.debug("Created and acquired new connection: {}", connection.getId());
-                return connection;
-            } catch (Exception e) {
-                handleConnectionFailure();
-                throw new ConnectionPoolException("Failed to create new connection", e);
+                ensureOpen();
+                entry = pollIdle();
+                if (entry == null) {
+                    entry = tryCreate();
+                }
+                if (entry != null) {
+                    return entry;
+                }
             }
-        }
-
-        // Pool is exhausted, wait for a connection to become available
-        connection = availableConnections.take(); // This will block
-        if (connection.isHealthy()) {
-            activeConnections.incrementAndGet();
-            connection.borrowed();
-            logger.debug("Acquired connection from blocking queue: {}", connection.getId());
-            return connection;
-        } else {
-            closeConnection(connection);
-            totalConnectionsCreated.decrementAndGet();
-            throw new ConnectionPoolException("Unhealthy connection returned from pool", null);
+        } finally {
+            waitingAcquires.decrementAndGet();
         }
     }
 
@@ -170,104 +218,94 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
      * Returns a connection to the pool.
      *
      * @param connection the connection to return
-     * @throws IllegalArgumentException if the connection is null or invalid
      */
     public void returnConnection(PooledConnection connection) {
-        if (connection == null || shutdown) {
+        if (connection == null) {
+            return;
+        }
+        if (!(connection instanceof PoolEntry entry) || entry.pool() != this) {
+            logger.warn("Ignoring connection not owned by this pool: {}", connection.getId());
             return;
         }
 
-        connection.returned();
+        entry.returned();
 
-        if (!connection.isHealthy()) {
-            logger.debug("Discarding unhealthy connection: {}", connection.getId());
-            closeConnection(connection);
-            activeConnections.decrementAndGet();
-            totalConnectionsCreated.decrementAndGet();
+        if (shutdown || !entry.connection.isHealthy()) {
+            if (entry.state.compareAndSet(IN_USE, REMOVED)) {
+                logger.debug("Discarding connection on return: {}", entry.getId());
+                activeConnections.decrementAndGet();
+                discard(entry);
+            }
             return;
         }
 
-        // Check if we're over capacity
-        if (totalConnectionsCreated.get() > maxConnections) {
-            logger.debug("Pool over capacity, discarding connection: {}", connection.getId());
-            closeConnection(connection);
-            activeConnections.decrementAndGet();
-            totalConnectionsCreated.decrementAndGet();
+        if (!entry.state.compareAndSet(IN_USE, NOT_IN_USE)) {
+            logger.warn("Connection returned twice: {}", entry.getId());
             return;
         }
+        activeConnections.decrementAndGet();
+        idleConnections.incrementAndGet();
+        entry.lastReturnedNanos = System.nanoTime();
 
-        try {
-            boolean offered = availableConnections.offer(connection);
-            if (offered) {
-                activeConnections.decrementAndGet();
-                logger.debug("Returned connection to pool: {}", connection.getId());
-            } else {
-                // Should not happen if pool is sized correctly
-                closeConnection(connection);
-                activeConnections.decrementAndGet();
-                logger.warn("Pool full, discarding connection: {}", connection.getId());
-            }
-        } catch (Exception e) {
-            logger.error("Error returning connection to pool: {}", connection.getId(), e);
-            closeConnection(connection);
-            activeConnections.decrementAndGet();
+        // A waiting acquirer takes priority; offer() only succeeds if one is polling right now
+        if (waitingAcquires.get() > 0 && handoffQueue.offer(entry)) {
+            return;
+        }
+        if (!affinitySlots.compareAndSet(affinityIndex(), null, entry)) {
+            idleStack.offerFirst(entry);
         }
+        logger.debug("Returned connection to pool: {}", entry.getId());
     }
 
     /**
      * Gets snapshot statistics about the connection pool.
      */
     public ConnectionPoolStats getStats() {
-        poolLock.readLock().lock();
-        try {
-            return new ConnectionPoolStats(
-                    maxConnections,
-                    activeConnections.get(),
-                    availableConnections.size(),
-                    totalConnectionsCreated.get(),
-                    consecutiveFailures.get(),
-                    circuitOpen,
-                    circuitOpenTime,
-                    !shutdown
-            );
-        } finally {
-            poolLock.readLock().unlock();
-        }
+        return new ConnectionPoolStats(
+                maxConnections,
+                activeConnections.get(),
+                idleConnections.get(),
+                totalConnections.get(),
+                consecutiveFailures.get(),
+                circuitOpen,
+                circuitOpenTime,
+                !shutdown,
+                waitingAcquires.get(),
+                totalAcquires.sum(),
+                affinityHits.sum(),
+                acquireTimeouts.sum(),
+                evictedConnections.sum()
+        );
     }
 
     /**
-     * Performs health check on all connections in the pool.
+     * Evicts idle connections that exceeded the maximum idle time or report themselves unhealthy.
      */
     public void performHealthCheck() {
         if (shutdown) {
             return;
         }
 
-        List<PooledConnection> allConnections = new ArrayList<>();
-        availableConnections.drainTo(allConnections);
+        long idleLimitNanos = maxIdleTime.toNanos();
+        long now = System.nanoTime();
+        int evicted = 0;
 
-        boolean foundUnhealthy = false;
-        List<PooledConnection> healthyConnections = new ArrayList<>();
-
-        for (PooledConnection connection : allConnections) {
-            if (connection.isHealthy()) {
-                healthyConnections.add(connection);
-            } else {
-                foundUnhealthy = true;
-                logger.debug("Found unhealthy connection: {}", connection.getId());
-                closeConnection(connection);
-                totalConnectionsCreated.decrementAndGet();
+        for (PoolEntry entry : allEntries) {
+            if (entry.state.get() != NOT_IN_USE) {
+                continue;
+            }
+            boolean expired = now - entry.lastReturnedNanos > idleLimitNanos;
+            if ((expired || !entry.connection.isHealthy()) && entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+                // References left in slots or on the stack fail their CAS and are skipped
+                idleConnections.decrementAndGet();
+                discard(entry);
+                evicted++;
             }
         }
 
-        // Return healthy connections back to pool
-        for (PooledConnection connection : healthyConnections) {
-            availableConnections.offer(connection);
-        }
-
-        if (foundUnhealthy) {
-            logger.info("Health check completed - removed {} unhealthy connections",
-                       allConnections.size() - healthyConnections.size());
+        if (evicted > 0) {
+            evictedConnections.add(evicted);
+            logger.info("Health check completed - evicted {} idle or unhealthy connections", evicted);
         }
     }
 
@@ -281,72 +319,99 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
         logger.info("Circuit breaker reset");
     }
 
-    private PooledConnection createNewConnection() throws Exception {
-        logger.debug("Creating new RocketMQ connection for pool");
-
-        // This is a placeholder for actual RocketMQ connection creation
-        // In a real implementation, this would create actual RocketMQ producer/consumer connections
-        String connectionId = "conn-" + System.currentTimeMillis() + "-" + totalConnectionsCreated.incrementAndGet();
-
-        // Mock connection for demonstration purposes
-        PooledConnection connection = new PooledConnection() {
-            private volatile boolean healthy = true;
-            private volatile boolean borrowed = false;
-            private Instant lastUsed = Instant.now();
-            private Instant created = Instant.now();
-            private final String id = connectionId;
-
-            @Override
-            public String getId() {
-                return id;
-            }
+    private void ensureOpen() {
+        if (shutdown) {
+            throw new IllegalStateException("ConnectionPool is shutdown");
+        }
+    }
 
-            @Override
-            public boolean isHealthy() {
-                // Simple health check - in real implementation this would ping the broker
-                if (!healthy || borrowed) {
-                    return healthy;
-                }
+    /**
+     * Takes an idle connection: own affinity slot first, then the shared stack, then other threads' slots.
+     */
+    private PoolEntry pollIdle() {
+        int home = affinityIndex();
+        PoolEntry entry = affinitySlots.getAndSet(home, null);
+        if (entry != null && claim(entry)) {
+            affinityHits.increment();
+            return entry;
+        }
 
-                // Check idle timeout
-                return Instant.now().minus(maxIdleTime).isBefore(lastUsed);
+        while ((entry = idleStack.pollFirst()) != null) {
+            if (claim(entry)) {
+                return entry;
             }
+        }
 
-            @Override
-            public void close() {
-                healthy = false;
-                logger.debug("Closing connection: {}", getId());
+        for (int i = 0; i <= affinityMask; i++) {
+            if (i == home) {
+                continue;
             }
-
-            @Override
-            public boolean isBorrowed() {
-                return borrowed;
+            entry = affinitySlots.get(i);
+            if (entry != null && affinitySlots.compareAndSet(i, entry, null) && claim(entry)) {
+                return entry;
             }
+        }
+        return null;
+    }
 
-            @Override
-            public void borrowed() {
-                this.borrowed = true;
-                this.lastUsed = Instant.now();
-            }
+    /**
+     * Claims an idle connection for the caller. Unhealthy connections are discarded instead.
+     */
+    private boolean claim(PoolEntry entry) {
+        if (!entry.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+            return false;
+        }
+        idleConnections.decrementAndGet();
+        if (!entry.connection.isHealthy()) {
+            entry.state.set(REMOVED);
+            discard(entry);
+            return false;
+        }
+        activeConnections.incrementAndGet();
+        entry.borrowed();
+        return true;
+    }
 
-            @Override
-            public void returned() {
-                this.borrowed = false;
-                this.lastUsed = Instant.now();
+    /**
+     * Opens a new connection if the pool is below capacity.
+     *
+     * @return the new, already borrowed connection, or {@code null} if the pool is full
+     */
+    private PoolEntry tryCreate() {
+        int total;
+        do {
+            total = totalConnections.get();
+            if (total >= maxConnections) {
+                return null;
             }
+        } while (!totalConnections.compareAndSet(total, total + 1));
 
-            @Override
-            public Instant getCreated() {
-                return created;
-            }
+        String id = "conn-" + connectionSequence.incrementAndGet();
+        try {
+            PoolEntry entry = new PoolEntry(connectionFactory.create(id));
+            consecutiveFailures.set(0);
+            allEntries.add(entry);
+            activeConnections.incrementAndGet();
+            entry.borrowed();
+            logger.debug("Created and acquired new connection: {}", id);
+            return entry;
+        } catch (Exception e) {
+            totalConnections.decrementAndGet();
+            handleConnectionFailure();
+            throw new ConnectionPoolException("Failed to create new connection", e);
+        }
+    }
 
-            @Override
-            public Instant getLastUsed() {
-                return lastUsed;
-            }
-        };
+    private void discard(PoolEntry entry) {
+        allEntries.remove(entry);
+        totalConnections.decrementAndGet();
+        closeConnection(entry.connection);
+    }
 
-        return connection;
+    private int affinityIndex() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & affinityMask;
     }
 
     private void closeConnection(PooledConnection connection) {
@@ -395,8 +460,9 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
     }
 
     private void checkCircuitBreaker() {
-        if (circuitOpen && circuitOpenTime != null) {
-            Duration timeOpen = Duration.between(circuitOpenTime, Instant.now());
+        Instant openedAt = circuitOpenTime;
+        if (circuitOpen && openedAt != null) {
+            Duration timeOpen = Duration.between(openedAt, Instant.now());
             if (timeOpen.compareTo(circuitBreakerTimeout) >= 0) {
                 resetCircuitBreaker();
             }
@@ -408,8 +474,9 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
             return false;
         }
 
-        if (circuitOpenTime != null) {
-            Duration timeOpen = Duration.between(circuitOpenTime, Instant.now());
+        Instant openedAt = circuitOpenTime;
+        if (openedAt != null) {
+            Duration timeOpen = Duration.between(openedAt, Instant.now());
             if (timeOpen.compareTo(circuitBreakerTimeout) >= 0) {
                 resetCircuitBreaker();
                 return false;
@@ -419,6 +486,72 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
         return true;
     }
 
+    /**
+     * Pool-side view of a connection: the state word that acquire, release and eviction race on.
+     * Callers receive the entry itself and reach the physical connection through {@link #unwrap(Class)}.
+     */
+    private final class PoolEntry implements PooledConnection {
+        private final PooledConnection connection;
+        private final AtomicInteger state = new AtomicInteger(IN_USE);
+        private volatile long lastReturnedNanos = System.nanoTime();
+
+        PoolEntry(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        ConnectionPool pool() {
+            return ConnectionPool.this;
+        }
+
+        @Override
+        public String getId() {
+            return connection.getId();
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return state.get() != REMOVED && connection.isHealthy();
+        }
+
+        /**
+         * Closes the physical connection; the pool discards the entry when it is returned.
+         */
+        @Override
+        public void close() {
+            connection.close();
+        }
+
+        @Override
+        public boolean isBorrowed() {
+            return state.get() == IN_USE;
+        }
+
+        @Override
+        public void borrowed() {
+            connection.borrowed();
+        }
+
+        @Override
+        public void returned() {
+            connection.returned();
+        }
+
+        @Override
+        public Instant getCreated() {
+            return connection.getCreated();
+        }
+
+        @Override
+        public Instant getLastUsed() {
+            return connection.getLastUsed();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            return type.isInstance(this) ? type.cast(this) : connection.unwrap(type);
+        }
+    }
+
     /**
      * Thread factory for pool maintenance threads.
      */
@@ -445,4 +578,4 @@ public class ConnectionPool implements InitializingBean, DisposableBean {
             super(message, cause);
         }
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,11 @@ public class ConnectionPoolStats {
     private final boolean circuitOpen;
     private final Instant circuitOpenTime;
     private final boolean healthy;
+    private final int waitingAcquires;
+    private final long totalAcquires;
+    private final long affinityHits;
+    private final long acquireTimeouts;
+    private final long evictedConnections;
 
     public ConnectionPoolStats(int maxConnections,
                               int activeConnections,
@@ -26,6 +31,23 @@ public class ConnectionPoolStats {
                               boolean circuitOpen,
                               Instant circuitOpenTime,
                               boolean healthy) {
+        this(maxConnections, activeConnections, availableConnections, totalConnectionsCreated,
+             consecutiveFailures, circuitOpen, circuitOpenTime, healthy, 0, 0, 0, 0, 0);
+    }
+
+    public ConnectionPoolStats(int maxConnections,
+                              int activeConnections,
+                              int availableConnections,
+                              int totalConnectionsCreated,
+                              int consecutiveFailures,
+                              boolean circuitOpen,
+                              Instant circuitOpenTime,
+                              boolean healthy,
+                              int waitingAcquires,
+                              long totalAcquires,
+                              long affinityHits,
+                              long acquireTimeouts,
+                              long evictedConnections) {
         this.maxConnections = maxConnections;
         this.activeConnections = activeConnections;
         this.availableConnections = availableConnections;
@@ -34,6 +56,11 @@ public class ConnectionPoolStats {
         this.circuitOpen = circuitOpen;
         this.circuitOpenTime = circuitOpenTime;
         this.healthy = healthy;
+        this.waitingAcquires = waitingAcquires;
+        this.totalAcquires = totalAcquires;
+        this.affinityHits = affinityHits;
+        this.acquireTimeouts = acquireTimeouts;
+        this.evictedConnections = evictedConnections;
     }
 
     /**
@@ -58,7 +85,7 @@ public class ConnectionPoolStats {
     }
 
     /**
-     * Gets the total number of connections created since pool initialization.
+     * Gets the number of connections currently open, borrowed or idle.
      */
     public int getTotalConnectionsCreated() {
         return totalConnectionsCreated;
@@ -92,6 +119,41 @@ public class ConnectionPoolStats {
         return healthy;
     }
 
+    /**
+     * Gets the number of callers currently waiting for a connection.
+     */
+    public int getWaitingAcquires() {
+        return waitingAcquires;
+    }
+
+    /**
+     * Gets the total number of acquire calls since pool initialization.
+     */
+    public long getTotalAcquires() {
+        return totalAcquires;
+    }
+
+    /**
+     * Gets the number of acquires served from the calling thread's affinity slot.
+     */
+    public long getAffinityHits() {
+        return affinityHits;
+    }
+
+    /**
+     * Gets the number of acquires that timed out waiting for a connection.
+     */
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    /**
+     * Gets the number of connections evicted for idleness or failed health checks.
+     */
+    public long getEvictedConnections() {
+        return evictedConnections;
+    }
+
     /**
      * Gets the connection pool utilization percentage (0-100).
      */
@@ -123,6 +185,11 @@ public class ConnectionPoolStats {
                 .add("circuitOpen=" + circuitOpen)
                 .add("circuitOpenTime=" + circuitOpenTime)
                 .add("healthy=" + healthy)
+                .add("waitingAcquires=" + waitingAcquires)
+                .add("totalAcquires=" + totalAcquires)
+                .add("affinityHits=" + affinityHits)
+                .add("acquireTimeouts=" + acquireTimeouts)
+                .add("evictedConnections=" + evictedConnections)
                 .add("utilization=" + String.format("%.1f%%", getUtilizationPercentage()))
                 .add("availability=" + String.format("%.1f%%", getAvailabilityPercentage()))
                 .toString();
@@ -0,0 +1,383 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.monitoring.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashed timing wheel for large numbers of short-lived timeouts.
+ * Scheduling and cancellation are O(1): callers only enqueue onto lock-free queues, and a single worker thread
+ * moves new timeouts into their bucket, unlinks cancelled ones and expires a whole bucket per tick. Expiry
+ * precision is bounded by the tick duration; the observed lag between deadline and execution is recorded.
+ * Tasks run on the worker thread and must be short and non-blocking.
+ */
+public class HashedTimingWheel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    // Bound the work done per tick so a burst of inserts cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime;
+    private final Thread workerThread;
+
+    private final Queue<WheelTimeout> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+    private final LongAdder expiredTimeouts = new LongAdder();
+    private final LongAdder cancelledTimeouts = new LongAdder();
+    private final LatencyHistogram expiryLag = new LatencyHistogram();
+
+    private volatile boolean running = true;
+
+    // Owned by the worker thread
+    private long tick;
+
+    /**
+     * @param tickDuration  timer resolution
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param threadName    name of the worker thread
+     */
+    public HashedTimingWheel(Duration tickDuration, int ticksPerWheel, String threadName) {
+        if (tickDuration.toNanos() <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("Ticks per wheel must be in (0, 2^30]: " + ticksPerWheel);
+        }
+
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.startTime = System.nanoTime();
+
+        this.workerThread = new Thread(this::runWorker, threadName);
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+        logger.info("Timing wheel started: tick={}, buckets={}", tickDuration, size);
+    }
+
+    /**
+     * Schedules {@code task} to run once after {@code delay}.
+     *
+     * @return handle that can cancel the timeout before it fires
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel has been stopped");
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startTime;
+        if (delay > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE; // overflow
+        }
+
+        WheelTimeout timeout = new WheelTimeout(this, task, deadline);
+        pendingTimeouts.incrementAndGet();
+        pendingInserts.add(timeout);
+        return timeout;
+    }
+
+    public Timeout newTimeout(Runnable task, Duration delay) {
+        return newTimeout(task, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Number of scheduled timeouts that have neither fired nor been unlinked after cancellation.
+     */
+    public long getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    public long getExpiredTimeouts() {
+        return expiredTimeouts.sum();
+    }
+
+    public long getCancelledTimeouts() {
+        return cancelledTimeouts.sum();
+    }
+
+    /**
+     * Distribution of the delay between a timeout's deadline and the moment its task ran.
+     */
+    public LatencyHistogram.Snapshot getExpiryLag() {
+        return expiryLag.snapshot();
+    }
+
+    public int getBucketCount() {
+        return wheel.length;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Stops the worker thread. Timeouts that have not fired are discarded without running.
+     *
+     * @return number of discarded timeouts
+     */
+    public long stop() {
+        if (!running) {
+            return 0;
+        }
+        running = false;
+        workerThread.interrupt();
+        try {
+            workerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long discarded = pendingTimeouts.getAndSet(0);
+        pendingInserts.clear();
+        pendingCancels.clear();
+        logger.info("Timing wheel stopped: expired={}, cancelled={}, discarded={}",
+                expiredTimeouts.sum(), cancelledTimeouts.sum(), discarded);
+        return discarded;
+    }
+
+    private void runWorker() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                break;
+            }
+            Bucket bucket = wheel[(int) (tick & mask)];
+            processCancelledTimeouts();
+            transferTimeoutsToBuckets();
+            bucket.expireTimeouts(deadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleeps until the end of the current tick and returns its deadline relative to {@link #startTime},
+     * or -1 if the wheel was stopped.
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long currentTime = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - currentTime + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) {
+                return currentTime;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferTimeoutsToBuckets() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            WheelTimeout timeout = pendingInserts.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.state() == WheelTimeout.ST_CANCELLED) {
+                // Accounted for when the cancellation is processed
+                continue;
+            }
+
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // Deadlines already in the past go into the current bucket
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancelledTimeouts() {
+        WheelTimeout timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            timeout.unlink();
+        }
+    }
+
+    private void recordExpiry(WheelTimeout timeout) {
+        expiredTimeouts.increment();
+        expiryLag.record(System.nanoTime() - startTime - timeout.deadline);
+    }
+
+    /**
+     * Handle for a scheduled timeout.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels the timeout if it has not fired yet.
+         *
+         * @return true if this call cancelled it
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+
+        boolean isExpired();
+    }
+
+    private static final class WheelTimeout implements Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+        private final HashedTimingWheel timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = ST_INIT;
+
+        // Bucket linkage, owned by the worker thread
+        private long remainingRounds;
+        private boolean released;
+        private WheelTimeout next;
+        private WheelTimeout prev;
+        private Bucket bucket;
+
+        WheelTimeout(HashedTimingWheel timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        int state() {
+            return state;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            // Unlinked by the worker on its next tick so bucket lists stay single-threaded
+            timer.pendingCancels.add(this);
+            timer.cancelledTimeouts.increment();
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        void unlink() {
+            if (bucket != null) {
+                bucket.remove(this);
+            } else {
+                // Cancelled before it was transferred into a bucket, or already removed by expiry
+                release();
+            }
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                timer.pendingTimeouts.decrementAndGet();
+            }
+        }
+
+        void expire() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            timer.recordExpiry(this);
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.warn("Timeout task threw an exception", t);
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts hashed to the same wheel slot.
+     */
+    private final class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts(long deadline) {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    } else {
+                        // Placed in the wrong slot; cannot happen unless the deadline arithmetic is broken
+                        logger.error("Timeout deadline {} is after tick deadline {}", timeout.deadline, deadline);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(WheelTimeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            timeout.release();
+        }
+    }
+}
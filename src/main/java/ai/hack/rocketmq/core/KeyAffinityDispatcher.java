@@ -0,0 +1,162 @@
+package ai.hack.rocketmq.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs tasks serially per key while different keys run in parallel.
+ * Keys are hashed onto a fixed number of lanes; each lane is a lock-free queue drained by at most one task
+ * on the backing executor at a time, so tasks for the same key execute in submission order. Unrelated keys
+ * that share a lane are serialized with each other, which only costs parallelism, never ordering.
+ */
+public class KeyAffinityDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyAffinityDispatcher.class);
+
+    // Tasks run per drain turn before a busy lane yields its executor thread
+    private static final int DRAIN_BUDGET = 64;
+
+    private final Lane[] lanes;
+    private final int mask;
+    private final Executor executor;
+    private final LongAdder dispatchedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+
+    /**
+     * @param laneCount number of serial lanes, rounded up to a power of two
+     * @param executor  executor that drains the lanes, typically virtual-thread-per-task
+     */
+    public KeyAffinityDispatcher(int laneCount, Executor executor) {
+        if (laneCount <= 0 || laneCount > (1 << 16)) {
+            throw new IllegalArgumentException("Lane count must be in (0, 65536]: " + laneCount);
+        }
+        int size = 1;
+        while (size < laneCount) {
+            size <<= 1;
+        }
+        this.lanes = new Lane[size];
+        for (int i = 0; i < size; i++) {
+            lanes[i] = new Lane();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues {@code task} behind all earlier tasks dispatched with an equal key.
+     */
+    public void dispatch(Object key, Runnable task) {
+        Lane lane = lanes[laneIndex(key)];
+        lane.queue.offer(task);
+        lane.depth.incrementAndGet();
+        dispatchedTasks.increment();
+        lane.schedule();
+    }
+
+    int laneIndex(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Number of tasks queued or running on one lane.
+     */
+    public int getLaneDepth(int lane) {
+        return lanes[lane].depth.get();
+    }
+
+    /**
+     * Total tasks queued or running across all lanes.
+     */
+    public long getQueuedTasks() {
+        long total = 0;
+        for (Lane lane : lanes) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+
+    public int getMaxLaneDepth() {
+        int max = 0;
+        for (Lane lane : lanes) {
+            max = Math.max(max, lane.depth.get());
+        }
+        return max;
+    }
+
+    /**
+     * Number of lanes currently holding work.
+     */
+    public int getBusyLanes() {
+        int busy = 0;
+        for (Lane lane : lanes) {
+            if (lane.depth.get() > 0) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    public long getDispatchedTasks() {
+        return dispatchedTasks.sum();
+    }
+
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+
+    /**
+     * Serial lane: a lock-free queue plus a flag ensuring only one drainer runs at a time.
+     */
+    private final class Lane implements Runnable {
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BUDGET; i++) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failedTasks.increment();
+                    logger.error("Dispatched task failed", t);
+                } finally {
+                    depth.decrementAndGet();
+                }
+            }
+
+            scheduled.set(false);
+            // A task offered after the last poll but before the flag was cleared would otherwise be stranded
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
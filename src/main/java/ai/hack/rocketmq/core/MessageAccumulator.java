@@ -0,0 +1,209 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.monitoring.MetricsCollector;
+import ai.hack.rocketmq.result.SendResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Per-topic accumulator for the producer auto-batching mode.
+ * Single sends are buffered per topic and handed to the batch engine when either the message count,
+ * the byte threshold or the linger time of the oldest buffered message is reached.
+ * The flusher sleeps until the earliest linger deadline and parks while every buffer is empty, so an idle
+ * producer does not wake it; the first append to an empty buffer unparks it.
+ */
+class MessageAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageAccumulator.class);
+
+    private final long lingerNanos;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final MetricsCollector metricsCollector;
+    private final Consumer<List<MessagePublisher.BatchEntry>> batchSender;
+    private final Map<String, TopicBuffer> buffers = new ConcurrentHashMap<>();
+    private final Thread flusher;
+
+    private volatile boolean closed = false;
+
+    MessageAccumulator(ClientConfiguration config, MetricsCollector metricsCollector,
+                       Consumer<List<MessagePublisher.BatchEntry>> batchSender) {
+        this.lingerNanos = config.getBatchLingerTime().toNanos();
+        this.maxMessages = config.getBatchMaxMessages();
+        this.maxBytes = Math.min(config.getBatchMaxBytes(), config.getMaxMessageSize());
+        this.metricsCollector = metricsCollector;
+        this.batchSender = batchSender;
+        this.flusher = new Thread(this::runFlusher, "rocketmq-accumulator-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    void start() {
+        flusher.start();
+        logger.info("Message accumulator started: linger={}us, maxMessages={}, maxBytes={}",
+                   TimeUnit.NANOSECONDS.toMicros(lingerNanos), maxMessages, maxBytes);
+    }
+
+    /**
+     * Appends a message to its topic buffer. The returned future completes once the batch carrying the
+     * message has been acknowledged by the broker.
+     */
+    CompletableFuture<SendResult> append(Message message) {
+        MessagePublisher.BatchEntry entry = new MessagePublisher.BatchEntry(message, new CompletableFuture<>());
+
+        if (closed) {
+            return rejectClosed(entry);
+        }
+
+        int size = message.getTotalSize();
+        TopicBuffer buffer = buffers.computeIfAbsent(message.getTopic(), topic -> new TopicBuffer());
+        List<MessagePublisher.BatchEntry> ready = null;
+        boolean wasEmpty;
+
+        synchronized (buffer) {
+            // close() drains every buffer once under its lock, so an entry added after that would never be sent
+            if (closed) {
+                return rejectClosed(entry);
+            }
+            wasEmpty = buffer.entries.isEmpty();
+            if (wasEmpty) {
+                buffer.firstAppendNanos = System.nanoTime();
+            }
+            buffer.entries.add(entry);
+            buffer.bytes += size;
+
+            if (buffer.entries.size() >= maxMessages || buffer.bytes >= maxBytes) {
+                ready = buffer.drain();
+            }
+        }
+
+        metricsCollector.addAccumulatorOccupancy(1, size);
+
+        if (ready != null) {
+            send(ready);
+        } else if (wasEmpty) {
+            // A new linger deadline exists; the flusher may be parked with no deadline at all
+            LockSupport.unpark(flusher);
+        }
+        return entry.future;
+    }
+
+    /**
+     * Flushes every buffered message regardless of linger time and stops the flusher.
+     */
+    void close() {
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (TopicBuffer buffer : buffers.values()) {
+            List<MessagePublisher.BatchEntry> remaining;
+            synchronized (buffer) {
+                remaining = buffer.drain();
+            }
+            if (!remaining.isEmpty()) {
+                send(remaining);
+            }
+        }
+        logger.info("Message accumulator closed");
+    }
+
+    private CompletableFuture<SendResult> rejectClosed(MessagePublisher.BatchEntry entry) {
+        entry.future.complete(SendResult.failure(entry.message.getMessageId(), entry.message.getTopic(),
+                "Publisher is shutting down"));
+        return entry.future;
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            long wait = flushExpired();
+            if (closed) {
+                return;
+            }
+            // An append that makes a buffer non-empty after the scan leaves a permit, so parking cannot miss it
+            if (wait == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * Sends every buffer whose linger time has elapsed.
+     *
+     * @return nanoseconds until the earliest remaining linger deadline, or {@link Long#MAX_VALUE} if every
+     *         buffer is empty
+     */
+    private long flushExpired() {
+        long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+
+        try {
+            for (TopicBuffer buffer : buffers.values()) {
+                List<MessagePublisher.BatchEntry> ready = null;
+                synchronized (buffer) {
+                    if (!buffer.entries.isEmpty()) {
+                        long remaining = buffer.firstAppendNanos + lingerNanos - now;
+                        if (remaining <= 0) {
+                            ready = buffer.drain();
+                        } else {
+                            wait = Math.min(wait, remaining);
+                        }
+                    }
+                }
+                if (ready != null) {
+                    send(ready);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error while flushing lingering batches", e);
+            // Retry shortly rather than parking with messages possibly still buffered
+            wait = Math.min(wait, Math.max(lingerNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        return wait;
+    }
+
+    private void send(List<MessagePublisher.BatchEntry> batch) {
+        long bytes = 0;
+        for (MessagePublisher.BatchEntry entry : batch) {
+            bytes += entry.message.getTotalSize();
+        }
+        metricsCollector.addAccumulatorOccupancy(-batch.size(), -bytes);
+        metricsCollector.recordBatchFlush(batch.size());
+
+        logger.debug("Flushing accumulated batch: topic={}, messages={}, bytes={}",
+                   batch.get(0).message.getTopic(), batch.size(), bytes);
+        batchSender.accept(batch);
+    }
+
+    /**
+     * Buffered messages of a single topic, guarded by the buffer's monitor.
+     */
+    private static final class TopicBuffer {
+        private List<MessagePublisher.BatchEntry> entries = new ArrayList<>();
+        private long bytes;
+        private long firstAppendNanos;
+
+        private List<MessagePublisher.BatchEntry> drain() {
+            List<MessagePublisher.BatchEntry> drained = entries;
+            entries = new ArrayList<>();
+            bytes = 0;
+            return drained;
+        }
+    }
+}
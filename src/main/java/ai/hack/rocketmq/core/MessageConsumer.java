@@ -1,15 +1,19 @@
 package ai.hack.rocketmq.core;
 
+import ai.hack.rocketmq.callback.BatchMessageCallback;
 import ai.hack.rocketmq.callback.MessageCallback;
 import ai.hack.rocketmq.callback.MessageProcessingResult;
+import ai.hack.rocketmq.compression.PayloadCompressor;
 import ai.hack.rocketmq.config.ClientConfiguration;
 import ai.hack.rocketmq.exception.RocketMQException;
 import ai.hack.rocketmq.model.Message;
 import ai.hack.rocketmq.model.MessageStatus;
 import ai.hack.rocketmq.monitoring.MetricsCollector;
-import ai.hack.rocketmq.persistence.H2MetadataStore;
+import ai.hack.rocketmq.persistence.MetadataStore;
 import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
 import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyContext;
 import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
 import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
 import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
@@ -20,18 +24,19 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -48,34 +53,50 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
     private final ClientConfiguration config;
     private final ConnectionManager connectionManager;
     private final MetricsCollector metricsCollector;
-    private final H2MetadataStore metadataStore;
+    private final MetadataStore metadataStore;
     private final MessagePublisher messagePublisher;
 
     private DefaultMQPushConsumer consumer;
     private final Map<String, MessageCallback> subscribedTopics;
+    private final Map<String, BatchMessageCallback> batchSubscribedTopics;
     private final ExecutorService callbackExecutor;
     private final ExecutorService virtualThreadExecutor;
-    private final Semaphore processingLimiter;
+    private final KeyAffinityDispatcher orderedDispatcher;
+    private final AdaptiveConcurrencyLimiter processingLimiter;
+    private final PayloadCompressor compressor;
     private final ConcurrentLinkedQueue<CompletableFuture<Void>> processingOperations;
     private final AtomicInteger messageIdSequence = new AtomicInteger(0);
 
     private final AtomicBoolean consuming = new AtomicBoolean(false);
     private final AtomicBoolean paused = new AtomicBoolean(false);
     private final AtomicInteger activeProcessingOperations = new AtomicInteger(0);
-    private volatile boolean backpressureActive = false;
 
     public MessageConsumer(ClientConfiguration config, ConnectionManager connectionManager,
-                          MetricsCollector metricsCollector, H2MetadataStore metadataStore,
+                          MetricsCollector metricsCollector, MetadataStore metadataStore,
                           MessagePublisher messagePublisher) {
+        this(config, connectionManager, metricsCollector, metadataStore, messagePublisher, null);
+    }
+
+    /**
+     * @param consumer push consumer to configure and consume through, or {@code null} to create one from {@code config}
+     */
+    MessageConsumer(ClientConfiguration config, ConnectionManager connectionManager,
+                    MetricsCollector metricsCollector, MetadataStore metadataStore,
+                    MessagePublisher messagePublisher, DefaultMQPushConsumer consumer) {
         this.config = config;
+        this.consumer = consumer;
         this.connectionManager = connectionManager;
         this.metricsCollector = metricsCollector;
         this.metadataStore = metadataStore;
         this.messagePublisher = messagePublisher;
         this.subscribedTopics = new ConcurrentHashMap<>();
+        this.batchSubscribedTopics = new ConcurrentHashMap<>();
         this.callbackExecutor = createCallbackExecutor();
         this.virtualThreadExecutor = createVirtualThreadExecutor();
-        this.processingLimiter = new Semaphore(Math.max(50, config.getMaxConcurrentOperations() / 2));
+        this.orderedDispatcher = new KeyAffinityDispatcher(config.getOrderedDispatchLanes(), virtualThreadExecutor);
+        this.processingLimiter = AdaptiveConcurrencyLimiter.fromConfig("Consumer",
+                config, Math.max(50, config.getMaxConcurrentOperations() / 2));
+        this.compressor = PayloadCompressor.fromConfig(config);
         this.processingOperations = new ConcurrentLinkedQueue<>();
     }
 
@@ -190,15 +211,40 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
                     "Message callback cannot be null");
         }
 
+        subscribeTopic(topic, callback.getClass().getSimpleName(), () -> {
+            batchSubscribedTopics.remove(topic);
+            subscribedTopics.put(topic, callback);
+        });
+    }
+
+    /**
+     * Subscribe to a topic with a callback that receives whole batches.
+     * Replaces any per-message callback registered for the same topic.
+     */
+    public void subscribeBatch(String topic, BatchMessageCallback callback) throws RocketMQException {
+        validateTopic(topic);
+
+        if (callback == null) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.INVALID_MESSAGE,
+                    "Batch message callback cannot be null");
+        }
+
+        subscribeTopic(topic, callback.getClass().getSimpleName(), () -> {
+            subscribedTopics.remove(topic);
+            batchSubscribedTopics.put(topic, callback);
+        });
+    }
+
+    private void subscribeTopic(String topic, String callbackName, Runnable register) throws RocketMQException {
         try {
             if (consumer == null) {
                 initializeConsumer();
             }
 
             consumer.subscribe(topic, "*"); // Subscribe to all tags initially
-            subscribedTopics.put(topic, callback);
+            register.run();
 
-            logger.info("Subscribed to topic: {} with callback: {}", topic, callback.getClass().getSimpleName());
+            logger.info("Subscribed to topic: {} with callback: {}", topic, callbackName);
 
             if (!consuming.get()) {
                 start();
@@ -220,7 +266,8 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
             }
 
             MessageCallback removedCallback = subscribedTopics.remove(topic);
-            if (removedCallback != null) {
+            BatchMessageCallback removedBatchCallback = batchSubscribedTopics.remove(topic);
+            if (removedCallback != null || removedBatchCallback != null) {
                 logger.info("Unsubscribed from topic: {}", topic);
             }
 
@@ -250,7 +297,9 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
      * Gets the set of currently subscribed topics.
      */
     public Set<String> getSubscribedTopics() {
-        return Set.copyOf(subscribedTopics.keySet());
+        Set<String> topics = new HashSet<>(subscribedTopics.keySet());
+        topics.addAll(batchSubscribedTopics.keySet());
+        return Set.copyOf(topics);
     }
 
     /**
@@ -267,36 +316,60 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
         return paused.get();
     }
 
+    /**
+     * Gets payload decompression statistics for received messages.
+     */
+    public PayloadCompressor.CompressionStats getCompressionStats() {
+        return compressor.getStats();
+    }
+
     /**
      * Gets consumer statistics with concurrency and backpressure metrics.
      */
     public ConsumerStats getStats() {
         return new ConsumerStats(
-                subscribedTopics.size(),
+                subscribedTopics.size() + batchSubscribedTopics.size(),
                 metricsCollector.getMessagesReceived(),
                 metricsCollector.getMessagesFailed(),
                 metricsCollector.getAverageLatencyMs(),
                 activeProcessingOperations.get(),
                 processingOperations.size(),
-                processingLimiter.availablePermits(),
-                backpressureActive,
+                processingLimiter.getAvailablePermits(),
+                processingLimiter.isBackpressureActive(),
                 consuming.get(),
-                paused.get()
+                paused.get(),
+                orderedDispatcher.getQueuedTasks(),
+                orderedDispatcher.getMaxLaneDepth(),
+                orderedDispatcher.getBusyLanes(),
+                orderedDispatcher.getLaneCount(),
+                processingLimiter.getLimit(),
+                processingLimiter.getRejected()
         );
     }
 
     private void initializeConsumer() throws RocketMQException {
         try {
-            consumer = new DefaultMQPushConsumer(config.getConsumerGroup());
+            if (consumer == null) {
+                consumer = new DefaultMQPushConsumer(config.getConsumerGroup());
+            }
             consumer.setNamesrvAddr(config.getNamesrvAddr());
             consumer.setConsumeThreadMax(config.getMaxConsumeThreads());
             consumer.setConsumeThreadMin(Math.max(1, config.getMaxConsumeThreads() / 2));
             consumer.setConsumeTimeout((int) config.getSendTimeout().toSeconds());
             consumer.setMaxReconsumeTimes(config.getRetryTimes());
 
-            // Message listener registration temporarily commented due to API compatibility
-            // TODO: Fix RocketMQ consumer API compatibility
-            logger.info("Message listener registration skipped - API compatibility issues");
+            consumer.setConsumeMessageBatchMaxSize(config.getConsumeBatchMaxSize());
+            consumer.setPullBatchSize(config.getPullBatchSize());
+            consumer.setPullInterval(config.getPullInterval().toMillis());
+
+            if (config.isOrderedProcessing()) {
+                consumer.registerMessageListener((MessageListenerOrderly) this::handleMessageListOrderly);
+            } else {
+                consumer.registerMessageListener((MessageListenerConcurrently) this::handleMessageListConcurrently);
+            }
+            logger.info("Message listener registered: ordered={}, consumeBatch={}, pullBatch={}, pullInterval={}",
+                       config.isOrderedProcessing(), config.getConsumeBatchMaxSize(),
+                       config.getPullBatchSize(), config.getPullInterval());
 
         } catch (Exception e) {
             throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.INTERNAL_ERROR,
@@ -304,232 +377,406 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
         }
     }
 
-    private ConsumeConcurrentlyStatus handleMessageListConcurrently(List<MessageExt> rocketMQMessages) {
+    /**
+     * Processes a pulled batch in parallel and acknowledges it so that only the failed messages are consumed again.
+     * See {@link #settleConcurrentBatch} for how failures are handed back to the broker.
+     */
+    private ConsumeConcurrentlyStatus handleMessageListConcurrently(List<MessageExt> rocketMQMessages,
+                                                                    ConsumeConcurrentlyContext context) {
         logger.debug("Received {} messages concurrently", rocketMQMessages.size());
 
-        for (MessageExt rocketMQMessage : rocketMQMessages) {
+        int permits = acquireBatchPermits(rocketMQMessages.size());
+        if (permits == 0) {
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+        long startTime = System.nanoTime();
+
+        try {
+            BatchMessageCallback batchCallback = batchSubscribedTopics.get(rocketMQMessages.get(0).getTopic());
+            boolean[] processed = batchCallback != null
+                    ? processWithBatchCallback(rocketMQMessages, batchCallback)
+                    : processBatch(rocketMQMessages);
+            return settleConcurrentBatch(rocketMQMessages, processed, context);
+        } finally {
+            processingLimiter.release(permits, System.nanoTime() - startTime, false);
+        }
+    }
+
+    /**
+     * Acknowledges a processed batch so that only its failed messages are consumed again.
+     * Failed messages are sent back to the broker's retry queue individually; if that is not possible the
+     * longest successful prefix is acknowledged and the remainder is redelivered as a whole.
+     */
+    private ConsumeConcurrentlyStatus settleConcurrentBatch(List<MessageExt> rocketMQMessages, boolean[] processed,
+                                                            ConsumeConcurrentlyContext context) {
+        int failed = 0;
+        int firstFailure = -1;
+        for (int i = 0; i < processed.length; i++) {
+            if (!processed[i]) {
+                failed++;
+                if (firstFailure < 0) {
+                    firstFailure = i;
+                }
+            }
+        }
+
+        if (failed == 0) {
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        }
+        if (failed == processed.length) {
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+
+        String brokerName = context.getMessageQueue() != null ? context.getMessageQueue().getBrokerName() : null;
+        for (int i = firstFailure; i < processed.length; i++) {
+            if (processed[i]) {
+                continue;
+            }
+            MessageExt rocketMQMessage = rocketMQMessages.get(i);
             try {
-                boolean processed = processMessage(rocketMQMessage);
-                if (!processed) {
+                consumer.sendMessageBack(rocketMQMessage, context.getDelayLevelWhenNextConsume(), brokerName);
+            } catch (Exception e) {
+                logger.warn("Failed to send message back for retry: {}, redelivering from index {}",
+                           rocketMQMessage.getMsgId(), i, e);
+                // Everything from here on is redelivered, including messages that were already sent back
+                if (i == 0) {
                     return ConsumeConcurrentlyStatus.RECONSUME_LATER;
                 }
-            } catch (Exception e) {
-                logger.error("Error processing message: {}", rocketMQMessage.getMsgId(), e);
-                return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+                context.setAckIndex(i - 1);
+                return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
             }
         }
 
+        logger.debug("Sent {} of {} messages back for retry", failed, processed.length);
         return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
     }
 
-    private ConsumeOrderlyStatus handleMessageListOrderly(List<MessageExt> rocketMQMessages) {
+    /**
+     * Processes a batch in per-key order, suspending the queue if any message fails.
+     * Messages are fanned out to key-affinity lanes so different order keys run in parallel while each key keeps
+     * FIFO order. Orderly consumption has no ack index, so the whole batch is redelivered after a suspension.
+     */
+    private ConsumeOrderlyStatus handleMessageListOrderly(List<MessageExt> rocketMQMessages,
+                                                          ConsumeOrderlyContext context) {
         logger.debug("Received {} messages orderly", rocketMQMessages.size());
 
-        for (MessageExt rocketMQMessage : rocketMQMessages) {
-            try {
-                boolean processed = processMessage(rocketMQMessage);
+        int permits = acquireBatchPermits(rocketMQMessages.size());
+        if (permits == 0) {
+            return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+        }
+        long startTime = System.nanoTime();
+
+        try {
+            BatchMessageCallback batchCallback = batchSubscribedTopics.get(rocketMQMessages.get(0).getTopic());
+            if (batchCallback != null) {
+                for (boolean processed : processWithBatchCallback(rocketMQMessages, batchCallback)) {
+                    if (!processed) {
+                        return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+                    }
+                }
+                return ConsumeOrderlyStatus.SUCCESS;
+            }
+
+            for (boolean processed : processOrderedBatch(rocketMQMessages)) {
                 if (!processed) {
                     return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
                 }
-            } catch (Exception e) {
-                logger.error("Error processing message orderly: {}", rocketMQMessage.getMsgId(), e);
-                return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
             }
+            return ConsumeOrderlyStatus.SUCCESS;
+        } finally {
+            processingLimiter.release(permits, System.nanoTime() - startTime, false);
+        }
+    }
+
+    /**
+     * Reserves processing capacity for a batch, waiting up to the send timeout.
+     *
+     * @return number of permits acquired, or 0 if the batch should be redelivered later
+     */
+    private int acquireBatchPermits(int batchSize) {
+        if (paused.get() || !consuming.get()) {
+            // Batches still delivered while stopping are redelivered instead of running against a closed executor
+            logger.debug("Message processing paused or stopped, requeuing {} messages", batchSize);
+            return 0;
+        }
+
+        // A batch larger than the current limit takes the whole limit rather than waiting forever
+        int permits = Math.min(batchSize, processingLimiter.getLimit());
+        try {
+            if (processingLimiter.tryAcquire(permits, config.getSendTimeout())) {
+                return permits;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
         }
 
-        return ConsumeOrderlyStatus.SUCCESS; // Using SUCCESS instead
+        logger.debug("Processing limit {} reached, applying backpressure to {} messages",
+                   processingLimiter.getLimit(), batchSize);
+        metricsCollector.addCustomCounter("consumer_backpressure_events", 1);
+        return 0;
     }
 
-    private boolean processMessage(MessageExt rocketMQMessage) {
-        if (paused.get()) {
-            logger.debug("Message processing paused, requeuing message: {}", rocketMQMessage.getMsgId());
-            return false; // Will re-consume later
+    /**
+     * Runs the callbacks of a batch concurrently on virtual threads and waits for all of them.
+     *
+     * @return per-message success flags, in batch order
+     */
+    private boolean[] processBatch(List<MessageExt> rocketMQMessages) {
+        int size = rocketMQMessages.size();
+        boolean[] processed = new boolean[size];
+        if (size == 1) {
+            processed[0] = processMessage(rocketMQMessages.get(0));
+            return processed;
+        }
+
+        CompletableFuture<Void> batchFuture = new CompletableFuture<>();
+        processingOperations.offer(batchFuture);
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[size];
+            for (int i = 0; i < size; i++) {
+                int index = i;
+                MessageExt rocketMQMessage = rocketMQMessages.get(i);
+                try {
+                    futures[i] = CompletableFuture.runAsync(
+                            () -> processed[index] = processMessage(rocketMQMessage), virtualThreadExecutor);
+                } catch (RejectedExecutionException e) {
+                    logger.error("Executor saturated, rejecting message: {}", rocketMQMessage.getMsgId(), e);
+                    metricsCollector.addCustomCounter("consumer_backpressure_events", 1);
+                    futures[i] = CompletableFuture.completedFuture(null);
+                }
+            }
+
+            // Completion of every future happens-before join returns, so the flags are visible here
+            CompletableFuture.allOf(futures).join();
+            return processed;
+        } finally {
+            processingOperations.remove(batchFuture);
+            batchFuture.complete(null);
+        }
+    }
+
+    /**
+     * Dispatches a batch onto the key-affinity lanes and waits for it to finish.
+     * Once a message fails, later messages with the same order key are skipped so they are redelivered behind it.
+     *
+     * @return per-message success flags, in batch order
+     */
+    private boolean[] processOrderedBatch(List<MessageExt> rocketMQMessages) {
+        int size = rocketMQMessages.size();
+        boolean[] processed = new boolean[size];
+        if (size == 1) {
+            processed[0] = processMessage(rocketMQMessages.get(0));
+            return processed;
         }
 
-        // Check backpressure
-        if (isBackpressureActive()) {
-            logger.debug("Backpressure active, rejecting message for now: {}", rocketMQMessage.getMsgId());
-            return false; // Will re-consume later
+        CountDownLatch done = new CountDownLatch(size);
+        Set<String> failedKeys = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            MessageExt rocketMQMessage = rocketMQMessages.get(i);
+            String orderKey = extractOrderKey(rocketMQMessage);
+            try {
+                orderedDispatcher.dispatch(orderKey, () -> {
+                    try {
+                        if (!failedKeys.contains(orderKey)) {
+                            processed[index] = processMessage(rocketMQMessage);
+                            if (!processed[index]) {
+                                failedKeys.add(orderKey);
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.error("Executor saturated, rejecting message: {}", rocketMQMessage.getMsgId(), e);
+                failedKeys.add(orderKey);
+                done.countDown();
+            }
+        }
+
+        try {
+            // Count-down happens-before await returns, so the flags written by lane threads are visible here
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new boolean[size];
+        }
+        return processed;
+    }
+
+    private String extractOrderKey(MessageExt rocketMQMessage) {
+        String orderKey = rocketMQMessage.getProperty("order-key");
+        if (orderKey == null || orderKey.isEmpty()) {
+            // Publisher falls back to the topic as sharding key when no order key was given
+            orderKey = rocketMQMessage.getProperty("__SHARDINGKEY");
         }
+        return orderKey != null ? orderKey : rocketMQMessage.getMsgId();
+    }
+
+    /**
+     * Hands a whole batch to a batch callback on the calling thread.
+     *
+     * @return per-message flags telling whether each message may be acknowledged, in batch order
+     */
+    private boolean[] processWithBatchCallback(List<MessageExt> rocketMQMessages, BatchMessageCallback callback) {
+        long startTime = System.nanoTime();
+        int size = rocketMQMessages.size();
+        boolean[] processed = new boolean[size];
+        List<Message> messages = new ArrayList<>(size);
+        long bytes = 0;
+
+        activeProcessingOperations.addAndGet(size);
+        try {
+            for (MessageExt rocketMQMessage : rocketMQMessages) {
+                Message message = MessageConverter.fromRocketMQMessage(rocketMQMessage, compressor);
+                messages.add(message);
+                int bodySize = bodySize(rocketMQMessage);
+                bytes += bodySize;
+                metricsCollector.recordTopicReceived(message.getTopic(), bodySize);
+                metadataStore.storeMessageMetadataAsync(
+                        rocketMQMessage.getMsgId(),
+                        rocketMQMessage.getTopic(),
+                        extractCallbackTopic(rocketMQMessage),
+                        MessageStatus.PROCESSING,
+                        rocketMQMessage.getReconsumeTimes(),
+                        extractPriority(rocketMQMessage)
+                );
+            }
+            metricsCollector.incrementMessagesReceived(size);
+            metricsCollector.addBytesReceived(bytes);
+
+            List<MessageProcessingResult> results = callback.processMessages(messages);
+            metricsCollector.recordConsumeLatency(System.nanoTime() - startTime);
+            if (results == null || results.size() != size) {
+                throw new IllegalStateException("Batch callback returned " + (results == null ? "no" : results.size())
+                        + " results for " + size + " messages");
+            }
 
-        // Check concurrency limit
-        if (!processingLimiter.tryAcquire()) {
-            logger.debug("Processing limit reached, applying backpressure: {}", rocketMQMessage.getMsgId());
-            activateBackpressure();
-            return false; // Will re-consume later
+            int failed = 0;
+            for (int i = 0; i < size; i++) {
+                MessageProcessingResult result = results.get(i);
+                String messageId = rocketMQMessages.get(i).getMsgId();
+                if (result != null && result.isSuccess()) {
+                    metadataStore.updateMessageStatusAsync(messageId, MessageStatus.COMMITTED, 0);
+                    if (result.getResponseMessage() != null) {
+                        handleResponseMessage(result.getResponseMessage(), rocketMQMessages.get(i));
+                    }
+                    processed[i] = true;
+                } else {
+                    failed++;
+                    metadataStore.updateMessageStatusAsync(messageId, MessageStatus.FAILED, 1);
+                    processed[i] = result != null && !result.isRetryable();
+                }
+            }
+
+            metricsCollector.addCustomCounter("messages_processed_successfully", size - failed);
+            if (failed > 0) {
+                metricsCollector.incrementMessagesFailed(failed);
+                metricsCollector.addCustomCounter("messages_processed_failed", failed);
+                logger.warn("Batch callback failed {} of {} messages on topic {}",
+                           failed, size, rocketMQMessages.get(0).getTopic());
+            }
+            return processed;
+
+        } catch (Exception e) {
+            metricsCollector.incrementMessagesFailed(size);
+            metricsCollector.addCustomCounter("messages_processed_exception", size);
+            metricsCollector.recordConsumeLatency(System.nanoTime() - startTime);
+            for (MessageExt rocketMQMessage : rocketMQMessages) {
+                try {
+                    metadataStore.updateMessageStatusAsync(rocketMQMessage.getMsgId(), MessageStatus.FAILED, 1);
+                } catch (Exception metadataEx) {
+                    logger.warn("Failed to update message status: {}", metadataEx.getMessage());
+                }
+            }
+            logger.error("Exception during batch processing of {} messages", size, e);
+            return new boolean[size]; // Request re-consumption of the whole batch
+        } finally {
+            activeProcessingOperations.addAndGet(-size);
         }
+    }
 
+    /**
+     * Processes one message on the calling thread.
+     *
+     * @return true if the message may be acknowledged, false if it should be redelivered
+     */
+    private boolean processMessage(MessageExt rocketMQMessage) {
         long startTime = System.nanoTime();
         String messageId = rocketMQMessage.getMsgId();
         String topic = rocketMQMessage.getTopic();
 
+        activeProcessingOperations.incrementAndGet();
         try {
             // Convert RocketMQ message to domain Message
-            Message message = convertFromRocketMQMessage(rocketMQMessage);
+            Message message = MessageConverter.fromRocketMQMessage(rocketMQMessage, compressor);
 
             // Find callback for this topic
             MessageCallback callback = subscribedTopics.get(topic);
             if (callback == null) {
                 logger.warn("No callback registered for topic: {}", topic);
-                processingLimiter.release();
                 return true; // Consider it processed to avoid endless loops
             }
 
             // Update message metadata
-            metadataStore.storeMessageMetadata(
+            metadataStore.storeMessageMetadataAsync(
                     messageId,
                     topic,
                     extractCallbackTopic(rocketMQMessage),
                     MessageStatus.PROCESSING,
-                    0,
+                    rocketMQMessage.getReconsumeTimes(),
                     extractPriority(rocketMQMessage)
             );
 
             metricsCollector.incrementMessagesReceived();
-            metricsCollector.addBytesReceived(message.getPayloadSize());
-
-            // Create processing future
-            CompletableFuture<Void> processingFuture = new CompletableFuture<>();
-            processingOperations.offer(processingFuture);
-            activeProcessingOperations.incrementAndGet();
-
-            // Process message asynchronously using virtual thread
-            CompletableFuture.runAsync(() -> {
-                try {
-                    logger.debug("Processing message with virtual thread: {}", messageId);
-
-                    MessageProcessingResult result = callback.processMessage(message);
-
-                    long processingTime = System.nanoTime() - startTime;
-                    metricsCollector.recordLatency(processingTime);
-
-                    if (result.isSuccess()) {
-                        metadataStore.updateMessageStatus(messageId, MessageStatus.COMMITTED, 0);
-                        metricsCollector.addCustomCounter("messages_processed_successfully", 1);
+            int bodySize = bodySize(rocketMQMessage);
+            metricsCollector.addBytesReceived(bodySize);
+            metricsCollector.recordTopicReceived(topic, bodySize);
 
-                        // Handle response if callback produced one
-                        if (result.getResponseMessage() != null) {
-                            handleResponseMessage(result.getResponseMessage(), rocketMQMessage);
-                        }
+            MessageProcessingResult result = callback.processMessage(message);
+            metricsCollector.recordConsumeLatency(System.nanoTime() - startTime);
 
-                        logger.debug("Message processed successfully: {}", messageId);
-                    } else {
-                        metadataStore.updateMessageStatus(messageId, MessageStatus.FAILED, 1);
-                        metricsCollector.addCustomCounter("messages_processed_failed", 1);
-                        logger.error("Message processing failed: {} - {}", messageId, result.getErrorMessage());
-                    }
+            if (result.isSuccess()) {
+                metadataStore.updateMessageStatusAsync(messageId, MessageStatus.COMMITTED, 0);
+                metricsCollector.addCustomCounter("messages_processed_successfully", 1);
 
-                } catch (Exception e) {
-                    metricsCollector.addCustomCounter("messages_processed_exception", 1);
-                    try {
-                        metadataStore.updateMessageStatus(messageId, MessageStatus.FAILED, 1);
-                    } catch (Exception metadataEx) {
-                        logger.warn("Failed to update message status: {}", metadataEx.getMessage());
-                    }
-                    logger.error("Exception during message processing: {}", messageId, e);
-                } finally {
-                    // Clean up resources
-                    processingLimiter.release();
-                    processingOperations.remove(processingFuture);
-
-                    int remaining = activeProcessingOperations.decrementAndGet();
-                    if (backpressureActive && remaining < config.getMaxConcurrentOperations() / 4) {
-                        deactivateBackpressure();
-                    }
-                }
-            }, virtualThreadExecutor).exceptionally(throwable -> {
-                // Handle virtual thread execution errors
-                logger.error("Virtual thread execution failed for message: {}", messageId, throwable);
-                metricsCollector.addCustomCounter("messages_processed_failed", 1);
-                try {
-                    metadataStore.updateMessageStatus(messageId, MessageStatus.FAILED, 1);
-                } catch (Exception metadataEx) {
-                    logger.warn("Failed to update message status in virtual thread: {}", metadataEx.getMessage());
+                // Handle response if callback produced one
+                if (result.getResponseMessage() != null) {
+                    handleResponseMessage(result.getResponseMessage(), rocketMQMessage);
                 }
 
-                // Clean up resources
-                processingLimiter.release();
-                processingOperations.remove(processingFuture);
-                activeProcessingOperations.decrementAndGet();
-                return null;
-            });
+                logger.debug("Message processed successfully: {}", messageId);
+                return true;
+            }
 
-            processingFuture.complete(null); // Mark as started
-            return true; // Accept the message for processing
+            metadataStore.updateMessageStatusAsync(messageId, MessageStatus.FAILED, 1);
+            metricsCollector.incrementMessagesFailed();
+            metricsCollector.addCustomCounter("messages_processed_failed", 1);
+            logger.error("Message processing failed: {} - {}", messageId, result.getErrorMessage());
+            return !result.isRetryable();
 
-        } catch (RejectedExecutionException e) {
-            processingLimiter.release();
-            logger.error("Thread pool saturated, rejecting message: {}", messageId, e);
-            activateBackpressure();
-            return false; // Request re-consumption
         } catch (Exception e) {
-            processingLimiter.release();
             metricsCollector.incrementMessagesFailed();
-            long processingTime = System.nanoTime() - startTime;
-            metricsCollector.recordLatency(processingTime);
-
-            logger.error("Failed to process message: {}", messageId, e);
+            metricsCollector.addCustomCounter("messages_processed_exception", 1);
+            metricsCollector.recordConsumeLatency(System.nanoTime() - startTime);
+            try {
+                metadataStore.updateMessageStatusAsync(messageId, MessageStatus.FAILED, 1);
+            } catch (Exception metadataEx) {
+                logger.warn("Failed to update message status: {}", metadataEx.getMessage());
+            }
+            logger.error("Exception during message processing: {}", messageId, e);
             return false; // Request re-consumption
+        } finally {
+            activeProcessingOperations.decrementAndGet();
         }
     }
 
-    private boolean isBackpressureActive() {
-        return backpressureActive || activeProcessingOperations.get() > config.getMaxConcurrentOperations() * 0.8;
-    }
-
-    private void activateBackpressure() {
-        if (!backpressureActive) {
-            backpressureActive = true;
-            logger.warn("Consumer backpressure activated - active processing: {}", activeProcessingOperations.get());
-            metricsCollector.addCustomCounter("consumer_backpressure_events", 1);
-        }
-    }
-
-    private void deactivateBackpressure() {
-        if (backpressureActive) {
-            backpressureActive = false;
-            logger.info("Consumer backpressure deactivated - active processing: {}", activeProcessingOperations.get());
-        }
-    }
-
-    private Message convertFromRocketMQMessage(MessageExt rocketMQMessage) {
-        // Extract callback topic from properties
-        String callbackTopic = rocketMQMessage.getProperty("callback-topic");
-
-        Message.Builder builder = Message.builder()
-                .messageId(rocketMQMessage.getMsgId())
-                .topic(rocketMQMessage.getTopic())
-                .payload(rocketMQMessage.getBody())
-                .timestamp(Instant.ofEpochMilli(rocketMQMessage.getBornTimestamp()));
-
-        if (callbackTopic != null && !callbackTopic.trim().isEmpty()) {
-            builder.callbackTopic(callbackTopic);
-        }
-
-        // Add all properties as headers
-        rocketMQMessage.getProperties().forEach((key, value) -> {
-            if (!key.equals("callback-topic") && !key.equals("priority")) {
-                builder.header(key, value);
-            }
-        });
-
-        // Add priority
-        String priorityStr = rocketMQMessage.getProperty("priority");
-        if (priorityStr != null) {
-            builder.priority(ai.hack.rocketmq.model.MessagePriority.valueOf(priorityStr));
-        }
-
-        // Add tags
-        if (rocketMQMessage.getTags() != null) {
-            String[] tags = rocketMQMessage.getTags().split(",");
-            for (String tag : tags) {
-                if (!tag.trim().isEmpty()) {
-                    builder.tag(tag.trim());
-                }
-            }
-        }
-
-        return builder.build();
+    // Bytes as received; reading the payload size would decode, and possibly decompress, the payload up front
+    private static int bodySize(MessageExt rocketMQMessage) {
+        byte[] body = rocketMQMessage.getBody();
+        return body != null ? body.length : 0;
     }
 
     private String extractCallbackTopic(MessageExt rocketMQMessage) {
@@ -594,10 +841,34 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
         private final boolean backpressureActive;
         private final boolean consuming;
         private final boolean paused;
+        private final long laneQueuedMessages;
+        private final int maxLaneDepth;
+        private final int busyLanes;
+        private final int laneCount;
+        private final int concurrencyLimit;
+        private final long rejectedByLimit;
 
         public ConsumerStats(int subscribedTopics, long messagesReceived, long messagesFailed,
                            double averageLatencyMs, int activeProcessingOperations, int pendingOperations,
                            int availablePermits, boolean backpressureActive, boolean consuming, boolean paused) {
+            this(subscribedTopics, messagesReceived, messagesFailed, averageLatencyMs, activeProcessingOperations,
+                 pendingOperations, availablePermits, backpressureActive, consuming, paused, 0, 0, 0, 0);
+        }
+
+        public ConsumerStats(int subscribedTopics, long messagesReceived, long messagesFailed,
+                           double averageLatencyMs, int activeProcessingOperations, int pendingOperations,
+                           int availablePermits, boolean backpressureActive, boolean consuming, boolean paused,
+                           long laneQueuedMessages, int maxLaneDepth, int busyLanes, int laneCount) {
+            this(subscribedTopics, messagesReceived, messagesFailed, averageLatencyMs, activeProcessingOperations,
+                 pendingOperations, availablePermits, backpressureActive, consuming, paused,
+                 laneQueuedMessages, maxLaneDepth, busyLanes, laneCount, 0, 0);
+        }
+
+        public ConsumerStats(int subscribedTopics, long messagesReceived, long messagesFailed,
+                           double averageLatencyMs, int activeProcessingOperations, int pendingOperations,
+                           int availablePermits, boolean backpressureActive, boolean consuming, boolean paused,
+                           long laneQueuedMessages, int maxLaneDepth, int busyLanes, int laneCount,
+                           int concurrencyLimit, long rejectedByLimit) {
             this.subscribedTopics = subscribedTopics;
             this.messagesReceived = messagesReceived;
             this.messagesFailed = messagesFailed;
@@ -608,6 +879,12 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
             this.backpressureActive = backpressureActive;
             this.consuming = consuming;
             this.paused = paused;
+            this.laneQueuedMessages = laneQueuedMessages;
+            this.maxLaneDepth = maxLaneDepth;
+            this.busyLanes = busyLanes;
+            this.laneCount = laneCount;
+            this.concurrencyLimit = concurrencyLimit;
+            this.rejectedByLimit = rejectedByLimit;
         }
 
         public int getSubscribedTopics() { return subscribedTopics; }
@@ -620,15 +897,24 @@ public class MessageConsumer implements InitializingBean, DisposableBean {
         public boolean isBackpressureActive() { return backpressureActive; }
         public boolean isConsuming() { return consuming; }
         public boolean isPaused() { return paused; }
+        public long getLaneQueuedMessages() { return laneQueuedMessages; }
+        public int getMaxLaneDepth() { return maxLaneDepth; }
+        public int getBusyLanes() { return busyLanes; }
+        public int getLaneCount() { return laneCount; }
+        public int getConcurrencyLimit() { return concurrencyLimit; }
+        public long getRejectedByLimit() { return rejectedByLimit; }
 
         @Override
         public String toString() {
             return String.format("ConsumerStats{topics=%d, received=%d, failed=%d, " +
                                "avgLatency=%.2fms, activeOps=%d, pending=%d, permits=%d, " +
-                               "backpressure=%s, consuming=%s, paused=%s}",
+                               "backpressure=%s, consuming=%s, paused=%s, laneQueued=%d, maxLaneDepth=%d, " +
+                               "busyLanes=%d/%d, limit=%d, rejected=%d}",
                                subscribedTopics, messagesReceived, messagesFailed,
                                averageLatencyMs, activeProcessingOperations, pendingOperations,
-                               availablePermits, backpressureActive, consuming, paused);
+                               availablePermits, backpressureActive, consuming, paused,
+                               laneQueuedMessages, maxLaneDepth, busyLanes, laneCount,
+                               concurrencyLimit, rejectedByLimit);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,253 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.compression.CompressionAlgorithm;
+import ai.hack.rocketmq.compression.PayloadCompressor;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageDecoder;
+import ai.hack.rocketmq.model.MessageHeaders;
+import ai.hack.rocketmq.model.MessageInternals;
+import ai.hack.rocketmq.model.MessagePriority;
+import ai.hack.rocketmq.model.Payload;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts client messages into RocketMQ messages on the publish path without copying their state,
+ * and wraps received RocketMQ messages in lazily decoded client messages.
+ * The payload array is handed to RocketMQ as is and headers and tags are read in place through
+ * {@link MessageInternals}. The property map is allocated once at its final size instead of growing from
+ * the default capacity, and every property key is a shared constant.
+ * A property map cannot be recycled, because RocketMQ keeps it until the asynchronous send completes.
+ * Payloads are compressed according to the {@link PayloadCompressor} policy, and the algorithm and original
+ * length are recorded in properties so that received payloads are restored on access.
+ */
+final class MessageConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageConverter.class);
+
+    static final String PROPERTY_CALLBACK_TOPIC = "callback-topic";
+    static final String PROPERTY_PRIORITY = "priority";
+    static final String PROPERTY_UNIQUE_ID = MessageHeaders.UNIQUE_ID;
+    static final String PROPERTY_SEND_TIME = MessageHeaders.SEND_TIME;
+    static final String PROPERTY_SHARDING_KEY = "__SHARDINGKEY";
+    // Reserved for the client: headers of these names are dropped on send, so they can never pose as compression
+    static final String PROPERTY_COMPRESSION = "__COMPRESSION";
+    static final String PROPERTY_UNCOMPRESSED_SIZE = "__UNCOMPRESSED_SIZE";
+
+    // Callback topic, priority, tags, unique id, send time, wait-store flag, sharding key and two compression fields
+    private static final int MAX_BUILT_IN_PROPERTIES = 9;
+
+    private static final String WAIT_STORE_MSG_OK = Boolean.toString(true);
+
+    // Received properties that are not user headers: the client's own envelope fields and RocketMQ system properties
+    private static final Set<String> NON_HEADER_PROPERTIES = nonHeaderProperties();
+
+    private final boolean orderedProcessing;
+    private final PayloadCompressor compressor;
+
+    MessageConverter(boolean orderedProcessing) {
+        this(orderedProcessing, null);
+    }
+
+    /**
+     * @param compressor compression policy for outgoing payloads, or {@code null} to send them as they are
+     */
+    MessageConverter(boolean orderedProcessing, PayloadCompressor compressor) {
+        this.orderedProcessing = orderedProcessing;
+        this.compressor = compressor;
+    }
+
+    /**
+     * Builds the RocketMQ message. The result shares the payload array with {@code message} unless the
+     * payload was compressed.
+     */
+    org.apache.rocketmq.common.message.Message toRocketMQMessage(Message message) {
+        MessageHeaders headers = MessageInternals.headers(message);
+        Set<String> tags = MessageInternals.tags(message);
+
+        int headerCount = headers.size();
+        Map<String, String> properties = new HashMap<>(capacityFor(headerCount + MAX_BUILT_IN_PROPERTIES));
+
+        // Headers first, so built-in properties win over headers of the same name
+        for (int i = 0; i < headerCount; i++) {
+            String key = headers.keyAt(i);
+            if (isReserved(key)) {
+                logger.debug("Dropping header '{}' of message {}: the name is reserved", key, message.getMessageId());
+                continue;
+            }
+            Object value = headers.valueAt(i);
+            properties.put(key, value instanceof String text ? text : String.valueOf(value));
+        }
+
+        String callbackTopic = message.getCallbackTopic();
+        if (callbackTopic != null && !callbackTopic.isBlank()) {
+            properties.put(PROPERTY_CALLBACK_TOPIC, callbackTopic);
+        }
+        if (message.getPriority() != null) {
+            properties.put(PROPERTY_PRIORITY, message.getPriority().name());
+        }
+        if (!tags.isEmpty()) {
+            properties.put(MessageConst.PROPERTY_TAGS, joinTags(tags));
+        }
+        properties.put(PROPERTY_UNIQUE_ID, message.getMessageId());
+        properties.put(PROPERTY_SEND_TIME, Long.toString(System.currentTimeMillis()));
+        properties.put(MessageConst.PROPERTY_WAIT_STORE_MSG_OK, WAIT_STORE_MSG_OK);
+
+        // Configure FIFO ordering if enabled
+        if (orderedProcessing) {
+            // Messages with the same topic and order key will be processed in order
+            Object orderKey = headers.get(MessageHeaders.ORDER_KEY);
+            String shardingKey = orderKey != null ? orderKey.toString() : null;
+            if (shardingKey != null && !shardingKey.isEmpty()) {
+                properties.put(PROPERTY_SHARDING_KEY, shardingKey);
+                logger.debug("FIFO ordering enabled with order key: {} for message: {}", shardingKey, message.getMessageId());
+            } else {
+                // Use topic name as default sharding key for topic-level ordering
+                properties.put(PROPERTY_SHARDING_KEY, message.getTopic());
+                logger.debug("FIFO ordering enabled with topic-level key for message: {}", message.getMessageId());
+            }
+        }
+
+        byte[] body = MessageInternals.payload(message);
+        if (compressor != null) {
+            PayloadCompressor.CompressedPayload compressed = compressor.compress(message.getTopic(), body);
+            if (compressed != null) {
+                body = compressed.getData();
+                properties.put(PROPERTY_COMPRESSION, compressed.getAlgorithm().wireName());
+                properties.put(PROPERTY_UNCOMPRESSED_SIZE, Integer.toString(compressed.getOriginalLength()));
+            }
+        }
+
+        // The no-arg constructor does not create a property map of its own
+        org.apache.rocketmq.common.message.Message rocketMQMessage = new org.apache.rocketmq.common.message.Message();
+        rocketMQMessage.setTopic(message.getTopic());
+        rocketMQMessage.setBody(body);
+        MessageAccessor.setProperties(rocketMQMessage, properties);
+        return rocketMQMessage;
+    }
+
+    /**
+     * Wraps a received message. Only id, topic, callback topic and timestamp are read here; payload, headers,
+     * tags and priority are decoded from {@code rocketMQMessage} when the handler first asks for them.
+     * A compressed payload is restored with {@code compressor} on first access.
+     */
+    static Message fromRocketMQMessage(MessageExt rocketMQMessage, PayloadCompressor compressor) {
+        String callbackTopic = rocketMQMessage.getProperty(PROPERTY_CALLBACK_TOPIC);
+        if (callbackTopic != null && callbackTopic.isBlank()) {
+            callbackTopic = null;
+        }
+        return Message.decodeLazily(rocketMQMessage.getMsgId(), rocketMQMessage.getTopic(), callbackTopic,
+                Instant.ofEpochMilli(rocketMQMessage.getBornTimestamp()), new ReceivedMessageDecoder(rocketMQMessage, compressor));
+    }
+
+    /**
+     * Exposes a received message's properties as headers without copying them.
+     * Callback topic, priority and RocketMQ system properties are left out; they are carried by message fields.
+     */
+    static MessageHeaders receivedHeaders(Map<String, String> properties) {
+        return MessageHeaders.view(properties, NON_HEADER_PROPERTIES::contains);
+    }
+
+    private static Set<String> nonHeaderProperties() {
+        Set<String> properties = new HashSet<>(MessageConst.STRING_HASH_SET);
+        properties.add(PROPERTY_CALLBACK_TOPIC);
+        properties.add(PROPERTY_PRIORITY);
+        properties.add(PROPERTY_COMPRESSION);
+        properties.add(PROPERTY_UNCOMPRESSED_SIZE);
+        return properties;
+    }
+
+    /**
+     * Whether {@code key} names a property only the client itself may write.
+     */
+    static boolean isReserved(String key) {
+        return PROPERTY_COMPRESSION.equals(key) || PROPERTY_UNCOMPRESSED_SIZE.equals(key);
+    }
+
+    private static String joinTags(Set<String> tags) {
+        if (tags.size() == 1) {
+            return tags.iterator().next();
+        }
+        return String.join(",", tags);
+    }
+
+    /**
+     * HashMap capacity that holds {@code entries} without resizing at the default load factor.
+     */
+    static int capacityFor(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
+    /**
+     * Decodes the parts of a received message from the RocketMQ message that carried it.
+     */
+    private static final class ReceivedMessageDecoder implements MessageDecoder {
+
+        private final MessageExt rocketMQMessage;
+        private final PayloadCompressor compressor;
+
+        ReceivedMessageDecoder(MessageExt rocketMQMessage, PayloadCompressor compressor) {
+            this.rocketMQMessage = rocketMQMessage;
+            this.compressor = compressor;
+        }
+
+        @Override
+        public Payload payload() {
+            byte[] body = rocketMQMessage.getBody();
+            if (body == null) {
+                return Payload.empty();
+            }
+            String algorithm = rocketMQMessage.getProperty(PROPERTY_COMPRESSION);
+            if (algorithm == null) {
+                return Payload.wrap(body);
+            }
+            try {
+                int originalLength = Integer.parseInt(rocketMQMessage.getProperty(PROPERTY_UNCOMPRESSED_SIZE));
+                return Payload.wrap(compressor.decompress(CompressionAlgorithm.fromWireName(algorithm), body, originalLength));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Cannot restore compressed payload of message " + rocketMQMessage.getMsgId(), e);
+            }
+        }
+
+        @Override
+        public MessageHeaders headers() {
+            return receivedHeaders(rocketMQMessage.getProperties());
+        }
+
+        @Override
+        public Set<String> tags() {
+            Set<String> tags = new HashSet<>();
+            String value = rocketMQMessage.getTags();
+            if (value != null) {
+                for (String tag : value.split(",")) {
+                    if (!tag.isBlank()) {
+                        tags.add(tag.trim());
+                    }
+                }
+            }
+            return tags;
+        }
+
+        @Override
+        public MessagePriority priority() {
+            String value = rocketMQMessage.getProperty(PROPERTY_PRIORITY);
+            if (value != null) {
+                try {
+                    return MessagePriority.valueOf(value);
+                } catch (IllegalArgumentException e) {
+                    logger.debug("Unknown priority '{}' on message {}, using NORMAL", value, rocketMQMessage.getMsgId());
+                }
+            }
+            return MessagePriority.NORMAL;
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package ai.hack.rocketmq.core;
 
+import ai.hack.rocketmq.compression.PayloadCompressor;
+import ai.hack.rocketmq.config.BackpressurePolicy;
 import ai.hack.rocketmq.config.ClientConfiguration;
 import ai.hack.rocketmq.exception.RocketMQException;
 import ai.hack.rocketmq.exception.TimeoutException;
 import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessagePriority;
 import ai.hack.rocketmq.monitoring.MetricsCollector;
 import ai.hack.rocketmq.persistence.RocksDBMessageStore;
+import ai.hack.rocketmq.result.BatchSendResult;
 import ai.hack.rocketmq.result.SendResult;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.client.producer.SendCallback;
-import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageClientIDSetter;
 import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.remoting.common.RemotingHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,16 +24,27 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * Handles asynchronous message publishing to RocketMQ topics with high-concurrency support.
@@ -39,30 +55,65 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(MessagePublisher.class);
 
+    // Per-message framing of a RocketMQ batch envelope: total size, magic, body CRC, flag, body length and
+    // properties length, as MessageDecoder.encodeMessage writes them
+    private static final int BATCH_ENTRY_OVERHEAD = 4 + 4 + 4 + 4 + 4 + 2;
+
+    // Publish queue routes are cached for the same period the client polls the NameServer
+    private static final long QUEUE_ROUTE_TTL_MILLIS = 30_000;
+
     private final ClientConfiguration config;
     private final ConnectionManager connectionManager;
     private final MetricsCollector metricsCollector;
     private final RocksDBMessageStore messageStore;
     private final ExecutorService callbackExecutor;
     private final ExecutorService virtualThreadExecutor;
-    private final Semaphore concurrencyLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
     private final ConcurrentLinkedQueue<CompletableFuture<SendResult>> pendingOperations;
-
-    private DefaultMQProducer producer;
+    private final Map<String, QueueRoute> queueRoutes = new ConcurrentHashMap<>();
+    private final MessageAccumulator accumulator;
+    private final PayloadCompressor compressor;
+    private final MessageConverter messageConverter;
+    private final boolean outboxEnabled;
+    private final BackpressurePolicy backpressurePolicy;
+    private final SendBacklog backlog;
+
+    private ProducerShards producerShards;
     private final AtomicInteger messageIdSequence = new AtomicInteger(0);
     private final AtomicInteger activeOperations = new AtomicInteger(0);
-    private volatile boolean backpressureActive = false;
 
     public MessagePublisher(ClientConfiguration config, ConnectionManager connectionManager,
                            MetricsCollector metricsCollector, RocksDBMessageStore messageStore) {
+        this(config, connectionManager, metricsCollector, messageStore, null);
+    }
+
+    /**
+     * @param producerShards producers to send through, or {@code null} to create them from {@code config} on start
+     */
+    MessagePublisher(ClientConfiguration config, ConnectionManager connectionManager,
+                     MetricsCollector metricsCollector, RocksDBMessageStore messageStore,
+                     ProducerShards producerShards) {
         this.config = config;
+        this.producerShards = producerShards;
         this.connectionManager = connectionManager;
         this.metricsCollector = metricsCollector;
         this.messageStore = messageStore;
         this.callbackExecutor = createCallbackExecutor();
         this.virtualThreadExecutor = createVirtualThreadExecutor();
-        this.concurrencyLimiter = new Semaphore(Math.max(100, config.getMaxConcurrentOperations()));
+        this.concurrencyLimiter = AdaptiveConcurrencyLimiter.fromConfig("Publisher",
+                config, Math.max(100, config.getMaxConcurrentOperations()));
         this.pendingOperations = new ConcurrentLinkedQueue<>();
+        this.accumulator = config.isAutoBatchEnabled()
+                ? new MessageAccumulator(config, metricsCollector, this::dispatchBatchAsync)
+                : null;
+        this.outboxEnabled = config.isOutboxEnabled() && messageStore != null;
+        this.compressor = PayloadCompressor.fromConfig(config);
+        this.messageConverter = new MessageConverter(config.isOrderedProcessing(), compressor);
+        this.backpressurePolicy = config.getBackpressurePolicy();
+        this.backlog = backpressurePolicy == BackpressurePolicy.QUEUE_BOUNDED
+                || backpressurePolicy == BackpressurePolicy.DROP_OLDEST_LOW_PRIORITY
+                ? new SendBacklog(config.getBackpressureQueueCapacity())
+                : null;
     }
 
     private ExecutorService createCallbackExecutor() {
@@ -92,6 +143,9 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
     @Override
     public void afterPropertiesSet() throws Exception {
         initializeProducer();
+        if (accumulator != null) {
+            accumulator.start();
+        }
         logger.info("MessagePublisher initialized successfully");
     }
 
@@ -99,8 +153,18 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
     public void destroy() throws Exception {
         logger.info("Shutting down MessagePublisher");
 
-        if (producer != null) {
-            producer.shutdown();
+        if (accumulator != null) {
+            accumulator.close();
+        }
+
+        if (backlog != null) {
+            for (SendBacklog.PendingSend send : backlog.clear()) {
+                failPending(send, "Publisher is shutting down");
+            }
+        }
+
+        if (producerShards != null) {
+            producerShards.shutdown();
         }
 
         callbackExecutor.shutdown();
@@ -131,191 +195,802 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
 
     /**
      * Sends a message asynchronously with high-concurrency optimization and backpressure control.
+     * When auto-batching is enabled the message is buffered in a per-topic accumulator and sent as part
+     * of a native batch once the size threshold or linger time is reached.
+     * When the outbox is enabled the message is persisted as PENDING before it is handed to the producer.
      * Provides comprehensive logging for observability and debugging.
      */
     public CompletableFuture<SendResult> sendMessageAsync(Message message) throws RocketMQException {
         validateMessage(message);
 
-        logger.debug("🚀 Sending async message: topic={}, size={}bytes, id={}, backpressure={}, activeOps={}",
+        if (outboxEnabled) {
+            return sendThroughOutbox(message);
+        }
+        return publishAsync(message);
+    }
+
+    /**
+     * Writes the message to the outbox and publishes it once the entry has been committed.
+     * The entry is moved to the message store on success and discarded when the caller receives a failure.
+     */
+    private CompletableFuture<SendResult> sendThroughOutbox(Message message) {
+        CompletableFuture<Void> persisted;
+        try {
+            persisted = messageStore.appendOutbox(List.of(message));
+        } catch (RocketMQException e) {
+            metricsCollector.incrementMessagesFailed();
+            return CompletableFuture.completedFuture(SendResult.failure(message.getMessageId(), message.getTopic(),
+                    "Failed to write outbox entry: " + e.getMessage()));
+        }
+
+        // Continue on a virtual thread so the group-commit writer never runs send logic
+        return persisted.handleAsync((ignored, error) -> error, virtualThreadExecutor)
+                .thenCompose(error -> {
+                    if (error != null) {
+                        logger.error("Failed to write outbox entry: {}", message.getMessageId(), error);
+                        metricsCollector.incrementMessagesFailed();
+                        return CompletableFuture.completedFuture(SendResult.failure(message.getMessageId(),
+                                message.getTopic(), "Failed to write outbox entry: " + error.getMessage()));
+                    }
+                    try {
+                        return publishAsync(message);
+                    } catch (RocketMQException e) {
+                        return CompletableFuture.completedFuture(SendResult.failure(message.getMessageId(),
+                                message.getTopic(), e.getMessage()));
+                    }
+                })
+                .whenComplete((result, error) -> settleOutbox(message, result, true));
+    }
+
+    private CompletableFuture<SendResult> publishAsync(Message message) throws RocketMQException {
+        if (accumulator != null) {
+            if (isLimitReached()) {
+                logger.warn("🚫 Backpressure active, rejecting message: topic={}, id={}, reason=system_overload",
+                           message.getTopic(), message.getMessageId());
+                metricsCollector.incrementBackpressureEvents();
+                return CompletableFuture.completedFuture(SendResult.failure(message.getMessageId(),
+                        message.getTopic(), "Request rejected due to backpressure"));
+            }
+            return accumulator.append(message);
+        }
+
+        logger.debug("🚀 Sending async message: topic={}, size={}bytes, id={}, limit={}, activeOps={}",
                    message.getTopic(), message.getPayloadSize(), message.getMessageId(),
-                   backpressureActive, activeOperations.get());
+                   concurrencyLimiter.getLimit(), activeOperations.get());
 
-        // Check backpressure
-        if (isBackpressureActive()) {
-            logger.warn("🚫 Backpressure active, rejecting message: topic={}, id={}, reason=system_overload",
-                       message.getTopic(), message.getMessageId());
-            CompletableFuture<SendResult> rejected = new CompletableFuture<>();
-            rejected.complete(SendResult.failure(message.getMessageId(), message.getTopic(),
-                    "Request rejected due to backpressure"));
-            return rejected;
+        if (backlog != null && backlog.size() > 0) {
+            // Queue behind sends already waiting for capacity instead of overtaking them
+            return enqueueForCapacity(message);
         }
 
-        try {
-            // Acquire concurrency permit (backpressure control)
-            if (!concurrencyLimiter.tryAcquire()) {
-                logger.warn("⚠️ Concurrency limit reached, applying backpressure: topic={}, id={}, limit={}, available={}",
-                           message.getTopic(), message.getMessageId(),
-                           config.getMaxConcurrentOperations(), concurrencyLimiter.availablePermits());
-                activateBackpressure();
-
-                CompletableFuture<SendResult> rejected = new CompletableFuture<>();
-                rejected.complete(SendResult.failure(message.getMessageId(), message.getTopic(),
-                        "Concurrency limit exceeded"));
-                return rejected;
+        // Acquire a permit under the adaptive in-flight limit (backpressure control)
+        if (!acquireSendPermit(message.getPriority())) {
+            if (backlog != null) {
+                return enqueueForCapacity(message);
             }
+            logger.warn("⚠️ Concurrency limit reached, applying backpressure: topic={}, id={}, limit={}, inflight={}",
+                       message.getTopic(), message.getMessageId(),
+                       concurrencyLimiter.getLimit(), concurrencyLimiter.getInflight());
+            metricsCollector.incrementBackpressureEvents();
 
+            return CompletableFuture.completedFuture(SendResult.failure(message.getMessageId(), message.getTopic(),
+                    backpressurePolicy == BackpressurePolicy.BLOCK_WITH_TIMEOUT
+                            ? "Timed out waiting for send capacity"
+                            : "Concurrency limit exceeded"));
+        }
+
+        try {
             CompletableFuture<SendResult> future = new CompletableFuture<>();
-            pendingOperations.offer(future);
-            activeOperations.incrementAndGet();
+            dispatchSend(message, future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            logger.error("Thread pool saturated, rejecting message: {}", message.getMessageId());
+            metricsCollector.incrementBackpressureEvents();
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.SYSTEM_OVERLOADED,
+                    "System under heavy load, please retry later", e);
+        } catch (Exception e) {
+            throw convertException(e);
+        }
+    }
 
-            logger.debug("📤 Message queued for async execution: topic={}, id={}, queueSize={}, pendingOps={}",
-                       message.getTopic(), message.getMessageId(), pendingOperations.size(), activeOperations.get());
+    /**
+     * Acquires a send permit within the share of the limit open to {@code priority}, parking the caller up to
+     * the configured wait under {@link BackpressurePolicy#BLOCK_WITH_TIMEOUT}.
+     */
+    private boolean acquireSendPermit(MessagePriority priority) {
+        double share = limitShare(priority);
+        if (backpressurePolicy != BackpressurePolicy.BLOCK_WITH_TIMEOUT) {
+            return concurrencyLimiter.tryAcquireWithin(1, share);
+        }
+        try {
+            return concurrencyLimiter.tryAcquireWithin(1, share, config.getBackpressureMaxWait());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * HIGH and CRITICAL sends may use the whole limit; other sends leave the reserved share to them.
+     */
+    private double limitShare(MessagePriority priority) {
+        return priority.isHigherThan(MessagePriority.NORMAL) ? 1.0 : 1.0 - config.getPriorityReservedShare();
+    }
+
+    /**
+     * Hands a message that holds a send permit to a producer shard on a virtual thread.
+     * If the executor rejects the task the permit is returned before the exception propagates.
+     */
+    private void dispatchSend(Message message, CompletableFuture<SendResult> future) {
+        pendingOperations.offer(future);
+        activeOperations.incrementAndGet();
+        // A producer may report a failure through the callback and then throw as well; only the first report counts
+        AtomicBoolean settled = new AtomicBoolean();
 
+        logger.debug("📤 Message queued for async execution: topic={}, id={}, queueSize={}, pendingOps={}",
+                   message.getTopic(), message.getMessageId(), pendingOperations.size(), activeOperations.get());
+
+        try {
             // Execute in virtual thread for high concurrency
             CompletableFuture.runAsync(() -> {
                 long startTime = System.nanoTime();
-                final PooledConnection[] connectionHolder = new PooledConnection[1];
 
+                org.apache.rocketmq.common.message.Message rocketMQMessage;
+                MessageQueue queue;
                 try {
-                    // Acquire pooled connection
-                    connectionHolder[0] = connectionManager.acquireConnection();
-
-                    // Convert to RocketMQ message
-                    org.apache.rocketmq.common.message.Message rocketMQMessage = convertToRocketMQMessage(message);
+                    rocketMQMessage = convertToRocketMQMessage(message);
+                    // Ordered sends target the queue of their order key, as batch envelopes do
+                    queue = config.isOrderedProcessing() ? selectQueue(rocketMQMessage) : null;
+                } catch (Exception e) {
+                    handleSendComplete(message, null, future, startTime, null, e, settled);
+                    return;
+                }
 
-                    // Send asynchronously with callback
-                    producer.send(rocketMQMessage, new SendCallback() {
+                // The producer multiplexes all sends over its channels, so no pooled connection is borrowed.
+                // A selected queue always maps to the same shard, which keeps sends of one order key in order
+                ProducerShards.Shard shard = producerShards.select(message.getTopic(), queue);
+                shard.begin();
+                try {
+                    SendCallback callback = new SendCallback() {
                         @Override
                         public void onSuccess(org.apache.rocketmq.client.producer.SendResult sendResult) {
-                            handleSendComplete(message, sendResult, future, startTime, connectionHolder[0], null);
+                            handleSendComplete(message, sendResult, future, startTime, shard, null, settled);
                         }
 
                         @Override
                         public void onException(Throwable e) {
-                            handleSendComplete(message, null, future, startTime, connectionHolder[0], e);
+                            handleSendComplete(message, null, future, startTime, shard, e, settled);
                         }
-                    });
+                    };
 
+                    if (queue != null) {
+                        shard.producer.send(rocketMQMessage, queue, callback);
+                    } else {
+                        shard.producer.send(rocketMQMessage, callback);
+                    }
                 } catch (Exception e) {
-                    handleSendComplete(message, null, future, startTime, connectionHolder[0], e);
+                    handleSendComplete(message, null, future, startTime, shard, e, settled);
                 }
             }, virtualThreadExecutor).exceptionally(throwable -> {
                 // Handle virtual thread execution errors
                 logger.error("Virtual thread execution failed for message: {}", message.getMessageId(), throwable);
-                handleSendComplete(message, null, future, System.nanoTime(), null, throwable);
+                handleSendComplete(message, null, future, System.nanoTime(), null, throwable, settled);
                 return null;
             });
+        } catch (RejectedExecutionException e) {
+            // Nothing was sent, so give the permit back without a latency sample
+            pendingOperations.remove(future);
+            activeOperations.decrementAndGet();
+            concurrencyLimiter.release(1);
+            throw e;
+        }
+    }
 
-            return future;
+    /**
+     * Holds a send in the backlog until a permit frees up. Returns at once; the send fails if the backlog
+     * is full, if it is evicted by a higher priority send, or if it waits longer than the configured wait.
+     */
+    private CompletableFuture<SendResult> enqueueForCapacity(Message message) {
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        SendBacklog.PendingSend send = new SendBacklog.PendingSend(message, future,
+                System.nanoTime() + config.getBackpressureMaxWait().toNanos());
+
+        SendBacklog.PendingSend dropped = backlog.offer(send,
+                backpressurePolicy == BackpressurePolicy.DROP_OLDEST_LOW_PRIORITY);
+        if (dropped != null) {
+            logger.warn("⚠️ Send backlog full, dropping message: topic={}, id={}, priority={}",
+                       dropped.message.getTopic(), dropped.message.getMessageId(), dropped.message.getPriority());
+            metricsCollector.incrementBackpressureEvents();
+            failPending(dropped, dropped == send ? "Send backlog full" : "Dropped from send backlog");
+        }
 
-        } catch (RejectedExecutionException e) {
-            logger.error("Thread pool saturated, rejecting message: {}", message.getMessageId());
-            activateBackpressure();
-            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.SYSTEM_OVERLOADED,
-                    "System under heavy load, please retry later", e);
+        // Capacity may have freed up while the send was being queued
+        drainBacklog();
+        return future;
+    }
+
+    /**
+     * Dispatches backlogged sends while permits are available, after failing those whose wait has expired.
+     * Once only the reserved share of the limit is left, only HIGH and CRITICAL sends are taken from the backlog.
+     */
+    private void drainBacklog() {
+        if (backlog == null || backlog.size() == 0) {
+            return;
+        }
+
+        for (SendBacklog.PendingSend expired : backlog.expire(System.nanoTime())) {
+            metricsCollector.incrementBackpressureEvents();
+            failPending(expired, "Timed out waiting for send capacity");
+        }
+
+        double normalShare = limitShare(MessagePriority.NORMAL);
+        while (backlog.size() > 0) {
+            MessagePriority floor;
+            if (concurrencyLimiter.tryReserve(1, normalShare)) {
+                floor = MessagePriority.LOW;
+            } else if (concurrencyLimiter.tryReserve(1, 1.0)) {
+                floor = MessagePriority.HIGH;
+            } else {
+                return;
+            }
+
+            SendBacklog.PendingSend next = backlog.poll(floor);
+            if (next == null) {
+                concurrencyLimiter.release(1);
+                return;
+            }
+            try {
+                dispatchSend(next.message, next.future);
+            } catch (RejectedExecutionException e) {
+                logger.error("Thread pool saturated, rejecting message: {}", next.message.getMessageId());
+                failPending(next, "System under heavy load, please retry later");
+            }
+        }
+    }
+
+    private void failPending(SendBacklog.PendingSend send, String errorMessage) {
+        SendResult result = SendResult.failure(send.message.getMessageId(), send.message.getTopic(), errorMessage);
+        callbackExecutor.execute(() -> send.future.complete(result));
+    }
+
+    /**
+     * Sends a list of messages using native RocketMQ batch envelopes.
+     * Messages are grouped by topic (and by target queue when ordered processing is enabled), split into
+     * envelopes bounded by {@link ClientConfiguration#getMaxMessageSize()}, and every envelope is sent with
+     * a single broker round-trip. Per-message results are returned in the same order as the input list.
+     */
+    public CompletableFuture<BatchSendResult> sendBatchAsync(List<Message> messages) throws RocketMQException {
+        if (messages == null || messages.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchSendResult(new ArrayList<>()));
+        }
+
+        for (Message message : messages) {
+            validateMessage(message);
+        }
+
+        List<BatchEntry> entries = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            entries.add(new BatchEntry(message, new CompletableFuture<>()));
+        }
+
+        logger.debug("📦 Sending batch: messages={}, limit={}, activeOps={}",
+                   entries.size(), concurrencyLimiter.getLimit(), activeOperations.get());
+
+        if (isLimitReached()) {
+            logger.warn("🚫 Backpressure active, rejecting batch of {} messages", entries.size());
+            metricsCollector.incrementBackpressureEvents();
+            failEntries(entries, "Request rejected due to backpressure");
+        } else if (outboxEnabled) {
+            for (BatchEntry entry : entries) {
+                entry.future.whenComplete((result, error) -> settleOutbox(entry.message, result, true));
+            }
+            messageStore.appendOutbox(messages).whenCompleteAsync((ignored, error) -> {
+                if (error != null) {
+                    logger.error("Failed to write outbox entries for batch of {} messages", entries.size(), error);
+                    metricsCollector.incrementMessagesFailed(entries.size());
+                    failEntries(entries, "Failed to write outbox entry: " + error.getMessage());
+                } else {
+                    dispatchBatch(entries);
+                }
+            }, virtualThreadExecutor);
+        } else {
+            try {
+                dispatchBatchAsync(entries);
+            } catch (RejectedExecutionException e) {
+                logger.error("Thread pool saturated, rejecting batch of {} messages", entries.size());
+                metricsCollector.incrementBackpressureEvents();
+                throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.SYSTEM_OVERLOADED,
+                        "System under heavy load, please retry later", e);
+            }
+        }
+
+        CompletableFuture<?>[] futures = entries.stream().map(entry -> entry.future).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            List<SendResult> results = new ArrayList<>(entries.size());
+            for (BatchEntry entry : entries) {
+                results.add(entry.future.join());
+            }
+            return new BatchSendResult(results);
+        });
+    }
+
+    /**
+     * Dispatches batch entries on a virtual thread so route lookups never block the caller or the flusher.
+     */
+    private void dispatchBatchAsync(List<BatchEntry> entries) {
+        CompletableFuture.runAsync(() -> dispatchBatch(entries), virtualThreadExecutor)
+                .exceptionally(throwable -> {
+                    logger.error("Virtual thread execution failed for batch of {} messages", entries.size(), throwable);
+                    failEntries(entries, convertException(throwable).getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Groups batch entries by topic/queue, splits them into size-bounded envelopes and sends each envelope.
+     */
+    private void dispatchBatch(List<BatchEntry> entries) {
+        Map<String, List<BatchEntry>> groups = new LinkedHashMap<>();
+
+        for (BatchEntry entry : entries) {
+            try {
+                entry.rocketMQMessage = convertToRocketMQMessage(entry.message);
+                // The producer assigns this id to every batched message that lacks one, so set it before sizing
+                MessageClientIDSetter.setUniqID(entry.rocketMQMessage);
+                entry.encodedSize = estimateEncodedSize(entry.rocketMQMessage);
+                entry.queue = config.isOrderedProcessing() ? selectQueue(entry.rocketMQMessage) : null;
+
+                String groupKey = entry.queue != null
+                        ? entry.queue.getTopic() + "@" + entry.queue.getBrokerName() + "#" + entry.queue.getQueueId()
+                        : entry.message.getTopic();
+                groups.computeIfAbsent(groupKey, k -> new ArrayList<>()).add(entry);
+            } catch (Exception e) {
+                logger.error("Failed to prepare batch message: {}", entry.message.getMessageId(), e);
+                metricsCollector.incrementMessagesFailed();
+                completeEntry(entry, SendResult.failure(entry.message.getMessageId(), entry.message.getTopic(),
+                        convertException(e).getMessage()));
+            }
+        }
+
+        for (List<BatchEntry> group : groups.values()) {
+            List<BatchEntry> envelope = new ArrayList<>();
+            long envelopeSize = 0;
+
+            for (BatchEntry entry : group) {
+                if (!envelope.isEmpty() && envelopeSize + entry.encodedSize > config.getMaxMessageSize()) {
+                    sendEnvelope(envelope, envelopeSize);
+                    envelope = new ArrayList<>();
+                    envelopeSize = 0;
+                }
+                envelope.add(entry);
+                envelopeSize += entry.encodedSize;
+            }
+
+            if (!envelope.isEmpty()) {
+                sendEnvelope(envelope, envelopeSize);
+            }
+        }
+    }
+
+    /**
+     * Sends one envelope of same-topic messages with a single producer call.
+     * The producer wraps the collection into a {@link org.apache.rocketmq.common.message.MessageBatch}.
+     */
+    private void sendEnvelope(List<BatchEntry> envelope, long envelopeSize) {
+        if (!concurrencyLimiter.tryAcquireWithin(1, limitShare(highestPriority(envelope)))) {
+            logger.warn("⚠️ Concurrency limit reached, rejecting envelope of {} messages, limit={}",
+                       envelope.size(), concurrencyLimiter.getLimit());
+            metricsCollector.incrementBackpressureEvents();
+            failEntries(envelope, "Concurrency limit exceeded");
+            return;
+        }
+
+        activeOperations.incrementAndGet();
+        long startTime = System.nanoTime();
+        MessageQueue queue = envelope.get(0).queue;
+        ProducerShards.Shard shard = producerShards.select(envelope.get(0).message.getTopic(), queue);
+        shard.begin();
+
+        try {
+            List<org.apache.rocketmq.common.message.Message> batch = new ArrayList<>(envelope.size());
+            for (BatchEntry entry : envelope) {
+                batch.add(entry.rocketMQMessage);
+            }
+
+            logger.debug("📤 Sending envelope: topic={}, messages={}, size={}bytes",
+                       envelope.get(0).message.getTopic(), envelope.size(), envelopeSize);
+
+            SendCallback callback = new SendCallback() {
+                @Override
+                public void onSuccess(org.apache.rocketmq.client.producer.SendResult sendResult) {
+                    handleEnvelopeComplete(envelope, sendResult, startTime, shard, null);
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    handleEnvelopeComplete(envelope, null, startTime, shard, e);
+                }
+            };
+
+            if (queue != null) {
+                shard.producer.send(batch, queue, callback);
+            } else {
+                shard.producer.send(batch, callback);
+            }
         } catch (Exception e) {
-            throw convertException(e);
+            handleEnvelopeComplete(envelope, null, startTime, shard, e);
+        }
+    }
+
+    private static MessagePriority highestPriority(List<BatchEntry> envelope) {
+        MessagePriority highest = MessagePriority.LOW;
+        for (BatchEntry entry : envelope) {
+            if (entry.message.getPriority().isHigherThan(highest)) {
+                highest = entry.message.getPriority();
+            }
+        }
+        return highest;
+    }
+
+    private void handleEnvelopeComplete(List<BatchEntry> envelope,
+                                        org.apache.rocketmq.client.producer.SendResult sendResult,
+                                        long startTime, ProducerShards.Shard shard, Throwable error) {
+        try {
+            long latency = System.nanoTime() - startTime;
+            metricsCollector.recordBrokerRoundTrip(latency);
+
+            if (error != null) {
+                metricsCollector.incrementMessagesFailed(envelope.size());
+                metricsCollector.recordTopicFailed(envelope.get(0).message.getTopic(), envelope.size());
+                logger.error("Batch envelope send failed: {} messages", envelope.size(), error);
+                for (BatchEntry entry : envelope) {
+                    completeEntry(entry, failureResult(entry.message, error));
+                }
+                return;
+            }
+
+            // Offsets of a batch are contiguous in the target queue, starting at the reported queue offset
+            MessageQueue queue = sendResult.getMessageQueue();
+            long baseOffset = sendResult.getQueueOffset();
+            Duration processingTime = Duration.ofNanos(latency);
+            long bytes = 0;
+
+            List<SendResult> results = new ArrayList<>(envelope.size());
+            for (int i = 0; i < envelope.size(); i++) {
+                Message message = envelope.get(i).message;
+                bytes += message.getPayloadSize();
+                results.add(SendResult.success(message.getMessageId(), queue.getTopic(), baseOffset + i,
+                        processingTime, queue.getBrokerName(), queue.getQueueId()));
+
+                persistSent(message);
+            }
+
+            metricsCollector.incrementMessagesSent(envelope.size());
+            metricsCollector.addBytesSent(bytes);
+            metricsCollector.recordTopicSent(queue.getTopic(), envelope.size(), bytes);
+            logger.debug("Batch envelope sent successfully: {} messages to {}", envelope.size(), queue);
+
+            callbackExecutor.execute(() -> {
+                for (int i = 0; i < envelope.size(); i++) {
+                    envelope.get(i).future.complete(results.get(i));
+                }
+            });
+        } finally {
+            shard.complete(envelope.size(), error == null);
+            concurrencyLimiter.release(1, System.nanoTime() - startTime, error != null);
+            activeOperations.decrementAndGet();
+            drainBacklog();
+        }
+    }
+
+    private void failEntries(List<BatchEntry> entries, String errorMessage) {
+        for (BatchEntry entry : entries) {
+            completeEntry(entry, SendResult.failure(entry.message.getMessageId(), entry.message.getTopic(), errorMessage));
         }
     }
 
+    private void completeEntry(BatchEntry entry, SendResult result) {
+        callbackExecutor.execute(() -> entry.future.complete(result));
+    }
+
+    /**
+     * Size of a message inside a batch envelope, exactly as {@code MessageBatch.encode()} writes it: framing, body
+     * and properties. The topic is carried once by the envelope, not per message. Strings are counted in UTF-8
+     * bytes, as the broker measures them.
+     */
+    static int estimateEncodedSize(org.apache.rocketmq.common.message.Message rocketMQMessage) {
+        int size = rocketMQMessage.getBody().length + BATCH_ENTRY_OVERHEAD;
+        Map<String, String> properties = rocketMQMessage.getProperties();
+        if (properties != null) {
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                // Properties without a value are skipped; the others end in two separator characters
+                if (property.getValue() != null) {
+                    size += utf8Length(property.getKey()) + utf8Length(property.getValue()) + 2;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Number of bytes {@code value} takes in UTF-8, without encoding it.
+     */
+    static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                // A surrogate pair takes 4 bytes, 2 per char; any other char from U+0800 takes 3
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length += 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Selects the target queue for an ordered message by hashing its sharding key over the topic's publish queues.
+     */
+    private MessageQueue selectQueue(org.apache.rocketmq.common.message.Message rocketMQMessage) throws MQClientException {
+        String topic = rocketMQMessage.getTopic();
+        long now = System.currentTimeMillis();
+
+        QueueRoute route = queueRoutes.get(topic);
+        if (route == null || now - route.fetchedAt > QUEUE_ROUTE_TTL_MILLIS) {
+            route = new QueueRoute(producerShards.primary().producer.fetchPublishMessageQueues(topic), now);
+            queueRoutes.put(topic, route);
+        }
+
+        if (route.queues.isEmpty()) {
+            return null;
+        }
+
+        String shardingKey = rocketMQMessage.getProperty("__SHARDINGKEY");
+        int hash = Objects.hashCode(shardingKey != null ? shardingKey : topic);
+        return route.queues.get(Math.floorMod(hash, route.queues.size()));
+    }
+
     private void handleSendComplete(Message message, org.apache.rocketmq.client.producer.SendResult sendResult,
                                    CompletableFuture<SendResult> future, long startTime,
-                                   PooledConnection connection, Throwable error) {
+                                   ProducerShards.Shard shard, Throwable error, AtomicBoolean settled) {
+        if (!settled.compareAndSet(false, true)) {
+            return;
+        }
         try {
             long latency = System.nanoTime() - startTime;
 
             if (error != null) {
-                metricsCollector.recordLatency(latency);
+                metricsCollector.recordBrokerRoundTrip(latency);
                 metricsCollector.incrementMessagesFailed();
+                metricsCollector.recordTopicFailed(message.getTopic(), 1);
                 logger.error("Message send failed: {}", message.getMessageId(), error);
 
-                RocketMQException rocketMQException = convertException(error);
-                callbackExecutor.execute(() -> future.complete(SendResult.failure(
-                        message.getMessageId(), message.getTopic(), rocketMQException.getMessage())));
+                SendResult result = failureResult(message, error);
+                callbackExecutor.execute(() -> future.complete(result));
             } else {
-                metricsCollector.recordLatency(latency);
+                metricsCollector.recordBrokerRoundTrip(latency);
                 metricsCollector.incrementMessagesSent();
                 metricsCollector.addBytesSent(message.getPayloadSize());
+                metricsCollector.recordTopicSent(message.getTopic(), 1, message.getPayloadSize());
 
                 SendResult result = convertSendResult(sendResult, message);
 
-                try {
-                    // Mark message as committed in persistence
-                    messageStore.storeMessage(message);
-                    logger.debug("Message sent successfully: {}", result.getMessageId());
-                } catch (Exception e) {
-                    logger.error("Failed to persist sent message", e);
-                }
+                persistSent(message);
+                logger.debug("Message sent successfully: {}", result.getMessageId());
 
                 callbackExecutor.execute(() -> future.complete(result));
             }
         } finally {
             // Clean up resources
-            if (connection != null) {
-                connectionManager.releaseConnection(connection);
+            if (shard != null) {
+                shard.complete(1, error == null);
             }
-            concurrencyLimiter.release();
+            // The broker round-trip drives the adaptive limit
+            concurrencyLimiter.release(1, System.nanoTime() - startTime, error != null);
             pendingOperations.remove(future);
+            activeOperations.decrementAndGet();
+            drainBacklog();
+        }
+    }
 
-            int remaining = activeOperations.decrementAndGet();
-            if (backpressureActive && remaining < config.getMaxConcurrentOperations() / 2) {
-                deactivateBackpressure();
-            }
+    /**
+     * Stores an acknowledged message. With the outbox enabled this happens when the outbox entry is settled.
+     */
+    private void persistSent(Message message) {
+        if (messageStore == null || outboxEnabled) {
+            return;
+        }
+        try {
+            messageStore.storeMessage(message);
+        } catch (Exception e) {
+            logger.error("Failed to persist sent message: {}", message.getMessageId(), e);
         }
     }
 
-    private boolean isBackpressureActive() {
-        return backpressureActive || activeOperations.get() > config.getMaxConcurrentOperations() * 0.9;
+    /**
+     * Marks an outbox entry COMMITTED after a successful send. Failed entries are discarded when the failure
+     * is reported to a caller, and kept for the next replay otherwise. Entries whose send timed out are always
+     * kept: the broker may have stored the message, and a replay publishing it twice beats losing it.
+     */
+    private void settleOutbox(Message message, SendResult result, boolean discardOnFailure) {
+        try {
+            if (result != null && result.isSuccess()) {
+                messageStore.commitOutbox(message);
+            } else if (discardOnFailure && (result == null || !result.isOutcomeUnknown())) {
+                messageStore.discardOutbox(message.getMessageId());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to settle outbox entry: {}", message.getMessageId(), e);
+        }
     }
 
-    private void activateBackpressure() {
-        if (!backpressureActive) {
-            backpressureActive = true;
-            logger.warn("Backpressure activated - active operations: {}", activeOperations.get());
-            metricsCollector.incrementBackpressureEvents();
+    /**
+     * Re-publishes every message left in the outbox by a previous run, e.g. because the process crashed
+     * before the broker acknowledged it. Messages are sent at most {@code messagesPerSecond} per second
+     * with up to {@code parallelism} sends in flight; messages that fail again stay in the outbox.
+     *
+     * The set of messages to replay is fixed before this method returns: entries written by sends made
+     * afterwards are not replayed, so call it before live sends start.
+     *
+     * @return future completed with the number of successfully re-published messages
+     */
+    public CompletableFuture<Integer> replayOutbox(int messagesPerSecond, int parallelism) {
+        if (!outboxEnabled) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        // Snapshot the outbox now; a live send's entry in the snapshot would be published a second time
+        Stream<Message> pending;
+        try {
+            pending = messageStore.streamOutbox();
+        } catch (RocketMQException e) {
+            return CompletableFuture.failedFuture(new RocketMQException(
+                    ai.hack.rocketmq.exception.ErrorCode.RECOVERY_ERROR, "Failed to replay outbox", e));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> replayOutbox(pending, messagesPerSecond, parallelism),
+                    virtualThreadExecutor);
+        } catch (RejectedExecutionException e) {
+            pending.close();
+            throw e;
         }
     }
 
-    private void deactivateBackpressure() {
-        if (backpressureActive) {
-            backpressureActive = false;
-            logger.info("Backpressure deactivated - active operations: {}", activeOperations.get());
+    private int replayOutbox(Stream<Message> pending, int messagesPerSecond, int parallelism) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, messagesPerSecond);
+        Semaphore inFlight = new Semaphore(Math.max(1, parallelism));
+        AtomicInteger replayed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long nextSendAt = System.nanoTime();
+
+        try (pending) {
+            Iterator<Message> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                Message message = iterator.next();
+
+                long wait = nextSendAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                nextSendAt = Math.max(nextSendAt, System.nanoTime()) + intervalNanos;
+
+                inFlight.acquire();
+                CompletableFuture<SendResult> send;
+                try {
+                    send = publishAsync(message);
+                } catch (RocketMQException e) {
+                    send = CompletableFuture.completedFuture(
+                            SendResult.failure(message.getMessageId(), message.getTopic(), e.getMessage()));
+                }
+                send.whenComplete((result, error) -> {
+                    try {
+                        settleOutbox(message, result, false);
+                        if (result != null && result.isSuccess()) {
+                            replayed.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            // Wait for the tail of in-flight sends
+            inFlight.acquire(Math.max(1, parallelism));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.RECOVERY_ERROR,
+                    "Outbox replay interrupted", e));
+        } catch (Exception e) {
+            throw new CompletionException(new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.RECOVERY_ERROR,
+                    "Failed to replay outbox", e));
         }
+
+        if (replayed.get() > 0 || failed.get() > 0) {
+            logger.info("♻️ Outbox replay complete: replayed={}, failed={}", replayed.get(), failed.get());
+        }
+        return replayed.get();
+    }
+
+    /**
+     * Whether the adaptive limit is exhausted; used to refuse work before it is buffered.
+     */
+    private boolean isLimitReached() {
+        return concurrencyLimiter.getAvailablePermits() == 0;
     }
 
     /**
      * Sends a message synchronously with timeout.
+     * Blocking sends borrow a dedicated producer from the connection pool, so they neither change the shared
+     * producer's timeout nor queue behind its asynchronous traffic. Waiting for a free producer counts
+     * against {@code timeout}.
      */
     public SendResult sendMessageSync(Message message, Duration timeout) throws RocketMQException {
         validateMessage(message);
 
         long startTime = System.nanoTime();
 
+        if (outboxEnabled) {
+            writeOutboxSync(message, timeout);
+        }
+
+        PooledConnection connection = null;
         try {
-            connectionManager.acquireConnection();
+            connection = connectionManager.acquireConnection(timeout);
+            DefaultMQProducer pooledProducer = connection.unwrap(ProducerConnection.class).getProducer();
 
             org.apache.rocketmq.common.message.Message rocketMQMessage = convertToRocketMQMessage(message);
 
-            // Send synchronously with timeout
-            producer.setSendMsgTimeout((int) timeout.toMillis());
-            org.apache.rocketmq.client.producer.SendResult sendResult = producer.send(rocketMQMessage);
+            // Send synchronously with whatever is left of the timeout
+            long remainingMillis = Math.max(1, timeout.toMillis() - Duration.ofNanos(System.nanoTime() - startTime).toMillis());
+            org.apache.rocketmq.client.producer.SendResult sendResult = pooledProducer.send(rocketMQMessage, remainingMillis);
 
             long latency = System.nanoTime() - startTime;
-            metricsCollector.recordLatency(latency);
+            metricsCollector.recordBrokerRoundTrip(latency);
             metricsCollector.incrementMessagesSent();
+            metricsCollector.recordTopicSent(message.getTopic(), 1, message.getPayloadSize());
+
+            SendResult result = convertSendResult(sendResult, message);
 
             // Persist message
-            messageStore.storeMessage(message);
+            if (outboxEnabled) {
+                settleOutbox(message, result, true);
+            } else {
+                persistSent(message);
+            }
 
-            SendResult result = convertSendResult(sendResult, message);
             logger.debug("Message sent synchronously: {}", result.getMessageId());
 
             return result;
 
         } catch (org.apache.rocketmq.remoting.exception.RemotingTimeoutException e) {
+            // The broker may have stored the message, so an outbox entry stays for the next replay
             throw new TimeoutException("send", timeout, "Message send timed out", e);
         } catch (Exception e) {
+            if (outboxEnabled) {
+                settleOutbox(message, null, true);
+            }
             throw convertException(e);
+        } finally {
+            connectionManager.releaseConnection(connection);
+        }
+    }
+
+    private void writeOutboxSync(Message message, Duration timeout) throws RocketMQException {
+        try {
+            messageStore.appendOutbox(List.of(message)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Interrupted while writing outbox entry", e, message.getMessageId());
+        } catch (java.util.concurrent.TimeoutException e) {
+            throw new TimeoutException("outbox write", timeout, "Outbox write timed out", e);
+        } catch (ExecutionException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to write outbox entry", e.getCause(), message.getMessageId());
         }
     }
 
@@ -333,7 +1008,7 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
                     "Message topic is required", message.getMessageId());
         }
 
-        if (message.getPayload() == null) {
+        if (message.payloadView() == null) {
             throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.INVALID_MESSAGE,
                     "Message payload is required", message.getMessageId());
         }
@@ -346,60 +1021,14 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
     }
 
     /**
-     * Converts domain Message to RocketMQ Message.
+     * Converts domain Message to RocketMQ Message without copying its payload, headers or tags.
      */
     private org.apache.rocketmq.common.message.Message convertToRocketMQMessage(Message message) {
-        org.apache.rocketmq.common.message.Message rocketMQMessage =
-                new org.apache.rocketmq.common.message.Message(message.getTopic(), message.getPayload());
-
         // Set message ID if not already set
         if (message.getMessageId() == null || message.getMessageId().isEmpty()) {
             message.setMessageId(generateMessageId());
         }
-
-        // Add headers
-        if (message.getHeaders() != null && !message.getHeaders().isEmpty()) {
-            for (java.util.Map.Entry<String, Object> entry : message.getHeaders().entrySet()) {
-                MessageAccessor.putProperty(rocketMQMessage, entry.getKey(), String.valueOf(entry.getValue()));
-            }
-        }
-
-        // Add callback topic if present
-        if (message.getCallbackTopic() != null && !message.getCallbackTopic().trim().isEmpty()) {
-            MessageAccessor.putProperty(rocketMQMessage, "callback-topic", message.getCallbackTopic());
-        }
-
-        // Add priority
-        if (message.getPriority() != null) {
-            MessageAccessor.putProperty(rocketMQMessage, "priority", message.getPriority().name());
-        }
-
-        // Add tags
-        if (message.getTags() != null && !message.getTags().isEmpty()) {
-            rocketMQMessage.setTags(String.join(",", message.getTags()));
-        }
-
-        // Add cosmosMessaging the universe
-        MessageAccessor.putProperty(rocketMQMessage, "UNIQUE_ID", message.getMessageId());
-        MessageAccessor.putProperty(rocketMQMessage, "send-time", Instant.now().toString());
-
-        // Configure FIFO ordering if enabled
-        if (config.isOrderedProcessing()) {
-            // Use message ID as sharding key for FIFO ordering
-            // Messages with the same topic and order key will be processed in order
-            String orderKey = message.getHeader("order-key");
-            if (orderKey != null && !orderKey.isEmpty()) {
-                // Use order-key for precise ordering within same topic
-                MessageAccessor.putProperty(rocketMQMessage, "__SHARDINGKEY", orderKey);
-                logger.debug("FIFO ordering enabled with order key: {} for message: {}", orderKey, message.getMessageId());
-            } else {
-                // Use topic name as default sharding key for topic-level ordering
-                MessageAccessor.putProperty(rocketMQMessage, "__SHARDINGKEY", message.getTopic());
-                logger.debug("FIFO ordering enabled with topic-level key for message: {}", message.getMessageId());
-            }
-        }
-
-        return rocketMQMessage;
+        return messageConverter.toRocketMQMessage(message);
     }
 
     /**
@@ -417,6 +1046,17 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
         );
     }
 
+    /**
+     * Builds the result of a failed send. A timed-out request may have reached the broker, so its outcome is unknown.
+     */
+    private SendResult failureResult(Message message, Throwable error) {
+        String errorMessage = convertException(error).getMessage();
+        if (error instanceof org.apache.rocketmq.remoting.exception.RemotingTimeoutException) {
+            return SendResult.unknownOutcome(message.getMessageId(), message.getTopic(), errorMessage);
+        }
+        return SendResult.failure(message.getMessageId(), message.getTopic(), errorMessage);
+    }
+
     /**
      * Converts exceptions to RocketMQException hierarchy.
      */
@@ -448,53 +1088,12 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
 
     private void initializeProducer() throws RocketMQException {
         try {
-            producer = new DefaultMQProducer(config.getProducerGroup());
-            producer.setNamesrvAddr(config.getNamesrvAddr());
-            producer.setSendMsgTimeout((int) config.getSendTimeout().toMillis());
-            producer.setMaxMessageSize(config.getMaxMessageSize());
-            producer.setRetryTimesWhenSendFailed(config.getRetryTimes());
-            producer.setRetryTimesWhenSendAsyncFailed(config.getRetryTimes());
-
-            // Enable compression if configured
-            producer.setCompressMsgBodyOverHowmuch(config.getMaxMessageSize() / 4);
-            // Compression flag not available in this version, using default settings
-
-            // Configure message ordering if enabled
-            if (config.isOrderedProcessing()) {
-                logger.debug("Ordered message processing enabled");
-            }
-
-            // Configure TLS authentication if enabled
-            if (config.isTlsEnabled()) {
-                logger.info("Configuring TLS authentication for producer");
-
-                // Enable SSL/TLS
-                producer.setUseTLS(true);
-
-                // Configure ACL credentials if provided
-                if (config.getAccessKey() != null && config.getSecretKey() != null) {
-                    // ACL methods not available in this version, using built-in authentication
-                    logger.debug("ACL credentials provided but methods not available in this RocketMQ version");
-                }
-
-                // Configure trust store if provided
-                if (config.getTrustStorePath() != null) {
-                    System.setProperty("rocketmq.client.tls.trustStorePath", config.getTrustStorePath());
-                    logger.debug("Trust store configured: {}", config.getTrustStorePath());
-                }
-
-                // Configure certificate principal if provided
-                if (config.getCertificatePrincipal() != null) {
-                    System.setProperty("rocketmq.client.tls.cert.principal",
-                                     config.getCertificatePrincipal().getName());
-                    logger.debug("Certificate principal configured");
-                }
-
-                logger.info("TLS authentication enabled for producer");
+            if (producerShards == null) {
+                producerShards = new ProducerShards(config);
             }
-
-            producer.start();
-            logger.info("RocketMQ producer started successfully with TLS: {}", config.isTlsEnabled());
+            producerShards.start();
+            logger.info("RocketMQ producer started successfully with TLS: {}, shards: {}",
+                       config.isTlsEnabled(), producerShards.size());
 
         } catch (MQClientException e) {
             throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.CONNECTION_FAILED,
@@ -516,13 +1115,59 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
                 metricsCollector.getAverageLatencyMs(),
                 activeOperations.get(),
                 pendingOperations.size(),
-                concurrencyLimiter.availablePermits(),
-                backpressureActive,
-                connectionManager.getActiveConnections(),
-                producer != null // isStarted() not available, assume started if not null
+                concurrencyLimiter.getAvailablePermits(),
+                concurrencyLimiter.isBackpressureActive(),
+                connectionManager != null ? connectionManager.getActiveConnections() : 0,
+                producerShards != null, // isStarted() not available, assume started if not null
+                concurrencyLimiter.getLimit(),
+                concurrencyLimiter.getRejected(),
+                backlog != null ? backlog.size() : 0
         );
     }
 
+    /**
+     * Gets payload compression statistics for published messages.
+     */
+    public PayloadCompressor.CompressionStats getCompressionStats() {
+        return compressor.getStats();
+    }
+
+    /**
+     * Gets per-shard send statistics; a single entry unless producer sharding is enabled.
+     */
+    public List<ProducerShards.ShardStats> getShardStats() {
+        return producerShards != null ? producerShards.getStats() : List.of();
+    }
+
+    /**
+     * A message participating in a native batch send together with its caller-facing future.
+     */
+    static final class BatchEntry {
+        final Message message;
+        final CompletableFuture<SendResult> future;
+        private org.apache.rocketmq.common.message.Message rocketMQMessage;
+        private MessageQueue queue;
+        private int encodedSize;
+
+        BatchEntry(Message message, CompletableFuture<SendResult> future) {
+            this.message = message;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Cached publish queues for a topic.
+     */
+    private static final class QueueRoute {
+        private final List<MessageQueue> queues;
+        private final long fetchedAt;
+
+        private QueueRoute(List<MessageQueue> queues, long fetchedAt) {
+            this.queues = queues != null ? queues : List.of();
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
     /**
      * Enhanced statistics snapshot for the publisher with concurrency metrics.
      */
@@ -536,10 +1181,30 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
         private final boolean backpressureActive;
         private final int activeConnections;
         private final boolean running;
+        private final int concurrencyLimit;
+        private final long rejectedByLimit;
+        private final int backloggedSends;
 
         public PublisherStats(long messagesSent, long messagesFailed, double averageLatencyMs,
                             int activeOperations, int pendingOperations, int availablePermits,
                             boolean backpressureActive, int activeConnections, boolean running) {
+            this(messagesSent, messagesFailed, averageLatencyMs, activeOperations, pendingOperations,
+                 availablePermits, backpressureActive, activeConnections, running, 0, 0);
+        }
+
+        public PublisherStats(long messagesSent, long messagesFailed, double averageLatencyMs,
+                            int activeOperations, int pendingOperations, int availablePermits,
+                            boolean backpressureActive, int activeConnections, boolean running,
+                            int concurrencyLimit, long rejectedByLimit) {
+            this(messagesSent, messagesFailed, averageLatencyMs, activeOperations, pendingOperations,
+                 availablePermits, backpressureActive, activeConnections, running, concurrencyLimit,
+                 rejectedByLimit, 0);
+        }
+
+        public PublisherStats(long messagesSent, long messagesFailed, double averageLatencyMs,
+                            int activeOperations, int pendingOperations, int availablePermits,
+                            boolean backpressureActive, int activeConnections, boolean running,
+                            int concurrencyLimit, long rejectedByLimit, int backloggedSends) {
             this.messagesSent = messagesSent;
             this.messagesFailed = messagesFailed;
             this.averageLatencyMs = averageLatencyMs;
@@ -549,6 +1214,9 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
             this.backpressureActive = backpressureActive;
             this.activeConnections = activeConnections;
             this.running = running;
+            this.concurrencyLimit = concurrencyLimit;
+            this.rejectedByLimit = rejectedByLimit;
+            this.backloggedSends = backloggedSends;
         }
 
         public long getMessagesSent() { return messagesSent; }
@@ -560,15 +1228,18 @@ public class MessagePublisher implements InitializingBean, DisposableBean {
         public boolean isBackpressureActive() { return backpressureActive; }
         public int getActiveConnections() { return activeConnections; }
         public boolean isRunning() { return running; }
+        public int getConcurrencyLimit() { return concurrencyLimit; }
+        public long getRejectedByLimit() { return rejectedByLimit; }
+        public int getBackloggedSends() { return backloggedSends; }
 
         @Override
         public String toString() {
             return String.format("PublisherStats{sent=%d, failed=%d, avgLatency=%.2fms, " +
-                               "activeOps=%d, pending=%d, permits=%d, backpressure=%s, " +
+                               "activeOps=%d, pending=%d, permits=%d, limit=%d, rejected=%d, backlog=%d, backpressure=%s, " +
                                "connections=%d, running=%s}",
                                messagesSent, messagesFailed, averageLatencyMs,
-                               activeOperations, pendingOperations, availablePermits,
-                               backpressureActive, activeConnections, running);
+                               activeOperations, pendingOperations, availablePermits, concurrencyLimit,
+                               rejectedByLimit, backloggedSends, backpressureActive, activeConnections, running);
         }
     }
 }
\ No newline at end of file
@@ -55,4 +55,16 @@ public interface PooledConnection {
      * @return last used time
      */
     Instant getLastUsed();
+
+    /**
+     * Returns the underlying connection as {@code type}, looking through pool wrappers.
+     *
+     * @throws IllegalArgumentException if the connection is not of the requested type
+     */
+    default <T> T unwrap(Class<T> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new IllegalArgumentException("Connection " + getId() + " is not a " + type.getName());
+    }
 }
\ No newline at end of file
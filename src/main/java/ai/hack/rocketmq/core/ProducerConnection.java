@@ -0,0 +1,149 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+
+/**
+ * A pooled connection backed by its own {@link DefaultMQProducer}.
+ * Each instance gets a distinct instance name, so it owns a separate remoting client and channel set
+ * instead of sharing the process-wide client of its producer group.
+ */
+class ProducerConnection implements PooledConnection {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProducerConnection.class);
+
+    private final String id;
+    private final DefaultMQProducer producer;
+    private final Instant created = Instant.now();
+    private volatile Instant lastUsed = created;
+    private volatile boolean borrowed = false;
+    private volatile boolean closed = false;
+
+    private ProducerConnection(String id, DefaultMQProducer producer) {
+        this.id = id;
+        this.producer = producer;
+    }
+
+    /**
+     * Returns a factory that opens one started producer per connection.
+     */
+    static ConnectionFactory factory(ClientConfiguration config) {
+        return id -> {
+            DefaultMQProducer producer = newProducer(config, config.getProducerGroup() + "@" + id);
+            producer.start();
+            logger.debug("Started pooled producer: {}", producer.getInstanceName());
+            return new ProducerConnection(id, producer);
+        };
+    }
+
+    /**
+     * Creates an unstarted producer configured from the client configuration.
+     *
+     * @param instanceName distinct instance name, or {@code null} to use the RocketMQ default
+     */
+    static DefaultMQProducer newProducer(ClientConfiguration config, String instanceName) {
+        DefaultMQProducer producer = new DefaultMQProducer(config.getProducerGroup());
+        producer.setNamesrvAddr(config.getNamesrvAddr());
+        if (instanceName != null) {
+            producer.setInstanceName(instanceName);
+        }
+        producer.setSendMsgTimeout((int) config.getSendTimeout().toMillis());
+        producer.setMaxMessageSize(config.getMaxMessageSize());
+        producer.setRetryTimesWhenSendFailed(config.getRetryTimes());
+        producer.setRetryTimesWhenSendAsyncFailed(config.getRetryTimes());
+
+        // With client-side codecs in use, RocketMQ's own zlib pass would only recompress compressed bodies
+        producer.setCompressMsgBodyOverHowmuch(config.usesClientCompression()
+                ? Integer.MAX_VALUE : config.getMaxMessageSize() / 4);
+
+        // Configure message ordering if enabled
+        if (config.isOrderedProcessing()) {
+            logger.debug("Ordered message processing enabled");
+        }
+
+        // Configure TLS authentication if enabled
+        if (config.isTlsEnabled()) {
+            logger.info("Configuring TLS authentication for producer");
+
+            // Enable SSL/TLS
+            producer.setUseTLS(true);
+
+            // Configure ACL credentials if provided
+            if (config.getAccessKey() != null && config.getSecretKey() != null) {
+                // ACL methods not available in this version, using built-in authentication
+                logger.debug("ACL credentials provided but methods not available in this RocketMQ version");
+            }
+
+            // Configure trust store if provided
+            if (config.getTrustStorePath() != null) {
+                System.setProperty("rocketmq.client.tls.trustStorePath", config.getTrustStorePath());
+                logger.debug("Trust store configured: {}", config.getTrustStorePath());
+            }
+
+            // Configure certificate principal if provided
+            if (config.getCertificatePrincipal() != null) {
+                System.setProperty("rocketmq.client.tls.cert.principal",
+                                 config.getCertificatePrincipal().getName());
+                logger.debug("Certificate principal configured");
+            }
+
+            logger.info("TLS authentication enabled for producer");
+        }
+
+        return producer;
+    }
+
+    DefaultMQProducer getProducer() {
+        return producer;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return !closed;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            producer.shutdown();
+            logger.debug("Closed pooled producer: {}", producer.getInstanceName());
+        }
+    }
+
+    @Override
+    public boolean isBorrowed() {
+        return borrowed;
+    }
+
+    @Override
+    public void borrowed() {
+        borrowed = true;
+        lastUsed = Instant.now();
+    }
+
+    @Override
+    public void returned() {
+        borrowed = false;
+        lastUsed = Instant.now();
+    }
+
+    @Override
+    public Instant getCreated() {
+        return created;
+    }
+
+    @Override
+    public Instant getLastUsed() {
+        return lastUsed;
+    }
+}
@@ -0,0 +1,173 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.config.ShardRouting;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed set of producer instances that the publisher spreads its sends over.
+ * With more than one shard every producer gets a distinct instance name, and therefore its own remoting
+ * client, Netty channels and callback executor. A single shard keeps the RocketMQ default instance name,
+ * which is identical to running one plain producer.
+ */
+public class ProducerShards {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProducerShards.class);
+
+    private final Shard[] shards;
+    private final ShardRouting routing;
+
+    ProducerShards(ClientConfiguration config) {
+        this(config.getShardRouting(), newProducers(config));
+    }
+
+    /**
+     * Wraps producers that were created elsewhere, e.g. by tests that never reach a broker.
+     */
+    ProducerShards(ShardRouting routing, List<DefaultMQProducer> producers) {
+        this.shards = new Shard[producers.size()];
+        this.routing = routing;
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, producers.get(i));
+        }
+    }
+
+    private static List<DefaultMQProducer> newProducers(ClientConfiguration config) {
+        int count = config.getProducerShards();
+        List<DefaultMQProducer> producers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String instanceName = count > 1 ? config.getProducerGroup() + "@shard-" + i : null;
+            producers.add(ProducerConnection.newProducer(config, instanceName));
+        }
+        return producers;
+    }
+
+    void start() throws MQClientException {
+        for (Shard shard : shards) {
+            shard.producer.start();
+        }
+        logger.info("Started {} producer shard(s) with {} routing", shards.length, routing);
+    }
+
+    void shutdown() {
+        for (Shard shard : shards) {
+            shard.producer.shutdown();
+        }
+    }
+
+    /**
+     * The shard used for route lookups and other non-send calls.
+     */
+    Shard primary() {
+        return shards[0];
+    }
+
+    /**
+     * Picks a shard for a send to {@code topic}, or to {@code queue} when one was selected.
+     */
+    Shard select(String topic, MessageQueue queue) {
+        if (shards.length == 1) {
+            return shards[0];
+        }
+        if (queue != null) {
+            return shards[spread(queue.hashCode())];
+        }
+        if (routing == ShardRouting.HASH) {
+            return shards[spread(topic.hashCode())];
+        }
+
+        // Power of two choices: close to least-loaded without scanning or herding onto one shard
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Shard first = shards[random.nextInt(shards.length)];
+        Shard second = shards[random.nextInt(shards.length)];
+        return second.inflight.get() < first.inflight.get() ? second : first;
+    }
+
+    int size() {
+        return shards.length;
+    }
+
+    /**
+     * Gets a statistics snapshot per shard.
+     */
+    public List<ShardStats> getStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            stats.add(new ShardStats(shard.index, shard.inflight.get(), shard.sent.sum(), shard.failed.sum()));
+        }
+        return stats;
+    }
+
+    private int spread(int hash) {
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    /**
+     * One producer instance and its in-flight accounting.
+     */
+    static final class Shard {
+        final int index;
+        final DefaultMQProducer producer;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private Shard(int index, DefaultMQProducer producer) {
+            this.index = index;
+            this.producer = producer;
+        }
+
+        /**
+         * Marks one send call as handed to this shard's producer.
+         */
+        void begin() {
+            inflight.incrementAndGet();
+        }
+
+        /**
+         * Settles a send started with {@link #begin()}.
+         */
+        void complete(int messages, boolean success) {
+            inflight.decrementAndGet();
+            (success ? sent : failed).add(messages);
+        }
+    }
+
+    /**
+     * Statistics snapshot for one producer shard.
+     */
+    public static class ShardStats {
+        private final int shard;
+        private final int inflightSends;
+        private final long messagesSent;
+        private final long messagesFailed;
+
+        public ShardStats(int shard, int inflightSends, long messagesSent, long messagesFailed) {
+            this.shard = shard;
+            this.inflightSends = inflightSends;
+            this.messagesSent = messagesSent;
+            this.messagesFailed = messagesFailed;
+        }
+
+        public int getShard() { return shard; }
+        public int getInflightSends() { return inflightSends; }
+        public long getMessagesSent() { return messagesSent; }
+        public long getMessagesFailed() { return messagesFailed; }
+
+        @Override
+        public String toString() {
+            return String.format("ShardStats{shard=%d, inflight=%d, sent=%d, failed=%d}",
+                               shard, inflightSends, messagesSent, messagesFailed);
+        }
+    }
+}
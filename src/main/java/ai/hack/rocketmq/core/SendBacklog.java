@@ -0,0 +1,181 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessagePriority;
+import ai.hack.rocketmq.result.SendResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded backlog of asynchronous sends waiting for a concurrency permit.
+ * Sends are kept in one FIFO lane per priority and lanes are served by smooth weighted round-robin, weighted by
+ * {@link MessagePriority#getLevel()}: while all lanes hold sends, ten of every 24 dequeues go to CRITICAL and one
+ * to LOW, so urgent sends overtake a bulk backlog without starving it.
+ * Every send waits at most the same duration, so deadlines grow along each lane and expiry only looks at lane heads.
+ * A lock is used instead of {@code synchronized} so virtual threads contending on it do not pin their carrier.
+ */
+final class SendBacklog {
+
+    private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+
+    private final int capacity;
+    private final ArrayDeque<PendingSend>[] lanes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int[] credit;
+    private volatile int size;
+
+    @SuppressWarnings("unchecked")
+    SendBacklog(int capacity) {
+        this.capacity = capacity;
+        this.lanes = new ArrayDeque[PRIORITIES.length];
+        this.credit = new int[PRIORITIES.length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Adds a send to the backlog.
+     *
+     * @param evict whether a full backlog may drop its oldest send of the lowest priority not above the new one
+     * @return {@code null} if the send was queued without loss, the dropped send if one was evicted to make room,
+     *         or {@code send} itself if it was not queued
+     */
+    PendingSend offer(PendingSend send, boolean evict) {
+        lock.lock();
+        try {
+            PendingSend evicted = null;
+            if (size >= capacity) {
+                if (!evict) {
+                    return send;
+                }
+                evicted = evictFor(priorityOf(send));
+                if (evicted == null) {
+                    return send;
+                }
+            }
+            lanes[priorityOf(send)].addLast(send);
+            size++;
+            return evicted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the next send in weighted-fair order, or returns {@code null} if the backlog is empty.
+     */
+    PendingSend poll() {
+        return poll(MessagePriority.LOW);
+    }
+
+    /**
+     * Removes the next send in weighted-fair order among lanes of at least {@code floor} priority,
+     * or returns {@code null} if those lanes are empty.
+     */
+    PendingSend poll(MessagePriority floor) {
+        lock.lock();
+        try {
+            // Smooth weighted round-robin over the non-empty lanes
+            int selected = -1;
+            int totalWeight = 0;
+            for (int i = floor.ordinal(); i < lanes.length; i++) {
+                if (lanes[i].isEmpty()) {
+                    credit[i] = 0;
+                    continue;
+                }
+                int weight = PRIORITIES[i].getLevel();
+                credit[i] += weight;
+                totalWeight += weight;
+                if (selected < 0 || credit[i] > credit[selected]) {
+                    selected = i;
+                }
+            }
+            if (selected < 0) {
+                return null;
+            }
+            credit[selected] -= totalWeight;
+            size--;
+            return lanes[selected].pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every send whose deadline is at or before {@code nowNanos}.
+     */
+    List<PendingSend> expire(long nowNanos) {
+        if (size == 0) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            List<PendingSend> expired = new ArrayList<>();
+            for (ArrayDeque<PendingSend> lane : lanes) {
+                while (!lane.isEmpty() && lane.peekFirst().deadlineNanos - nowNanos <= 0) {
+                    expired.add(lane.pollFirst());
+                }
+            }
+            size -= expired.size();
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns every waiting send.
+     */
+    List<PendingSend> clear() {
+        lock.lock();
+        try {
+            List<PendingSend> all = new ArrayList<>(size);
+            for (ArrayDeque<PendingSend> lane : lanes) {
+                all.addAll(lane);
+                lane.clear();
+            }
+            size = 0;
+            return all;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private PendingSend evictFor(int priority) {
+        for (int i = 0; i <= priority; i++) {
+            if (!lanes[i].isEmpty()) {
+                size--;
+                return lanes[i].pollFirst();
+            }
+        }
+        return null;
+    }
+
+    private static int priorityOf(PendingSend send) {
+        return send.message.getPriority().ordinal();
+    }
+
+    /**
+     * A send waiting in the backlog together with its caller-facing future.
+     */
+    static final class PendingSend {
+        final Message message;
+        final CompletableFuture<SendResult> future;
+        final long deadlineNanos;
+
+        PendingSend(Message message, CompletableFuture<SendResult> future, long deadlineNanos) {
+            this.message = message;
+            this.future = future;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package ai.hack.rocketmq.model;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiConsumer;
 
 /**
  * Represents a RocketMQ message with all required metadata.
@@ -16,16 +17,26 @@ public class Message {
     private String messageId;
     private String topic;
     private String callbackTopic;
-    private Map<String, Object> headers;
-    private byte[] payload;
+    private MessageHeaders headers;
+    private Payload payload;
     private Instant timestamp;
     private MessagePriority priority;
     private Set<String> tags;
     private MessageStatus status;
 
+    // Parts of a received message not decoded yet; see decodeLazily. Decoding runs under the message's lock
+    // and clears the part's bit last, so a reader that sees the bit cleared also sees the decoded part
+    private static final int PAYLOAD = 1;
+    private static final int HEADERS = 2;
+    private static final int TAGS = 4;
+    private static final int PRIORITY = 8;
+
+    private MessageDecoder decoder;
+    private volatile int undecoded;
+
     // Private constructor for builder
     private Message() {
-        this.headers = new HashMap<>();
+        this.headers = new MessageHeaders();
         this.tags = new HashSet<>();
         this.timestamp = Instant.now();
         this.priority = MessagePriority.NORMAL;
@@ -36,7 +47,7 @@ public class Message {
     public Message(String topic, byte[] payload) {
         this();
         this.topic = topic;
-        this.payload = payload;
+        this.payload = payload != null ? Payload.wrap(payload) : null;
         this.messageId = generateMessageId();
     }
 
@@ -45,10 +56,32 @@ public class Message {
         this.callbackTopic = callbackTopic;
     }
 
+    // Constructor for lazily decoded messages; leaves every decoded part unset
+    private Message(MessageDecoder decoder) {
+        this.decoder = decoder;
+        this.undecoded = PAYLOAD | HEADERS | TAGS | PRIORITY;
+        this.status = MessageStatus.PENDING;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Creates a received message whose payload, headers, tags and priority are decoded on first access.
+     * Handlers that only route on a few fields, or drop the message, never pay for the rest.
+     * Threads may read the message concurrently; each part is still decoded exactly once.
+     */
+    public static Message decodeLazily(String messageId, String topic, String callbackTopic, Instant timestamp,
+                                       MessageDecoder decoder) {
+        Message message = new Message(decoder);
+        message.messageId = messageId;
+        message.topic = topic;
+        message.callbackTopic = callbackTopic;
+        message.timestamp = timestamp;
+        return message;
+    }
+
     // Getters and setters
     public String getMessageId() {
         return messageId;
@@ -63,11 +96,29 @@ public class Message {
     }
 
     public Map<String, Object> getHeaders() {
-        return new HashMap<>(headers);
+        return headers().toMap();
+    }
+
+    /**
+     * Visits every header without copying them; use this instead of {@link #getHeaders()} on hot paths.
+     */
+    public void forEachHeader(BiConsumer<String, Object> action) {
+        headers().forEach(action);
+    }
+
+    public int getHeaderCount() {
+        return headers().size();
     }
 
     public byte[] getPayload() {
-        return payload.clone(); // Defensive copy
+        return payload().toByteArray(); // Defensive copy
+    }
+
+    /**
+     * Returns the payload without copying it; use this instead of {@link #getPayload()} for large bodies.
+     */
+    public Payload payloadView() {
+        return payload();
     }
 
     public Instant getTimestamp() {
@@ -75,11 +126,11 @@ public class Message {
     }
 
     public MessagePriority getPriority() {
-        return priority;
+        return priority();
     }
 
     public Set<String> getTags() {
-        return new HashSet<>(tags);
+        return new HashSet<>(tags());
     }
 
     public MessageStatus getStatus() {
@@ -99,7 +150,13 @@ public class Message {
     }
 
     public void setPayload(byte[] payload) {
-        this.payload = payload != null ? payload.clone() : null;
+        decoded(PAYLOAD);
+        this.payload = payload != null ? Payload.copyOf(payload) : null;
+    }
+
+    public void setPayload(Payload payload) {
+        decoded(PAYLOAD);
+        this.payload = payload;
     }
 
     public void setTimestamp(Instant timestamp) {
@@ -107,6 +164,7 @@ public class Message {
     }
 
     public void setPriority(MessagePriority priority) {
+        decoded(PRIORITY);
         this.priority = priority != null ? priority : MessagePriority.NORMAL;
     }
 
@@ -114,34 +172,101 @@ public class Message {
         this.status = status != null ? status : MessageStatus.PENDING;
     }
 
+    // Live state for MessageInternals; callers must not modify it
+    byte[] payloadRef() {
+        Payload payload = payload();
+        return payload != null ? payload.sharedArray() : null;
+    }
+
+    MessageHeaders headersRef() {
+        return headers();
+    }
+
+    Set<String> tagsRef() {
+        return tags();
+    }
+
+    private Payload payload() {
+        if ((undecoded & PAYLOAD) != 0) {
+            decode(PAYLOAD);
+        }
+        return payload;
+    }
+
+    private MessageHeaders headers() {
+        if ((undecoded & HEADERS) != 0) {
+            decode(HEADERS);
+        }
+        return headers;
+    }
+
+    private Set<String> tags() {
+        if ((undecoded & TAGS) != 0) {
+            decode(TAGS);
+        }
+        return tags;
+    }
+
+    private MessagePriority priority() {
+        if ((undecoded & PRIORITY) != 0) {
+            decode(PRIORITY);
+        }
+        return priority;
+    }
+
+    // Slow path of the accessors above; the part is published by the volatile write in decoded
+    private synchronized void decode(int part) {
+        if ((undecoded & part) == 0) {
+            return;
+        }
+        switch (part) {
+            case PAYLOAD -> payload = decoder.payload();
+            case HEADERS -> headers = decoder.headers();
+            case TAGS -> tags = decoder.tags();
+            case PRIORITY -> priority = decoder.priority();
+            default -> throw new IllegalArgumentException("Unknown message part: " + part);
+        }
+        decoded(part);
+    }
+
+    private synchronized void decoded(int part) {
+        undecoded &= ~part;
+        if (undecoded == 0) {
+            decoder = null;
+        }
+    }
+
     // Utility methods
     public String getHeader(String key) {
-        return headers.get(key) != null ? headers.get(key).toString() : null;
+        Object value = headers().get(key);
+        return value != null ? value.toString() : null;
     }
 
     public Message withHeader(String key, Object value) {
-        headers.put(key, value);
+        headers().put(key, value);
         return this;
     }
 
     public Message withTag(String tag) {
-        tags.add(tag);
+        tags().add(tag);
         return this;
     }
 
     public Message withTag(String... tags) {
+        Set<String> current = tags();
         for (String tag : tags) {
-            this.tags.add(tag);
+            current.add(tag);
         }
         return this;
     }
 
     public boolean hasTag(String tag) {
-        return tags.contains(tag);
+        return tags().contains(tag);
     }
 
     public int getPayloadSize() {
-        return payload != null ? payload.length : 0;
+        Payload payload = payload();
+        return payload != null ? payload.size() : 0;
     }
 
     /**
@@ -162,7 +287,7 @@ public class Message {
         return Message.builder()
                 .topic(callbackTopic)
                 .payload(responsePayload)
-                .header("response-to", messageId)
+                .header(MessageHeaders.RESPONSE_TO, messageId)
                 .build();
     }
 
@@ -178,12 +303,14 @@ public class Message {
         size += callbackTopic != null ? callbackTopic.length() : 0;
 
         // Add headers size
-        for (Map.Entry<String, Object> entry : headers.entrySet()) {
-            size += entry.getKey().length() + entry.getValue().toString().length() + 8; // rough overhead
+        MessageHeaders headers = headers();
+        int headerCount = headers.size();
+        for (int i = 0; i < headerCount; i++) {
+            size += headers.keyAt(i).length() + String.valueOf(headers.valueAt(i)).length() + 8; // rough overhead
         }
 
         // Add tags size
-        for (String tag : tags) {
+        for (String tag : tags()) {
             size += tag.length() + 4; // rough overhead
         }
 
@@ -198,8 +325,8 @@ public class Message {
     public String toString() {
         return String.format("Message{id='%s', topic='%s', status=%s, priority=%s, payloadSize=%d, " +
                            "hasCallback=%s, headerCount=%d, tagCount=%d}",
-                           messageId, topic, status, priority, getPayloadSize(),
-                           isRequestResponse(), headers.size(), tags.size());
+                           messageId, topic, status, priority(), getPayloadSize(),
+                           isRequestResponse(), headers().size(), tags().size());
     }
 
     @Override
@@ -233,12 +360,34 @@ public class Message {
         }
 
         public Builder payload(byte[] payload) {
-            message.payload = payload != null ? payload.clone() : null;
+            message.payload = payload != null ? Payload.copyOf(payload) : null;
             return this;
         }
 
         public Builder payload(String payload) {
-            message.payload = payload != null ? payload.getBytes() : null;
+            message.payload = payload != null ? Payload.wrap(payload.getBytes()) : null;
+            return this;
+        }
+
+        public Builder payload(Payload payload) {
+            message.payload = payload;
+            return this;
+        }
+
+        /**
+         * Takes ownership of the array without copying it; the caller must not modify it afterwards.
+         */
+        public Builder wrapPayload(byte[] payload) {
+            message.payload = payload != null ? Payload.wrap(payload) : null;
+            return this;
+        }
+
+        /**
+         * Takes ownership of the buffer's remaining bytes without copying them; the caller must not modify
+         * them afterwards. Direct and memory-mapped buffers stay off-heap.
+         */
+        public Builder wrapPayload(ByteBuffer payload) {
+            message.payload = payload != null ? Payload.wrap(payload) : null;
             return this;
         }
 
@@ -259,6 +408,14 @@ public class Message {
             return this;
         }
 
+        /**
+         * Adopts the given header store without copying it, replacing any headers set so far.
+         */
+        public Builder headers(MessageHeaders headers) {
+            message.headers = headers;
+            return this;
+        }
+
         public Builder priority(MessagePriority priority) {
             message.priority = priority;
             return this;
@@ -311,7 +468,7 @@ public class Message {
                 throw new IllegalArgumentException("Payload is required");
             }
             if (message.headers == null) {
-                message.headers = new HashMap<>();
+                message.headers = new MessageHeaders();
             }
             if (message.tags == null) {
                 message.tags = new HashSet<>();
@@ -0,0 +1,23 @@
+package ai.hack.rocketmq.model;
+
+import java.util.Set;
+
+/**
+ * Source of the parts of a received {@link Message} that are decoded on first access.
+ * Each method is called at most once per message, so implementations need not cache.
+ *
+ * @see Message#decodeLazily(String, String, String, java.time.Instant, MessageDecoder)
+ */
+public interface MessageDecoder {
+
+    Payload payload();
+
+    MessageHeaders headers();
+
+    /**
+     * Returns a mutable set; the message keeps and modifies it.
+     */
+    Set<String> tags();
+
+    MessagePriority priority();
+}
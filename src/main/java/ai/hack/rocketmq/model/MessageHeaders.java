@@ -0,0 +1,247 @@
+package ai.hack.rocketmq.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Compact header store for a {@link Message}.
+ * Entries live in two packed arrays in insertion order. Messages carry a handful of headers, so a linear scan
+ * beats hashing and needs no entry objects. Well-known header names are interned on insert, which lets lookups
+ * of those names match by reference and keeps a single key instance across all messages.
+ *
+ * <p>A store created with {@link #view(Map, Predicate)} reads through to a received message's properties and
+ * only copies them into its own arrays on the first write or indexed access.
+ * Like {@link Message}, a store is not thread-safe.
+ */
+public final class MessageHeaders {
+
+    public static final String CORRELATION_ID = "correlation-id";
+    public static final String RESPONSE_TO = "response-to";
+    public static final String ORDER_KEY = "order-key";
+    public static final String SEND_TIME = "send-time";
+    public static final String UNIQUE_ID = "UNIQUE_ID";
+
+    private static final Map<String, String> WELL_KNOWN = Map.of(
+            CORRELATION_ID, CORRELATION_ID,
+            RESPONSE_TO, RESPONSE_TO,
+            ORDER_KEY, ORDER_KEY,
+            SEND_TIME, SEND_TIME,
+            UNIQUE_ID, UNIQUE_ID);
+
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final String[] NO_KEYS = new String[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+
+    // Read-through source of a view; null once materialized
+    private Map<String, String> source;
+    private Predicate<String> hidden;
+
+    public MessageHeaders() {
+        this.keys = NO_KEYS;
+        this.values = NO_VALUES;
+    }
+
+    public MessageHeaders(int expectedSize) {
+        this.keys = expectedSize > 0 ? new String[expectedSize] : NO_KEYS;
+        this.values = expectedSize > 0 ? new Object[expectedSize] : NO_VALUES;
+    }
+
+    /**
+     * Creates a store that reads through to {@code properties}, skipping names matched by {@code hidden}.
+     * The map is not copied until the store is modified, so it must not change while the view reads it.
+     */
+    public static MessageHeaders view(Map<String, String> properties, Predicate<String> hidden) {
+        MessageHeaders headers = new MessageHeaders();
+        if (properties != null && !properties.isEmpty()) {
+            headers.source = properties;
+            headers.hidden = hidden;
+        }
+        return headers;
+    }
+
+    /**
+     * Returns the shared instance of a well-known header name, or {@code name} itself.
+     */
+    public static String intern(String name) {
+        String interned = WELL_KNOWN.get(name);
+        return interned != null ? interned : name;
+    }
+
+    public int size() {
+        if (source != null) {
+            int count = 0;
+            for (String key : source.keySet()) {
+                if (!hidden.test(key)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public Object get(String name) {
+        if (source != null) {
+            return hidden.test(name) ? null : source.get(name);
+        }
+        int index = indexOf(name);
+        return index >= 0 ? values[index] : null;
+    }
+
+    public boolean containsKey(String name) {
+        if (source != null) {
+            return !hidden.test(name) && source.containsKey(name);
+        }
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * Sets a header and returns its previous value.
+     */
+    public Object put(String name, Object value) {
+        Objects.requireNonNull(name, "name");
+        materialize();
+        int index = indexOf(name);
+        if (index >= 0) {
+            Object previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (size == keys.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = intern(name);
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    public void putAll(Map<String, ?> headers) {
+        for (Map.Entry<String, ?> header : headers.entrySet()) {
+            put(header.getKey(), header.getValue());
+        }
+    }
+
+    /**
+     * Removes a header and returns its value.
+     */
+    public Object remove(String name) {
+        materialize();
+        int index = indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        Object previous = values[index];
+        int moved = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        return previous;
+    }
+
+    /**
+     * Name of the header at {@code index}, in insertion order.
+     */
+    public String keyAt(int index) {
+        materialize();
+        Objects.checkIndex(index, size);
+        return keys[index];
+    }
+
+    /**
+     * Value of the header at {@code index}, in insertion order.
+     */
+    public Object valueAt(int index) {
+        materialize();
+        Objects.checkIndex(index, size);
+        return values[index];
+    }
+
+    /**
+     * Visits every header without copying the store.
+     */
+    public void forEach(BiConsumer<String, Object> action) {
+        if (source != null) {
+            for (Map.Entry<String, String> property : source.entrySet()) {
+                if (!hidden.test(property.getKey())) {
+                    action.accept(property.getKey(), property.getValue());
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Returns a copy of the headers as a map.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>(size() * 4 / 3 + 1);
+        forEach(map::put);
+        return map;
+    }
+
+    public MessageHeaders copy() {
+        if (source != null) {
+            return view(source, hidden);
+        }
+        MessageHeaders copy = new MessageHeaders(size);
+        System.arraycopy(keys, 0, copy.keys, 0, size);
+        System.arraycopy(values, 0, copy.values, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    private int indexOf(String name) {
+        // Interned names match on the reference check before equals compares characters
+        for (int i = 0; i < size; i++) {
+            String key = keys[i];
+            if (key == name || key.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void materialize() {
+        if (source == null) {
+            return;
+        }
+        Map<String, String> properties = source;
+        Predicate<String> skip = hidden;
+        source = null;
+        hidden = null;
+        keys = new String[properties.size()];
+        values = new Object[properties.size()];
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (!skip.test(property.getKey())) {
+                keys[size] = intern(property.getKey());
+                values[size] = property.getValue();
+                size++;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
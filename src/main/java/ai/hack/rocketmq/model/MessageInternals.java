@@ -0,0 +1,28 @@
+package ai.hack.rocketmq.model;
+
+import java.util.Set;
+
+/**
+ * Copy-free access to the state of a {@link Message} for the client's own send and persistence paths.
+ * The public getters return defensive copies; these accessors return the message's live payload array,
+ * header store and tag set, which callers must treat as read-only. Not part of the public API.
+ * A payload that is not exactly one heap array, such as a direct or memory-mapped buffer, is copied once
+ * by {@link #payload(Message)}; prefer {@link Message#payloadView()} where a {@code byte[]} is not required.
+ */
+public final class MessageInternals {
+
+    private MessageInternals() {
+    }
+
+    public static byte[] payload(Message message) {
+        return message.payloadRef();
+    }
+
+    public static MessageHeaders headers(Message message) {
+        return message.headersRef();
+    }
+
+    public static Set<String> tags(Message message) {
+        return message.tagsRef();
+    }
+}
@@ -0,0 +1,139 @@
+package ai.hack.rocketmq.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Immutable message body backed by a heap array, a direct {@link ByteBuffer} or a memory-mapped file region.
+ * Wrapping takes ownership of the bytes without copying them, so the caller must not modify them afterwards.
+ * Readers get read-only views; only {@link #toByteArray()} copies.
+ */
+public final class Payload {
+
+    private static final Payload EMPTY = new Payload(ByteBuffer.allocate(0));
+
+    // Position 0, limit = size; never exposed without a read-only wrapper
+    private final ByteBuffer buffer;
+
+    private Payload(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Wraps a whole array without copying it.
+     */
+    public static Payload wrap(byte[] bytes) {
+        Objects.requireNonNull(bytes, "bytes");
+        return bytes.length == 0 ? EMPTY : new Payload(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Wraps a range of an array without copying it.
+     */
+    public static Payload wrap(byte[] bytes, int offset, int length) {
+        Objects.requireNonNull(bytes, "bytes");
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return new Payload(ByteBuffer.wrap(bytes, offset, length).slice());
+    }
+
+    /**
+     * Wraps the buffer's remaining bytes without copying them. The buffer's position is left unchanged.
+     * Heap, direct and memory-mapped buffers are all accepted.
+     */
+    public static Payload wrap(ByteBuffer bytes) {
+        Objects.requireNonNull(bytes, "bytes");
+        return new Payload(bytes.slice());
+    }
+
+    /**
+     * Copies an array, for callers that keep using it.
+     */
+    public static Payload copyOf(byte[] bytes) {
+        return wrap(bytes.clone());
+    }
+
+    /**
+     * Maps a whole file read-only. The mapping stays valid after this method closes the file.
+     *
+     * @throws IllegalArgumentException if the file is larger than 2 GiB
+     */
+    public static Payload map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File too large for a message payload: " + size + " bytes");
+            }
+            return new Payload(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public static Payload empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return buffer.limit();
+    }
+
+    /**
+     * Whether the bytes live outside the Java heap, in a direct buffer or a mapped file.
+     */
+    public boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    /**
+     * Returns a new read-only view of the bytes, positioned at 0. Creating a view does not copy.
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the bytes into {@code target} at its position and advances it.
+     */
+    public void copyTo(ByteBuffer target) {
+        target.put(buffer.duplicate());
+    }
+
+    /**
+     * Returns a copy of the bytes.
+     */
+    public byte[] toByteArray() {
+        byte[] copy = new byte[size()];
+        buffer.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * Returns the backing array itself when it holds exactly the payload, otherwise a copy.
+     * Callers must not modify the result.
+     */
+    byte[] sharedArray() {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == size()) {
+            return buffer.array();
+        }
+        return toByteArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return buffer.equals(((Payload) o).buffer);
+    }
+
+    @Override
+    public int hashCode() {
+        return buffer.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Payload{size=%d, direct=%s}", size(), isDirect());
+    }
+}
@@ -0,0 +1,208 @@
+package ai.hack.rocketmq.monitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram.
+ * Each power-of-two range of nanoseconds is split into 32 linear sub-buckets, giving about 3% relative
+ * error up to ~137 seconds; larger values are clamped into the last bucket while the exact maximum is
+ * still tracked. Recording threads are spread over several stripes to avoid contending on one counter.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_TRACKABLE_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    // Stripe layout: bucket counts followed by the running sum of recorded values
+    private static final int SUM_SLOT = BUCKET_COUNT;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    private final AtomicLong maxValue = new AtomicLong(0);
+
+    // Cumulative state at the last interval snapshot, only touched under the snapshot lock
+    private final long[] intervalBaseline = new long[BUCKET_COUNT + 1];
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(16, Runtime.getRuntime().availableProcessors())));
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT + 1);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Records one latency sample in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long valueNanos) {
+        long value = Math.max(0, valueNanos);
+        AtomicLongArray stripe = stripes[stripeIndex()];
+        stripe.incrementAndGet(bucketIndex(Math.min(value, MAX_TRACKABLE_VALUE)));
+        stripe.addAndGet(SUM_SLOT, value);
+
+        long currentMax = maxValue.get();
+        while (value > currentMax && !maxValue.compareAndSet(currentMax, value)) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    /**
+     * Snapshot of everything recorded since creation or the last {@link #reset()}.
+     */
+    public Snapshot snapshot() {
+        long[] totals = collect();
+        return Snapshot.of(totals, maxValue.get());
+    }
+
+    /**
+     * Snapshot of the values recorded since the previous call to this method.
+     * The maximum is the upper bound of the highest populated bucket of the interval.
+     */
+    public synchronized Snapshot intervalSnapshot() {
+        long[] totals = collect();
+        long[] delta = new long[totals.length];
+        for (int i = 0; i < totals.length; i++) {
+            delta[i] = totals[i] - intervalBaseline[i];
+            intervalBaseline[i] = totals[i];
+        }
+        return Snapshot.of(delta, -1);
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public synchronized void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < stripe.length(); i++) {
+                stripe.set(i, 0);
+            }
+        }
+        maxValue.set(0);
+        Arrays.fill(intervalBaseline, 0);
+    }
+
+    private long[] collect() {
+        long[] totals = new long[BUCKET_COUNT + 1];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += stripe.get(i);
+            }
+        }
+        return totals;
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        // Mix the id so sequentially numbered threads spread across stripes
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int group = index / SUB_BUCKET_COUNT;
+        long subBucket = (index % SUB_BUCKET_COUNT) + SUB_BUCKET_COUNT;
+        int shift = group - 1;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable percentile summary of a histogram, in nanoseconds.
+     */
+    public static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0);
+
+        private final long count;
+        private final long meanNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        public Snapshot(long count, long meanNanos, long p50Nanos, long p90Nanos,
+                        long p99Nanos, long p999Nanos, long maxNanos) {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public static Snapshot empty() {
+            return EMPTY;
+        }
+
+        private static Snapshot of(long[] totals, long exactMax) {
+            long count = 0;
+            int highest = -1;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (totals[i] > 0) {
+                    count += totals[i];
+                    highest = i;
+                }
+            }
+            if (count == 0) {
+                return EMPTY;
+            }
+
+            long max = exactMax >= 0 ? exactMax : bucketUpperBound(highest);
+            return new Snapshot(count, totals[SUM_SLOT] / count,
+                    percentile(totals, count, 0.50, max),
+                    percentile(totals, count, 0.90, max),
+                    percentile(totals, count, 0.99, max),
+                    percentile(totals, count, 0.999, max),
+                    max);
+        }
+
+        private static long percentile(long[] totals, long count, double quantile, long max) {
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += totals[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public long getCount() { return count; }
+        public long getMeanNanos() { return meanNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP90Nanos() { return p90Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getP999Nanos() { return p999Nanos; }
+        public long getMaxNanos() { return maxNanos; }
+
+        public double getP99Millis() {
+            return p99Nanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LatencySnapshot{count=%d, mean=%.3fms, p50=%.3fms, p90=%.3fms, " +
+                               "p99=%.3fms, p99.9=%.3fms, max=%.3fms}",
+                               count, meanNanos / 1_000_000.0, p50Nanos / 1_000_000.0, p90Nanos / 1_000_000.0,
+                               p99Nanos / 1_000_000.0, p999Nanos / 1_000_000.0, maxNanos / 1_000_000.0);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -33,17 +34,43 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
     private final AtomicLong totalLatencyNanos = new AtomicLong(0);
     private final AtomicLong minLatencyNanos = new AtomicLong(Long.MAX_VALUE);
     private final AtomicLong maxLatencyNanos = new AtomicLong(0);
+    private final AtomicLong latencySamples = new AtomicLong(0);
+
+    // Latency distributions (in nanoseconds)
+    private final LatencyHistogram publishLatency = new LatencyHistogram();
+    private final LatencyHistogram brokerRoundTripLatency = new LatencyHistogram();
+    private final LatencyHistogram consumeLatency = new LatencyHistogram();
+    private final LatencyHistogram requestResponseLatency = new LatencyHistogram();
 
     // Connection metrics
     private final AtomicLong activeConnections = new AtomicLong(0);
     private final AtomicLong connectionErrors = new AtomicLong(0);
     private final AtomicLong timeouts = new AtomicLong(0);
 
+    private final AtomicLong backpressureEvents = new AtomicLong(0);
+
+    // Windowed rates, ticked once per second by the scheduler
+    private final RateMeter sentMeter = new RateMeter();
+    private final RateMeter receivedMeter = new RateMeter();
+    private final RateMeter failedMeter = new RateMeter();
+    private final RateMeter bytesSentMeter = new RateMeter();
+    private final RateMeter bytesReceivedMeter = new RateMeter();
+    private final RateMeter backpressureMeter = new RateMeter();
+
+    // Producer accumulator metrics
+    private final AtomicLong accumulatorMessages = new AtomicLong(0);
+    private final AtomicLong accumulatorBytes = new AtomicLong(0);
+    private final AtomicLong batchesFlushed = new AtomicLong(0);
+    private final AtomicLong batchedMessages = new AtomicLong(0);
+
     // Memory usage metrics (in MB)
     private final AtomicLong heapMemoryUsed = new AtomicLong(0);
     private final AtomicLong directMemoryUsed = new AtomicLong(0);
     private final AtomicLong maxHeapMemory = new AtomicLong(0);
 
+    // Per-topic counters
+    private final ConcurrentHashMap<String, TopicCounters> topicCounters = new ConcurrentHashMap<>();
+
     // Custom metrics
     private final ConcurrentHashMap<String, AtomicLong> customCounters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, Double> customGauges = new ConcurrentHashMap<>();
@@ -84,35 +111,48 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
     // Message metrics
     public void incrementMessagesSent() {
         messagesSent.incrementAndGet();
+        sentMeter.mark();
     }
 
     public void incrementMessagesSent(long count) {
         messagesSent.addAndGet(count);
+        sentMeter.mark(count);
     }
 
     public void incrementMessagesReceived() {
         messagesReceived.incrementAndGet();
+        receivedMeter.mark();
     }
 
     public void incrementMessagesReceived(long count) {
         messagesReceived.addAndGet(count);
+        receivedMeter.mark(count);
     }
 
     public void incrementMessagesFailed() {
         messagesFailed.incrementAndGet();
+        failedMeter.mark();
+    }
+
+    public void incrementMessagesFailed(long count) {
+        messagesFailed.addAndGet(count);
+        failedMeter.mark(count);
     }
 
     public void addBytesSent(long bytes) {
         bytesSent.addAndGet(bytes);
+        bytesSentMeter.mark(bytes);
     }
 
     public void addBytesReceived(long bytes) {
         bytesReceived.addAndGet(bytes);
+        bytesReceivedMeter.mark(bytes);
     }
 
     // Latency metrics
     public void recordLatency(long latencyNanos) {
         totalLatencyNanos.addAndGet(latencyNanos);
+        latencySamples.incrementAndGet();
 
         // Update min/max in a thread-safe way
         long currentMin = minLatencyNanos.get();
@@ -126,6 +166,36 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         }
     }
 
+    /**
+     * Records the latency of a client send call, from the API call until its result is available.
+     */
+    public void recordPublishLatency(long latencyNanos) {
+        publishLatency.record(latencyNanos);
+        recordLatency(latencyNanos);
+    }
+
+    /**
+     * Records the time between handing a message (or batch envelope) to the producer and the broker ack.
+     */
+    public void recordBrokerRoundTrip(long latencyNanos) {
+        brokerRoundTripLatency.record(latencyNanos);
+    }
+
+    /**
+     * Records the execution time of a consumer callback.
+     */
+    public void recordConsumeLatency(long latencyNanos) {
+        consumeLatency.record(latencyNanos);
+        recordLatency(latencyNanos);
+    }
+
+    /**
+     * Records the time from sending a request until its response arrived.
+     */
+    public void recordRequestResponseLatency(long latencyNanos) {
+        requestResponseLatency.record(latencyNanos);
+    }
+
     // Connection metrics
     public void setActiveConnections(int count) {
         activeConnections.set(count);
@@ -147,6 +217,39 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         timeouts.incrementAndGet();
     }
 
+    // Accumulator metrics
+    public void addAccumulatorOccupancy(long messages, long bytes) {
+        accumulatorMessages.addAndGet(messages);
+        accumulatorBytes.addAndGet(bytes);
+    }
+
+    public void recordBatchFlush(int messageCount) {
+        batchesFlushed.incrementAndGet();
+        batchedMessages.addAndGet(messageCount);
+    }
+
+    // Topic metrics
+    public void recordTopicSent(String topic, long messages, long bytes) {
+        TopicCounters counters = topicCounters(topic);
+        counters.sent.add(messages);
+        counters.bytesSent.add(bytes);
+    }
+
+    public void recordTopicFailed(String topic, long messages) {
+        topicCounters(topic).failed.add(messages);
+    }
+
+    public void recordTopicReceived(String topic, long bytes) {
+        TopicCounters counters = topicCounters(topic);
+        counters.received.increment();
+        counters.bytesReceived.add(bytes);
+    }
+
+    private TopicCounters topicCounters(String topic) {
+        TopicCounters counters = topicCounters.get(topic);
+        return counters != null ? counters : topicCounters.computeIfAbsent(topic, k -> new TopicCounters());
+    }
+
     // Custom metrics
     public void incrementCounter(String name) {
         customCounters.computeIfAbsent(name, k -> new AtomicLong(0)).incrementAndGet();
@@ -211,6 +314,70 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         return timeouts.get();
     }
 
+    public long getAccumulatorMessages() {
+        return accumulatorMessages.get();
+    }
+
+    public long getAccumulatorBytes() {
+        return accumulatorBytes.get();
+    }
+
+    public long getBatchesFlushed() {
+        return batchesFlushed.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = batchesFlushed.get();
+        return batches > 0 ? (double) batchedMessages.get() / batches : 0.0;
+    }
+
+    public LatencyHistogram.Snapshot getPublishLatency() {
+        return publishLatency.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getBrokerRoundTripLatency() {
+        return brokerRoundTripLatency.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getConsumeLatency() {
+        return consumeLatency.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getRequestResponseLatency() {
+        return requestResponseLatency.snapshot();
+    }
+
+    public long getBackpressureEvents() {
+        return backpressureEvents.get();
+    }
+
+    public RateMeter.Snapshot getSentRate() {
+        return sentMeter.snapshot();
+    }
+
+    public RateMeter.Snapshot getReceivedRate() {
+        return receivedMeter.snapshot();
+    }
+
+    public RateMeter.Snapshot getFailedRate() {
+        return failedMeter.snapshot();
+    }
+
+    public RateMeter.Snapshot getBytesSentRate() {
+        return bytesSentMeter.snapshot();
+    }
+
+    public RateMeter.Snapshot getBytesReceivedRate() {
+        return bytesReceivedMeter.snapshot();
+    }
+
+    public RateMeter.Snapshot getBackpressureRate() {
+        return backpressureMeter.snapshot();
+    }
+
+    /**
+     * Messages sent plus received per second, as a 10-second moving average.
+     */
     public double getCurrentThroughput() {
         return currentThroughput;
     }
@@ -236,6 +403,8 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
 
     /**
      * Gets a comprehensive performance snapshot.
+     * Latency distributions cover the interval since the previous snapshot, so consecutive snapshots
+     * show how tail latency evolves instead of an all-time aggregate.
      */
     public PerformanceSnapshot getSnapshot() {
         return new PerformanceSnapshot(
@@ -254,10 +423,102 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
                 getCurrentErrorRate(),
                 heapMemoryUsed.get(),
                 directMemoryUsed.get(),
-                Instant.now()
+                Instant.now(),
+                publishLatency.intervalSnapshot(),
+                brokerRoundTripLatency.intervalSnapshot(),
+                consumeLatency.intervalSnapshot(),
+                requestResponseLatency.intervalSnapshot()
         );
     }
 
+    /**
+     * Writes all collector metrics in OpenMetrics format.
+     *
+     * @param groupLabel label name identifying the client (e.g. {@code producer_group}), or {@code null}
+     */
+    public void writeMetrics(OpenMetricsWriter writer, String groupLabel, String group) {
+        counter(writer, "rocketmq_client_messages_sent", "Messages acknowledged by the broker", groupLabel, group, getMessagesSent());
+        counter(writer, "rocketmq_client_messages_received", "Messages delivered to consumers", groupLabel, group, getMessagesReceived());
+        counter(writer, "rocketmq_client_messages_failed", "Failed sends and consumes", groupLabel, group, getMessagesFailed());
+        counter(writer, "rocketmq_client_bytes_sent", "Payload bytes sent", groupLabel, group, getBytesSent());
+        counter(writer, "rocketmq_client_bytes_received", "Payload bytes received", groupLabel, group, getBytesReceived());
+        counter(writer, "rocketmq_client_timeouts", "Operation timeouts", groupLabel, group, getTimeouts());
+        counter(writer, "rocketmq_client_connection_errors", "Connection errors", groupLabel, group, getConnectionErrors());
+        counter(writer, "rocketmq_client_backpressure_events", "Backpressure activations", groupLabel, group, getBackpressureEvents());
+        counter(writer, "rocketmq_client_batches_flushed", "Auto-batching flushes", groupLabel, group, getBatchesFlushed());
+
+        gauge(writer, "rocketmq_client_throughput_messages_per_second", "Sent plus received messages per second (10s average)", groupLabel, group, getCurrentThroughput());
+        gauge(writer, "rocketmq_client_error_rate_percent", "Failed messages over the last minute", groupLabel, group, getCurrentErrorRate());
+        gauge(writer, "rocketmq_client_active_connections", "Active broker connections", groupLabel, group, getActiveConnections());
+        gauge(writer, "rocketmq_client_accumulator_messages", "Messages buffered for auto-batching", groupLabel, group, getAccumulatorMessages());
+        gauge(writer, "rocketmq_client_accumulator_bytes", "Bytes buffered for auto-batching", groupLabel, group, getAccumulatorBytes());
+        gauge(writer, "rocketmq_client_heap_used_megabytes", "Used heap memory", groupLabel, group, heapMemoryUsed.get());
+
+        writer.family("rocketmq_client_send_rate", "gauge", "Sent messages per second by window");
+        rate(writer, "rocketmq_client_send_rate", groupLabel, group, sentMeter);
+        writer.family("rocketmq_client_receive_rate", "gauge", "Received messages per second by window");
+        rate(writer, "rocketmq_client_receive_rate", groupLabel, group, receivedMeter);
+        writer.family("rocketmq_client_failure_rate", "gauge", "Failed messages per second by window");
+        rate(writer, "rocketmq_client_failure_rate", groupLabel, group, failedMeter);
+
+        writer.summary("rocketmq_client_publish_latency_seconds", "Client send call latency",
+                groupLabel, group, publishLatency.snapshot());
+        writer.summary("rocketmq_client_broker_round_trip_seconds", "Producer to broker ack latency",
+                groupLabel, group, brokerRoundTripLatency.snapshot());
+        writer.summary("rocketmq_client_consume_latency_seconds", "Consumer callback latency",
+                groupLabel, group, consumeLatency.snapshot());
+        writer.summary("rocketmq_client_request_response_latency_seconds", "Request to response latency",
+                groupLabel, group, requestResponseLatency.snapshot());
+
+        if (!topicCounters.isEmpty()) {
+            writer.family("rocketmq_client_topic_messages_sent", "counter", "Messages sent per topic");
+            topicCounters.forEach((topic, counters) ->
+                    writer.sample("rocketmq_client_topic_messages_sent_total", groupLabel, group, "topic", topic,
+                            counters.sent.sum()));
+            writer.family("rocketmq_client_topic_messages_failed", "counter", "Failed sends per topic");
+            topicCounters.forEach((topic, counters) ->
+                    writer.sample("rocketmq_client_topic_messages_failed_total", groupLabel, group, "topic", topic,
+                            counters.failed.sum()));
+            writer.family("rocketmq_client_topic_messages_received", "counter", "Messages received per topic");
+            topicCounters.forEach((topic, counters) ->
+                    writer.sample("rocketmq_client_topic_messages_received_total", groupLabel, group, "topic", topic,
+                            counters.received.sum()));
+            writer.family("rocketmq_client_topic_bytes_sent", "counter", "Payload bytes sent per topic");
+            topicCounters.forEach((topic, counters) ->
+                    writer.sample("rocketmq_client_topic_bytes_sent_total", groupLabel, group, "topic", topic,
+                            counters.bytesSent.sum()));
+            writer.family("rocketmq_client_topic_bytes_received", "counter", "Payload bytes received per topic");
+            topicCounters.forEach((topic, counters) ->
+                    writer.sample("rocketmq_client_topic_bytes_received_total", groupLabel, group, "topic", topic,
+                            counters.bytesReceived.sum()));
+        }
+
+        if (!customCounters.isEmpty()) {
+            writer.family("rocketmq_client_custom", "counter", "Custom client counters");
+            customCounters.forEach((name, counter) ->
+                    writer.sample("rocketmq_client_custom_total", "name", name, groupLabel, group, counter.get()));
+        }
+    }
+
+    private static void counter(OpenMetricsWriter writer, String family, String help,
+                                String groupLabel, String group, long value) {
+        writer.family(family, "counter", help);
+        writer.sample(family + "_total", groupLabel, group, value);
+    }
+
+    private static void gauge(OpenMetricsWriter writer, String family, String help,
+                              String groupLabel, String group, double value) {
+        writer.family(family, "gauge", help);
+        writer.sample(family, groupLabel, group, value);
+    }
+
+    private static void rate(OpenMetricsWriter writer, String name, String groupLabel, String group, RateMeter meter) {
+        writer.sample(name, groupLabel, group, "window", "1s", meter.getOneSecondRate());
+        writer.sample(name, groupLabel, group, "window", "10s", meter.getTenSecondRate());
+        writer.sample(name, groupLabel, group, "window", "1m", meter.getOneMinuteRate());
+        writer.sample(name, groupLabel, group, "window", "5m", meter.getFiveMinuteRate());
+    }
+
     /**
      * Calculates derived metrics like throughput and error rate.
      */
@@ -267,29 +528,31 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         }
 
         try {
-            long sent = messagesSent.get();
-            long received = messagesReceived.get();
-            long failed = messagesFailed.get();
-            long totalMessages = sent + received;
-
-            // Calculate average latency
+            sentMeter.tick();
+            receivedMeter.tick();
+            failedMeter.tick();
+            bytesSentMeter.tick();
+            bytesReceivedMeter.tick();
+            backpressureMeter.tick();
+
+            // Calculate average latency over the recorded samples
             long totalLatency = totalLatencyNanos.get();
-            long latencyCount = sent + received; // Rough approximation
+            long latencyCount = latencySamples.get();
             if (latencyCount > 0) {
                 averageLatencyMs = (totalLatency / latencyCount) / 1_000_000.0;
             }
 
-            // Calculate throughput (messages per second over last interval)
-            // This is a simplified calculation - in production, implement proper time-windowed metrics
-
             // Update memory metrics
             updateMemoryMetrics();
-            currentThroughput = totalMessages / 60.0; // Simple average over last minute
 
-            // Calculate error rate
-            if (totalMessages > 0) {
-                currentErrorRate = (failed * 100.0) / totalMessages;
-            }
+            // Throughput and error rate reflect recent load, not lifetime totals
+            currentThroughput = sentMeter.getTenSecondRate() + receivedMeter.getTenSecondRate();
+
+            long recentMessages = sentMeter.getWindowCount(60) + receivedMeter.getWindowCount(60);
+            long recentFailures = failedMeter.getWindowCount(60);
+            currentErrorRate = recentMessages + recentFailures > 0
+                    ? (recentFailures * 100.0) / (recentMessages + recentFailures)
+                    : 0.0;
 
             logger.debug("Calculated metrics - throughput: {:.2f} msg/s, error_rate: {:.2f}%, avg_latency: {:.2f}ms",
                        currentThroughput, currentErrorRate, averageLatencyMs);
@@ -311,14 +574,40 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         totalLatencyNanos.set(0);
         minLatencyNanos.set(Long.MAX_VALUE);
         maxLatencyNanos.set(0);
+        latencySamples.set(0);
+        publishLatency.reset();
+        brokerRoundTripLatency.reset();
+        consumeLatency.reset();
+        requestResponseLatency.reset();
         connectionErrors.set(0);
         timeouts.set(0);
+        backpressureEvents.set(0);
+        sentMeter.reset();
+        receivedMeter.reset();
+        failedMeter.reset();
+        bytesSentMeter.reset();
+        bytesReceivedMeter.reset();
+        backpressureMeter.reset();
+        batchesFlushed.set(0);
+        batchedMessages.set(0);
+        topicCounters.clear();
         customCounters.clear();
         customGauges.clear();
 
         logger.info("All metrics reset");
     }
 
+    /**
+     * Striped per-topic counters.
+     */
+    private static final class TopicCounters {
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder received = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+    }
+
     /**
      * Snapshot of current performance metrics.
      */
@@ -339,6 +628,10 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         private final long heapMemoryUsed;
         private final long directMemoryUsed;
         private final Instant timestamp;
+        private final LatencyHistogram.Snapshot publishLatency;
+        private final LatencyHistogram.Snapshot brokerRoundTripLatency;
+        private final LatencyHistogram.Snapshot consumeLatency;
+        private final LatencyHistogram.Snapshot requestResponseLatency;
 
         public PerformanceSnapshot(long messagesSent, long messagesReceived, long messagesFailed,
                                  long bytesSent, long bytesReceived, double averageLatencyMs,
@@ -346,6 +639,22 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
                                  long connectionErrors, long timeouts, double throughput,
                                  double errorRate, long heapMemoryUsed, long directMemoryUsed,
                                  Instant timestamp) {
+            this(messagesSent, messagesReceived, messagesFailed, bytesSent, bytesReceived, averageLatencyMs,
+                 minLatencyNanos, maxLatencyNanos, activeConnections, connectionErrors, timeouts, throughput,
+                 errorRate, heapMemoryUsed, directMemoryUsed, timestamp,
+                 LatencyHistogram.Snapshot.empty(), LatencyHistogram.Snapshot.empty(),
+                 LatencyHistogram.Snapshot.empty(), LatencyHistogram.Snapshot.empty());
+        }
+
+        public PerformanceSnapshot(long messagesSent, long messagesReceived, long messagesFailed,
+                                 long bytesSent, long bytesReceived, double averageLatencyMs,
+                                 long minLatencyNanos, long maxLatencyNanos, int activeConnections,
+                                 long connectionErrors, long timeouts, double throughput,
+                                 double errorRate, long heapMemoryUsed, long directMemoryUsed,
+                                 Instant timestamp, LatencyHistogram.Snapshot publishLatency,
+                                 LatencyHistogram.Snapshot brokerRoundTripLatency,
+                                 LatencyHistogram.Snapshot consumeLatency,
+                                 LatencyHistogram.Snapshot requestResponseLatency) {
             this.messagesSent = messagesSent;
             this.messagesReceived = messagesReceived;
             this.messagesFailed = messagesFailed;
@@ -362,6 +671,10 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
             this.heapMemoryUsed = heapMemoryUsed;
             this.directMemoryUsed = directMemoryUsed;
             this.timestamp = timestamp;
+            this.publishLatency = publishLatency;
+            this.brokerRoundTripLatency = brokerRoundTripLatency;
+            this.consumeLatency = consumeLatency;
+            this.requestResponseLatency = requestResponseLatency;
         }
 
         // Getters
@@ -381,14 +694,21 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
         public long getHeapMemoryUsed() { return heapMemoryUsed; }
         public long getDirectMemoryUsed() { return directMemoryUsed; }
         public Instant getTimestamp() { return timestamp; }
+        public LatencyHistogram.Snapshot getPublishLatency() { return publishLatency; }
+        public LatencyHistogram.Snapshot getBrokerRoundTripLatency() { return brokerRoundTripLatency; }
+        public LatencyHistogram.Snapshot getConsumeLatency() { return consumeLatency; }
+        public LatencyHistogram.Snapshot getRequestResponseLatency() { return requestResponseLatency; }
 
         @Override
         public String toString() {
             return String.format("PerformanceSnapshot{sent=%d, received=%d, failed=%d, " +
                                "throughput=%.2f msg/s, errorRate=%.2f%%, avgLatency=%.2fms, " +
+                               "publishP99=%.2fms, brokerP99=%.2fms, consumeP99=%.2fms, requestP99=%.2fms, " +
                                "connections=%d, memoryHeap=%dMB, memoryDirect=%dMB, timestamp=%s}",
                                messagesSent, messagesReceived, messagesFailed,
                                throughput, errorRate, averageLatencyMs,
+                               publishLatency.getP99Millis(), brokerRoundTripLatency.getP99Millis(),
+                               consumeLatency.getP99Millis(), requestResponseLatency.getP99Millis(),
                                activeConnections, heapMemoryUsed, directMemoryUsed, timestamp);
         }
     }
@@ -475,6 +795,7 @@ public class MetricsCollector implements InitializingBean, DisposableBean {
     }
 
     public void incrementBackpressureEvents() {
-        timeouts.incrementAndGet();
+        backpressureEvents.incrementAndGet();
+        backpressureMeter.mark();
     }
 }
\ No newline at end of file
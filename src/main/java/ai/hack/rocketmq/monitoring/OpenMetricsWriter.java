@@ -0,0 +1,338 @@
+package ai.hack.rocketmq.monitoring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OpenMetrics text exposition writer.
+ * Metric families and samples are encoded straight into reusable byte buffers: numbers are written digit
+ * by digit and names are copied char by char, so a scrape allocates nothing once the buffers have grown to
+ * their steady-state size. Samples are kept in one section per family, so several clients can export into
+ * the same writer: a family declared again switches back to its section, and the exposition lists each
+ * family once with the samples of every client under it. Instances are not thread-safe; reuse one per
+ * scrape thread or guard it externally.
+ */
+public class OpenMetricsWriter {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final int DEFAULT_CAPACITY = 16 * 1024;
+    private static final int SECTION_CAPACITY = 256;
+    private static final long DOUBLE_SCALE = 1_000_000L;
+    private static final byte[] EOF = "# EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Sections are kept across scrapes with their buffers; the root one holds samples written before any family
+    private final Map<String, Section> sections = new HashMap<>();
+    private final List<Section> written = new ArrayList<>();
+    private final Section root;
+    private Section current;
+    private boolean finished;
+
+    public OpenMetricsWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OpenMetricsWriter(int initialCapacity) {
+        this.root = new Section(null, Math.max(256, initialCapacity));
+        select(root);
+    }
+
+    /**
+     * Clears the buffers for the next scrape, keeping their capacity.
+     */
+    public OpenMetricsWriter reset() {
+        for (Section section : written) {
+            section.size = 0;
+            section.written = false;
+        }
+        written.clear();
+        finished = false;
+        select(root);
+        return this;
+    }
+
+    /**
+     * Starts or resumes a metric family. The {@code # TYPE} and {@code # HELP} lines are written once per
+     * scrape, from the first declaration; later samples of the family are grouped under them.
+     *
+     * @param type OpenMetrics type, e.g. {@code counter}, {@code gauge} or {@code summary}
+     */
+    public OpenMetricsWriter family(String name, String type, String help) {
+        Section section = sections.get(name);
+        if (section == null) {
+            section = new Section(familyHeader(name, type, help), SECTION_CAPACITY);
+            sections.put(name, section);
+        }
+        select(section);
+        return this;
+    }
+
+    public OpenMetricsWriter sample(String name, long value) {
+        return sample(name, null, null, null, null, value);
+    }
+
+    public OpenMetricsWriter sample(String name, double value) {
+        return sample(name, null, null, null, null, value);
+    }
+
+    public OpenMetricsWriter sample(String name, String label, String labelValue, long value) {
+        return sample(name, label, labelValue, null, null, value);
+    }
+
+    public OpenMetricsWriter sample(String name, String label, String labelValue, double value) {
+        return sample(name, label, labelValue, null, null, value);
+    }
+
+    /**
+     * Writes one sample line with up to two labels; pass {@code null} label names to omit them.
+     */
+    public OpenMetricsWriter sample(String name, String label1, String value1,
+                                    String label2, String value2, long value) {
+        header(name, label1, value1, label2, value2);
+        number(value).put('\n');
+        return this;
+    }
+
+    public OpenMetricsWriter sample(String name, String label1, String value1,
+                                    String label2, String value2, double value) {
+        header(name, label1, value1, label2, value2);
+        decimal(value).put('\n');
+        return this;
+    }
+
+    /**
+     * Writes a latency histogram snapshot as a summary in seconds with 0.5/0.9/0.99/0.999 quantiles.
+     */
+    public OpenMetricsWriter summary(String name, String help, String label, String labelValue,
+                                     LatencyHistogram.Snapshot snapshot) {
+        family(name, "summary", help);
+        quantile(name, label, labelValue, "0.5", snapshot.getP50Nanos());
+        quantile(name, label, labelValue, "0.9", snapshot.getP90Nanos());
+        quantile(name, label, labelValue, "0.99", snapshot.getP99Nanos());
+        quantile(name, label, labelValue, "0.999", snapshot.getP999Nanos());
+        header(name, "_count", label, labelValue, null, null);
+        number(snapshot.getCount()).put('\n');
+        header(name, "_sum", label, labelValue, null, null);
+        decimal(snapshot.getMeanNanos() * (double) snapshot.getCount() / 1e9).put('\n');
+        return this;
+    }
+
+    /**
+     * Terminates the exposition with the mandatory {@code # EOF} marker.
+     */
+    public OpenMetricsWriter finish() {
+        finished = true;
+        return this;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        for (Section section : written) {
+            if (section.header != null) {
+                out.write(section.header);
+            }
+            out.write(section.buffer, 0, section.size);
+        }
+        if (finished) {
+            out.write(EOF);
+        }
+    }
+
+    public int size() {
+        int size = finished ? EOF.length : 0;
+        for (Section section : written) {
+            size += (section.header != null ? section.header.length : 0) + section.size;
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size());
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void select(Section section) {
+        current = section;
+        if (!section.written) {
+            section.written = true;
+            written.add(section);
+        }
+    }
+
+    private static byte[] familyHeader(String name, String type, String help) {
+        OpenMetricsWriter header = new OpenMetricsWriter(256);
+        header.ascii("# TYPE ").ascii(name).put(' ').ascii(type).put('\n');
+        header.ascii("# HELP ").ascii(name).put(' ').escaped(help).put('\n');
+        return Arrays.copyOf(header.root.buffer, header.root.size);
+    }
+
+    private void quantile(String name, String label, String labelValue, String quantile, long nanos) {
+        header(name, label, labelValue, "quantile", quantile);
+        decimal(nanos / 1e9).put('\n');
+    }
+
+    private void header(String name, String label1, String value1, String label2, String value2) {
+        header(name, null, label1, value1, label2, value2);
+    }
+
+    private void header(String name, String suffix, String label1, String value1, String label2, String value2) {
+        ascii(name);
+        if (suffix != null) {
+            ascii(suffix);
+        }
+        boolean first = true;
+        if (label1 != null) {
+            put('{').ascii(label1).put('=').put('"').escaped(value1).put('"');
+            first = false;
+        }
+        if (label2 != null) {
+            put(first ? '{' : ',').ascii(label2).put('=').put('"').escaped(value2).put('"');
+            first = false;
+        }
+        if (!first) {
+            put('}');
+        }
+        put(' ');
+    }
+
+    private OpenMetricsWriter number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return ascii(Long.toString(value));
+        }
+        ensureCapacity(20);
+        byte[] buffer = current.buffer;
+        if (value < 0) {
+            buffer[current.size++] = '-';
+            value = -value;
+        }
+        int start = current.size;
+        do {
+            buffer[current.size++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        // Digits were written least significant first
+        for (int i = start, j = current.size - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+        return this;
+    }
+
+    /**
+     * Writes a double with up to six fractional digits, trimming trailing zeros.
+     */
+    private OpenMetricsWriter decimal(double value) {
+        if (Double.isNaN(value)) {
+            return ascii("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return ascii(value > 0 ? "+Inf" : "-Inf");
+        }
+        if (Math.abs(value) >= Long.MAX_VALUE / DOUBLE_SCALE) {
+            return ascii(Double.toString(value));
+        }
+
+        long scaled = Math.round(value * DOUBLE_SCALE);
+        if (scaled < 0) {
+            put('-');
+            scaled = -scaled;
+        }
+        number(scaled / DOUBLE_SCALE);
+
+        long fraction = scaled % DOUBLE_SCALE;
+        if (fraction != 0) {
+            put('.');
+            long divisor = DOUBLE_SCALE / 10;
+            while (fraction != 0) {
+                put((char) ('0' + fraction / divisor));
+                fraction %= divisor;
+                divisor /= 10;
+            }
+        }
+        return this;
+    }
+
+    private OpenMetricsWriter escaped(String value) {
+        if (value == null) {
+            return this;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> put('\\').put('\\');
+                case '"' -> put('\\').put('"');
+                case '\n' -> put('\\').put('n');
+                default -> {
+                    if (c < 0x80) {
+                        put(c);
+                    } else {
+                        utf8(c);
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    private void utf8(char c) {
+        if (c < 0x800) {
+            put((char) (0xC0 | (c >> 6))).put((char) (0x80 | (c & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+            // Label values are identifiers in practice; replace unpaired or split surrogates
+            put('?');
+        } else {
+            put((char) (0xE0 | (c >> 12))).put((char) (0x80 | ((c >> 6) & 0x3F))).put((char) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    private OpenMetricsWriter ascii(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            current.buffer[current.size++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    private OpenMetricsWriter put(char c) {
+        ensureCapacity(1);
+        current.buffer[current.size++] = (byte) c;
+        return this;
+    }
+
+    private void ensureCapacity(int additional) {
+        Section section = current;
+        if (section.size + additional > section.buffer.length) {
+            section.buffer = Arrays.copyOf(section.buffer, Math.max(section.buffer.length * 2, section.size + additional));
+        }
+    }
+
+    /**
+     * Encoded samples of one metric family, preceded by its {@code # TYPE}/{@code # HELP} lines.
+     */
+    private static final class Section {
+        private final byte[] header;
+        private byte[] buffer;
+        private int size;
+        private boolean written;
+
+        private Section(byte[] header, int capacity) {
+            this.header = header;
+            this.buffer = new byte[capacity];
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ai.hack.rocketmq.monitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time-windowed event rate meter.
+ * Hot-path updates only touch a {@link LongAdder}; a periodic {@link #tick()} (once per second) folds the
+ * pending count into exponentially weighted moving averages over 1s, 10s, 1m and 5m and into a ring buffer
+ * of per-second counts used for exact sliding-window rates.
+ */
+public class RateMeter {
+
+    static final int WINDOW_SECONDS = 300;
+    private static final double TICK_SECONDS = 1.0;
+
+    private static final double ALPHA_1S = alpha(1);
+    private static final double ALPHA_10S = alpha(10);
+    private static final double ALPHA_1M = alpha(60);
+    private static final double ALPHA_5M = alpha(300);
+
+    private final LongAdder pending = new LongAdder();
+
+    // Tick state, written only by tick() under the meter's monitor
+    private final long[] perSecond = new long[WINDOW_SECONDS];
+    private int head;
+    private int filledSlots;
+    private long tickedTotal;
+    private boolean initialized;
+
+    private volatile double rate1s;
+    private volatile double rate10s;
+    private volatile double rate1m;
+    private volatile double rate5m;
+
+    private static double alpha(int windowSeconds) {
+        return 1.0 - Math.exp(-TICK_SECONDS / windowSeconds);
+    }
+
+    public void mark() {
+        pending.increment();
+    }
+
+    public void mark(long count) {
+        pending.add(count);
+    }
+
+    /**
+     * Closes the current one-second interval. Must be called once per second by a single scheduler thread.
+     */
+    public synchronized void tick() {
+        long count = pending.sumThenReset();
+        tickedTotal += count;
+
+        perSecond[head] = count;
+        head = (head + 1) % WINDOW_SECONDS;
+        filledSlots = Math.min(WINDOW_SECONDS, filledSlots + 1);
+
+        double instantRate = count / TICK_SECONDS;
+        if (!initialized) {
+            rate1s = rate10s = rate1m = rate5m = instantRate;
+            initialized = true;
+        } else {
+            rate1s += ALPHA_1S * (instantRate - rate1s);
+            rate10s += ALPHA_10S * (instantRate - rate10s);
+            rate1m += ALPHA_1M * (instantRate - rate1m);
+            rate5m += ALPHA_5M * (instantRate - rate5m);
+        }
+    }
+
+    /**
+     * Total number of events, including those not yet folded in by a tick.
+     */
+    public synchronized long getCount() {
+        return tickedTotal + pending.sum();
+    }
+
+    public double getOneSecondRate() {
+        return rate1s;
+    }
+
+    public double getTenSecondRate() {
+        return rate10s;
+    }
+
+    public double getOneMinuteRate() {
+        return rate1m;
+    }
+
+    public double getFiveMinuteRate() {
+        return rate5m;
+    }
+
+    /**
+     * Exact number of events in the last {@code seconds} completed ticks (at most 300).
+     */
+    public synchronized long getWindowCount(int seconds) {
+        int slots = Math.min(Math.min(seconds, WINDOW_SECONDS), filledSlots);
+        long sum = 0;
+        for (int i = 1; i <= slots; i++) {
+            sum += perSecond[(head - i + WINDOW_SECONDS) % WINDOW_SECONDS];
+        }
+        return sum;
+    }
+
+    /**
+     * Exact per-second rate over the last {@code seconds} completed ticks, or over the meter's lifetime if shorter.
+     */
+    public synchronized double getWindowRate(int seconds) {
+        int slots = Math.min(Math.min(seconds, WINDOW_SECONDS), filledSlots);
+        return slots > 0 ? (double) getWindowCount(slots) / slots : 0.0;
+    }
+
+    public synchronized void reset() {
+        pending.reset();
+        Arrays.fill(perSecond, 0);
+        head = 0;
+        filledSlots = 0;
+        tickedTotal = 0;
+        initialized = false;
+        rate1s = rate10s = rate1m = rate5m = 0.0;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(getCount(), rate1s, rate10s, rate1m, rate5m, getWindowRate(60));
+    }
+
+    /**
+     * Immutable view of a meter's rates, in events per second.
+     */
+    public static class Snapshot {
+        private final long count;
+        private final double oneSecondRate;
+        private final double tenSecondRate;
+        private final double oneMinuteRate;
+        private final double fiveMinuteRate;
+        private final double lastMinuteRate;
+
+        public Snapshot(long count, double oneSecondRate, double tenSecondRate, double oneMinuteRate,
+                        double fiveMinuteRate, double lastMinuteRate) {
+            this.count = count;
+            this.oneSecondRate = oneSecondRate;
+            this.tenSecondRate = tenSecondRate;
+            this.oneMinuteRate = oneMinuteRate;
+            this.fiveMinuteRate = fiveMinuteRate;
+            this.lastMinuteRate = lastMinuteRate;
+        }
+
+        public long getCount() { return count; }
+        public double getOneSecondRate() { return oneSecondRate; }
+        public double getTenSecondRate() { return tenSecondRate; }
+        public double getOneMinuteRate() { return oneMinuteRate; }
+        public double getFiveMinuteRate() { return fiveMinuteRate; }
+        public double getLastMinuteRate() { return lastMinuteRate; }
+
+        @Override
+        public String toString() {
+            return String.format("RateSnapshot{count=%d, 1s=%.2f/s, 10s=%.2f/s, 1m=%.2f/s, 5m=%.2f/s, last1m=%.2f/s}",
+                               count, oneSecondRate, tenSecondRate, oneMinuteRate, fiveMinuteRate, lastMinuteRate);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageHeaders;
+import ai.hack.rocketmq.model.MessageInternals;
+import ai.hack.rocketmq.model.MessagePriority;
+import ai.hack.rocketmq.model.MessageStatus;
+import ai.hack.rocketmq.model.Payload;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Versioned, length-prefixed binary codec for persisted {@link Message}s.
+ *
+ * <p>Layout (version 1, big-endian):
+ * <pre>
+ * magic:u8 version:u8
+ * messageId:str topic:str callbackTopic:str?
+ * epochSecond:i64 nanos:i32 priorityLevel:u8 statusOrdinal:u8
+ * headerCount:i32 (key:str type:u8 value)*
+ * tagCount:i32 (tag:str)*
+ * payloadLength:i32 payload:bytes
+ * </pre>
+ * Strings are an {@code i32} UTF-8 byte length followed by the bytes; a length of {@code -1} encodes null.
+ * The payload is copied as raw bytes, so arbitrary binary content round-trips unchanged.
+ * {@link MessageStatus} ordinals are persisted, so new statuses must only be appended.
+ */
+public final class BinaryMessageCodec {
+
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION_1 = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+
+    private static final MessageStatus[] STATUSES = MessageStatus.values();
+
+    private BinaryMessageCodec() {
+    }
+
+    /**
+     * Checks whether the given record was written by this codec.
+     * 0xB7 is a UTF-8 continuation byte, so it never starts a legacy text record.
+     */
+    public static boolean isBinaryRecord(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    /**
+     * Encodes a message into an exactly-sized byte array.
+     */
+    public static byte[] encode(Message message) {
+        // Read in place; the record is written from these before the method returns
+        MessageHeaders headers = MessageInternals.headers(message);
+        Set<String> tags = MessageInternals.tags(message);
+        Payload payload = message.payloadView();
+
+        byte[] buffer = new byte[encodedSize(message, headers, tags, payload.size())];
+        ByteBuffer out = ByteBuffer.wrap(buffer);
+
+        out.put(MAGIC);
+        out.put(VERSION_1);
+        putString(out, message.getMessageId());
+        putString(out, message.getTopic());
+        putString(out, message.getCallbackTopic());
+
+        Instant timestamp = message.getTimestamp() != null ? message.getTimestamp() : Instant.EPOCH;
+        out.putLong(timestamp.getEpochSecond());
+        out.putInt(timestamp.getNano());
+
+        MessagePriority priority = message.getPriority() != null ? message.getPriority() : MessagePriority.NORMAL;
+        MessageStatus status = message.getStatus() != null ? message.getStatus() : MessageStatus.PENDING;
+        out.put((byte) priority.getLevel());
+        out.put((byte) status.ordinal());
+
+        int headerCount = headers.size();
+        out.putInt(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            putString(out, headers.keyAt(i));
+            putValue(out, headers.valueAt(i));
+        }
+
+        out.putInt(tags.size());
+        for (String tag : tags) {
+            putString(out, tag);
+        }
+
+        out.putInt(payload.size());
+        payload.copyTo(out);
+
+        return buffer;
+    }
+
+    /**
+     * Decodes a message from a heap array.
+     */
+    public static Message decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Decodes a message from the buffer's remaining bytes. Works on heap, direct and memory-mapped
+     * buffers; the buffer's position is left unchanged.
+     *
+     * @throws IllegalArgumentException if the record is not a supported binary record
+     */
+    public static Message decode(ByteBuffer source) {
+        ByteBuffer in = source.slice();
+
+        if (in.remaining() < 2 || in.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary message record");
+        }
+        byte version = in.get();
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported message record version: " + version);
+        }
+
+        Message.Builder builder = Message.builder()
+                .messageId(getString(in))
+                .topic(getString(in));
+
+        String callbackTopic = getString(in);
+        if (callbackTopic != null) {
+            builder.callbackTopic(callbackTopic);
+        }
+
+        builder.timestamp(Instant.ofEpochSecond(in.getLong(), in.getInt()));
+        builder.priority(priorityOf(in.get()));
+
+        int statusOrdinal = in.get();
+        builder.status(statusOrdinal >= 0 && statusOrdinal < STATUSES.length
+                ? STATUSES[statusOrdinal] : MessageStatus.PENDING);
+
+        int headerCount = in.getInt();
+        MessageHeaders headers = new MessageHeaders(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            String key = getString(in);
+            headers.put(key, getValue(in));
+        }
+        builder.headers(headers);
+
+        int tagCount = in.getInt();
+        for (int i = 0; i < tagCount; i++) {
+            builder.tag(getString(in));
+        }
+
+        int payloadLength = in.getInt();
+        byte[] payload = new byte[payloadLength];
+        in.get(payload);
+        builder.wrapPayload(payload);
+
+        return builder.build();
+    }
+
+    private static int encodedSize(Message message, MessageHeaders headers, Set<String> tags, int payloadLength) {
+        int size = 2;
+        size += stringSize(message.getMessageId());
+        size += stringSize(message.getTopic());
+        size += stringSize(message.getCallbackTopic());
+        size += Long.BYTES + Integer.BYTES + 2;
+
+        size += Integer.BYTES;
+        int headerCount = headers.size();
+        for (int i = 0; i < headerCount; i++) {
+            size += stringSize(headers.keyAt(i)) + valueSize(headers.valueAt(i));
+        }
+
+        size += Integer.BYTES;
+        for (String tag : tags) {
+            size += stringSize(tag);
+        }
+
+        size += Integer.BYTES + payloadLength;
+        return size;
+    }
+
+    private static int valueSize(Object value) {
+        if (value == null) {
+            return 1;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return 1 + Long.BYTES;
+        }
+        if (value instanceof Integer) {
+            return 1 + Integer.BYTES;
+        }
+        if (value instanceof Boolean) {
+            return 2;
+        }
+        return 1 + stringSize(value.toString());
+    }
+
+    private static void putValue(ByteBuffer out, Object value) {
+        if (value == null) {
+            out.put(TYPE_NULL);
+        } else if (value instanceof Long longValue) {
+            out.put(TYPE_LONG).putLong(longValue);
+        } else if (value instanceof Integer intValue) {
+            out.put(TYPE_INT).putInt(intValue);
+        } else if (value instanceof Double doubleValue) {
+            out.put(TYPE_DOUBLE).putDouble(doubleValue);
+        } else if (value instanceof Boolean booleanValue) {
+            out.put(TYPE_BOOLEAN).put((byte) (booleanValue ? 1 : 0));
+        } else {
+            out.put(TYPE_STRING);
+            putString(out, value.toString());
+        }
+    }
+
+    private static Object getValue(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_STRING -> getString(in);
+            case TYPE_LONG -> in.getLong();
+            case TYPE_INT -> in.getInt();
+            case TYPE_DOUBLE -> in.getDouble();
+            case TYPE_BOOLEAN -> in.get() != 0;
+            default -> throw new IllegalArgumentException("Unknown header value type: " + type);
+        };
+    }
+
+    private static int stringSize(String value) {
+        return Integer.BYTES + (value != null ? utf8Length(value) : 0);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string directly into the buffer without an intermediate byte array.
+     */
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+
+        out.putInt(utf8Length(value));
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, encoded as '?' like String.getBytes(UTF_8)
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+
+        if (in.hasArray()) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+
+        ByteBuffer slice = in.slice();
+        slice.limit(length);
+        in.position(in.position() + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    private static MessagePriority priorityOf(int level) {
+        for (MessagePriority priority : MessagePriority.values()) {
+            if (priority.getLevel() == level) {
+                return priority;
+            }
+        }
+        return MessagePriority.NORMAL;
+    }
+}
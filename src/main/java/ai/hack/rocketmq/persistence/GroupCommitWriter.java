@@ -0,0 +1,262 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.config.WalPolicy;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatchWithIndex;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group-commit writer for RocksDB.
+ * Any number of threads submit write operations into a lock-free MPSC ring; a single writer thread
+ * drains the ring, applies the operations to one reusable {@link WriteBatchWithIndex} and commits the whole
+ * group with one {@code db.write}. Each submitter receives a future that completes once its
+ * operation is durable according to the configured {@link WalPolicy}.
+ *
+ * <p>Operations run one at a time on the writer thread, so an operation may read the current state with
+ * {@link WriteBatchWithIndex#getFromBatchAndDB}, which also sees earlier operations of the same group.
+ */
+class GroupCommitWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    private static final int DEFAULT_RING_CAPACITY = 64 * 1024;
+    private static final int MAX_GROUP_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * A mutation applied to the group's write batch on the writer thread.
+     */
+    @FunctionalInterface
+    interface WriteOperation {
+        void applyTo(WriteBatchWithIndex batch) throws RocksDBException;
+    }
+
+    private final RocksDB db;
+    private final WalPolicy walPolicy;
+    private final long walSyncIntervalNanos;
+    private final MpscRing<PendingWrite> ring;
+    private final WriteBatchWithIndex batch = new WriteBatchWithIndex(true);
+    private final WriteOptions writeOptions = new WriteOptions();
+    private final List<PendingWrite> group = new ArrayList<>(MAX_GROUP_SIZE);
+    private final Thread writerThread;
+
+    private final AtomicLong committedGroups = new AtomicLong(0);
+    private final AtomicLong committedWrites = new AtomicLong(0);
+
+    private volatile boolean running = true;
+    private volatile boolean writerParked = false;
+    private long lastWalSyncNanos = System.nanoTime();
+
+    GroupCommitWriter(RocksDB db, WalPolicy walPolicy, Duration walSyncInterval) {
+        this.db = db;
+        this.walPolicy = walPolicy;
+        this.walSyncIntervalNanos = walSyncInterval.toNanos();
+        this.ring = new MpscRing<>(DEFAULT_RING_CAPACITY);
+
+        switch (walPolicy) {
+            case SYNC -> writeOptions.setSync(true);
+            case ASYNC -> writeOptions.setSync(false);
+            case DISABLED -> writeOptions.setDisableWAL(true);
+        }
+
+        this.writerThread = new Thread(this::runWriter, "rocksdb-group-commit-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    void start() {
+        writerThread.start();
+        logger.info("Group-commit writer started: walPolicy={}, ringCapacity={}", walPolicy, ring.capacity());
+    }
+
+    /**
+     * Submits a write operation. Blocks briefly only when the ring is full, which throttles
+     * producers to the writer's commit rate.
+     *
+     * @return future completed when the operation's group has been committed
+     */
+    CompletableFuture<Void> submit(WriteOperation operation) {
+        PendingWrite write = new PendingWrite(operation);
+
+        while (!ring.offer(write)) {
+            if (!running) {
+                write.future.completeExceptionally(new IllegalStateException("Group-commit writer is closed"));
+                return write.future;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+        }
+
+        if (!running && !writerThread.isAlive()) {
+            // Closed concurrently and the writer already exited; nothing will drain this entry
+            write.future.completeExceptionally(new IllegalStateException("Group-commit writer is closed"));
+            return write.future;
+        }
+
+        if (writerParked) {
+            wakeWriter();
+        }
+        return write.future;
+    }
+
+    /**
+     * Completes once every operation submitted before this call has been committed.
+     */
+    CompletableFuture<Void> barrier() {
+        return submit(ignored -> { });
+    }
+
+    /**
+     * Stops accepting writes, commits everything already queued and releases native resources.
+     *
+     * @return {@code false} if the writer thread is still running, in which case the database must stay open
+     */
+    boolean close() {
+        running = false;
+        wakeWriter();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            logger.warn("Group-commit writer did not stop within timeout, {} writes pending", ring.size());
+            return false;
+        }
+        failRemaining();
+        batch.close();
+        writeOptions.close();
+        logger.info("Group-commit writer closed: groups={}, writes={}", committedGroups.get(), committedWrites.get());
+        return true;
+    }
+
+    long getCommittedGroups() {
+        return committedGroups.get();
+    }
+
+    long getCommittedWrites() {
+        return committedWrites.get();
+    }
+
+    int getQueuedWrites() {
+        return ring.size();
+    }
+
+    private void wakeWriter() {
+        LockSupport.unpark(writerThread);
+    }
+
+    private void runWriter() {
+        while (running || !ring.isEmpty()) {
+            PendingWrite write;
+            while (group.size() < MAX_GROUP_SIZE && (write = ring.poll()) != null) {
+                try {
+                    write.operation.applyTo(batch);
+                    group.add(write);
+                } catch (Exception e) {
+                    write.future.completeExceptionally(e);
+                }
+            }
+
+            if (group.isEmpty()) {
+                maybeSyncWal();
+                waitForWork();
+                continue;
+            }
+
+            commitGroup();
+        }
+        maybeSyncWal();
+    }
+
+    /**
+     * Fails entries offered after the writer's last check of the ring. Their submitters saw the writer
+     * still alive, so nothing else would complete them.
+     */
+    private void failRemaining() {
+        IllegalStateException closed = new IllegalStateException("Group-commit writer is closed");
+        while (!ring.isEmpty()) {
+            PendingWrite write = ring.poll();
+            if (write == null) {
+                // A producer claimed the slot but has not published it yet
+                Thread.onSpinWait();
+                continue;
+            }
+            write.future.completeExceptionally(closed);
+        }
+    }
+
+    private void commitGroup() {
+        try {
+            db.write(writeOptions, batch);
+            committedGroups.incrementAndGet();
+            committedWrites.addAndGet(group.size());
+            for (PendingWrite write : group) {
+                write.future.complete(null);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to commit write group of {} operations", group.size(), e);
+            for (PendingWrite write : group) {
+                write.future.completeExceptionally(e);
+            }
+        } finally {
+            try {
+                batch.clear();
+            } catch (Exception e) {
+                logger.error("Failed to clear write batch", e);
+            }
+            group.clear();
+        }
+    }
+
+    private void waitForWork() {
+        writerParked = true;
+        try {
+            // Re-check after advertising the park so a concurrent submit cannot be missed
+            if (ring.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        } finally {
+            writerParked = false;
+        }
+    }
+
+    private void maybeSyncWal() {
+        if (walPolicy != WalPolicy.ASYNC) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastWalSyncNanos < walSyncIntervalNanos) {
+            return;
+        }
+        lastWalSyncNanos = now;
+        try {
+            db.flushWal(true);
+        } catch (RocksDBException e) {
+            logger.warn("Periodic WAL sync failed", e);
+        }
+    }
+
+    /**
+     * A queued operation and its durability future.
+     */
+    private static final class PendingWrite {
+        private final WriteOperation operation;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(WriteOperation operation) {
+            this.operation = operation;
+        }
+    }
+}
@@ -4,29 +4,54 @@ import ai.hack.rocketmq.exception.RocketMQException;
 import ai.hack.rocketmq.model.MessageStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.DisposableBean;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 
 import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * H2 database for storing message metadata and indexing.
- * Provides SQL capabilities for complex queries and indexing.
+ * Provides SQL capabilities for complex queries and indexing. Hot-path metadata writes can go through
+ * the {@code *Async} methods, which coalesce per message id and are flushed in JDBC batches.
+ * Upserts use H2's {@code MERGE ... KEY} and keep the original {@code created_at} of an existing row.
  */
-public class H2MetadataStore implements InitializingBean, DisposableBean {
+public class H2MetadataStore implements MetadataStore {
 
     private static final Logger logger = LoggerFactory.getLogger(H2MetadataStore.class);
 
+    // Parameters: message_id, topic, callback_topic, status, retry_count, priority,
+    // message_id (to look up an existing created_at), created_at, updated_at
+    private static final String UPSERT_METADATA_SQL = """
+        MERGE INTO message_metadata (message_id, topic, callback_topic, status, retry_count,
+                                     priority, created_at, updated_at)
+        KEY (message_id)
+        VALUES (?, ?, ?, ?, ?, ?,
+                COALESCE((SELECT created_at FROM message_metadata WHERE message_id = ?), ?), ?)
+        """;
+
+    private static final String UPDATE_STATUS_SQL = """
+        UPDATE message_metadata
+        SET status = ?, retry_count = ?, updated_at = ?
+        WHERE message_id = ?
+        """;
+
+    // Write-behind tuning: flush at 512 rows or every 100ms, buffer at most 64k distinct messages
+    private static final int WRITE_BEHIND_BATCH_SIZE = 512;
+    private static final Duration WRITE_BEHIND_FLUSH_INTERVAL = Duration.ofMillis(100);
+    private static final int WRITE_BEHIND_CAPACITY = 64 * 1024;
+
     private final String dbPath;
     private EmbeddedDatabase dataSource;
     private JdbcTemplate jdbcTemplate;
+    private MetadataWriteBehind writeBehind;
 
     public H2MetadataStore(String dbPath) {
         this.dbPath = dbPath;
@@ -35,12 +60,18 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
     @Override
     public void afterPropertiesSet() throws Exception {
         initializeDatabase();
+        writeBehind = new MetadataWriteBehind(this::writeMetadataBatch,
+                WRITE_BEHIND_BATCH_SIZE, WRITE_BEHIND_FLUSH_INTERVAL, WRITE_BEHIND_CAPACITY);
+        writeBehind.start();
         logger.info("H2 metadata store initialized at: {}", dbPath);
     }
 
     @Override
     public void destroy() throws Exception {
         logger.info("Shutting down H2 metadata store");
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
         if (dataSource != null) {
             dataSource.shutdown();
         }
@@ -52,7 +83,6 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
             dataSource = new EmbeddedDatabaseBuilder()
                     .setType(EmbeddedDatabaseType.H2)
                     .setName(dbPath)
-                    .addScript("schema-h2.sql")
                     .build();
 
             jdbcTemplate = new JdbcTemplate(dataSource);
@@ -79,24 +109,24 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
                 retry_count INTEGER DEFAULT 0,
                 priority VARCHAR(20) DEFAULT 'NORMAL',
                 created_at TIMESTAMP NOT NULL,
-                updated_at TIMESTAMP NOT NULL,
-                index created_at_idx (created_at),
-                index topic_status_idx (topic, status),
-                index status_idx (status)
+                updated_at TIMESTAMP NOT NULL
             )
         """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS created_at_idx ON message_metadata (created_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS topic_status_idx ON message_metadata (topic, status)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS status_idx ON message_metadata (status, created_at)");
 
-        // Message index for correlation
+        // Message index for correlation. No foreign key: requests are correlated before the
+        // outgoing message's metadata exists, and write-behind rows land later still
         jdbcTemplate.execute("""
             CREATE TABLE IF NOT EXISTS message_correlation (
                 correlation_id VARCHAR(64) PRIMARY KEY,
                 message_id VARCHAR(64) NOT NULL,
                 response_topic VARCHAR(255),
-                timeout_at TIMESTAMP NOT NULL,
-                index timeout_idx (timeout_at),
-                FOREIGN KEY (message_id) REFERENCES message_metadata(message_id)
+                timeout_at TIMESTAMP NOT NULL
             )
         """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS timeout_idx ON message_correlation (timeout_at)");
 
         // System metrics table
         jdbcTemplate.execute("""
@@ -104,37 +134,21 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
                 id BIGINT AUTO_INCREMENT PRIMARY KEY,
                 metric_name VARCHAR(100) NOT NULL,
                 metric_value DOUBLE NOT NULL,
-                recorded_at TIMESTAMP NOT NULL,
-                index metric_name_idx (metric_name),
-                index recorded_at_idx (recorded_at)
+                recorded_at TIMESTAMP NOT NULL
             )
         """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS metric_name_idx ON system_metrics (metric_name, recorded_at)");
 
         logger.info("Database tables created successfully");
     }
 
-    /**
-     * Stores message metadata.
-     */
+    @Override
     public void storeMessageMetadata(String messageId, String topic, String callbackTopic,
                                     MessageStatus status, int retryCount, String priority) throws RocketMQException {
         try {
-            String sql = """
-                INSERT INTO message_metadata (message_id, topic, callback_topic, status, retry_count,
-                                              priority, created_at, updated_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                ON DUPLICATE KEY UPDATE
-                    topic = VALUES(topic),
-                    callback_topic = VALUES(callback_topic),
-                    status = VALUES(status),
-                    retry_count = VALUES(retry_count),
-                    priority = VALUES(priority),
-                    updated_at = VALUES(updated_at)
-                """;
-
-            Instant now = Instant.now();
-            jdbcTemplate.update(sql, messageId, topic, callbackTopic, status.name(),
-                    retryCount, priority, now, now);
+            Timestamp now = Timestamp.from(Instant.now());
+            jdbcTemplate.update(UPSERT_METADATA_SQL, messageId, topic, callbackTopic, status.name(),
+                    retryCount, priority, messageId, now, now);
 
             logger.debug("Message metadata stored: {}", messageId);
 
@@ -144,18 +158,10 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Updates message status.
-     */
+    @Override
     public void updateMessageStatus(String messageId, MessageStatus status, int retryCount) throws RocketMQException {
         try {
-            String sql = """
-                UPDATE message_metadata
-                SET status = ?, retry_count = ?, updated_at = ?
-                WHERE message_id = ?
-                """;
-
-            jdbcTemplate.update(sql, status.name(), retryCount, Instant.now(), messageId);
+            jdbcTemplate.update(UPDATE_STATUS_SQL, status.name(), retryCount, Timestamp.from(Instant.now()), messageId);
 
             logger.debug("Message status updated: {} -> {}", messageId, status);
 
@@ -166,8 +172,60 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
     }
 
     /**
-     * Gets message metadata by ID.
+     * Queues a metadata upsert for the write-behind flusher.
+     * Blocks only when the buffer is full; the row becomes visible to queries after the next flush.
      */
+    @Override
+    public void storeMessageMetadataAsync(String messageId, String topic, String callbackTopic,
+                                          MessageStatus status, int retryCount, String priority) {
+        writeBehind.recordMetadata(messageId, topic, callbackTopic, status, retryCount, priority);
+    }
+
+    /**
+     * Queues a status update, coalescing it with any unflushed write for the same message.
+     */
+    @Override
+    public void updateMessageStatusAsync(String messageId, MessageStatus status, int retryCount) {
+        writeBehind.recordStatus(messageId, status, retryCount);
+    }
+
+    @Override
+    public int getPendingMetadataWrites() {
+        return writeBehind != null ? writeBehind.getPendingRows() : 0;
+    }
+
+    @Override
+    public WriteBehindStats getWriteBehindStats() {
+        if (writeBehind == null) {
+            return new WriteBehindStats(0, 0, 0, 0, 0, 0);
+        }
+        return new WriteBehindStats(writeBehind.getPendingRows(), writeBehind.getRecordedWrites(),
+                writeBehind.getFlushedRows(), writeBehind.getFailedRows(), writeBehind.getFlushes(),
+                writeBehind.getBlockedWrites());
+    }
+
+    private void writeMetadataBatch(List<MetadataWriteBehind.PendingMetadata> upserts,
+                                    List<MetadataWriteBehind.PendingMetadata> statusUpdates) {
+        if (!upserts.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(upserts.size());
+            for (MetadataWriteBehind.PendingMetadata row : upserts) {
+                args.add(new Object[] {row.messageId, row.topic, row.callbackTopic, row.status.name(),
+                        row.retryCount, row.priority, row.messageId, Timestamp.from(row.createdAt),
+                        Timestamp.from(row.updatedAt)});
+            }
+            jdbcTemplate.batchUpdate(UPSERT_METADATA_SQL, args);
+        }
+        if (!statusUpdates.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(statusUpdates.size());
+            for (MetadataWriteBehind.PendingMetadata row : statusUpdates) {
+                args.add(new Object[] {row.status.name(), row.retryCount, Timestamp.from(row.updatedAt), row.messageId});
+            }
+            jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, args);
+        }
+        logger.debug("Flushed metadata batch: {} upserts, {} status updates", upserts.size(), statusUpdates.size());
+    }
+
+    @Override
     public Map<String, Object> getMessageMetadata(String messageId) throws RocketMQException {
         try {
             String sql = """
@@ -185,9 +243,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Gets messages by status.
-     */
+    @Override
     public List<Map<String, Object>> getMessagesByStatus(MessageStatus status, int limit) throws RocketMQException {
         try {
             String sql = """
@@ -207,9 +263,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Stores request-response correlation.
-     */
+    @Override
     public void storeCorrelation(String correlationId, String messageId, String responseTopic,
                                 Instant timeoutAt) throws RocketMQException {
         try {
@@ -218,7 +272,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
                 VALUES (?, ?, ?, ?)
                 """;
 
-            jdbcTemplate.update(sql, correlationId, messageId, responseTopic, timeoutAt);
+            jdbcTemplate.update(sql, correlationId, messageId, responseTopic, Timestamp.from(timeoutAt));
 
             logger.debug("Correlation stored: {} -> {}", correlationId, messageId);
 
@@ -228,9 +282,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Gets correlation and removes it.
-     */
+    @Override
     public Map<String, Object> getAndRemoveCorrelation(String correlationId) throws RocketMQException {
         try {
             Map<String, Object> correlation = jdbcTemplate.queryForMap(
@@ -246,13 +298,11 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Cleans up expired correlations.
-     */
+    @Override
     public int cleanupExpiredCorrelations() throws RocketMQException {
         try {
             int count = jdbcTemplate.update(
-                    "DELETE FROM message_correlation WHERE timeout_at < ?", Instant.now());
+                    "DELETE FROM message_correlation WHERE timeout_at < ?", Timestamp.from(Instant.now()));
 
             if (count > 0) {
                 logger.info("Cleaned up {} expired correlations", count);
@@ -266,9 +316,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Stores system metrics.
-     */
+    @Override
     public void storeMetric(String metricName, double metricValue) throws RocketMQException {
         try {
             String sql = """
@@ -276,7 +324,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
                 VALUES (?, ?, ?)
                 """;
 
-            jdbcTemplate.update(sql, metricName, metricValue, Instant.now());
+            jdbcTemplate.update(sql, metricName, metricValue, Timestamp.from(Instant.now()));
 
         } catch (Exception e) {
             throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
@@ -284,9 +332,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Gets recent metrics for a specific metric name.
-     */
+    @Override
     public List<Map<String, Object>> getRecentMetrics(String metricName, int limit) throws RocketMQException {
         try {
             String sql = """
@@ -305,9 +351,7 @@ public class H2MetadataStore implements InitializingBean, DisposableBean {
         }
     }
 
-    /**
-     * Gets database health status.
-     */
+    @Override
     public boolean isHealthy() {
         try {
             jdbcTemplate.queryForObject("SELECT 1", Integer.class);
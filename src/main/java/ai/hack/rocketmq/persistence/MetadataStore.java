@@ -0,0 +1,132 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.config.MetadataBackend;
+import ai.hack.rocketmq.exception.RocketMQException;
+import ai.hack.rocketmq.model.MessageStatus;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store for message metadata, request-response correlations and system metrics.
+ * Rows are returned as case-insensitive column maps ({@code message_id}, {@code status}, ...) regardless
+ * of the backend, so callers can switch between {@link H2MetadataStore} and {@link RocksDBMetadataStore}
+ * through {@link MetadataBackend} without changing how results are read.
+ */
+public interface MetadataStore extends InitializingBean, DisposableBean {
+
+    /**
+     * Stores message metadata, replacing any existing row for the message.
+     */
+    void storeMessageMetadata(String messageId, String topic, String callbackTopic,
+                              MessageStatus status, int retryCount, String priority) throws RocketMQException;
+
+    /**
+     * Updates message status.
+     */
+    void updateMessageStatus(String messageId, MessageStatus status, int retryCount) throws RocketMQException;
+
+    /**
+     * Stores message metadata off the caller's critical path.
+     * Failures are logged and counted in {@link #getWriteBehindStats()} instead of being thrown.
+     */
+    void storeMessageMetadataAsync(String messageId, String topic, String callbackTopic,
+                                   MessageStatus status, int retryCount, String priority);
+
+    /**
+     * Updates message status off the caller's critical path.
+     */
+    void updateMessageStatusAsync(String messageId, MessageStatus status, int retryCount);
+
+    /**
+     * Gets message metadata by ID.
+     */
+    Map<String, Object> getMessageMetadata(String messageId) throws RocketMQException;
+
+    /**
+     * Gets messages by status, oldest first.
+     */
+    List<Map<String, Object>> getMessagesByStatus(MessageStatus status, int limit) throws RocketMQException;
+
+    /**
+     * Stores request-response correlation.
+     */
+    void storeCorrelation(String correlationId, String messageId, String responseTopic,
+                          Instant timeoutAt) throws RocketMQException;
+
+    /**
+     * Gets correlation and removes it.
+     */
+    Map<String, Object> getAndRemoveCorrelation(String correlationId) throws RocketMQException;
+
+    /**
+     * Cleans up expired correlations.
+     */
+    int cleanupExpiredCorrelations() throws RocketMQException;
+
+    /**
+     * Stores system metrics.
+     */
+    void storeMetric(String metricName, double metricValue) throws RocketMQException;
+
+    /**
+     * Gets recent metrics for a specific metric name, newest first.
+     */
+    List<Map<String, Object>> getRecentMetrics(String metricName, int limit) throws RocketMQException;
+
+    /**
+     * Gets the number of messages whose metadata is waiting to be written.
+     */
+    default int getPendingMetadataWrites() {
+        return getWriteBehindStats().getPendingRows();
+    }
+
+    /**
+     * Gets statistics for writes made through the {@code *Async} methods.
+     */
+    WriteBehindStats getWriteBehindStats();
+
+    /**
+     * Gets store health status.
+     */
+    boolean isHealthy();
+
+    /**
+     * Statistics for asynchronous metadata writes.
+     */
+    class WriteBehindStats {
+        private final int pendingRows;
+        private final long recordedWrites;
+        private final long flushedRows;
+        private final long failedRows;
+        private final long flushes;
+        private final long blockedWrites;
+
+        public WriteBehindStats(int pendingRows, long recordedWrites, long flushedRows, long failedRows,
+                                long flushes, long blockedWrites) {
+            this.pendingRows = pendingRows;
+            this.recordedWrites = recordedWrites;
+            this.flushedRows = flushedRows;
+            this.failedRows = failedRows;
+            this.flushes = flushes;
+            this.blockedWrites = blockedWrites;
+        }
+
+        public int getPendingRows() { return pendingRows; }
+        public long getRecordedWrites() { return recordedWrites; }
+        public long getFlushedRows() { return flushedRows; }
+        public long getFailedRows() { return failedRows; }
+        public long getFlushes() { return flushes; }
+        public long getBlockedWrites() { return blockedWrites; }
+
+        @Override
+        public String toString() {
+            return String.format("WriteBehindStats{pending=%d, recorded=%d, flushed=%d, failed=%d, " +
+                               "flushes=%d, blocked=%d}",
+                               pendingRows, recordedWrites, flushedRows, failedRows, flushes, blockedWrites);
+        }
+    }
+}
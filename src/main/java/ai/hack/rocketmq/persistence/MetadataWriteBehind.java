@@ -0,0 +1,263 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.model.MessageStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write-behind buffer for message metadata.
+ * Callers record inserts and status transitions into a map keyed by message id, where later transitions
+ * overwrite earlier ones that have not been flushed yet (e.g. PROCESSING followed by COMMITTED becomes a
+ * single insert). A flusher thread hands the coalesced rows to a {@link MetadataSink} when the batch size
+ * is reached or the flush interval elapses. The number of distinct pending ids is bounded; when the flusher
+ * falls behind, callers adding new ids park until it catches up.
+ */
+class MetadataWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataWriteBehind.class);
+
+    private static final int MAX_FLUSH_SIZE = 4096;
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Persists one flush worth of coalesced rows.
+     */
+    @FunctionalInterface
+    interface MetadataSink {
+        void write(List<PendingMetadata> upserts, List<PendingMetadata> statusUpdates) throws Exception;
+    }
+
+    private final MetadataSink sink;
+    private final int flushBatchSize;
+    private final int capacity;
+    private final long flushIntervalNanos;
+    private final ConcurrentHashMap<String, PendingMetadata> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Thread flusherThread;
+
+    private final AtomicLong recordedWrites = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong blockedWrites = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean flusherParked = false;
+
+    MetadataWriteBehind(MetadataSink sink, int flushBatchSize, Duration flushInterval, int capacity) {
+        this.sink = sink;
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+        this.capacity = Math.max(this.flushBatchSize, capacity);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.flusherThread = new Thread(this::runFlusher, "h2-metadata-write-behind");
+        this.flusherThread.setDaemon(true);
+    }
+
+    void start() {
+        flusherThread.start();
+        logger.info("Metadata write-behind started: batchSize={}, interval={}ms, capacity={}",
+                   flushBatchSize, TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), capacity);
+    }
+
+    /**
+     * Records a full metadata row, replacing any pending status for the same message.
+     */
+    void recordMetadata(String messageId, String topic, String callbackTopic,
+                        MessageStatus status, int retryCount, String priority) {
+        Instant now = Instant.now();
+        record(messageId, existing -> {
+            PendingMetadata row = existing != null ? existing : new PendingMetadata(messageId, now);
+            row.insert = true;
+            row.topic = topic;
+            row.callbackTopic = callbackTopic;
+            row.priority = priority;
+            row.status = status;
+            row.retryCount = retryCount;
+            row.updatedAt = now;
+            return row;
+        });
+    }
+
+    /**
+     * Records a status transition. Merged into a pending insert for the same message if there is one.
+     */
+    void recordStatus(String messageId, MessageStatus status, int retryCount) {
+        Instant now = Instant.now();
+        record(messageId, existing -> {
+            PendingMetadata row = existing != null ? existing : new PendingMetadata(messageId, now);
+            row.status = status;
+            row.retryCount = retryCount;
+            row.updatedAt = now;
+            return row;
+        });
+    }
+
+    private void record(String messageId, UnaryOperator<PendingMetadata> merge) {
+        if (!running) {
+            throw new IllegalStateException("Metadata write-behind is closed");
+        }
+
+        // Only new ids take capacity; coalescing into an existing row is always allowed
+        if (pendingCount.get() >= capacity && !pending.containsKey(messageId)) {
+            blockedWrites.incrementAndGet();
+            do {
+                if (!running) {
+                    throw new IllegalStateException("Metadata write-behind is closed");
+                }
+                wakeFlusher();
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            } while (pendingCount.get() >= capacity && !pending.containsKey(messageId));
+        }
+
+        pending.compute(messageId, (id, existing) -> {
+            if (existing == null) {
+                pendingCount.incrementAndGet();
+            }
+            return merge.apply(existing);
+        });
+        recordedWrites.incrementAndGet();
+
+        if (pendingCount.get() >= flushBatchSize && flusherParked) {
+            wakeFlusher();
+        }
+    }
+
+    /**
+     * Stops accepting writes and flushes everything still pending.
+     */
+    void close() {
+        running = false;
+        wakeFlusher();
+        try {
+            flusherThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusherThread.isAlive()) {
+            logger.warn("Metadata write-behind did not stop within timeout, {} rows pending", pendingCount.get());
+            return;
+        }
+        logger.info("Metadata write-behind closed: recorded={}, flushed={}, failed={}, flushes={}",
+                   recordedWrites.get(), flushedRows.get(), failedRows.get(), flushes.get());
+    }
+
+    int getPendingRows() {
+        return pendingCount.get();
+    }
+
+    long getRecordedWrites() {
+        return recordedWrites.get();
+    }
+
+    long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    long getFailedRows() {
+        return failedRows.get();
+    }
+
+    long getFlushes() {
+        return flushes.get();
+    }
+
+    long getBlockedWrites() {
+        return blockedWrites.get();
+    }
+
+    private void wakeFlusher() {
+        LockSupport.unpark(flusherThread);
+    }
+
+    private void runFlusher() {
+        long lastFlush = System.nanoTime();
+        while (running || pendingCount.get() > 0) {
+            int queued = pendingCount.get();
+            boolean due = System.nanoTime() - lastFlush >= flushIntervalNanos;
+            if (queued > 0 && (queued >= flushBatchSize || due || !running)) {
+                flush();
+                lastFlush = System.nanoTime();
+                continue;
+            }
+            if (due) {
+                lastFlush = System.nanoTime();
+            }
+            waitForWork(lastFlush);
+        }
+    }
+
+    private void flush() {
+        List<PendingMetadata> upserts = new ArrayList<>();
+        List<PendingMetadata> statusUpdates = new ArrayList<>();
+
+        Iterator<String> ids = pending.keySet().iterator();
+        while (ids.hasNext() && upserts.size() + statusUpdates.size() < MAX_FLUSH_SIZE) {
+            PendingMetadata row = pending.remove(ids.next());
+            if (row == null) {
+                continue;
+            }
+            pendingCount.decrementAndGet();
+            (row.insert ? upserts : statusUpdates).add(row);
+        }
+
+        int rows = upserts.size() + statusUpdates.size();
+        if (rows == 0) {
+            return;
+        }
+        try {
+            sink.write(upserts, statusUpdates);
+            flushedRows.addAndGet(rows);
+        } catch (Exception e) {
+            failedRows.addAndGet(rows);
+            logger.error("Failed to flush {} metadata rows ({} upserts, {} status updates)",
+                        rows, upserts.size(), statusUpdates.size(), e);
+        }
+        flushes.incrementAndGet();
+    }
+
+    private void waitForWork(long lastFlush) {
+        flusherParked = true;
+        try {
+            // Re-check after advertising the park so a full batch cannot be missed
+            if (running && pendingCount.get() < flushBatchSize) {
+                long remaining = flushIntervalNanos - (System.nanoTime() - lastFlush);
+                LockSupport.parkNanos(this, Math.max(remaining, FULL_PARK_NANOS));
+            }
+        } finally {
+            flusherParked = false;
+        }
+    }
+
+    /**
+     * Coalesced metadata for one message, mutated only inside {@link ConcurrentHashMap#compute}.
+     */
+    static final class PendingMetadata {
+        final String messageId;
+        final Instant createdAt;
+        boolean insert;
+        String topic;
+        String callbackTopic;
+        String priority;
+        MessageStatus status;
+        int retryCount;
+        Instant updatedAt;
+
+        PendingMetadata(String messageId, Instant createdAt) {
+            this.messageId = messageId;
+            this.createdAt = createdAt;
+            this.updatedAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ai.hack.rocketmq.persistence;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free multi-producer/single-consumer ring buffer.
+ * Producers claim a slot with a CAS on the tail sequence and publish the element into it;
+ * the single consumer treats an empty slot as "not yet published" and stops there.
+ */
+final class MpscRing<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(0);
+    private volatile long head = 0;
+
+    MpscRing(int requestedCapacity) {
+        int size = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Offers an element from any thread.
+     *
+     * @return false if the ring is full
+     */
+    boolean offer(E element) {
+        Objects.requireNonNull(element, "element");
+
+        while (true) {
+            long currentTail = tail.get();
+            if (currentTail - head >= capacity) {
+                return false;
+            }
+            if (tail.compareAndSet(currentTail, currentTail + 1)) {
+                slots.set((int) currentTail & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Polls the next published element. Must only be called from the consumer thread.
+     *
+     * @return the element, or null if nothing has been published yet
+     */
+    E poll() {
+        long currentHead = head;
+        int index = (int) currentHead & mask;
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head = currentHead + 1;
+        return element;
+    }
+
+    boolean isEmpty() {
+        return head >= tail.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -1,7 +1,9 @@
 package ai.hack.rocketmq.persistence;
 
+import ai.hack.rocketmq.config.WalPolicy;
 import ai.hack.rocketmq.exception.RocketMQException;
 import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageStatus;
 import org.rocksdb.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,27 +11,76 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * RocksDB-based message store for local persistence.
  * Provides high-performance message storage with write-ahead logging.
+ * Writes from any thread are funnelled through a {@link GroupCommitWriter} so concurrent
+ * callers share one commit (and at most one WAL sync) per group.
+ *
+ * <p>Data is split across column families: {@code messages} holds encoded messages keyed by id,
+ * {@code topic_index} holds {@code topicHash(8) | sequence(8) | messageId} keys with empty values,
+ * {@code outbox} holds messages persisted before send and not yet acknowledged by the broker,
+ * and {@code metadata} holds store bookkeeping: the index sequence and, per message, the key of its
+ * topic index entry so that re-storing or deleting a message removes the old entry. The topic index uses
+ * a fixed 8-byte prefix extractor with prefix bloom filters, so a topic scan only touches that topic's key range.
  */
 public class RocksDBMessageStore implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(RocksDBMessageStore.class);
 
+    static final String MESSAGES_CF = "messages";
+    static final String TOPIC_INDEX_CF = "topic_index";
+    static final String METADATA_CF = "metadata";
+    static final String OUTBOX_CF = "outbox";
+
+    private static final int TOPIC_PREFIX_LENGTH = Long.BYTES;
+    private static final int INDEX_HEADER_LENGTH = TOPIC_PREFIX_LENGTH + Long.BYTES;
+    private static final int STREAM_FETCH_SIZE = 128;
+    private static final byte[] SEQUENCE_KEY = "topic_index.sequence".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LEGACY_MESSAGE_PREFIX = "msg:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INDEX_REF_PREFIX = "index:".getBytes(StandardCharsets.UTF_8);
+
     private final String dbPath;
     private final Duration flushInterval;
     private final int writeBufferSize;
     private final long cacheSize;
+    private final WalPolicy walPolicy;
 
     private RocksDB db;
-    private WriteBatch writeBatch;
+    private DBOptions dbOptions;
+    private ColumnFamilyOptions defaultCfOptions;
+    private ColumnFamilyOptions topicIndexCfOptions;
+    private ColumnFamilyOptions metadataCfOptions;
+    private ReadOptions lookupOptions;
+    private Cache rowCache;
+    private ColumnFamilyHandle defaultCf;
+    private ColumnFamilyHandle messagesCf;
+    private ColumnFamilyHandle topicIndexCf;
+    private ColumnFamilyHandle metadataCf;
+    private ColumnFamilyHandle outboxCf;
+    private GroupCommitWriter writer;
+    private final AtomicLong indexSequence = new AtomicLong();
     private volatile boolean shutdown = false;
 
     static {
@@ -37,16 +88,27 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
     }
 
     public RocksDBMessageStore(String dbPath, Duration flushInterval, int writeBufferSize, long cacheSize) {
+        this(dbPath, flushInterval, writeBufferSize, cacheSize, WalPolicy.ASYNC);
+    }
+
+    /**
+     * @param flushInterval interval at which the WAL is synced when {@code walPolicy} is {@link WalPolicy#ASYNC}
+     * @param walPolicy     durability policy applied to every committed write group
+     */
+    public RocksDBMessageStore(String dbPath, Duration flushInterval, int writeBufferSize, long cacheSize,
+                               WalPolicy walPolicy) {
         this.dbPath = dbPath;
         this.flushInterval = flushInterval;
         this.writeBufferSize = writeBufferSize;
         this.cacheSize = cacheSize;
+        this.walPolicy = walPolicy != null ? walPolicy : WalPolicy.ASYNC;
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
         initializeDatabase();
-        startFlushThread();
+        writer = new GroupCommitWriter(db, walPolicy, flushInterval);
+        writer.start();
         logger.info("RocksDB message store initialized at: {}", dbPath);
     }
 
@@ -55,14 +117,28 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
         logger.info("Shutting down RocksDB message store");
         shutdown = true;
 
-        if (writeBatch != null) {
-            writeBatch.close();
+        if (writer != null && !writer.close()) {
+            // The writer may still call into the database; leaking the handles is safer than freeing them under it
+            logger.warn("Leaving RocksDB open because the group-commit writer is still running");
+            return;
         }
 
         if (db != null) {
+            for (ColumnFamilyHandle handle : Arrays.asList(messagesCf, topicIndexCf, metadataCf, outboxCf, defaultCf)) {
+                if (handle != null) {
+                    handle.close();
+                }
+            }
             db.close();
         }
 
+        for (AbstractNativeReference resource : Arrays.asList(lookupOptions, defaultCfOptions, topicIndexCfOptions,
+                metadataCfOptions, dbOptions, rowCache)) {
+            if (resource != null) {
+                resource.close();
+            }
+        }
+
         logger.info("RocksDB message store shutdown complete");
     }
 
@@ -73,20 +149,55 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
                 dbDir.mkdirs();
             }
 
-            Options options = new Options()
+            rowCache = new LRUCache(cacheSize);
+            dbOptions = new DBOptions()
                     .setCreateIfMissing(true)
-                    .setWriteBufferSize(writeBufferSize)
-                    .setMaxWriteBufferNumber(3)
-                    .setMinWriteBufferNumberToMerge(1)
+                    .setCreateMissingColumnFamilies(true)
                     .setMaxBackgroundCompactions(4)
-                    .setMaxBackgroundFlushes(2);
+                    .setMaxBackgroundFlushes(2)
+                    .setRowCache(rowCache);
 
-            // Configure cache
-            Cache cache = new LRUCache(cacheSize);
-            options.setRowCache(cache);
+            defaultCfOptions = new ColumnFamilyOptions()
+                    .setWriteBufferSize(writeBufferSize)
+                    .setMaxWriteBufferNumber(3)
+                    .setMinWriteBufferNumberToMerge(1);
 
-            db = RocksDB.open(options, dbPath);
-            writeBatch = new WriteBatch();
+            // Prefix bloom filters let a topic seek skip files and memtables without that topic
+            topicIndexCfOptions = new ColumnFamilyOptions()
+                    .setWriteBufferSize(writeBufferSize)
+                    .setMaxWriteBufferNumber(3)
+                    .setMinWriteBufferNumberToMerge(1)
+                    .useFixedLengthPrefixExtractor(TOPIC_PREFIX_LENGTH)
+                    .setMemtablePrefixBloomSizeRatio(0.1)
+                    .setTableFormatConfig(new BlockBasedTableConfig()
+                            .setFilterPolicy(new BloomFilter(10))
+                            .setWholeKeyFiltering(false));
+
+            // Every store looks up the message's previous index entry, and most ids are new
+            metadataCfOptions = new ColumnFamilyOptions()
+                    .setWriteBufferSize(writeBufferSize)
+                    .setMaxWriteBufferNumber(3)
+                    .setMinWriteBufferNumberToMerge(1)
+                    .setTableFormatConfig(new BlockBasedTableConfig()
+                            .setFilterPolicy(new BloomFilter(10)));
+
+            List<ColumnFamilyDescriptor> descriptors = List.of(
+                    new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultCfOptions),
+                    new ColumnFamilyDescriptor(MESSAGES_CF.getBytes(StandardCharsets.UTF_8), defaultCfOptions),
+                    new ColumnFamilyDescriptor(TOPIC_INDEX_CF.getBytes(StandardCharsets.UTF_8), topicIndexCfOptions),
+                    new ColumnFamilyDescriptor(METADATA_CF.getBytes(StandardCharsets.UTF_8), metadataCfOptions),
+                    new ColumnFamilyDescriptor(OUTBOX_CF.getBytes(StandardCharsets.UTF_8), defaultCfOptions));
+            List<ColumnFamilyHandle> handles = new ArrayList<>(descriptors.size());
+
+            db = RocksDB.open(dbOptions, dbPath, descriptors, handles);
+            defaultCf = handles.get(0);
+            messagesCf = handles.get(1);
+            topicIndexCf = handles.get(2);
+            metadataCf = handles.get(3);
+            outboxCf = handles.get(4);
+
+            lookupOptions = new ReadOptions();
+            indexSequence.set(initialIndexSequence());
 
             logger.info("RocksDB opened successfully with cache size: {} bytes", cacheSize);
 
@@ -96,37 +207,132 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
         }
     }
 
-    private void startFlushThread() {
-        Thread flushThread = new Thread(() -> {
-            while (!shutdown) {
-                try {
-                    Thread.sleep(flushInterval.toMillis());
-                    flushBatch();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    logger.error("Error during flush operation", e);
+    /**
+     * Stores a message in RocksDB.
+     *
+     * @return future completed once the message is durable according to the WAL policy
+     */
+    public CompletableFuture<Void> storeMessage(Message message) throws RocketMQException {
+        ensureOpen(message.getMessageId());
+
+        GroupCommitWriter.WriteOperation store = storeOperation(message);
+
+        logger.debug("Message queued for storage: {}", message.getMessageId());
+        return writer.submit(store);
+    }
+
+    /**
+     * Records messages in the outbox before they are sent. All messages are committed in the same group.
+     *
+     * @return future completed once the entries are durable according to the WAL policy
+     */
+    public CompletableFuture<Void> appendOutbox(List<Message> messages) throws RocketMQException {
+        ensureOpen(null);
+
+        List<byte[]> keys = new ArrayList<>(messages.size());
+        List<byte[]> values = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            keys.add(messageKey(message.getMessageId()));
+            values.add(serializeMessage(message));
+        }
+
+        logger.debug("{} messages queued for the outbox", messages.size());
+        return writer.submit(batch -> {
+            for (int i = 0; i < keys.size(); i++) {
+                batch.put(outboxCf, keys.get(i), values.get(i));
+            }
+        });
+    }
+
+    /**
+     * Moves an acknowledged message from the outbox into the message store with status COMMITTED.
+     */
+    public CompletableFuture<Void> commitOutbox(Message message) throws RocketMQException {
+        ensureOpen(message.getMessageId());
+
+        message.setStatus(MessageStatus.COMMITTED);
+        byte[] outboxKey = messageKey(message.getMessageId());
+        GroupCommitWriter.WriteOperation store = storeOperation(message);
+
+        return writer.submit(batch -> {
+            batch.delete(outboxCf, outboxKey);
+            store.applyTo(batch);
+        });
+    }
+
+    /**
+     * Removes a message from the outbox without storing it, e.g. after a send failure was reported to the caller.
+     */
+    public CompletableFuture<Void> discardOutbox(String messageId) throws RocketMQException {
+        ensureOpen(messageId);
+
+        byte[] outboxKey = messageKey(messageId);
+        return writer.submit(batch -> batch.delete(outboxCf, outboxKey));
+    }
+
+    /**
+     * Streams the messages still in the outbox, i.e. persisted but never acknowledged.
+     * The stream reads from a snapshot, holds native resources and must be closed.
+     */
+    public Stream<Message> streamOutbox() throws RocketMQException {
+        ensureOpen(null);
+
+        Snapshot snapshot = db.getSnapshot();
+        ReadOptions readOptions = new ReadOptions().setSnapshot(snapshot);
+        RocksIterator iterator = db.newIterator(outboxCf, readOptions);
+        iterator.seekToFirst();
+
+        Iterator<Message> messages = new Iterator<>() {
+            private Message next = advance();
+
+            private Message advance() {
+                while (iterator.isValid()) {
+                    Message message = deserializeMessage(iterator.value());
+                    iterator.next();
+                    if (message != null) {
+                        return message;
+                    }
                 }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
             }
-        }, "rocksdb-flush-thread");
 
-        flushThread.setDaemon(true);
-        flushThread.start();
+            @Override
+            public Message next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Message current = next;
+                next = advance();
+                return current;
+            }
+        };
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(messages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    iterator.close();
+                    readOptions.close();
+                    db.releaseSnapshot(snapshot);
+                });
     }
 
     /**
-     * Stores a message in RocksDB.
+     * Gets the estimated number of unacknowledged outbox entries.
      */
-    public void storeMessage(Message message) throws RocketMQException {
+    public long getOutboxSize() {
+        if (db == null || shutdown) {
+            return 0;
+        }
         try {
-            String key = createMessageKey(message);
-            byte[] value = serializeMessage(message);
-            writeBatch.put(key.getBytes(StandardCharsets.UTF_8), value);
-            logger.debug("Message queued for storage: {}", message.getMessageId());
+            return db.getLongProperty(outboxCf, "rocksdb.estimate-num-keys");
         } catch (RocksDBException e) {
-            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
-                    "Failed to store message", e, message.getMessageId());
+            logger.warn("Failed to estimate outbox size", e);
+            return 0;
         }
     }
 
@@ -135,8 +341,12 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
      */
     public Message retrieveMessage(String messageId) throws RocketMQException {
         try {
-            String key = "msg:" + messageId;
-            byte[] value = db.get(key.getBytes(StandardCharsets.UTF_8));
+            byte[] value = db.get(messagesCf, messageKey(messageId));
+
+            if (value == null) {
+                // Stores created before the column family split kept messages in the default CF
+                value = db.get(defaultCf, legacyMessageKey(messageId));
+            }
 
             if (value == null) {
                 return null;
@@ -150,63 +360,129 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
     }
 
     /**
-     * Deletes a message from RocksDB.
+     * Deletes a message from RocksDB together with its topic index entry.
+     *
+     * @return future completed once the deletion has been committed
      */
-    public void deleteMessage(String messageId) throws RocketMQException {
-        try {
-            String key = "msg:" + messageId;
-            writeBatch.delete(key.getBytes(StandardCharsets.UTF_8));
-            logger.debug("Message queued for deletion: {}", messageId);
-        } catch (RocksDBException e) {
-            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
-                    "Failed to delete message", e, messageId);
-        }
+    public CompletableFuture<Void> deleteMessage(String messageId) throws RocketMQException {
+        ensureOpen(messageId);
+
+        byte[] key = messageKey(messageId);
+        byte[] legacyKey = legacyMessageKey(messageId);
+        logger.debug("Message queued for deletion: {}", messageId);
+        byte[] indexRefKey = indexRefKey(key);
+        return writer.submit(batch -> {
+            removeIndexEntry(batch, indexRefKey);
+            batch.delete(messagesCf, key);
+            batch.delete(defaultCf, legacyKey);
+        });
     }
 
     /**
      * Gets messages for a specific topic.
+     * Materializes the whole topic; prefer {@link #streamMessagesByTopic} or {@link #readMessagesByTopic}
+     * for large topics.
      */
     public List<Message> getMessagesByTopic(String topic) throws RocketMQException {
-        List<Message> messages = new ArrayList<>();
-        String prefix = "topic:" + topic + ":";
+        try (Stream<Message> messages = streamMessagesByTopic(topic)) {
+            return messages.collect(Collectors.toList());
+        } catch (RocketMQException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to retrieve messages by topic", e, topic);
+        }
+    }
 
-        try (RocksIterator iterator = db.newIterator()) {
-            iterator.seek(prefix.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Streams the messages of a topic in store order from a consistent snapshot.
+     * Messages are fetched in small chunks, so memory stays bounded regardless of topic size.
+     * The stream holds native resources and must be closed, e.g. with try-with-resources.
+     */
+    public Stream<Message> streamMessagesByTopic(String topic) throws RocketMQException {
+        ensureOpen(topic);
 
-            while (iterator.isValid()) {
-                String key = new String(iterator.key(), StandardCharsets.UTF_8);
-                if (!key.startsWith(prefix)) {
-                    break;
-                }
+        TopicCursor cursor = new TopicCursor(topic, null);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
 
-                Message message = deserializeMessage(iterator.value());
-                if (message != null) {
-                    messages.add(message);
-                }
+    /**
+     * Reads one page of a topic's messages.
+     *
+     * @param resumeToken token from a previous page, or {@code null} to start at the beginning
+     * @param limit       maximum number of messages in the page
+     * @return the page; its resume token is {@code null} once the topic is exhausted
+     */
+    public TopicPage readMessagesByTopic(String topic, String resumeToken, int limit) throws RocketMQException {
+        ensureOpen(topic);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+
+        byte[] resumeKey = null;
+        if (resumeToken != null) {
+            try {
+                byte[] suffix = Base64.getUrlDecoder().decode(resumeToken);
+                resumeKey = new byte[TOPIC_PREFIX_LENGTH + suffix.length];
+                ByteBuffer.wrap(resumeKey).putLong(topicHash(topic)).put(suffix);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid topic resume token: " + resumeToken, e);
+            }
+        }
 
-                iterator.next();
+        try (TopicCursor cursor = new TopicCursor(topic, resumeKey)) {
+            List<Message> messages = new ArrayList<>(Math.min(limit, STREAM_FETCH_SIZE));
+            while (messages.size() < limit && cursor.hasNext()) {
+                messages.add(cursor.next());
             }
+
+            String nextToken = cursor.hasNext()
+                    ? Base64.getUrlEncoder().withoutPadding().encodeToString(
+                            Arrays.copyOfRange(cursor.lastIndexKey(), TOPIC_PREFIX_LENGTH, cursor.lastIndexKey().length))
+                    : null;
+            return new TopicPage(messages, nextToken);
         } catch (Exception e) {
             throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
-                    "Failed to retrieve messages by topic", e, topic);
+                    "Failed to read messages by topic", e, topic);
         }
-
-        return messages;
     }
 
     /**
-     * Flushes the write batch to disk.
+     * Waits until every write submitted before this call has been committed.
      */
-    public synchronized void flushBatch() throws RocketMQException {
+    public void flushBatch() throws RocketMQException {
+        ensureOpen(null);
+
         try {
-            // writeBatch.isEmpty() not available, always flush for simplicity
-            db.write(new WriteOptions(), writeBatch);
-            writeBatch.clear();
-            logger.debug("Write batch flushed to disk");
-        } catch (RocksDBException e) {
+            writer.barrier().get();
+            logger.debug("Pending writes committed to RocksDB");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Interrupted while flushing pending writes", e);
+        } catch (ExecutionException e) {
             throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
-                    "Failed to flush write batch", e);
+                    "Failed to flush pending writes", e.getCause());
+        }
+    }
+
+    /**
+     * Gets the number of writes waiting for the group-commit writer.
+     */
+    public int getQueuedWrites() {
+        return writer != null ? writer.getQueuedWrites() : 0;
+    }
+
+    /**
+     * Gets the average number of writes committed per group.
+     */
+    public double getAverageGroupSize() {
+        if (writer == null || writer.getCommittedGroups() == 0) {
+            return 0.0;
         }
+        return (double) writer.getCommittedWrites() / writer.getCommittedGroups();
     }
 
     /**
@@ -221,37 +497,121 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
         }
     }
 
-    private String createMessageKey(Message message) {
-        // Create multiple indexes for efficient lookup
-        String messageIdKey = "msg:" + message.getMessageId();
-        String topicKey = "topic:" + message.getTopic() + ":" + message.getMessageId();
+    private void ensureOpen(String context) throws RocketMQException {
+        if (writer == null || shutdown) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "RocksDB message store is not open", context);
+        }
+    }
 
-        try {
-            // Store with message ID as primary key
-            writeBatch.put(messageIdKey.getBytes(StandardCharsets.UTF_8), serializeMessage(message));
-            // Store topic index
-            writeBatch.put(topicKey.getBytes(StandardCharsets.UTF_8), messageIdKey.getBytes(StandardCharsets.UTF_8));
-        } catch (RocksDBException e) {
-            throw new RuntimeException("Failed to create message keys", e);
+    /**
+     * Stores a message and indexes it under its topic. A message stored again moves to the end of its topic's
+     * index, and its previous index entry is removed.
+     */
+    private GroupCommitWriter.WriteOperation storeOperation(Message message) {
+        byte[] messageKey = messageKey(message.getMessageId());
+        byte[] indexRefKey = indexRefKey(messageKey);
+        byte[] value = serializeMessage(message);
+        String topic = message.getTopic();
+
+        return batch -> {
+            // Allocated on the writer thread, so sequences follow commit order and are persisted with the entry
+            long sequence = indexSequence.incrementAndGet();
+            byte[] indexKey = topicIndexKey(topic, sequence, messageKey);
+
+            removeIndexEntry(batch, indexRefKey);
+            batch.put(messagesCf, messageKey, value);
+            batch.put(topicIndexCf, indexKey, new byte[0]);
+            batch.put(metadataCf, indexRefKey, indexKey);
+            batch.put(metadataCf, SEQUENCE_KEY, longToBytes(sequence));
+        };
+    }
+
+    /**
+     * Deletes the topic index entry recorded for a message, including one written earlier in the same group.
+     */
+    private void removeIndexEntry(WriteBatchWithIndex batch, byte[] indexRefKey) throws RocksDBException {
+        byte[] previous = batch.getFromBatchAndDB(db, metadataCf, lookupOptions, indexRefKey);
+        if (previous != null) {
+            batch.delete(topicIndexCf, previous);
+            batch.delete(metadataCf, indexRefKey);
         }
+    }
+
+    private long initialIndexSequence() throws RocksDBException {
+        long sequence = System.currentTimeMillis() << 16;
 
-        return messageIdKey;
+        // Written in the same group as every index entry, so it is never behind the index
+        byte[] persisted = db.get(metadataCf, SEQUENCE_KEY);
+        if (persisted != null && persisted.length == Long.BYTES) {
+            sequence = Math.max(sequence, ByteBuffer.wrap(persisted).getLong());
+        }
+        return sequence;
     }
 
-    private byte[] serializeMessage(Message message) {
-        // Simplified serialization - in production, use a proper serialization framework
-        StringBuilder sb = new StringBuilder();
-        sb.append(message.getMessageId()).append("|");
-        sb.append(message.getTopic()).append("|");
-        sb.append(new String(message.getPayload(), StandardCharsets.UTF_8)).append("|");
-        sb.append(message.getTimestamp().toString()).append("|");
-        sb.append(message.getPriority() != null ? message.getPriority().name() : "NORMAL");
+    private byte[] messageKey(String messageId) {
+        return messageId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] legacyMessageKey(String messageId) {
+        byte[] id = messageKey(messageId);
+        byte[] key = Arrays.copyOf(LEGACY_MESSAGE_PREFIX, LEGACY_MESSAGE_PREFIX.length + id.length);
+        System.arraycopy(id, 0, key, LEGACY_MESSAGE_PREFIX.length, id.length);
+        return key;
+    }
+
+    private static byte[] indexRefKey(byte[] messageKey) {
+        byte[] key = Arrays.copyOf(INDEX_REF_PREFIX, INDEX_REF_PREFIX.length + messageKey.length);
+        System.arraycopy(messageKey, 0, key, INDEX_REF_PREFIX.length, messageKey.length);
+        return key;
+    }
+
+    private static byte[] topicIndexKey(String topic, long sequence, byte[] messageKey) {
+        byte[] key = new byte[INDEX_HEADER_LENGTH + messageKey.length];
+        ByteBuffer.wrap(key).putLong(topicHash(topic)).putLong(sequence).put(messageKey);
+        return key;
+    }
+
+    private static byte[] topicPrefix(String topic) {
+        return longToBytes(topicHash(topic));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the topic name, used as the fixed-length index prefix.
+     */
+    private static long topicHash(String topic) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : topic.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
 
-        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    private static byte[] longToBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private byte[] serializeMessage(Message message) {
+        return BinaryMessageCodec.encode(message);
     }
 
     private Message deserializeMessage(byte[] data) {
-        // Simplified deserialization - in production, use proper deserialization
+        try {
+            if (BinaryMessageCodec.isBinaryRecord(data)) {
+                return BinaryMessageCodec.decode(data);
+            }
+            return deserializeLegacyMessage(data);
+        } catch (Exception e) {
+            logger.error("Failed to deserialize message", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads records written by the original {@code |}-delimited text format.
+     */
+    private Message deserializeLegacyMessage(byte[] data) {
         String content = new String(data, StandardCharsets.UTF_8);
         String[] parts = content.split("\\|");
 
@@ -259,17 +619,151 @@ public class RocksDBMessageStore implements InitializingBean, DisposableBean {
             return null;
         }
 
-        try {
-            return Message.builder()
-                    .messageId(parts[0])
-                    .topic(parts[1])
-                    .payload(parts[2].getBytes(StandardCharsets.UTF_8))
-                    .timestamp(Instant.parse(parts[3]))
-                    .priority(ai.hack.rocketmq.model.MessagePriority.valueOf(parts.length > 4 ? parts[4] : "NORMAL"))
-                    .build();
-        } catch (Exception e) {
-            logger.error("Failed to deserialize message", e);
-            return null;
+        return Message.builder()
+                .messageId(parts[0])
+                .topic(parts[1])
+                .wrapPayload(parts[2].getBytes(StandardCharsets.UTF_8))
+                .timestamp(Instant.parse(parts[3]))
+                .priority(ai.hack.rocketmq.model.MessagePriority.valueOf(parts.length > 4 ? parts[4] : "NORMAL"))
+                .build();
+    }
+
+    /**
+     * Forward cursor over one topic's index, reading message bodies in chunks with a multi-get
+     * against a pinned snapshot.
+     */
+    private final class TopicCursor implements Iterator<Message>, AutoCloseable {
+        private final String topic;
+        private final byte[] prefix;
+        private final Snapshot snapshot;
+        private final ReadOptions readOptions;
+        private final RocksIterator iterator;
+        private final ArrayDeque<Message> fetched = new ArrayDeque<>(STREAM_FETCH_SIZE);
+        private final ArrayDeque<byte[]> fetchedIndexKeys = new ArrayDeque<>(STREAM_FETCH_SIZE);
+        private byte[] lastIndexKey;
+        private boolean closed;
+
+        private TopicCursor(String topic, byte[] resumeKey) {
+            this.topic = topic;
+            this.prefix = topicPrefix(topic);
+            this.snapshot = db.getSnapshot();
+            this.readOptions = new ReadOptions().setSnapshot(snapshot).setPrefixSameAsStart(true);
+            this.iterator = db.newIterator(topicIndexCf, readOptions);
+
+            if (resumeKey == null) {
+                iterator.seek(prefix);
+            } else {
+                iterator.seek(resumeKey);
+                if (iterator.isValid() && Arrays.equals(iterator.key(), resumeKey)) {
+                    iterator.next();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (fetched.isEmpty() && !closed) {
+                fetchChunk();
+            }
+            return !fetched.isEmpty();
+        }
+
+        @Override
+        public Message next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIndexKey = fetchedIndexKeys.poll();
+            return fetched.poll();
+        }
+
+        private byte[] lastIndexKey() {
+            return lastIndexKey;
+        }
+
+        private void fetchChunk() {
+            while (fetched.isEmpty() && iterator.isValid()) {
+                List<byte[]> indexKeys = new ArrayList<>(STREAM_FETCH_SIZE);
+                List<byte[]> messageKeys = new ArrayList<>(STREAM_FETCH_SIZE);
+
+                while (indexKeys.size() < STREAM_FETCH_SIZE && iterator.isValid()) {
+                    byte[] key = iterator.key();
+                    if (!hasPrefix(key)) {
+                        break;
+                    }
+                    indexKeys.add(key);
+                    messageKeys.add(Arrays.copyOfRange(key, INDEX_HEADER_LENGTH, key.length));
+                    iterator.next();
+                }
+
+                if (indexKeys.isEmpty()) {
+                    return;
+                }
+
+                try {
+                    List<byte[]> values = db.multiGetAsList(readOptions,
+                            Collections.nCopies(messageKeys.size(), messagesCf), messageKeys);
+                    for (int i = 0; i < values.size(); i++) {
+                        byte[] value = values.get(i);
+                        Message message = value != null ? deserializeMessage(value) : null;
+                        // Topic hash collisions surface as messages of a foreign topic
+                        if (message != null && topic.equals(message.getTopic())) {
+                            fetched.add(message);
+                            fetchedIndexKeys.add(indexKeys.get(i));
+                        }
+                    }
+                } catch (RocksDBException e) {
+                    throw new IllegalStateException("Failed to read messages for topic " + topic, e);
+                }
+            }
+        }
+
+        private boolean hasPrefix(byte[] key) {
+            return key.length >= INDEX_HEADER_LENGTH
+                    && Arrays.equals(key, 0, TOPIC_PREFIX_LENGTH, prefix, 0, TOPIC_PREFIX_LENGTH);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            fetched.clear();
+            fetchedIndexKeys.clear();
+            iterator.close();
+            readOptions.close();
+            db.releaseSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * One page of a topic scan together with the token to resume after it.
+     */
+    public static class TopicPage {
+        private final List<Message> messages;
+        private final String resumeToken;
+
+        public TopicPage(List<Message> messages, String resumeToken) {
+            this.messages = messages;
+            this.resumeToken = resumeToken;
+        }
+
+        public List<Message> getMessages() {
+            return messages;
+        }
+
+        public String getResumeToken() {
+            return resumeToken;
+        }
+
+        public boolean hasMore() {
+            return resumeToken != null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TopicPage{messages=%d, hasMore=%s}", messages.size(), hasMore());
         }
     }
-}
\ No newline at end of file
+}
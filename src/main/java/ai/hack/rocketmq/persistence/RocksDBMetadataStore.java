@@ -0,0 +1,508 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.exception.RocketMQException;
+import ai.hack.rocketmq.model.MessageStatus;
+import org.rocksdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RocksDB-backed metadata store.
+ * Each H2 table maps to a column family: {@code message_metadata} keyed by message id,
+ * {@code message_correlation} keyed by correlation id, and {@code system_metrics} keyed by
+ * {@code metricName | 0x00 | invertedMillis(8) | invertedSequence(8)} so a prefix seek returns the newest samples first.
+ *
+ * <p>Metadata writes never read: upserts and status updates are appended as merge operands by the
+ * built-in string-append operator and folded on read, last writer wins, keeping the first
+ * {@code created_at}. The database is opened as a TTL database, so compaction drops rows older than
+ * their column family's TTL; periodic compaction makes sure cold files are revisited.
+ */
+public class RocksDBMetadataStore implements MetadataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RocksDBMetadataStore.class);
+
+    static final String METADATA_CF = "message_metadata";
+    static final String CORRELATION_CF = "message_correlation";
+    static final String METRICS_CF = "system_metrics";
+
+    // Operands are joined by the merge operator; fields inside an operand use the ASCII unit separator.
+    // Neither can appear in RocketMQ topic names or message ids.
+    private static final char OPERAND_SEPARATOR = '\n';
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char ROW_OPERAND = 'R';
+    private static final char STATUS_OPERAND = 'S';
+
+    private static final Duration DEFAULT_METADATA_TTL = Duration.ofDays(7);
+    private static final Duration CORRELATION_TTL = Duration.ofDays(1);
+    private static final Duration METRICS_TTL = Duration.ofDays(1);
+    private static final Duration PERIODIC_COMPACTION = Duration.ofHours(6);
+
+    private final String dbPath;
+    private final Duration metadataTtl;
+
+    private TtlDB db;
+    private DBOptions dbOptions;
+    private ColumnFamilyOptions cfOptions;
+    private StringAppendOperator mergeOperator;
+    private WriteOptions writeOptions;
+    private ColumnFamilyHandle defaultCf;
+    private ColumnFamilyHandle metadataCf;
+    private ColumnFamilyHandle correlationCf;
+    private ColumnFamilyHandle metricsCf;
+
+    private final AtomicLong metricSequence = new AtomicLong();
+    private final LongAdder asyncWrites = new LongAdder();
+    private final LongAdder failedAsyncWrites = new LongAdder();
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    public RocksDBMetadataStore(String dbPath) {
+        this(dbPath, DEFAULT_METADATA_TTL);
+    }
+
+    /**
+     * @param metadataTtl age after which compaction may drop a metadata row
+     */
+    public RocksDBMetadataStore(String dbPath, Duration metadataTtl) {
+        this.dbPath = dbPath;
+        this.metadataTtl = metadataTtl;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        initializeDatabase();
+        logger.info("RocksDB metadata store initialized at: {}", dbPath);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        logger.info("Shutting down RocksDB metadata store");
+
+        if (db != null) {
+            for (ColumnFamilyHandle handle : Arrays.asList(metadataCf, correlationCf, metricsCf, defaultCf)) {
+                if (handle != null) {
+                    handle.close();
+                }
+            }
+            db.close();
+        }
+
+        for (AbstractNativeReference resource : Arrays.asList(writeOptions, cfOptions, mergeOperator, dbOptions)) {
+            if (resource != null) {
+                resource.close();
+            }
+        }
+
+        logger.info("RocksDB metadata store shutdown complete");
+    }
+
+    private void initializeDatabase() throws RocketMQException {
+        try {
+            File dbDir = new File(dbPath);
+            if (!dbDir.exists()) {
+                dbDir.mkdirs();
+            }
+
+            dbOptions = new DBOptions()
+                    .setCreateIfMissing(true)
+                    .setCreateMissingColumnFamilies(true)
+                    .setMaxBackgroundJobs(2);
+
+            mergeOperator = new StringAppendOperator(OPERAND_SEPARATOR);
+            cfOptions = new ColumnFamilyOptions()
+                    .setMergeOperator(mergeOperator)
+                    .setPeriodicCompactionSeconds(PERIODIC_COMPACTION.toSeconds());
+
+            List<ColumnFamilyDescriptor> descriptors = List.of(
+                    new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, cfOptions),
+                    new ColumnFamilyDescriptor(METADATA_CF.getBytes(StandardCharsets.UTF_8), cfOptions),
+                    new ColumnFamilyDescriptor(CORRELATION_CF.getBytes(StandardCharsets.UTF_8), cfOptions),
+                    new ColumnFamilyDescriptor(METRICS_CF.getBytes(StandardCharsets.UTF_8), cfOptions));
+            // TTLs in seconds, one per descriptor; zero keeps the default family forever
+            List<Integer> ttls = List.of(0, (int) metadataTtl.toSeconds(),
+                    (int) CORRELATION_TTL.toSeconds(), (int) METRICS_TTL.toSeconds());
+            List<ColumnFamilyHandle> handles = new ArrayList<>(descriptors.size());
+
+            db = TtlDB.open(dbOptions, dbPath, descriptors, handles, ttls, false);
+            defaultCf = handles.get(0);
+            metadataCf = handles.get(1);
+            correlationCf = handles.get(2);
+            metricsCf = handles.get(3);
+            writeOptions = new WriteOptions();
+
+            logger.info("RocksDB metadata database opened with metadata TTL {}", metadataTtl);
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to initialize RocksDB metadata database", e, dbPath);
+        }
+    }
+
+    @Override
+    public void storeMessageMetadata(String messageId, String topic, String callbackTopic,
+                                     MessageStatus status, int retryCount, String priority) throws RocketMQException {
+        try {
+            db.merge(metadataCf, writeOptions, key(messageId),
+                    encodeRow(topic, callbackTopic, status, retryCount, priority, System.currentTimeMillis()));
+
+            logger.debug("Message metadata stored: {}", messageId);
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to store message metadata", e, messageId);
+        }
+    }
+
+    @Override
+    public void updateMessageStatus(String messageId, MessageStatus status, int retryCount) throws RocketMQException {
+        try {
+            db.merge(metadataCf, writeOptions, key(messageId),
+                    encodeStatus(status, retryCount, System.currentTimeMillis()));
+
+            logger.debug("Message status updated: {} -> {}", messageId, status);
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to update message status", e, messageId);
+        }
+    }
+
+    /**
+     * Merges are a single memtable append, so the asynchronous variants write inline and only
+     * swallow failures.
+     */
+    @Override
+    public void storeMessageMetadataAsync(String messageId, String topic, String callbackTopic,
+                                          MessageStatus status, int retryCount, String priority) {
+        asyncWrites.increment();
+        try {
+            storeMessageMetadata(messageId, topic, callbackTopic, status, retryCount, priority);
+        } catch (RocketMQException e) {
+            failedAsyncWrites.increment();
+            logger.error("Failed to store message metadata: {}", messageId, e);
+        }
+    }
+
+    @Override
+    public void updateMessageStatusAsync(String messageId, MessageStatus status, int retryCount) {
+        asyncWrites.increment();
+        try {
+            updateMessageStatus(messageId, status, retryCount);
+        } catch (RocketMQException e) {
+            failedAsyncWrites.increment();
+            logger.error("Failed to update message status: {}", messageId, e);
+        }
+    }
+
+    @Override
+    public WriteBehindStats getWriteBehindStats() {
+        long recorded = asyncWrites.sum();
+        long failed = failedAsyncWrites.sum();
+        return new WriteBehindStats(0, recorded, recorded - failed, failed, 0, 0);
+    }
+
+    @Override
+    public Map<String, Object> getMessageMetadata(String messageId) throws RocketMQException {
+        MetadataRow row;
+        try {
+            row = MetadataRow.fold(messageId, db.get(metadataCf, key(messageId)));
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to retrieve message metadata", e, messageId);
+        }
+        if (row == null) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Message metadata not found", messageId);
+        }
+        return row.toMap();
+    }
+
+    /**
+     * Scans the whole metadata column family; there is no secondary index on status.
+     */
+    @Override
+    public List<Map<String, Object>> getMessagesByStatus(MessageStatus status, int limit) throws RocketMQException {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Max-heap on created_at holding the oldest {@code limit} matches seen so far
+        PriorityQueue<MetadataRow> oldest = new PriorityQueue<>(
+                Comparator.comparingLong((MetadataRow row) -> row.createdAt).reversed());
+        try (RocksIterator iterator = db.newIterator(metadataCf)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                MetadataRow row = MetadataRow.fold(
+                        new String(iterator.key(), StandardCharsets.UTF_8), iterator.value());
+                if (row == null || row.status != status) {
+                    continue;
+                }
+                oldest.offer(row);
+                if (oldest.size() > limit) {
+                    oldest.poll();
+                }
+            }
+            iterator.status();
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to retrieve messages by status", e, status.name());
+        }
+
+        List<MetadataRow> rows = new ArrayList<>(oldest);
+        rows.sort(Comparator.comparingLong(row -> row.createdAt));
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (MetadataRow row : rows) {
+            result.add(row.toMap());
+        }
+        return result;
+    }
+
+    @Override
+    public void storeCorrelation(String correlationId, String messageId, String responseTopic,
+                                 Instant timeoutAt) throws RocketMQException {
+        try {
+            String value = messageId + FIELD_SEPARATOR + nullToEmpty(responseTopic)
+                    + FIELD_SEPARATOR + timeoutAt.toEpochMilli();
+            db.put(correlationCf, writeOptions, key(correlationId), value.getBytes(StandardCharsets.UTF_8));
+
+            logger.debug("Correlation stored: {} -> {}", correlationId, messageId);
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to store correlation", e, correlationId);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getAndRemoveCorrelation(String correlationId) throws RocketMQException {
+        byte[] value;
+        try {
+            value = db.get(correlationCf, key(correlationId));
+            if (value != null) {
+                db.delete(correlationCf, writeOptions, key(correlationId));
+            }
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to retrieve correlation", e, correlationId);
+        }
+        if (value == null) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Correlation not found", correlationId);
+        }
+
+        String[] fields = split(value);
+        Map<String, Object> correlation = new LinkedCaseInsensitiveMap<>(4);
+        correlation.put("correlation_id", correlationId);
+        correlation.put("message_id", fields[0]);
+        correlation.put("response_topic", emptyToNull(fields[1]));
+        correlation.put("timeout_at", new Timestamp(Long.parseLong(fields[2])));
+        return correlation;
+    }
+
+    @Override
+    public int cleanupExpiredCorrelations() throws RocketMQException {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try (RocksIterator iterator = db.newIterator(correlationCf);
+             WriteBatch batch = new WriteBatch()) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                String[] fields = split(iterator.value());
+                if (Long.parseLong(fields[2]) < now) {
+                    batch.delete(correlationCf, iterator.key());
+                    count++;
+                }
+            }
+            iterator.status();
+            if (count > 0) {
+                db.write(writeOptions, batch);
+                logger.info("Cleaned up {} expired correlations", count);
+            }
+            return count;
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to cleanup expired correlations", e);
+        }
+    }
+
+    @Override
+    public void storeMetric(String metricName, double metricValue) throws RocketMQException {
+        try {
+            byte[] prefix = metricPrefix(metricName);
+            byte[] key = ByteBuffer.allocate(prefix.length + 2 * Long.BYTES)
+                    .put(prefix)
+                    .putLong(Long.MAX_VALUE - System.currentTimeMillis())
+                    .putLong(Long.MAX_VALUE - metricSequence.incrementAndGet())
+                    .array();
+            db.put(metricsCf, writeOptions, key, ByteBuffer.allocate(Double.BYTES).putDouble(metricValue).array());
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to store metric", e, metricName);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecentMetrics(String metricName, int limit) throws RocketMQException {
+        byte[] prefix = metricPrefix(metricName);
+        List<Map<String, Object>> metrics = new ArrayList<>();
+        try (RocksIterator iterator = db.newIterator(metricsCf)) {
+            for (iterator.seek(prefix); iterator.isValid() && metrics.size() < limit; iterator.next()) {
+                byte[] key = iterator.key();
+                if (!hasPrefix(key, prefix)) {
+                    break;
+                }
+                long recordedAt = Long.MAX_VALUE - ByteBuffer.wrap(key, prefix.length, Long.BYTES).getLong();
+                Map<String, Object> metric = new LinkedCaseInsensitiveMap<>(3);
+                metric.put("metric_name", metricName);
+                metric.put("metric_value", ByteBuffer.wrap(iterator.value()).getDouble());
+                metric.put("recorded_at", new Timestamp(recordedAt));
+                metrics.add(metric);
+            }
+            iterator.status();
+            return metrics;
+
+        } catch (RocksDBException e) {
+            throw new RocketMQException(ai.hack.rocketmq.exception.ErrorCode.PERSISTENCE_ERROR,
+                    "Failed to retrieve metrics", e, metricName);
+        }
+    }
+
+    @Override
+    public boolean isHealthy() {
+        try {
+            db.getLongProperty(metadataCf, "rocksdb.estimate-num-keys");
+            return true;
+        } catch (Exception e) {
+            logger.error("RocksDB metadata store health check failed", e);
+            return false;
+        }
+    }
+
+    static byte[] encodeRow(String topic, String callbackTopic, MessageStatus status, int retryCount,
+                            String priority, long nowMillis) {
+        String operand = String.valueOf(ROW_OPERAND) + FIELD_SEPARATOR + topic
+                + FIELD_SEPARATOR + nullToEmpty(callbackTopic)
+                + FIELD_SEPARATOR + status.name()
+                + FIELD_SEPARATOR + retryCount
+                + FIELD_SEPARATOR + nullToEmpty(priority)
+                + FIELD_SEPARATOR + nowMillis;
+        return operand.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] encodeStatus(MessageStatus status, int retryCount, long nowMillis) {
+        String operand = String.valueOf(STATUS_OPERAND) + FIELD_SEPARATOR + status.name()
+                + FIELD_SEPARATOR + retryCount
+                + FIELD_SEPARATOR + nowMillis;
+        return operand.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] key(String id) {
+        return id.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] metricPrefix(String metricName) {
+        byte[] name = metricName.getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(name, name.length + 1);
+    }
+
+    private static boolean hasPrefix(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static String[] split(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8).split(String.valueOf(FIELD_SEPARATOR), -1);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A metadata row folded from its merge operands.
+     */
+    static final class MetadataRow {
+        final String messageId;
+        long createdAt;
+        long updatedAt;
+        String topic;
+        String callbackTopic;
+        String priority;
+        MessageStatus status;
+        int retryCount;
+
+        private MetadataRow(String messageId, long createdAt) {
+            this.messageId = messageId;
+            this.createdAt = createdAt;
+        }
+
+        /**
+         * Applies operands oldest first. Status operands before the first row operand are dropped,
+         * matching an SQL {@code UPDATE} of a row that does not exist yet.
+         *
+         * @return the folded row, or {@code null} if no row operand has been written
+         */
+        static MetadataRow fold(String messageId, byte[] value) {
+            if (value == null) {
+                return null;
+            }
+            MetadataRow row = null;
+            for (String operand : new String(value, StandardCharsets.UTF_8).split(String.valueOf(OPERAND_SEPARATOR))) {
+                if (operand.isEmpty()) {
+                    continue;
+                }
+                String[] fields = operand.split(String.valueOf(FIELD_SEPARATOR), -1);
+                if (operand.charAt(0) == ROW_OPERAND) {
+                    long now = Long.parseLong(fields[6]);
+                    if (row == null) {
+                        row = new MetadataRow(messageId, now);
+                    }
+                    row.topic = fields[1];
+                    row.callbackTopic = emptyToNull(fields[2]);
+                    row.status = MessageStatus.valueOf(fields[3]);
+                    row.retryCount = Integer.parseInt(fields[4]);
+                    row.priority = emptyToNull(fields[5]);
+                    row.updatedAt = now;
+                } else if (operand.charAt(0) == STATUS_OPERAND && row != null) {
+                    row.status = MessageStatus.valueOf(fields[1]);
+                    row.retryCount = Integer.parseInt(fields[2]);
+                    row.updatedAt = Long.parseLong(fields[3]);
+                }
+            }
+            return row;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedCaseInsensitiveMap<>(8);
+            map.put("message_id", messageId);
+            map.put("topic", topic);
+            map.put("callback_topic", callbackTopic);
+            map.put("status", status.name());
+            map.put("retry_count", retryCount);
+            map.put("priority", priority);
+            map.put("created_at", new Timestamp(createdAt));
+            map.put("updated_at", new Timestamp(updatedAt));
+            return map;
+        }
+    }
+}
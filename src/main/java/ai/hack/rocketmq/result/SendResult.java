@@ -15,6 +15,7 @@ public class SendResult {
     private final String messageId;
     private final String topic;
     private final boolean success;
+    private final boolean outcomeUnknown;
     private final String errorMessage;
     private final long offset;
     private final Duration processingTime;
@@ -24,26 +25,32 @@ public class SendResult {
 
     // Create successful result
     public static SendResult success(String messageId, String topic, long offset, Duration processingTime) {
-        return new SendResult(messageId, topic, true, null, offset, processingTime, null, -1, System.currentTimeMillis());
+        return new SendResult(messageId, topic, true, false, null, offset, processingTime, null, -1, System.currentTimeMillis());
     }
 
     // Create successful result with queue information
     public static SendResult success(String messageId, String topic, long offset, Duration processingTime,
                                    String queueName, int queueId) {
-        return new SendResult(messageId, topic, true, null, offset, processingTime, queueName, queueId, System.currentTimeMillis());
+        return new SendResult(messageId, topic, true, false, null, offset, processingTime, queueName, queueId, System.currentTimeMillis());
     }
 
     // Create failed result
     public static SendResult failure(String messageId, String topic, String errorMessage) {
-        return new SendResult(messageId, topic, false, errorMessage, -1, Duration.ZERO, null, -1, System.currentTimeMillis());
+        return new SendResult(messageId, topic, false, false, errorMessage, -1, Duration.ZERO, null, -1, System.currentTimeMillis());
+    }
+
+    // Create failed result for a send that may still have reached the broker, e.g. one that timed out
+    public static SendResult unknownOutcome(String messageId, String topic, String errorMessage) {
+        return new SendResult(messageId, topic, false, true, errorMessage, -1, Duration.ZERO, null, -1, System.currentTimeMillis());
     }
 
     // Private constructor
-    private SendResult(String messageId, String topic, boolean success, String errorMessage,
+    private SendResult(String messageId, String topic, boolean success, boolean outcomeUnknown, String errorMessage,
                       long offset, Duration processingTime, String queueName, int queueId, long startTimestamp) {
         this.messageId = messageId;
         this.topic = topic;
         this.success = success;
+        this.outcomeUnknown = outcomeUnknown;
         this.errorMessage = errorMessage;
         this.offset = offset;
         this.processingTime = processingTime;
@@ -65,6 +72,13 @@ public class SendResult {
         return success;
     }
 
+    /**
+     * Whether a failed send may nevertheless have been stored by the broker, so a retry can duplicate it.
+     */
+    public boolean isOutcomeUnknown() {
+        return outcomeUnknown;
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
@@ -121,6 +135,7 @@ public class SendResult {
         if (o == null || getClass() != o.getClass()) return false;
         SendResult that = (SendResult) o;
         return success == that.success &&
+               outcomeUnknown == that.outcomeUnknown &&
                offset == that.offset &&
                queueId == that.queueId &&
                Objects.equals(messageId, that.messageId) &&
@@ -132,7 +147,7 @@ public class SendResult {
 
     @Override
     public int hashCode() {
-        return Objects.hash(messageId, topic, success, errorMessage, offset, processingTime, queueName, queueId);
+        return Objects.hash(messageId, topic, success, outcomeUnknown, errorMessage, offset, processingTime, queueName, queueId);
     }
 
     @Override
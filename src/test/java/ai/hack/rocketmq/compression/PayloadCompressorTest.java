@@ -0,0 +1,172 @@
+package ai.hack.rocketmq.compression;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for payload compression policy and codecs.
+ */
+class PayloadCompressorTest {
+
+    private static final int MAX_LENGTH = 4 * 1024 * 1024;
+
+    private static final byte[] JSON = event(0).repeat(64).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void roundTripsEveryAlgorithm() {
+        for (CompressionAlgorithm algorithm : List.of(CompressionAlgorithm.LZ4, CompressionAlgorithm.ZSTD,
+                CompressionAlgorithm.DEFLATE)) {
+            PayloadCompressor compressor = compressor(algorithm, Map.of(), List.of());
+
+            PayloadCompressor.CompressedPayload compressed = compressor.compress("events", JSON);
+
+            assertNotNull(compressed, algorithm.name());
+            assertEquals(algorithm, compressed.getAlgorithm());
+            assertEquals(JSON.length, compressed.getOriginalLength());
+            assertTrue(compressed.getData().length < JSON.length / 4, algorithm.name());
+            assertArrayEquals(JSON, compressor.decompress(algorithm, compressed.getData(), JSON.length), algorithm.name());
+        }
+    }
+
+    @Test
+    void appliesThresholdAndTopicPolicy() {
+        PayloadCompressor compressor = compressor(CompressionAlgorithm.DEFLATE,
+                Map.of("audit", CompressionAlgorithm.NONE), List.of());
+
+        assertNull(compressor.compress("events", new byte[100]));
+        assertNull(compressor.compress("audit", JSON));
+        assertNotNull(compressor.compress("events", JSON));
+
+        PayloadCompressor disabled = new PayloadCompressor(false, CompressionAlgorithm.DEFLATE, 0,
+                Map.of(), List.of(), MAX_LENGTH);
+        assertNull(disabled.compress("events", JSON));
+    }
+
+    @Test
+    void leavesPayloadsToRocketMQUnlessCodecsAreEnabled() {
+        ClientConfiguration defaults = ClientConfiguration.builder().namesrvAddr("localhost:9876").build();
+        assertFalse(defaults.usesClientCompression());
+        assertNull(PayloadCompressor.fromConfig(defaults).compress("events", JSON));
+
+        ClientConfiguration enabled = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .compressionEnabled(true)
+                .compression(CompressionAlgorithm.DEFLATE, 1024)
+                .build();
+        assertTrue(enabled.usesClientCompression());
+        assertNotNull(PayloadCompressor.fromConfig(enabled).compress("events", JSON));
+
+        // Enabled without any algorithm, nothing would be compressed, so RocketMQ keeps compressing bodies
+        ClientConfiguration noCodec = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .compressionEnabled(true)
+                .compression(CompressionAlgorithm.NONE, 1024)
+                .build();
+        assertFalse(noCodec.usesClientCompression());
+    }
+
+    @Test
+    void sendsIncompressiblePayloadsAsTheyAre() {
+        byte[] random = new byte[8 * 1024];
+        new Random(7).nextBytes(random);
+        PayloadCompressor compressor = compressor(CompressionAlgorithm.DEFLATE, Map.of(), List.of());
+
+        assertNull(compressor.compress("events", random));
+
+        PayloadCompressor.CompressionStats stats = compressor.getStats();
+        assertEquals(0, stats.getCompressedMessages());
+        assertEquals(1, stats.getIncompressibleMessages());
+        assertEquals(1.0, stats.getCompressionRatio());
+    }
+
+    @Test
+    void reportsRatioAndTime() {
+        PayloadCompressor compressor = compressor(CompressionAlgorithm.DEFLATE, Map.of(), List.of());
+
+        PayloadCompressor.CompressedPayload compressed = compressor.compress("events", JSON);
+        compressor.decompress(CompressionAlgorithm.DEFLATE, compressed.getData(), JSON.length);
+
+        PayloadCompressor.CompressionStats stats = compressor.getStats();
+        assertEquals(1, stats.getCompressedMessages());
+        assertEquals(JSON.length, stats.getBytesBeforeCompression());
+        assertTrue(stats.getCompressionRatio() > 4);
+        assertTrue(stats.getCompressionNanos() > 0);
+        assertEquals(1, stats.getDecompressedMessages());
+    }
+
+    @Test
+    void rejectsCorruptOrTruncatedData() {
+        PayloadCompressor compressor = compressor(CompressionAlgorithm.DEFLATE, Map.of(), List.of());
+        byte[] compressed = compressor.compress("events", JSON).getData();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> compressor.decompress(CompressionAlgorithm.DEFLATE, compressed, JSON.length + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> compressor.decompress(CompressionAlgorithm.DEFLATE, new byte[] {1, 2, 3}, 10));
+        assertThrows(IllegalArgumentException.class, () -> CompressionAlgorithm.fromWireName("snappy"));
+    }
+
+    @Test
+    void rejectsUncompressedLengthsAboveTheMaximumBeforeAllocating() {
+        PayloadCompressor compressor = compressor(CompressionAlgorithm.DEFLATE, Map.of(), List.of());
+        byte[] compressed = compressor.compress("events", JSON).getData();
+
+        // A forged length this large would throw OutOfMemoryError if a codec allocated it
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> compressor.decompress(CompressionAlgorithm.DEFLATE, compressed, Integer.MAX_VALUE - 8));
+        assertTrue(e.getMessage().contains("exceeds the maximum"), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> compressor.decompress(CompressionAlgorithm.LZ4, compressed, MAX_LENGTH + 1));
+        assertEquals(0, compressor.getStats().getDecompressedMessages());
+    }
+
+    @Test
+    void zstdDictionaryShrinksSmallPayloadsAndKeepsOlderOnesReadable() {
+        byte[] first = trainDictionary(1);
+        byte[] second = trainDictionary(2);
+        byte[] small = event(424242).getBytes(StandardCharsets.UTF_8);
+
+        PayloadCompressor plain = new PayloadCompressor(true, CompressionAlgorithm.ZSTD, 0,
+                Map.of(), List.of(), MAX_LENGTH);
+        PayloadCompressor oldProducer = new PayloadCompressor(true, CompressionAlgorithm.ZSTD, 0,
+                Map.of(), List.of(first), MAX_LENGTH);
+        PayloadCompressor consumer = new PayloadCompressor(false, CompressionAlgorithm.ZSTD, 0,
+                Map.of(), List.of(first, second), MAX_LENGTH);
+
+        PayloadCompressor.CompressedPayload withDictionary = oldProducer.compress("events", small);
+        PayloadCompressor.CompressedPayload withoutDictionary = plain.compress("events", small);
+
+        assertNotNull(withDictionary);
+        assertTrue(withoutDictionary == null || withDictionary.getData().length < withoutDictionary.getData().length);
+        assertArrayEquals(small, consumer.decompress(CompressionAlgorithm.ZSTD, withDictionary.getData(), small.length));
+        assertThrows(IllegalArgumentException.class,
+                () -> plain.decompress(CompressionAlgorithm.ZSTD, withDictionary.getData(), small.length));
+    }
+
+    private static PayloadCompressor compressor(CompressionAlgorithm algorithm, Map<String, CompressionAlgorithm> topics,
+                                                List<byte[]> dictionaries) {
+        return new PayloadCompressor(true, algorithm, 1024, topics, dictionaries, MAX_LENGTH);
+    }
+
+    private static byte[] trainDictionary(int seed) {
+        ZstdDictTrainer trainer = new ZstdDictTrainer(1024 * 1024, 4 * 1024);
+        Random random = new Random(seed);
+        for (int i = 0; i < 2_000; i++) {
+            trainer.addSample(event(random.nextInt(1_000_000)).getBytes(StandardCharsets.UTF_8));
+        }
+        return trainer.trainSamples();
+    }
+
+    private static String event(int id) {
+        return "{\"type\":\"order-created\",\"orderId\":" + id + ",\"customer\":{\"tier\":\"gold\",\"region\":\"eu-west\"},"
+                + "\"items\":[{\"sku\":\"sku-" + (id % 97) + "\",\"quantity\":1}],\"currency\":\"EUR\"}";
+    }
+}
@@ -0,0 +1,160 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.LimitAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the adaptive concurrency limiter.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void rejectsAcquiresBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(0, limiter.getAvailablePermits());
+        assertTrue(limiter.isBackpressureActive());
+
+        limiter.release(1);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void keepsReservedShareForUnrestrictedCallers() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 10);
+
+        for (int i = 0; i < 9; i++) {
+            assertTrue(limiter.tryAcquireWithin(1, 0.9));
+        }
+        assertFalse(limiter.tryAcquireWithin(1, 0.9));
+        assertTrue(limiter.tryAcquireWithin(1, 1.0));
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getRejected());
+    }
+
+    @Test
+    void aimdGrowsWhenSaturatedAndBacksOffOnFailure() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 10);
+
+        for (int i = 0; i < 5; i++) {
+            saturateAndRelease(limiter, MILLI, false);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10);
+
+        saturateAndRelease(limiter, MILLI, true);
+        assertTrue(limiter.getLimit() < grown);
+    }
+
+    @Test
+    void treatsSamplesSlowerThanTheTimeoutAsFailures() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 10);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(1, TimeUnit.SECONDS.toNanos(5), false);
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(1, MILLI, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void gradientShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.GRADIENT, 20);
+
+        for (int i = 0; i < 50; i++) {
+            saturateAndRelease(limiter, MILLI, false);
+        }
+        int steady = limiter.getLimit();
+        assertTrue(steady > 20);
+
+        // A sustained latency becomes the new baseline over the long window, so check the immediate reaction
+        saturateAndRelease(limiter, 20 * MILLI, false);
+        assertTrue(limiter.getLimit() < steady);
+    }
+
+    @Test
+    void vegasShrinksWhenQueueBuildsUp() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.VEGAS, 50);
+
+        saturateAndRelease(limiter, MILLI, false);
+        int baseline = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            saturateAndRelease(limiter, 10 * MILLI, false);
+        }
+        assertTrue(limiter.getLimit() < baseline);
+    }
+
+    @Test
+    void waiterProceedsWhenPermitIsReleased() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 1);
+        assertTrue(limiter.tryAcquire());
+
+        AtomicBoolean acquired = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                acquired.set(limiter.tryAcquire(1, Duration.ofSeconds(5)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        waiter.start();
+
+        Thread.sleep(50);
+        limiter.release(1, MILLI, false);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(acquired.get());
+        assertEquals(1, limiter.getInflight());
+    }
+
+    @Test
+    void timedAcquireGivesUpAfterTimeout() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(LimitAlgorithm.AIMD, 1);
+        assertTrue(limiter.tryAcquire());
+
+        assertFalse(limiter.tryAcquire(1, Duration.ofMillis(20)));
+        assertEquals(1, limiter.getRejected());
+    }
+
+    private static AdaptiveConcurrencyLimiter newLimiter(LimitAlgorithm algorithm, int initialLimit) {
+        return new AdaptiveConcurrencyLimiter("test", algorithm, initialLimit, 1, 1_000, 0.8, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Fills the current limit, then releases every permit with the same latency.
+     */
+    private static void saturateAndRelease(AdaptiveConcurrencyLimiter limiter, long rttNanos, boolean failed) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(1, rttNanos, failed);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package ai.hack.rocketmq.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lock-free connection pool.
+ */
+class ConnectionPoolTest {
+
+    @Test
+    void reusesReleasedConnectionOnSameThread() throws InterruptedException {
+        ConnectionPool pool = newPool(4, Duration.ofMinutes(5), new FakeFactory());
+
+        PooledConnection first = pool.acquireConnection();
+        pool.returnConnection(first);
+        PooledConnection second = pool.acquireConnection();
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(FakeConnection.class, second.unwrap(FakeConnection.class).getClass());
+        ConnectionPoolStats stats = pool.getStats();
+        assertEquals(1, stats.getTotalConnectionsCreated());
+        assertEquals(1, stats.getActiveConnections());
+        assertEquals(2, stats.getTotalAcquires());
+        assertEquals(1, stats.getAffinityHits());
+    }
+
+    @Test
+    void timesOutWhenExhausted() throws InterruptedException {
+        ConnectionPool pool = newPool(1, Duration.ofMinutes(5), new FakeFactory());
+        pool.acquireConnection();
+
+        assertThrows(ConnectionPool.ConnectionPoolException.class,
+                () -> pool.acquireConnection(Duration.ofMillis(50)));
+        assertEquals(1, pool.getStats().getAcquireTimeouts());
+        assertEquals(0, pool.getStats().getWaitingAcquires());
+    }
+
+    @Test
+    void handsReleasedConnectionToWaiter() throws InterruptedException {
+        ConnectionPool pool = newPool(1, Duration.ofMinutes(5), new FakeFactory());
+        PooledConnection held = pool.acquireConnection();
+
+        AtomicReference<String> received = new AtomicReference<>();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                received.set(pool.acquireConnection(Duration.ofSeconds(5)).getId());
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        Thread.sleep(50);
+        assertEquals(1, pool.getStats().getWaitingAcquires());
+        pool.returnConnection(held);
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(held.getId(), received.get());
+    }
+
+    @Test
+    void evictsIdleConnections() throws InterruptedException {
+        FakeFactory factory = new FakeFactory();
+        ConnectionPool pool = newPool(2, Duration.ofMillis(1), factory);
+        PooledConnection connection = pool.acquireConnection();
+        pool.returnConnection(connection);
+
+        Thread.sleep(10);
+        pool.performHealthCheck();
+
+        ConnectionPoolStats stats = pool.getStats();
+        assertEquals(0, stats.getTotalConnectionsCreated());
+        assertEquals(0, stats.getAvailableConnections());
+        assertEquals(1, stats.getEvictedConnections());
+        assertEquals(1, factory.closed.get());
+
+        PooledConnection reopened = pool.acquireConnection();
+        assertTrue(!reopened.getId().equals(connection.getId()));
+    }
+
+    @Test
+    void neverExceedsCapacityUnderContention() throws InterruptedException {
+        FakeFactory factory = new FakeFactory();
+        ConnectionPool pool = newPool(4, Duration.ofMinutes(5), factory);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 32; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    try {
+                        PooledConnection connection = pool.acquireConnection(Duration.ofSeconds(10));
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        inUse.decrementAndGet();
+                        pool.returnConnection(connection);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+
+        ConnectionPoolStats stats = pool.getStats();
+        assertTrue(maxInUse.get() <= 4);
+        assertTrue(factory.created.get() <= 4);
+        assertEquals(0, stats.getActiveConnections());
+        assertEquals(stats.getTotalConnectionsCreated(), stats.getAvailableConnections());
+        assertEquals(32_000, stats.getTotalAcquires());
+        assertEquals(0, stats.getAcquireTimeouts());
+    }
+
+    private static ConnectionPool newPool(int size, Duration maxIdleTime, ConnectionFactory factory) {
+        return new ConnectionPool(size, maxIdleTime, Duration.ofMinutes(1), Duration.ofSeconds(1),
+                10, Duration.ofSeconds(30), factory);
+    }
+
+    private static class FakeFactory implements ConnectionFactory {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public PooledConnection create(String id) {
+            created.incrementAndGet();
+            return new FakeConnection(id, closed);
+        }
+    }
+
+    private static class FakeConnection implements PooledConnection {
+        private final String id;
+        private final AtomicInteger closedCounter;
+        private final Instant created = Instant.now();
+        private volatile boolean borrowed;
+        private volatile boolean closed;
+
+        FakeConnection(String id, AtomicInteger closedCounter) {
+            this.id = id;
+            this.closedCounter = closedCounter;
+        }
+
+        @Override public String getId() { return id; }
+        @Override public boolean isHealthy() { return !closed; }
+        @Override public void close() { closed = true; closedCounter.incrementAndGet(); }
+        @Override public boolean isBorrowed() { return borrowed; }
+        @Override public void borrowed() { borrowed = true; }
+        @Override public void returned() { borrowed = false; }
+        @Override public Instant getCreated() { return created; }
+        @Override public Instant getLastUsed() { return created; }
+    }
+}
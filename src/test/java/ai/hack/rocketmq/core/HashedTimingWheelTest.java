@@ -0,0 +1,89 @@
+package ai.hack.rocketmq.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the hashed timing wheel.
+ */
+class HashedTimingWheelTest {
+
+    @Test
+    void expiresTimeoutsAfterTheirDelay() throws InterruptedException {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(5), 8, "test-wheel")) {
+            CountDownLatch fired = new CountDownLatch(1);
+            long start = System.nanoTime();
+            HashedTimingWheel.Timeout timeout = wheel.newTimeout(fired::countDown, 50, TimeUnit.MILLISECONDS);
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.cancel());
+            assertEquals(1, wheel.getExpiredTimeouts());
+            assertEquals(1, wheel.getExpiryLag().getCount());
+        }
+    }
+
+    @Test
+    void cancelledTimeoutsNeverRunAndLeaveTheWheel() throws InterruptedException {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(5), 8, "test-wheel")) {
+            AtomicInteger runs = new AtomicInteger();
+            HashedTimingWheel.Timeout early = wheel.newTimeout(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+            assertTrue(early.cancel());
+            assertFalse(early.cancel());
+
+            // Long enough to be transferred into a bucket before it is cancelled
+            HashedTimingWheel.Timeout late = wheel.newTimeout(runs::incrementAndGet, 10, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            assertTrue(late.cancel());
+
+            waitUntil(() -> wheel.getPendingTimeouts() == 0);
+            Thread.sleep(50);
+            assertEquals(0, runs.get());
+            assertEquals(2, wheel.getCancelledTimeouts());
+            assertTrue(early.isCancelled() && late.isCancelled());
+        }
+    }
+
+    @Test
+    void expiresManyTimeoutsAcrossRounds() throws InterruptedException {
+        try (HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(1), 4, "test-wheel")) {
+            int count = 10_000;
+            CountDownLatch fired = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                wheel.newTimeout(fired::countDown, i % 40, TimeUnit.MILLISECONDS);
+            }
+
+            assertTrue(fired.await(10, TimeUnit.SECONDS));
+            waitUntil(() -> wheel.getPendingTimeouts() == 0);
+            assertEquals(count, wheel.getExpiredTimeouts());
+        }
+    }
+
+    @Test
+    void stopDiscardsPendingTimeouts() {
+        HashedTimingWheel wheel = new HashedTimingWheel(Duration.ofMillis(5), 8, "test-wheel");
+        AtomicInteger runs = new AtomicInteger();
+        wheel.newTimeout(runs::incrementAndGet, 1, TimeUnit.MINUTES);
+        wheel.newTimeout(runs::incrementAndGet, 2, TimeUnit.MINUTES);
+
+        assertEquals(2, wheel.stop());
+        assertEquals(0, runs.get());
+        assertThrows(IllegalStateException.class, () -> wheel.newTimeout(runs::incrementAndGet, 1, TimeUnit.SECONDS));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,113 @@
+package ai.hack.rocketmq.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the key-affinity dispatcher.
+ */
+class KeyAffinityDispatcherTest {
+
+    @Test
+    void preservesSubmissionOrderPerKey() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        KeyAffinityDispatcher dispatcher = new KeyAffinityDispatcher(16, executor);
+        int keys = 50;
+        int perKey = 2_000;
+        List<List<Integer>> seen = new ArrayList<>();
+        for (int k = 0; k < keys; k++) {
+            seen.add(new ArrayList<>());
+        }
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                int key = k;
+                int sequence = i;
+                // Lists are only touched by the key's lane, one task at a time
+                dispatcher.dispatch("customer-" + key, () -> {
+                    seen.get(key).add(sequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        for (List<Integer> sequences : seen) {
+            assertEquals(perKey, sequences.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, sequences.get(i).intValue());
+            }
+        }
+        assertEquals((long) keys * perKey, dispatcher.getDispatchedTasks());
+    }
+
+    @Test
+    void runsDifferentLanesInParallel() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        KeyAffinityDispatcher dispatcher = new KeyAffinityDispatcher(8, executor);
+        String first = "a";
+        String second = "b";
+        assertTrue(dispatcher.laneIndex(first) != dispatcher.laneIndex(second));
+
+        // Each task waits for the other, so both lanes must be running at the same time
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch finished = new CountDownLatch(2);
+        Runnable rendezvous = () -> {
+            bothStarted.countDown();
+            try {
+                if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                    finished.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        dispatcher.dispatch(first, rendezvous);
+        dispatcher.dispatch(second, rendezvous);
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void reportsLaneDepthAndSurvivesFailingTasks() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        KeyAffinityDispatcher dispatcher = new KeyAffinityDispatcher(4, executor);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        int lane = dispatcher.laneIndex("key");
+
+        dispatcher.dispatch("key", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.dispatch("key", () -> {
+            throw new IllegalStateException("boom");
+        });
+        dispatcher.dispatch("key", done::countDown);
+
+        assertEquals(3, dispatcher.getLaneDepth(lane));
+        assertEquals(3, dispatcher.getMaxLaneDepth());
+        assertEquals(1, dispatcher.getBusyLanes());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, dispatcher.getQueuedTasks());
+        assertEquals(1, dispatcher.getFailedTasks());
+    }
+}
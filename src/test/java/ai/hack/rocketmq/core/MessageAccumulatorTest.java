@@ -0,0 +1,183 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.monitoring.MetricsCollector;
+import ai.hack.rocketmq.result.SendResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-topic auto-batching accumulator.
+ */
+class MessageAccumulatorTest {
+
+    private final BlockingQueue<List<MessagePublisher.BatchEntry>> flushed = new LinkedBlockingQueue<>();
+
+    @Test
+    void flushesWhenTheMessageCountIsReached() {
+        MessageAccumulator accumulator = accumulator(Duration.ofSeconds(10), 3, 1024 * 1024);
+
+        accumulator.append(message("orders", 10));
+        accumulator.append(message("audit", 10));
+        accumulator.append(message("orders", 10));
+        assertTrue(flushed.isEmpty());
+
+        accumulator.append(message("orders", 10));
+
+        List<MessagePublisher.BatchEntry> batch = flushed.poll();
+        assertEquals(3, batch.size());
+        assertTrue(batch.stream().allMatch(entry -> entry.message.getTopic().equals("orders")));
+        assertTrue(flushed.isEmpty());
+        accumulator.close();
+    }
+
+    @Test
+    void flushesWhenTheByteThresholdIsReached() {
+        MessageAccumulator accumulator = accumulator(Duration.ofSeconds(10), 100, 1_000);
+
+        accumulator.append(message("orders", 600));
+        assertTrue(flushed.isEmpty());
+        accumulator.append(message("orders", 600));
+
+        assertEquals(2, flushed.poll().size());
+        accumulator.close();
+    }
+
+    @Test
+    void flushesLingeringMessagesAfterTheLingerTime() throws Exception {
+        MessageAccumulator accumulator = accumulator(Duration.ofMillis(20), 100, 1024 * 1024);
+        accumulator.start();
+
+        long start = System.nanoTime();
+        accumulator.append(message("orders", 10));
+
+        List<MessagePublisher.BatchEntry> batch = flushed.poll(2, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(1, batch.size());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        accumulator.close();
+    }
+
+    @Test
+    void parksTheFlusherWhileEveryBufferIsEmpty() throws Exception {
+        MessageAccumulator accumulator = accumulator(Duration.ofMillis(20), 100, 1024 * 1024);
+        accumulator.start();
+        Thread flusher = flusherThread();
+
+        // With nothing buffered the flusher waits without a deadline instead of polling
+        awaitState(flusher, Thread.State.WAITING);
+
+        accumulator.append(message("orders", 10));
+        assertEquals(1, flushed.poll(2, TimeUnit.SECONDS).size());
+        awaitState(flusher, Thread.State.WAITING);
+
+        accumulator.append(message("audit", 10));
+        assertEquals(1, flushed.poll(2, TimeUnit.SECONDS).size());
+        accumulator.close();
+        flusher.join(1_000);
+        assertFalse(flusher.isAlive());
+    }
+
+    @Test
+    void flushesEverythingOnCloseAndRejectsLaterAppends() throws Exception {
+        MessageAccumulator accumulator = accumulator(Duration.ofSeconds(10), 100, 1024 * 1024);
+        accumulator.start();
+        accumulator.append(message("orders", 10));
+        accumulator.append(message("orders", 10));
+        accumulator.append(message("audit", 10));
+
+        accumulator.close();
+
+        assertEquals(3, flushed.poll().size() + flushed.poll().size());
+        SendResult rejected = accumulator.append(message("orders", 10)).get(1, TimeUnit.SECONDS);
+        assertFalse(rejected.isSuccess());
+        assertEquals("Publisher is shutting down", rejected.getErrorMessage());
+    }
+
+    @Test
+    void completesEveryAppendThatRacesWithClose() throws Exception {
+        MessageAccumulator accumulator = accumulator(Duration.ofSeconds(10), 1_000, 1024 * 1024);
+        List<CompletableFuture<SendResult>> futures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch appending = new CountDownLatch(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String topic = "topic-" + t;
+            Thread thread = new Thread(() -> {
+                appending.countDown();
+                // Keep appending, including to fresh topics, until the accumulator refuses
+                for (int i = 0; ; i++) {
+                    CompletableFuture<SendResult> future = accumulator.append(message(topic + "-" + (i % 50), 10));
+                    futures.add(future);
+                    if (future.isDone()) {
+                        return;
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        appending.await();
+        accumulator.close();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        // Flushed entries are completed by the batch sender below; none may be left pending
+        List<MessagePublisher.BatchEntry> batch;
+        while ((batch = flushed.poll()) != null) {
+            for (MessagePublisher.BatchEntry entry : batch) {
+                entry.future.complete(SendResult.success(entry.message.getMessageId(), entry.message.getTopic(),
+                        0, Duration.ZERO));
+            }
+        }
+        synchronized (futures) {
+            assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        }
+    }
+
+    private static Thread flusherThread() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("rocketmq-accumulator-flusher") && thread.isAlive())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (thread.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(state, thread.getState());
+    }
+
+    private MessageAccumulator accumulator(Duration linger, int maxMessages, int maxBytes) {
+        ClientConfiguration config = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .autoBatching(true)
+                .batchLingerTime(linger)
+                .batchMaxMessages(maxMessages)
+                .batchMaxBytes(maxBytes)
+                .build();
+        return new MessageAccumulator(config, new MetricsCollector(), flushed::add);
+    }
+
+    private static Message message(String topic, int payloadSize) {
+        return Message.builder()
+                .topic(topic)
+                .payload(new byte[payloadSize])
+                .build();
+    }
+}
@@ -0,0 +1,268 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.callback.MessageCallback;
+import ai.hack.rocketmq.callback.MessageProcessingResult;
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageStatus;
+import ai.hack.rocketmq.monitoring.MetricsCollector;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the consumer's RocketMQ listeners, driven with synthetic batches.
+ */
+class MessageConsumerTest {
+
+    private static final MessageQueue QUEUE = new MessageQueue("orders", "broker-a", 0);
+
+    private final RecordingPushConsumer pushConsumer = new RecordingPushConsumer();
+    private final RecordingMetadataStore metadataStore = new RecordingMetadataStore();
+    private final Set<String> processed = ConcurrentHashMap.newKeySet();
+    private MessageConsumer consumer;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (consumer != null) {
+            consumer.destroy();
+        }
+    }
+
+    @Test
+    void concurrentListenerAcknowledgesAProcessedBatch() throws Exception {
+        start(false, succeedAll());
+
+        ConsumeConcurrentlyStatus status = consumeConcurrently(messages(4));
+
+        assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, status);
+        assertEquals(Set.of("m0", "m1", "m2", "m3"), processed);
+        assertEquals(MessageStatus.COMMITTED, metadataStore.statuses.get("m3"));
+        assertTrue(pushConsumer.sentBack.isEmpty());
+    }
+
+    @Test
+    void concurrentListenerRedeliversWhilePausedOrStopped() throws Exception {
+        start(false, succeedAll());
+
+        consumer.pause();
+        assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, consumeConcurrently(messages(2)));
+        consumer.resume();
+        assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, consumeConcurrently(messages(2)));
+        processed.clear();
+
+        consumer.stop();
+        assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, consumeConcurrently(messages(1)));
+        assertTrue(processed.isEmpty());
+    }
+
+    @Test
+    void concurrentListenerRedeliversABatchThatFailedEntirely() throws Exception {
+        start(false, failAll());
+
+        assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, consumeConcurrently(messages(3)));
+        assertTrue(pushConsumer.sentBack.isEmpty());
+    }
+
+    @Test
+    void concurrentListenerSendsBackOnlyTheFailedMessages() throws Exception {
+        start(false, failIds("m1", "m3"));
+        ConsumeConcurrentlyContext context = new ConsumeConcurrentlyContext(QUEUE);
+
+        ConsumeConcurrentlyStatus status = consumeConcurrently(messages(5), context);
+
+        assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, status);
+        assertEquals(List.of("m1", "m3"), pushConsumer.sentBack);
+        assertEquals(Integer.MAX_VALUE, context.getAckIndex());
+    }
+
+    @Test
+    void concurrentListenerFallsBackToAnAckIndexWhenSendBackFails() throws Exception {
+        start(false, failIds("m1", "m3"));
+        pushConsumer.failSendBackWhen(message -> message.getMsgId().equals("m3"));
+        ConsumeConcurrentlyContext context = new ConsumeConcurrentlyContext(QUEUE);
+
+        ConsumeConcurrentlyStatus status = consumeConcurrently(messages(5), context);
+
+        // m1 went back to the retry queue; m3 and everything after it is redelivered from the queue
+        assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, status);
+        assertEquals(List.of("m1"), pushConsumer.sentBack);
+        assertEquals(2, context.getAckIndex());
+    }
+
+    @Test
+    void concurrentListenerRedeliversEverythingWhenTheFirstSendBackFails() throws Exception {
+        start(false, failIds("m0"));
+        pushConsumer.failSendBackWhen(message -> true);
+
+        assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, consumeConcurrently(messages(3)));
+    }
+
+    @Test
+    void batchCallbackResultsSettleTheBatchPerMessage() throws Exception {
+        start(false, succeedAll());
+        List<Integer> batchSizes = new ArrayList<>();
+        consumer.subscribeBatch("orders", messages -> {
+            batchSizes.add(messages.size());
+            List<MessageProcessingResult> results = new ArrayList<>();
+            for (Message message : messages) {
+                results.add(switch (message.getMessageId()) {
+                    case "m1" -> MessageProcessingResult.failure("retry me", null);
+                    case "m2" -> MessageProcessingResult.failureNoRetry("poison", null);
+                    default -> MessageProcessingResult.success();
+                });
+            }
+            return results;
+        });
+
+        ConsumeConcurrentlyStatus status = consumeConcurrently(messages(4));
+
+        // Non-retryable failures are acknowledged so that they are not redelivered
+        assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, status);
+        assertEquals(List.of(4), batchSizes);
+        assertEquals(List.of("m1"), pushConsumer.sentBack);
+        assertEquals(MessageStatus.FAILED, metadataStore.statuses.get("m2"));
+        assertEquals(MessageStatus.COMMITTED, metadataStore.statuses.get("m3"));
+        assertTrue(processed.isEmpty());
+    }
+
+    @Test
+    void batchCallbackThatThrowsRedeliversTheWholeBatch() throws Exception {
+        start(false, succeedAll());
+        consumer.subscribeBatch("orders", messages -> {
+            throw new IllegalStateException("database down");
+        });
+
+        assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, consumeConcurrently(messages(3)));
+        assertEquals(MessageStatus.FAILED, metadataStore.statuses.get("m0"));
+    }
+
+    @Test
+    void batchCallbackWithTheWrongNumberOfResultsRedeliversTheWholeBatch() throws Exception {
+        start(false, succeedAll());
+        consumer.subscribeBatch("orders", messages -> List.of(MessageProcessingResult.success()));
+
+        assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, consumeConcurrently(messages(3)));
+    }
+
+    @Test
+    void orderlyListenerAcknowledgesAProcessedBatch() throws Exception {
+        start(true, succeedAll());
+
+        ConsumeOrderlyStatus status = consumeOrderly(messages(4));
+
+        assertEquals(ConsumeOrderlyStatus.SUCCESS, status);
+        assertEquals(Set.of("m0", "m1", "m2", "m3"), processed);
+    }
+
+    @Test
+    void orderlyListenerSuspendsTheQueueAndSkipsTheFailedKey() throws Exception {
+        start(true, message -> {
+            processed.add(message.getMessageId());
+            return message.getMessageId().equals("m0")
+                    ? MessageProcessingResult.failure("boom", null)
+                    : MessageProcessingResult.success();
+        });
+        List<MessageExt> batch = messages(4);
+        // m0 and m2 share an order key, so m2 must wait for m0's redelivery
+        batch.get(0).putUserProperty("order-key", "k1");
+        batch.get(1).putUserProperty("order-key", "k2");
+        batch.get(2).putUserProperty("order-key", "k1");
+        batch.get(3).putUserProperty("order-key", "k3");
+
+        ConsumeOrderlyStatus status = consumeOrderly(batch);
+
+        assertEquals(ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT, status);
+        assertEquals(Set.of("m0", "m1", "m3"), processed);
+        assertEquals(MessageStatus.FAILED, metadataStore.statuses.get("m0"));
+    }
+
+    @Test
+    void orderlyListenerSuspendsWhilePausedOrStopped() throws Exception {
+        start(true, succeedAll());
+
+        consumer.pause();
+        assertEquals(ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT, consumeOrderly(messages(2)));
+        consumer.resume();
+        consumer.stop();
+        assertEquals(ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT, consumeOrderly(messages(1)));
+        assertTrue(processed.isEmpty());
+    }
+
+    private void start(boolean ordered, MessageCallback callback) throws Exception {
+        ClientConfiguration config = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .orderedProcessing(ordered)
+                .enablePersistence(false)
+                .build();
+        consumer = new MessageConsumer(config, null, new MetricsCollector(), metadataStore, null, pushConsumer);
+        consumer.afterPropertiesSet();
+        consumer.subscribe("orders", callback);
+    }
+
+    private MessageCallback succeedAll() {
+        return message -> {
+            processed.add(message.getMessageId());
+            return MessageProcessingResult.success();
+        };
+    }
+
+    private MessageCallback failAll() {
+        return message -> {
+            processed.add(message.getMessageId());
+            return MessageProcessingResult.failure("boom", null);
+        };
+    }
+
+    private MessageCallback failIds(String... ids) {
+        Set<String> failing = Set.of(ids);
+        return message -> {
+            processed.add(message.getMessageId());
+            return failing.contains(message.getMessageId())
+                    ? MessageProcessingResult.failure("boom", null)
+                    : MessageProcessingResult.success();
+        };
+    }
+
+    private ConsumeConcurrentlyStatus consumeConcurrently(List<MessageExt> batch) {
+        return consumeConcurrently(batch, new ConsumeConcurrentlyContext(QUEUE));
+    }
+
+    private ConsumeConcurrentlyStatus consumeConcurrently(List<MessageExt> batch, ConsumeConcurrentlyContext context) {
+        MessageListenerConcurrently listener = (MessageListenerConcurrently) pushConsumer.getMessageListener();
+        return listener.consumeMessage(batch, context);
+    }
+
+    private ConsumeOrderlyStatus consumeOrderly(List<MessageExt> batch) {
+        MessageListenerOrderly listener = (MessageListenerOrderly) pushConsumer.getMessageListener();
+        return listener.consumeMessage(batch, new ConsumeOrderlyContext(QUEUE));
+    }
+
+    static List<MessageExt> messages(int count) {
+        List<MessageExt> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MessageExt message = new MessageExt();
+            message.setTopic("orders");
+            message.setBody(("payload-" + i).getBytes(StandardCharsets.UTF_8));
+            message.setMsgId("m" + i);
+            message.setBornTimestamp(System.currentTimeMillis());
+            batch.add(message);
+        }
+        return batch;
+    }
+}
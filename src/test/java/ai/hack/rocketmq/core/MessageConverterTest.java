@@ -0,0 +1,217 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.compression.CompressionAlgorithm;
+import ai.hack.rocketmq.compression.PayloadCompressor;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageHeaders;
+import ai.hack.rocketmq.model.MessageInternals;
+import ai.hack.rocketmq.model.MessagePriority;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the copy-free conversion between client and RocketMQ messages.
+ */
+class MessageConverterTest {
+
+    @Test
+    void sharesThePayloadArray() {
+        Message message = sample(16);
+
+        org.apache.rocketmq.common.message.Message converted = new MessageConverter(false).toRocketMQMessage(message);
+
+        assertSame(MessageInternals.payload(message), converted.getBody());
+        assertEquals("orders", converted.getTopic());
+    }
+
+    @Test
+    void writesHeadersAndBuiltInProperties() {
+        Message message = sample(16);
+
+        org.apache.rocketmq.common.message.Message converted = new MessageConverter(false).toRocketMQMessage(message);
+
+        assertEquals("eu-west", converted.getProperty("region"));
+        assertEquals("42", converted.getProperty("attempt"));
+        assertEquals("replies", converted.getProperty(MessageConverter.PROPERTY_CALLBACK_TOPIC));
+        assertEquals("HIGH", converted.getProperty(MessageConverter.PROPERTY_PRIORITY));
+        assertEquals("payments", converted.getTags());
+        assertEquals(message.getMessageId(), converted.getProperty(MessageConverter.PROPERTY_UNIQUE_ID));
+        assertEquals("true", converted.getProperty(MessageConst.PROPERTY_WAIT_STORE_MSG_OK));
+        assertNull(converted.getProperty(MessageConverter.PROPERTY_SHARDING_KEY));
+
+        long sendTime = Long.parseLong(converted.getProperty(MessageConverter.PROPERTY_SEND_TIME));
+        assertTrue(Math.abs(System.currentTimeMillis() - sendTime) < 60_000);
+    }
+
+    @Test
+    void usesOrderKeyOrTopicAsShardingKey() {
+        MessageConverter converter = new MessageConverter(true);
+
+        Message keyed = Message.builder().topic("orders").payload("a").header("order-key", "customer-7").build();
+        Message unkeyed = Message.builder().topic("orders").payload("b").build();
+
+        assertEquals("customer-7", converter.toRocketMQMessage(keyed).getProperty(MessageConverter.PROPERTY_SHARDING_KEY));
+        assertEquals("orders", converter.toRocketMQMessage(unkeyed).getProperty(MessageConverter.PROPERTY_SHARDING_KEY));
+    }
+
+    @Test
+    void hidesEnvelopeAndSystemPropertiesFromReceivedHeaders() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("region", "eu-west");
+        properties.put(MessageConverter.PROPERTY_PRIORITY, "HIGH");
+        properties.put(MessageConverter.PROPERTY_CALLBACK_TOPIC, "replies");
+        properties.put(MessageConst.PROPERTY_TAGS, "payments");
+        properties.put(MessageConst.PROPERTY_WAIT_STORE_MSG_OK, "true");
+
+        MessageHeaders headers = MessageConverter.receivedHeaders(properties);
+
+        assertEquals(1, headers.size());
+        assertEquals("eu-west", headers.get("region"));
+        assertNull(headers.get(MessageConst.PROPERTY_TAGS));
+    }
+
+    @Test
+    void wrapsReceivedMessagesWithoutCopyingTheBody() {
+        byte[] body = "received".getBytes();
+        MessageExt received = new MessageExt();
+        received.setMsgId("msg-1");
+        received.setTopic("orders");
+        received.setBody(body);
+        received.setBornTimestamp(1_000L);
+        Map<String, String> properties = new HashMap<>();
+        properties.put(MessageConverter.PROPERTY_CALLBACK_TOPIC, "replies");
+        properties.put(MessageConverter.PROPERTY_PRIORITY, "CRITICAL");
+        properties.put(MessageConst.PROPERTY_TAGS, "a, b,");
+        properties.put("region", "eu-west");
+        MessageAccessor.setProperties(received, properties);
+
+        Message message = MessageConverter.fromRocketMQMessage(received, noCompression());
+
+        assertEquals("msg-1", message.getMessageId());
+        assertEquals("replies", message.getCallbackTopic());
+        assertEquals(1_000L, message.getTimestamp().toEpochMilli());
+        assertSame(body, MessageInternals.payload(message));
+        assertEquals(MessagePriority.CRITICAL, message.getPriority());
+        assertEquals(Set.of("a", "b"), message.getTags());
+        assertEquals(Map.of("region", "eu-west"), message.getHeaders());
+    }
+
+    @Test
+    void allocatesFarLessThanThePayloadPerConversion() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean allocations)
+                || !allocations.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        MessageConverter converter = new MessageConverter(false);
+        Message message = sample(64 * 1024);
+        int iterations = 10_000;
+        for (int i = 0; i < iterations; i++) {
+            converter.toRocketMQMessage(message);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            converter.toRocketMQMessage(message);
+        }
+        long perConversion = (allocations.getThreadAllocatedBytes(threadId) - before) / iterations;
+
+        // A payload copy alone would be 64 KiB; the property map, its entries and the send time stay far below that
+        assertTrue(perConversion < 4 * 1024, "allocated " + perConversion + " bytes per conversion");
+    }
+
+    @Test
+    void compressesLargePayloadsAndRestoresThemOnAccess() {
+        PayloadCompressor compressor = new PayloadCompressor(true, CompressionAlgorithm.DEFLATE, 1024, Map.of(), List.of(),
+                4 * 1024 * 1024);
+        byte[] json = "{\"event\":\"order-created\",\"amount\":42}".repeat(100).getBytes();
+        Message message = Message.builder().topic("orders").payload(json).build();
+
+        org.apache.rocketmq.common.message.Message converted = new MessageConverter(false, compressor).toRocketMQMessage(message);
+
+        assertTrue(converted.getBody().length < json.length / 4);
+        assertEquals("deflate", converted.getProperty(MessageConverter.PROPERTY_COMPRESSION));
+        assertEquals(String.valueOf(json.length), converted.getProperty(MessageConverter.PROPERTY_UNCOMPRESSED_SIZE));
+
+        MessageExt received = new MessageExt();
+        received.setMsgId("msg-1");
+        received.setTopic(converted.getTopic());
+        received.setBody(converted.getBody());
+        MessageAccessor.setProperties(received, new HashMap<>(converted.getProperties()));
+
+        Message restored = MessageConverter.fromRocketMQMessage(received, noCompression());
+        assertArrayEquals(json, restored.getPayload());
+        assertNull(restored.getHeader(MessageConverter.PROPERTY_COMPRESSION));
+    }
+
+    @Test
+    void leavesSmallPayloadsUncompressed() {
+        PayloadCompressor compressor = new PayloadCompressor(true, CompressionAlgorithm.DEFLATE, 1024, Map.of(), List.of(),
+                4 * 1024 * 1024);
+        Message message = sample(16);
+
+        org.apache.rocketmq.common.message.Message converted = new MessageConverter(false, compressor).toRocketMQMessage(message);
+
+        assertSame(MessageInternals.payload(message), converted.getBody());
+        assertNull(converted.getProperty(MessageConverter.PROPERTY_COMPRESSION));
+    }
+
+    @Test
+    void dropsHeadersThatCollideWithTheCompressionProperties() {
+        Message message = Message.builder()
+                .topic("orders")
+                .payload("plain")
+                .header("compression", "gzip")
+                .header(MessageConverter.PROPERTY_COMPRESSION, "lz4")
+                .header(MessageConverter.PROPERTY_UNCOMPRESSED_SIZE, "1024")
+                .build();
+
+        org.apache.rocketmq.common.message.Message converted = new MessageConverter(false, noCompression()).toRocketMQMessage(message);
+
+        assertNull(converted.getProperty(MessageConverter.PROPERTY_COMPRESSION));
+        assertNull(converted.getProperty(MessageConverter.PROPERTY_UNCOMPRESSED_SIZE));
+
+        MessageExt received = new MessageExt();
+        received.setMsgId("msg-1");
+        received.setTopic(converted.getTopic());
+        received.setBody(converted.getBody());
+        MessageAccessor.setProperties(received, new HashMap<>(converted.getProperties()));
+
+        // An ordinary header that happens to be called "compression" reaches the handler untouched
+        Message restored = MessageConverter.fromRocketMQMessage(received, noCompression());
+        assertArrayEquals("plain".getBytes(), restored.getPayload());
+        assertEquals("gzip", restored.getHeader("compression"));
+    }
+
+    // Compression off for sending; decompression of received payloads works regardless
+    private static PayloadCompressor noCompression() {
+        return new PayloadCompressor(false, CompressionAlgorithm.LZ4, 0, Map.of(), List.of(),
+                4 * 1024 * 1024);
+    }
+
+    private static Message sample(int payloadSize) {
+        return Message.builder()
+                .topic("orders")
+                .payload(new byte[payloadSize])
+                .callbackTopic("replies")
+                .header("region", "eu-west")
+                .header("attempt", 42)
+                .priority(MessagePriority.HIGH)
+                .tag("payments")
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.config.ShardRouting;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.monitoring.MetricsCollector;
+import ai.hack.rocketmq.result.BatchSendResult;
+import ai.hack.rocketmq.result.SendResult;
+import org.apache.rocketmq.client.exception.MQBrokerException;
+import org.apache.rocketmq.common.message.MessageBatch;
+import org.apache.rocketmq.common.message.MessageClientIDSetter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for native batch sends, against a producer that never reaches a broker.
+ */
+class MessagePublisherBatchTest {
+
+    private static final int MAX_MESSAGE_SIZE = 10_000;
+
+    private RecordingProducer producer;
+    private MessagePublisher publisher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ClientConfiguration config = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .maxMessageSize(MAX_MESSAGE_SIZE)
+                .orderedProcessing(false)
+                .enablePersistence(false)
+                .build();
+        producer = new RecordingProducer();
+        publisher = new MessagePublisher(config, null, new MetricsCollector(), null,
+                new ProducerShards(ShardRouting.HASH, List.of(producer)));
+        publisher.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        publisher.destroy();
+    }
+
+    @Test
+    void splitsEnvelopesAtTheMaximumMessageSize() throws Exception {
+        List<Message> messages = messages("orders", 10, 3_000);
+
+        BatchSendResult result = publisher.sendBatchAsync(messages).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isFullySuccessful());
+        // About 3 KB per encoded message, so three fit under 10,000 bytes and the fourth starts a new envelope
+        assertEquals(List.of(3, 3, 3, 1), producer.sends.stream().map(List::size).toList());
+        for (List<org.apache.rocketmq.common.message.Message> envelope : producer.sends) {
+            int size = 0;
+            for (org.apache.rocketmq.common.message.Message message : envelope) {
+                size += MessagePublisher.estimateEncodedSize(message);
+            }
+            assertTrue(size <= MAX_MESSAGE_SIZE);
+        }
+    }
+
+    @Test
+    void fansOutContiguousOffsetsInInputOrder() throws Exception {
+        List<Message> messages = new ArrayList<>(messages("orders", 4, 100));
+        messages.addAll(2, messages("audit", 2, 100));
+
+        BatchSendResult result = publisher.sendBatchAsync(messages).get(5, TimeUnit.SECONDS);
+
+        // One envelope per topic, each acknowledged with the offset of its first message
+        assertEquals(2, producer.sends.size());
+        List<SendResult> results = result.getResults();
+        assertEquals(messages.size(), results.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).getMessageId(), results.get(i).getMessageId());
+            assertEquals(messages.get(i).getTopic(), results.get(i).getTopic());
+        }
+        assertEquals(List.of(0L, 1L, 4L, 5L, 2L, 3L), results.stream().map(SendResult::getOffset).toList());
+    }
+
+    @Test
+    void failsOnlyTheEntriesOfAFailedEnvelope() throws Exception {
+        AtomicInteger envelopes = new AtomicInteger();
+        producer.failWhen(batch -> envelopes.incrementAndGet() == 2
+                ? new MQBrokerException(14, "service not available") : null);
+        List<Message> messages = messages("orders", 7, 3_000);
+
+        BatchSendResult result = publisher.sendBatchAsync(messages).get(5, TimeUnit.SECONDS);
+
+        assertEquals(7, result.getTotalCount());
+        assertEquals(4, result.getSuccessCount());
+        for (int i = 0; i < 7; i++) {
+            SendResult entry = result.getResults().get(i);
+            assertEquals(i < 3 || i == 6, entry.isSuccess(), "entry " + i);
+            if (!entry.isSuccess()) {
+                assertTrue(entry.getErrorMessage().contains("Broker error"), entry.getErrorMessage());
+            }
+        }
+    }
+
+    @Test
+    void countsEncodedSizeInUtf8Bytes() {
+        assertEquals(3, MessagePublisher.utf8Length("abc"));
+        assertEquals(2, MessagePublisher.utf8Length("é"));
+        assertEquals(6, MessagePublisher.utf8Length("订单"));
+        assertEquals(4, MessagePublisher.utf8Length("😀"));
+
+        byte[] body = new byte[100];
+        org.apache.rocketmq.common.message.Message ascii = new org.apache.rocketmq.common.message.Message("ab", body);
+        ascii.putUserProperty("cd", "ef");
+        org.apache.rocketmq.common.message.Message cjk = new org.apache.rocketmq.common.message.Message("订单", body);
+        cjk.putUserProperty("区域", "华东");
+
+        // Key and value each take 4 more bytes with 3-byte characters; the topic is not encoded per message
+        assertEquals(MessagePublisher.estimateEncodedSize(ascii) + 8, MessagePublisher.estimateEncodedSize(cjk));
+    }
+
+    @Test
+    void estimateMatchesTheEncodedBatchEnvelope() throws Exception {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            messages.add(Message.builder()
+                    .topic("订单")
+                    .payload(new byte[700])
+                    .header("区域", "华东-" + i)
+                    .tag("urgent")
+                    .build());
+        }
+        publisher.sendBatchAsync(messages).get(5, TimeUnit.SECONDS);
+        List<org.apache.rocketmq.common.message.Message> envelope = producer.sends.get(0);
+
+        int estimated = 0;
+        for (org.apache.rocketmq.common.message.Message message : envelope) {
+            assertNotNull(MessageClientIDSetter.getUniqID(message));
+            estimated += MessagePublisher.estimateEncodedSize(message);
+        }
+        MessageBatch batch = MessageBatch.generateFromList(envelope);
+        // The producer keeps the ids that are already set, so encoding assigns nothing new
+        for (org.apache.rocketmq.common.message.Message message : batch) {
+            MessageClientIDSetter.setUniqID(message);
+        }
+
+        assertEquals(batch.encode().length, estimated);
+    }
+
+    private static List<Message> messages(String topic, int count, int payloadSize) {
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] payload = new byte[payloadSize];
+            payload[0] = (byte) i;
+            messages.add(Message.builder()
+                    .topic(topic)
+                    .payload(payload)
+                    .build());
+        }
+        return messages;
+    }
+}
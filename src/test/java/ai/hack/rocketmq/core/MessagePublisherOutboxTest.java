@@ -0,0 +1,167 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.config.ShardRouting;
+import ai.hack.rocketmq.config.WalPolicy;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageHeaders;
+import ai.hack.rocketmq.model.MessageStatus;
+import ai.hack.rocketmq.monitoring.MetricsCollector;
+import ai.hack.rocketmq.persistence.RocksDBMessageStore;
+import ai.hack.rocketmq.result.SendResult;
+import org.apache.rocketmq.client.exception.MQBrokerException;
+import org.apache.rocketmq.remoting.exception.RemotingTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for publishing through the durable outbox.
+ */
+class MessagePublisherOutboxTest {
+
+    @TempDir
+    Path dataDir;
+
+    private RocksDBMessageStore store;
+    private RecordingProducer producer;
+    private MessagePublisher publisher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new RocksDBMessageStore(dataDir.resolve("messages").toString(), Duration.ofMillis(50),
+                4 * 1024 * 1024, 8 * 1024 * 1024, WalPolicy.ASYNC);
+        store.afterPropertiesSet();
+
+        ClientConfiguration config = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .persistence(dataDir.toString(), Duration.ofMillis(50))
+                .outbox(true)
+                .orderedProcessing(false)
+                .build();
+        producer = new RecordingProducer();
+        publisher = new MessagePublisher(config, null, new MetricsCollector(), store,
+                new ProducerShards(ShardRouting.HASH, List.of(producer)));
+        publisher.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        publisher.destroy();
+        store.destroy();
+    }
+
+    @Test
+    void commitsAcknowledgedMessages() throws Exception {
+        SendResult result = publisher.sendMessageAsync(message("m1")).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess());
+        store.flushBatch();
+        assertTrue(outboxIds().isEmpty());
+        assertEquals(MessageStatus.COMMITTED, store.retrieveMessage("m1").getStatus());
+    }
+
+    @Test
+    void discardsEntriesOfRejectedSends() throws Exception {
+        producer.failWhen(batch -> new MQBrokerException(14, "service not available"));
+
+        SendResult result = publisher.sendMessageAsync(message("m1")).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccess());
+        assertFalse(result.isOutcomeUnknown());
+        store.flushBatch();
+        assertTrue(outboxIds().isEmpty());
+        assertNull(store.retrieveMessage("m1"));
+    }
+
+    @Test
+    void keepsEntriesOfTimedOutSendsForReplay() throws Exception {
+        producer.failWhen(batch -> new RemotingTimeoutException("wait response timeout"));
+
+        SendResult result = publisher.sendMessageAsync(message("m1")).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.isOutcomeUnknown());
+        store.flushBatch();
+        assertEquals(List.of("m1"), outboxIds());
+
+        producer.failWhen(batch -> null);
+        int replayed = publisher.replayOutbox(1_000, 4).get(5, TimeUnit.SECONDS);
+        assertEquals(1, replayed);
+        store.flushBatch();
+        assertTrue(outboxIds().isEmpty());
+    }
+
+    @Test
+    void replayLeavesFailedEntriesInTheOutbox() throws Exception {
+        store.appendOutbox(List.of(message("m1"), message("m2"), message("m3"))).get(5, TimeUnit.SECONDS);
+        AtomicInteger sends = new AtomicInteger();
+        producer.failWhen(batch -> sends.incrementAndGet() == 2
+                ? new MQBrokerException(14, "service not available") : null);
+
+        int replayed = publisher.replayOutbox(1_000, 1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, replayed);
+        store.flushBatch();
+        assertEquals(List.of("m2"), outboxIds());
+        assertEquals(MessageStatus.COMMITTED, store.retrieveMessage("m1").getStatus());
+        assertNull(store.retrieveMessage("m2"));
+        assertEquals(MessageStatus.COMMITTED, store.retrieveMessage("m3").getStatus());
+    }
+
+    @Test
+    void replayNeverPublishesLiveSendsAgain() throws Exception {
+        store.appendOutbox(List.of(message("old-1"), message("old-2"), message("old-3"))).get(5, TimeUnit.SECONDS);
+
+        // Slow enough that the live sends below are made while the replay is still running
+        CompletableFuture<Integer> replay = publisher.replayOutbox(10, 1);
+        List<CompletableFuture<SendResult>> live = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            live.add(publisher.sendMessageAsync(message("live-" + i)));
+            Thread.sleep(10);
+        }
+        assertFalse(replay.isDone());
+
+        int replayed = replay.get(5, TimeUnit.SECONDS);
+        assertEquals(3, replayed);
+        for (CompletableFuture<SendResult> send : live) {
+            assertTrue(send.get(5, TimeUnit.SECONDS).isSuccess());
+        }
+
+        Map<String, Long> sendsPerId = producer.sends.stream()
+                .flatMap(List::stream)
+                .collect(Collectors.groupingBy(sent -> sent.getProperty(MessageHeaders.UNIQUE_ID), Collectors.counting()));
+        assertEquals(8, sendsPerId.size());
+        assertTrue(sendsPerId.values().stream().allMatch(count -> count == 1), sendsPerId.toString());
+        store.flushBatch();
+        assertTrue(outboxIds().isEmpty());
+    }
+
+    private List<String> outboxIds() throws Exception {
+        try (Stream<Message> pending = store.streamOutbox()) {
+            return pending.map(Message::getMessageId).collect(Collectors.toList());
+        }
+    }
+
+    private static Message message(String id) {
+        return Message.builder()
+                .messageId(id)
+                .topic("orders")
+                .payload("payload-" + id)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.config.ShardRouting;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessageHeaders;
+import ai.hack.rocketmq.monitoring.MetricsCollector;
+import ai.hack.rocketmq.result.SendResult;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-message sends, against a producer that never reaches a broker.
+ */
+class MessagePublisherTest {
+
+    private MessagePublisher publisher;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (publisher != null) {
+            publisher.destroy();
+        }
+    }
+
+    @Test
+    void releasesThePermitOnceWhenAFailureIsReportedTwice() throws Exception {
+        // Reports the failure through the callback and then throws it at the caller as well
+        RecordingProducer producer = new RecordingProducer() {
+            @Override
+            public void send(org.apache.rocketmq.common.message.Message msg, SendCallback sendCallback) {
+                super.send(msg, sendCallback);
+                throw new IllegalStateException("send failed");
+            }
+        };
+        producer.failWhen(batch -> new MQClientException("send failed", null));
+        start(false, ShardRouting.HASH, producer);
+
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(publisher.sendMessageAsync(message("m" + i)));
+        }
+        for (CompletableFuture<SendResult> future : futures) {
+            assertFalse(future.get(5, TimeUnit.SECONDS).isSuccess());
+        }
+        // The second report arrives after the future completed, so give it time to go wrong
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (publisher.getStats().getActiveOperations() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+
+        MessagePublisher.PublisherStats stats = publisher.getStats();
+        assertEquals(0, stats.getActiveOperations());
+        // Failures may shrink the adaptive limit, but nothing is in flight any more
+        assertEquals(stats.getConcurrencyLimit(), stats.getAvailablePermits());
+        assertEquals(20, producer.sends.size());
+    }
+
+    @Test
+    void sendsOrderedMessagesToTheQueueOfTheirOrderKey() throws Exception {
+        RecordingProducer first = new RecordingProducer();
+        RecordingProducer second = new RecordingProducer();
+        start(true, ShardRouting.LEAST_INFLIGHT, first, second);
+
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(publisher.sendMessageAsync(Message.builder()
+                    .topic("orders")
+                    .payload("payload-" + i)
+                    .header(MessageHeaders.ORDER_KEY, "customer-" + (i % 2))
+                    .build()));
+        }
+        for (CompletableFuture<SendResult> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isSuccess());
+        }
+
+        // Every send names its queue, and each order key sticks to one queue on one producer shard
+        Map<String, MessageQueue> queueByKey = new HashMap<>();
+        Map<String, RecordingProducer> shardByKey = new HashMap<>();
+        for (RecordingProducer producer : List.of(first, second)) {
+            for (int i = 0; i < producer.sends.size(); i++) {
+                MessageQueue queue = producer.targets.get(i);
+                assertNotNull(queue);
+                String key = producer.sends.get(i).get(0).getProperty(MessageConverter.PROPERTY_SHARDING_KEY);
+                assertEquals(queueByKey.computeIfAbsent(key, k -> queue), queue);
+                assertSame(shardByKey.computeIfAbsent(key, k -> producer), producer);
+            }
+        }
+        assertEquals(40, first.sends.size() + second.sends.size());
+        assertEquals(2, queueByKey.size());
+    }
+
+    @Test
+    void leavesTheQueueToTheProducerWithoutOrderedProcessing() throws Exception {
+        RecordingProducer producer = new RecordingProducer();
+        start(false, ShardRouting.LEAST_INFLIGHT, producer);
+
+        assertTrue(publisher.sendMessageAsync(message("m1")).get(5, TimeUnit.SECONDS).isSuccess());
+
+        assertEquals(1, producer.targets.size());
+        assertNull(producer.targets.get(0));
+    }
+
+    private void start(boolean ordered, ShardRouting routing, RecordingProducer... producers) throws Exception {
+        ClientConfiguration config = ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .orderedProcessing(ordered)
+                .enablePersistence(false)
+                .build();
+        publisher = new MessagePublisher(config, null, new MetricsCollector(), null,
+                new ProducerShards(routing, List.of(producers)));
+        publisher.afterPropertiesSet();
+    }
+
+    private static Message message(String id) {
+        return Message.builder()
+                .messageId(id)
+                .topic("orders")
+                .payload("payload-" + id)
+                .build();
+    }
+}
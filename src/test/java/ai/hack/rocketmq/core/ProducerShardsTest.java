@@ -0,0 +1,93 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.config.ClientConfiguration;
+import ai.hack.rocketmq.config.ShardRouting;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for producer shard routing. Producers are created but never started.
+ */
+class ProducerShardsTest {
+
+    @Test
+    void givesEveryShardItsOwnInstanceName() {
+        ProducerShards shards = new ProducerShards(config(4, ShardRouting.HASH));
+
+        assertEquals(4, shards.size());
+        assertEquals("shards-test@shard-0", shards.primary().producer.getInstanceName());
+        assertEquals(4, shards.getStats().size());
+    }
+
+    @Test
+    void spreadsAHotTopicOverEveryShardByDefault() {
+        ProducerShards shards = new ProducerShards(ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .producerGroup("shards-test")
+                .producerShards(4)
+                .build());
+
+        boolean[] picked = new boolean[shards.size()];
+        for (int i = 0; i < 1_000; i++) {
+            picked[shards.select("telemetry", null).index] = true;
+        }
+        for (boolean shard : picked) {
+            assertTrue(shard);
+        }
+    }
+
+    @Test
+    void keepsATopicOnOneShardWithHashRouting() {
+        ProducerShards shards = new ProducerShards(config(4, ShardRouting.HASH));
+
+        ProducerShards.Shard first = shards.select("telemetry", null);
+        for (int i = 0; i < 100; i++) {
+            assertSame(first, shards.select("telemetry", null));
+        }
+    }
+
+    @Test
+    void routesQueuesToTheSameShardInEveryMode() {
+        ProducerShards shards = new ProducerShards(config(4, ShardRouting.LEAST_INFLIGHT));
+        MessageQueue queue = new MessageQueue("orders", "broker-a", 3);
+
+        ProducerShards.Shard first = shards.select("orders", queue);
+        first.begin();
+        assertSame(first, shards.select("orders", new MessageQueue("orders", "broker-a", 3)));
+    }
+
+    @Test
+    void prefersLessLoadedShards() {
+        ProducerShards shards = new ProducerShards(config(2, ShardRouting.LEAST_INFLIGHT));
+        ProducerShards.Shard busy = shards.primary();
+        for (int i = 0; i < 100; i++) {
+            busy.begin();
+        }
+
+        int pickedBusy = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (shards.select("telemetry", null) == busy) {
+                pickedBusy++;
+            }
+        }
+        // Only a draw of the busy shard twice picks it: about a quarter of the time with two shards
+        assertTrue(pickedBusy < 400);
+
+        busy.complete(1, true);
+        List<ProducerShards.ShardStats> stats = shards.getStats();
+        assertEquals(99, stats.get(0).getInflightSends());
+        assertEquals(1, stats.get(0).getMessagesSent());
+    }
+
+    private static ClientConfiguration config(int shards, ShardRouting routing) {
+        return ClientConfiguration.builder()
+                .namesrvAddr("localhost:9876")
+                .producerGroup("shards-test")
+                .producerShards(shards, routing)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.model.MessageStatus;
+import ai.hack.rocketmq.persistence.MetadataStore;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metadata store that only keeps the latest status of each message in memory.
+ */
+class RecordingMetadataStore implements MetadataStore {
+
+    final Map<String, MessageStatus> statuses = new ConcurrentHashMap<>();
+
+    @Override
+    public void storeMessageMetadata(String messageId, String topic, String callbackTopic,
+                                     MessageStatus status, int retryCount, String priority) {
+        statuses.put(messageId, status);
+    }
+
+    @Override
+    public void updateMessageStatus(String messageId, MessageStatus status, int retryCount) {
+        statuses.put(messageId, status);
+    }
+
+    @Override
+    public void storeMessageMetadataAsync(String messageId, String topic, String callbackTopic,
+                                          MessageStatus status, int retryCount, String priority) {
+        statuses.put(messageId, status);
+    }
+
+    @Override
+    public void updateMessageStatusAsync(String messageId, MessageStatus status, int retryCount) {
+        statuses.put(messageId, status);
+    }
+
+    @Override
+    public Map<String, Object> getMessageMetadata(String messageId) {
+        MessageStatus status = statuses.get(messageId);
+        return status != null ? Map.of("message_id", messageId, "status", status.name()) : null;
+    }
+
+    @Override
+    public List<Map<String, Object>> getMessagesByStatus(MessageStatus status, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public void storeCorrelation(String correlationId, String messageId, String responseTopic, Instant timeoutAt) {
+    }
+
+    @Override
+    public Map<String, Object> getAndRemoveCorrelation(String correlationId) {
+        return null;
+    }
+
+    @Override
+    public int cleanupExpiredCorrelations() {
+        return 0;
+    }
+
+    @Override
+    public void storeMetric(String metricName, double metricValue) {
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecentMetrics(String metricName, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public WriteBehindStats getWriteBehindStats() {
+        return new WriteBehindStats(0, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
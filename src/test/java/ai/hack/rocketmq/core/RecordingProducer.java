@@ -0,0 +1,92 @@
+package ai.hack.rocketmq.core;
+
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Producer that never reaches a broker. Every send call is recorded and answered on the calling thread,
+ * with contiguous queue offsets, unless the failure function returns an error for it.
+ */
+class RecordingProducer extends DefaultMQProducer {
+
+    final List<List<Message>> sends = new CopyOnWriteArrayList<>();
+    // Target queue of each send call, in the order of sends; null where the producer picks the queue
+    final List<MessageQueue> targets = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextOffset = new AtomicLong();
+    private volatile Function<List<Message>, Throwable> failure = batch -> null;
+
+    RecordingProducer() {
+        super("recording-producer");
+    }
+
+    /**
+     * Fails every later send call for which {@code failure} returns an error.
+     */
+    void failWhen(Function<List<Message>, Throwable> failure) {
+        this.failure = failure;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void send(Message msg, SendCallback sendCallback) {
+        reply(List.of(msg), null, sendCallback);
+    }
+
+    @Override
+    public void send(Message msg, MessageQueue mq, SendCallback sendCallback) {
+        reply(List.of(msg), mq, sendCallback);
+    }
+
+    /**
+     * Every topic has four queues on one broker.
+     */
+    @Override
+    public List<MessageQueue> fetchPublishMessageQueues(String topic) {
+        List<MessageQueue> queues = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            queues.add(new MessageQueue(topic, "broker-a", i));
+        }
+        return queues;
+    }
+
+    @Override
+    public void send(Collection<Message> msgs, SendCallback sendCallback) {
+        reply(new ArrayList<>(msgs), null, sendCallback);
+    }
+
+    @Override
+    public void send(Collection<Message> msgs, MessageQueue mq, SendCallback sendCallback) {
+        reply(new ArrayList<>(msgs), mq, sendCallback);
+    }
+
+    private void reply(List<Message> batch, MessageQueue queue, SendCallback callback) {
+        sends.add(batch);
+        targets.add(queue);
+        Throwable error = failure.apply(batch);
+        if (error != null) {
+            callback.onException(error);
+            return;
+        }
+        MessageQueue target = queue != null ? queue : new MessageQueue(batch.get(0).getTopic(), "broker-a", 0);
+        long offset = nextOffset.getAndAdd(batch.size());
+        callback.onSuccess(new SendResult(SendStatus.SEND_OK, "broker-" + offset, null, target, offset));
+    }
+}
@@ -0,0 +1,50 @@
+package ai.hack.rocketmq.core;
+
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Push consumer that never reaches a broker. Tests drive its registered listener directly; messages sent
+ * back for retry are recorded, unless the failure predicate rejects them.
+ */
+class RecordingPushConsumer extends DefaultMQPushConsumer {
+
+    final List<String> sentBack = new CopyOnWriteArrayList<>();
+    private volatile Predicate<MessageExt> sendBackFails = message -> false;
+
+    RecordingPushConsumer() {
+        super("recording-consumer");
+    }
+
+    /**
+     * Fails every later send-back of a message matching {@code sendBackFails}.
+     */
+    void failSendBackWhen(Predicate<MessageExt> sendBackFails) {
+        this.sendBackFails = sendBackFails;
+    }
+
+    @Override
+    public void subscribe(String topic, String subExpression) {
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void sendMessageBack(MessageExt msg, int delayLevel, String brokerName) throws MQClientException {
+        if (sendBackFails.test(msg)) {
+            throw new MQClientException("send back rejected: " + msg.getMsgId(), null);
+        }
+        sentBack.add(msg.getMsgId());
+    }
+}
@@ -0,0 +1,127 @@
+package ai.hack.rocketmq.core;
+
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessagePriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the backlog of sends waiting for a concurrency permit.
+ */
+class SendBacklogTest {
+
+    @Test
+    void keepsArrivalOrderWithinAPriority() {
+        SendBacklog backlog = new SendBacklog(10);
+        SendBacklog.PendingSend first = pending(MessagePriority.NORMAL, 100);
+        SendBacklog.PendingSend second = pending(MessagePriority.NORMAL, 100);
+
+        assertNull(backlog.offer(first, false));
+        assertNull(backlog.offer(second, false));
+
+        assertSame(first, backlog.poll());
+        assertSame(second, backlog.poll());
+        assertNull(backlog.poll());
+        assertEquals(0, backlog.size());
+    }
+
+    @Test
+    void servesPrioritiesByWeight() {
+        SendBacklog backlog = new SendBacklog(1_000);
+        for (int i = 0; i < 100; i++) {
+            backlog.offer(pending(MessagePriority.LOW, 100), false);
+        }
+        for (int i = 0; i < 10; i++) {
+            backlog.offer(pending(MessagePriority.CRITICAL, 100), false);
+        }
+
+        // Weights 10:1, so the critical sends all leave within the first eleven dequeues
+        int critical = 0;
+        for (int i = 0; i < 11; i++) {
+            if (backlog.poll().message.getPriority() == MessagePriority.CRITICAL) {
+                critical++;
+            }
+        }
+        assertEquals(10, critical);
+        assertEquals(MessagePriority.LOW, backlog.poll().message.getPriority());
+    }
+
+    @Test
+    void pollsOnlyAtOrAboveTheFloor() {
+        SendBacklog backlog = new SendBacklog(10);
+        backlog.offer(pending(MessagePriority.NORMAL, 100), false);
+        SendBacklog.PendingSend high = pending(MessagePriority.HIGH, 100);
+        backlog.offer(high, false);
+
+        assertSame(high, backlog.poll(MessagePriority.HIGH));
+        assertNull(backlog.poll(MessagePriority.HIGH));
+        assertEquals(1, backlog.size());
+    }
+
+    @Test
+    void rejectsWhenFullWithoutEviction() {
+        SendBacklog backlog = new SendBacklog(1);
+        backlog.offer(pending(MessagePriority.LOW, 100), false);
+
+        SendBacklog.PendingSend critical = pending(MessagePriority.CRITICAL, 100);
+        assertSame(critical, backlog.offer(critical, false));
+        assertEquals(1, backlog.size());
+    }
+
+    @Test
+    void evictsOldestOfLowestPriority() {
+        SendBacklog backlog = new SendBacklog(3);
+        SendBacklog.PendingSend oldNormal = pending(MessagePriority.NORMAL, 100);
+        SendBacklog.PendingSend oldLow = pending(MessagePriority.LOW, 100);
+        SendBacklog.PendingSend newLow = pending(MessagePriority.LOW, 100);
+        backlog.offer(oldNormal, true);
+        backlog.offer(oldLow, true);
+        backlog.offer(newLow, true);
+
+        SendBacklog.PendingSend high = pending(MessagePriority.HIGH, 100);
+        assertSame(oldLow, backlog.offer(high, true));
+        assertEquals(3, backlog.size());
+
+        // Among equal priorities the oldest is dropped
+        SendBacklog.PendingSend latestLow = pending(MessagePriority.LOW, 100);
+        assertSame(newLow, backlog.offer(latestLow, true));
+    }
+
+    @Test
+    void keepsHigherPrioritySendsOverIncomingLowerOnes() {
+        SendBacklog backlog = new SendBacklog(1);
+        backlog.offer(pending(MessagePriority.NORMAL, 100), true);
+
+        SendBacklog.PendingSend low = pending(MessagePriority.LOW, 100);
+        assertSame(low, backlog.offer(low, true));
+        assertEquals(MessagePriority.NORMAL, backlog.poll().message.getPriority());
+    }
+
+    @Test
+    void expiresSendsPastTheirDeadline() {
+        SendBacklog backlog = new SendBacklog(10);
+        SendBacklog.PendingSend expired = pending(MessagePriority.NORMAL, 100);
+        SendBacklog.PendingSend live = pending(MessagePriority.NORMAL, 300);
+        backlog.offer(expired, false);
+        backlog.offer(live, false);
+
+        List<SendBacklog.PendingSend> removed = backlog.expire(200);
+
+        assertEquals(List.of(expired), removed);
+        assertEquals(1, backlog.size());
+        assertSame(live, backlog.poll());
+    }
+
+    private static SendBacklog.PendingSend pending(MessagePriority priority, long deadlineNanos) {
+        Message message = Message.builder()
+                .topic("backlog-test")
+                .payload("payload")
+                .priority(priority)
+                .build();
+        return new SendBacklog.PendingSend(message, new CompletableFuture<>(), deadlineNanos);
+    }
+}
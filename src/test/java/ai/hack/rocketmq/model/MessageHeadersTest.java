@@ -0,0 +1,107 @@
+package ai.hack.rocketmq.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compact message header store.
+ */
+class MessageHeadersTest {
+
+    @Test
+    void keepsInsertionOrderAndReplacesInPlace() {
+        MessageHeaders headers = new MessageHeaders();
+        headers.put("region", "eu-west");
+        headers.put("attempt", 1);
+        headers.put("region", "us-east");
+
+        assertEquals(2, headers.size());
+        assertEquals("region", headers.keyAt(0));
+        assertEquals("us-east", headers.valueAt(0));
+        assertEquals(1, headers.valueAt(1));
+    }
+
+    @Test
+    void removesAndCompacts() {
+        MessageHeaders headers = new MessageHeaders(2);
+        headers.put("a", "1");
+        headers.put("b", "2");
+        headers.put("c", "3");
+
+        assertEquals("2", headers.remove("b"));
+        assertNull(headers.remove("b"));
+        assertEquals(2, headers.size());
+        assertEquals("c", headers.keyAt(1));
+        assertNull(headers.get("b"));
+    }
+
+    @Test
+    void internsWellKnownNames() {
+        String name = new String("correlation-id");
+        MessageHeaders headers = new MessageHeaders();
+        headers.put(name, "abc");
+
+        assertSame(MessageHeaders.CORRELATION_ID, headers.keyAt(0));
+        assertEquals("abc", headers.get(MessageHeaders.CORRELATION_ID));
+        assertSame(MessageHeaders.RESPONSE_TO, MessageHeaders.intern(new String("response-to")));
+    }
+
+    @Test
+    void viewReadsThroughWithoutCopying() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("region", "eu-west");
+        properties.put("TAGS", "orders");
+        Set<String> hidden = Set.of("TAGS");
+
+        MessageHeaders headers = MessageHeaders.view(properties, hidden::contains);
+        properties.put("late", "visible");
+
+        assertEquals(2, headers.size());
+        assertEquals("visible", headers.get("late"));
+        assertNull(headers.get("TAGS"));
+        assertFalse(headers.containsKey("TAGS"));
+
+        List<String> visited = new ArrayList<>();
+        headers.forEach((key, value) -> visited.add(key));
+        assertEquals(2, visited.size());
+        assertFalse(visited.contains("TAGS"));
+    }
+
+    @Test
+    void viewMaterializesOnWriteAndLeavesSourceAlone() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("order-key", "customer-7");
+        properties.put("TAGS", "orders");
+        Set<String> hidden = Set.of("TAGS");
+
+        MessageHeaders headers = MessageHeaders.view(properties, hidden::contains);
+        headers.put("extra", true);
+
+        assertEquals(2, headers.size());
+        assertEquals("customer-7", headers.get(MessageHeaders.ORDER_KEY));
+        assertEquals(Boolean.TRUE, headers.get("extra"));
+        assertNull(headers.get("TAGS"));
+        assertEquals(2, properties.size());
+    }
+
+    @Test
+    void messageCopiesOnlyThroughGetHeaders() {
+        Message message = Message.builder().topic("t").payload("x").header("k", "v").build();
+
+        Map<String, Object> copy = message.getHeaders();
+        copy.put("k", "changed");
+
+        assertEquals("v", message.getHeader("k"));
+        assertEquals(1, message.getHeaderCount());
+        List<Object> values = new ArrayList<>();
+        message.forEachHeader((key, value) -> values.add(value));
+        assertEquals(List.of("v"), values);
+    }
+}
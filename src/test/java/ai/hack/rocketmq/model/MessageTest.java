@@ -0,0 +1,141 @@
+package ai.hack.rocketmq.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for lazily decoded received messages.
+ */
+class MessageTest {
+
+    @Test
+    void decodesNothingForEnvelopeFields() {
+        CountingDecoder decoder = new CountingDecoder();
+
+        Message message = Message.decodeLazily("id-1", "orders", "replies", Instant.EPOCH, decoder);
+
+        assertEquals("id-1", message.getMessageId());
+        assertEquals("orders", message.getTopic());
+        assertTrue(message.isRequestResponse());
+        assertEquals(MessageStatus.PENDING, message.getStatus());
+        assertEquals(0, decoder.calls);
+    }
+
+    @Test
+    void decodesEachPartOnceOnFirstAccess() {
+        CountingDecoder decoder = new CountingDecoder();
+        Message message = Message.decodeLazily("id-1", "orders", null, Instant.EPOCH, decoder);
+
+        assertEquals("eu-west", message.getHeader("region"));
+        assertEquals("eu-west", message.getHeader("region"));
+        assertEquals(1, decoder.calls);
+
+        assertTrue(message.hasTag("payments"));
+        assertEquals(MessagePriority.HIGH, message.getPriority());
+        assertEquals(5, message.getPayloadSize());
+        assertEquals(4, decoder.calls);
+
+        message.toString();
+        message.getTags();
+        assertEquals(4, decoder.calls);
+    }
+
+    @Test
+    void settersOverrideUndecodedParts() {
+        CountingDecoder decoder = new CountingDecoder();
+        Message message = Message.decodeLazily("id-1", "orders", null, Instant.EPOCH, decoder);
+
+        message.setPriority(MessagePriority.LOW);
+        message.setPayload(Payload.wrap(new byte[2]));
+
+        assertEquals(MessagePriority.LOW, message.getPriority());
+        assertEquals(2, message.getPayloadSize());
+        assertEquals(0, decoder.calls);
+    }
+
+    @Test
+    void modificationsAfterDecodingStick() {
+        Message message = Message.decodeLazily("id-1", "orders", null, Instant.EPOCH, new CountingDecoder());
+
+        message.withHeader("attempt", 2).withTag("retried");
+
+        assertEquals("2", message.getHeader("attempt"));
+        assertEquals("eu-west", message.getHeader("region"));
+        assertTrue(message.hasTag("retried"));
+        assertTrue(message.hasTag("payments"));
+    }
+
+    @Test
+    void decodesEachPartOnceWhenReadConcurrently() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountingDecoder decoder = new CountingDecoder();
+                Message message = Message.decodeLazily("id-" + round, "orders", null, Instant.EPOCH, decoder);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> readers = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    readers.add(executor.submit(() -> {
+                        start.await();
+                        // Reading every part makes the last decode drop the decoder while others still race
+                        assertEquals(5, message.getPayloadSize());
+                        assertEquals("eu-west", message.getHeader("region"));
+                        assertTrue(message.hasTag("payments"));
+                        assertEquals(MessagePriority.HIGH, message.getPriority());
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> reader : readers) {
+                    reader.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(4, decoder.calls);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class CountingDecoder implements MessageDecoder {
+        int calls;
+
+        @Override
+        public Payload payload() {
+            calls++;
+            return Payload.wrap("hello".getBytes());
+        }
+
+        @Override
+        public MessageHeaders headers() {
+            calls++;
+            MessageHeaders headers = new MessageHeaders();
+            headers.put("region", "eu-west");
+            return headers;
+        }
+
+        @Override
+        public Set<String> tags() {
+            calls++;
+            return new HashSet<>(Set.of("payments"));
+        }
+
+        @Override
+        public MessagePriority priority() {
+            calls++;
+            return MessagePriority.HIGH;
+        }
+    }
+}
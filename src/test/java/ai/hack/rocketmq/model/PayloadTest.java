@@ -0,0 +1,94 @@
+package ai.hack.rocketmq.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for copy-free message payloads.
+ */
+class PayloadTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void wrappedArrayIsSharedWithoutCopy() {
+        byte[] bytes = "document".getBytes(StandardCharsets.UTF_8);
+
+        Message message = Message.builder().topic("docs").wrapPayload(bytes).build();
+
+        assertSame(bytes, MessageInternals.payload(message));
+        assertEquals(bytes.length, message.getPayloadSize());
+    }
+
+    @Test
+    void copyingBuilderStillCopies() {
+        byte[] bytes = "document".getBytes(StandardCharsets.UTF_8);
+
+        Message message = Message.builder().topic("docs").payload(bytes).build();
+        bytes[0] = 'X';
+
+        assertEquals("document", new String(message.getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void viewsAreReadOnly() {
+        Payload payload = Payload.wrap(new byte[] {1, 2, 3});
+
+        ByteBuffer view = payload.asReadOnlyBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> view.put(0, (byte) 9));
+        assertEquals(3, view.remaining());
+    }
+
+    @Test
+    void directBufferStaysOffHeap() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put("header:".getBytes(StandardCharsets.UTF_8));
+        direct.put("body".getBytes(StandardCharsets.UTF_8));
+        direct.flip();
+        direct.position(7);
+
+        Message message = Message.builder().topic("docs").wrapPayload(direct).build();
+
+        assertTrue(message.payloadView().isDirect());
+        assertEquals(4, message.getPayloadSize());
+        assertEquals(7, direct.position());
+        assertEquals("body", new String(message.getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void arrayRangeCopiesOnlyThatRange() {
+        byte[] bytes = "..payload..".getBytes(StandardCharsets.UTF_8);
+        Payload payload = Payload.wrap(bytes, 2, 7);
+
+        ByteBuffer target = ByteBuffer.allocate(8);
+        target.put((byte) '>');
+        payload.copyTo(target);
+
+        assertEquals(">payload", new String(target.array(), StandardCharsets.UTF_8));
+        assertEquals(Payload.wrap("payload".getBytes(StandardCharsets.UTF_8)), payload);
+    }
+
+    @Test
+    void mapsFileReadOnly() throws Exception {
+        Path file = tempDir.resolve("large.bin");
+        Files.write(file, "mapped contents".getBytes(StandardCharsets.UTF_8));
+
+        Payload payload = Payload.map(file);
+        Message message = Message.builder().topic("docs").payload(payload).build();
+
+        assertSame(payload, message.payloadView());
+        assertTrue(payload.isDirect());
+        assertEquals("mapped contents", new String(payload.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,90 @@
+package ai.hack.rocketmq.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the log-linear latency histogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.getCount());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(5_000), snapshot.getP50Nanos());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(9_000), snapshot.getP90Nanos());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(9_900), snapshot.getP99Nanos());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(9_990), snapshot.getP999Nanos());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10_000), snapshot.getMaxNanos());
+        assertWithinPrecision(TimeUnit.MICROSECONDS.toNanos(5_000), snapshot.getMeanNanos());
+    }
+
+    @Test
+    void intervalSnapshotsOnlyCoverNewValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        histogram.intervalSnapshot();
+
+        histogram.record(50_000_000);
+        histogram.record(50_000_000);
+        LatencyHistogram.Snapshot interval = histogram.intervalSnapshot();
+
+        assertEquals(2, interval.getCount());
+        assertWithinPrecision(50_000_000, interval.getP50Nanos());
+        assertEquals(0, histogram.intervalSnapshot().getCount());
+        assertEquals(3, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void clampsValuesBeyondTrackableRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long tenMinutes = TimeUnit.MINUTES.toNanos(10);
+        histogram.record(tenMinutes);
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getP50Nanos());
+        assertEquals(tenMinutes, snapshot.getMaxNanos());
+    }
+
+    @Test
+    void concurrentRecordingLosesNoSamples() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(i);
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals((long) threads * perThread, histogram.snapshot().getCount());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertEquals(expected, actual, expected * 0.035, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,132 @@
+package ai.hack.rocketmq.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the OpenMetrics text writer.
+ */
+class OpenMetricsWriterTest {
+
+    @Test
+    void writesFamiliesSamplesAndEof() {
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        writer.family("rocketmq_client_messages_sent", "counter", "Messages sent")
+              .sample("rocketmq_client_messages_sent_total", "topic", "orders", 42)
+              .sample("rocketmq_client_messages_sent_total", "topic", "audit", "group", "g1", -7)
+              .family("rocketmq_client_error_rate", "gauge", "Error rate")
+              .sample("rocketmq_client_error_rate", 0.125)
+              .finish();
+
+        assertEquals("# TYPE rocketmq_client_messages_sent counter\n"
+                + "# HELP rocketmq_client_messages_sent Messages sent\n"
+                + "rocketmq_client_messages_sent_total{topic=\"orders\"} 42\n"
+                + "rocketmq_client_messages_sent_total{topic=\"audit\",group=\"g1\"} -7\n"
+                + "# TYPE rocketmq_client_error_rate gauge\n"
+                + "# HELP rocketmq_client_error_rate Error rate\n"
+                + "rocketmq_client_error_rate 0.125\n"
+                + "# EOF\n", writer.toString());
+    }
+
+    @Test
+    void groupsSamplesOfARedeclaredFamilyUnderOneHeader() {
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        writer.family("sent", "counter", "Sent").sample("sent_total", "group", "a", 1)
+              .family("state", "gauge", "State").sample("state", "group", "a", 1)
+              .family("sent", "counter", "Sent").sample("sent_total", "group", "b", 2)
+              .family("state", "gauge", "State").sample("state", "group", "b", 0)
+              .finish();
+
+        assertEquals("# TYPE sent counter\n"
+                + "# HELP sent Sent\n"
+                + "sent_total{group=\"a\"} 1\n"
+                + "sent_total{group=\"b\"} 2\n"
+                + "# TYPE state gauge\n"
+                + "# HELP state State\n"
+                + "state{group=\"a\"} 1\n"
+                + "state{group=\"b\"} 0\n"
+                + "# EOF\n", writer.toString());
+        assertEquals(writer.toString().getBytes(StandardCharsets.UTF_8).length, writer.size());
+    }
+
+    @Test
+    void exportsSeveralClientsAsOneValidExposition() throws Exception {
+        MetricsCollector orders = new MetricsCollector();
+        MetricsCollector audit = new MetricsCollector();
+        orders.recordTopicSent("shared", 3, 300);
+        audit.recordTopicSent("shared", 5, 500);
+
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        // Scrape twice to check that a reset writer does not keep samples of the previous scrape
+        for (int scrape = 0; scrape < 2; scrape++) {
+            writer.reset();
+            orders.writeMetrics(writer, "producer_group", "orders");
+            audit.writeMetrics(writer, "producer_group", "audit");
+            writer.finish();
+        }
+        orders.destroy();
+        audit.destroy();
+
+        // Every family is declared once and its samples follow it without interleaving
+        List<String> lines = writer.toString().lines().toList();
+        Set<String> families = new HashSet<>();
+        String family = null;
+        for (String line : lines) {
+            if (line.startsWith("# TYPE ")) {
+                family = line.split(" ")[2];
+                assertTrue(families.add(family), "family declared twice: " + family);
+            } else if (!line.startsWith("#")) {
+                assertTrue(line.startsWith(family), line + " outside family " + family);
+            }
+        }
+        assertEquals("# EOF", lines.get(lines.size() - 1));
+        assertTrue(lines.contains("rocketmq_client_topic_messages_sent_total{producer_group=\"orders\",topic=\"shared\"} 3"));
+        assertTrue(lines.contains("rocketmq_client_topic_messages_sent_total{producer_group=\"audit\",topic=\"shared\"} 5"));
+        assertEquals(2, lines.stream().filter(line -> line.startsWith("rocketmq_client_messages_sent_total")).count());
+    }
+
+    @Test
+    void escapesLabelValuesAndEncodesUtf8() {
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        writer.sample("m", "topic", "a\"b\\c\nd", 1);
+        writer.sample("m", "topic", "é", 2.0);
+
+        assertEquals("m{topic=\"a\\\"b\\\\c\\nd\"} 1\nm{topic=\"é\"} 2\n", writer.toString());
+    }
+
+    @Test
+    void writesHistogramSnapshotAsSummaryInSeconds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2_000_000);
+        histogram.record(2_000_000);
+
+        OpenMetricsWriter writer = new OpenMetricsWriter();
+        writer.summary("latency_seconds", "Latency", "topic", "t", histogram.snapshot());
+        String text = writer.toString();
+
+        assertTrue(text.startsWith("# TYPE latency_seconds summary\n"));
+        assertTrue(text.contains("latency_seconds{topic=\"t\",quantile=\"0.99\"} 0.002"));
+        assertTrue(text.contains("latency_seconds_count{topic=\"t\"} 2\n"));
+        assertTrue(text.contains("latency_seconds_sum{topic=\"t\"} 0.004"));
+    }
+
+    @Test
+    void resetReusesBufferAndGrowsWhenNeeded() {
+        OpenMetricsWriter writer = new OpenMetricsWriter(256);
+        for (int i = 0; i < 1_000; i++) {
+            writer.sample("metric_with_a_long_name", "index", "value", i);
+        }
+        assertTrue(writer.size() > 256);
+
+        writer.reset();
+        assertEquals(0, writer.size());
+        writer.sample("x", 3);
+        assertEquals("x 3\n", writer.toString());
+    }
+}
@@ -0,0 +1,63 @@
+package ai.hack.rocketmq.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the windowed rate meter.
+ */
+class RateMeterTest {
+
+    @Test
+    void steadyLoadConvergesToActualRate() {
+        RateMeter meter = new RateMeter();
+        for (int second = 0; second < 600; second++) {
+            meter.mark(100);
+            meter.tick();
+        }
+
+        assertEquals(100.0, meter.getOneSecondRate(), 0.01);
+        assertEquals(100.0, meter.getTenSecondRate(), 0.01);
+        assertEquals(100.0, meter.getOneMinuteRate(), 0.01);
+        assertEquals(100.0, meter.getFiveMinuteRate(), 0.5);
+        assertEquals(100.0, meter.getWindowRate(60), 0.0);
+        assertEquals(60_000, meter.getCount());
+    }
+
+    @Test
+    void ratesDecayWhenLoadStops() {
+        RateMeter meter = new RateMeter();
+        for (int second = 0; second < 60; second++) {
+            meter.mark(1_000);
+            meter.tick();
+        }
+        for (int second = 0; second < 30; second++) {
+            meter.tick();
+        }
+
+        assertTrue(meter.getOneSecondRate() < 1.0);
+        assertTrue(meter.getTenSecondRate() < 100.0);
+        assertTrue(meter.getOneMinuteRate() > meter.getTenSecondRate());
+        assertEquals(0, meter.getWindowCount(30));
+        assertEquals(30_000, meter.getWindowCount(60));
+        assertEquals(60_000, meter.getCount());
+    }
+
+    @Test
+    void windowRateUsesElapsedTicksOnly() {
+        RateMeter meter = new RateMeter();
+        meter.mark(10);
+        meter.tick();
+        meter.mark(30);
+        meter.tick();
+        meter.mark(5);
+
+        assertEquals(20.0, meter.getWindowRate(60), 0.0);
+        assertEquals(45, meter.getCount());
+
+        meter.reset();
+        assertEquals(0, meter.getCount());
+        assertEquals(0.0, meter.getWindowRate(60), 0.0);
+    }
+}
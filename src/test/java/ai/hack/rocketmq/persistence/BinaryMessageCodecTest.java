@@ -0,0 +1,85 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessagePriority;
+import ai.hack.rocketmq.model.MessageStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary persisted-message format.
+ */
+class BinaryMessageCodecTest {
+
+    @Test
+    void roundTripsAllFieldsLosslessly() {
+        byte[] payload = {0, '|', (byte) 0xFF, '|', 42, (byte) 0x80};
+        Message original = Message.builder()
+                .messageId("msg-1")
+                .topic("orders")
+                .callbackTopic("orders-reply")
+                .payload(payload)
+                .timestamp(Instant.ofEpochSecond(1_700_000_000L, 123_456_789))
+                .priority(MessagePriority.HIGH)
+                .status(MessageStatus.COMMITTED)
+                .header("correlationId", "c-1")
+                .header("retries", 3)
+                .header("deadline", 99L)
+                .header("ratio", 0.5)
+                .header("flag", true)
+                .header("missing", null)
+                .header("unicode", "héllo 世界 🚀")
+                .tag("a")
+                .tag("b")
+                .build();
+
+        Message decoded = BinaryMessageCodec.decode(BinaryMessageCodec.encode(original));
+
+        assertEquals("msg-1", decoded.getMessageId());
+        assertEquals("orders", decoded.getTopic());
+        assertEquals("orders-reply", decoded.getCallbackTopic());
+        assertArrayEquals(payload, decoded.getPayload());
+        assertEquals(original.getTimestamp(), decoded.getTimestamp());
+        assertEquals(MessagePriority.HIGH, decoded.getPriority());
+        assertEquals(MessageStatus.COMMITTED, decoded.getStatus());
+        assertEquals(original.getHeaders(), decoded.getHeaders());
+        assertEquals(Set.of("a", "b"), decoded.getTags());
+    }
+
+    @Test
+    void decodesFromDirectBufferSlice() {
+        Message original = Message.builder()
+                .topic("direct")
+                .payload("payload ü")
+                .header("key", "välue")
+                .build();
+        byte[] encoded = BinaryMessageCodec.encode(original);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length + 8);
+        direct.position(8);
+        direct.put(encoded);
+        direct.position(8);
+
+        Message decoded = BinaryMessageCodec.decode(direct);
+
+        assertEquals(8, direct.position());
+        assertEquals(original.getMessageId(), decoded.getMessageId());
+        assertArrayEquals(original.getPayload(), decoded.getPayload());
+        assertEquals("välue", decoded.getHeader("key"));
+    }
+
+    @Test
+    void recognisesOnlyBinaryRecords() {
+        byte[] encoded = BinaryMessageCodec.encode(Message.builder().topic("t").payload("x").build());
+        byte[] legacy = "id|t|x|2024-01-01T00:00:00Z|NORMAL".getBytes();
+
+        assertTrue(BinaryMessageCodec.isBinaryRecord(encoded));
+        assertFalse(BinaryMessageCodec.isBinaryRecord(legacy));
+        assertThrows(IllegalArgumentException.class, () -> BinaryMessageCodec.decode(legacy));
+    }
+}
@@ -0,0 +1,253 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.config.WalPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the group-commit writer and its MPSC ring.
+ */
+class GroupCommitWriterTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 500;
+
+    @TempDir
+    Path dataDir;
+
+    private Options options;
+    private RocksDB db;
+    private GroupCommitWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RocksDB.loadLibrary();
+        options = new Options().setCreateIfMissing(true);
+        db = RocksDB.open(options, dataDir.resolve("writer").toString());
+        writer = new GroupCommitWriter(db, WalPolicy.ASYNC, Duration.ofMillis(50));
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer.close()) {
+            db.close();
+        }
+        options.close();
+    }
+
+    @Test
+    void commitsConcurrentSubmitsFromManyThreads() throws Exception {
+        List<CompletableFuture<Void>> futures = submitConcurrently((thread, i) -> put(key(thread, i), "v" + i));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                assertArrayEquals(bytes("v" + i), db.get(bytes(key(thread, i))), key(thread, i));
+            }
+        }
+        assertEquals(THREADS * WRITES_PER_THREAD, writer.getCommittedWrites());
+        assertTrue(writer.getCommittedGroups() <= writer.getCommittedWrites());
+        assertEquals(0, writer.getQueuedWrites());
+    }
+
+    @Test
+    void appliesEachSubmittersWritesInOrder() throws Exception {
+        ConcurrentLinkedQueue<int[]> applied = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> futures = submitConcurrently((thread, i) -> batch -> applied.add(new int[]{thread, i}));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        int[] next = new int[THREADS];
+        for (int[] write : applied) {
+            assertEquals(next[write[0]], write[1], "thread " + write[0]);
+            next[write[0]]++;
+        }
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertEquals(WRITES_PER_THREAD, next[thread]);
+        }
+    }
+
+    @Test
+    void completesBarrierAfterEveryEarlierWrite() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            futures.add(writer.submit(put(key(0, i), "v")));
+        }
+
+        writer.barrier().get(10, TimeUnit.SECONDS);
+
+        assertTrue(futures.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+        assertArrayEquals(bytes("v"), db.get(bytes(key(0, 999))));
+    }
+
+    @Test
+    void failsOnlyTheOperationThatThrows() throws Exception {
+        CompletableFuture<Void> before = writer.submit(put("before", "v"));
+        CompletableFuture<Void> failing = writer.submit(batch -> {
+            throw new RocksDBException("bad operation");
+        });
+        CompletableFuture<Void> after = writer.submit(put("after", "v"));
+
+        before.get(5, TimeUnit.SECONDS);
+        after.get(5, TimeUnit.SECONDS);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof RocksDBException);
+        assertArrayEquals(bytes("v"), db.get(bytes("after")));
+    }
+
+    @Test
+    void drainsQueuedWritesOnClose() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            futures.add(writer.submit(put(key(0, i), "v")));
+        }
+
+        assertTrue(writer.close());
+
+        assertTrue(futures.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+        assertArrayEquals(bytes("v"), db.get(bytes(key(0, 4_999))));
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> writer.submit(put("late", "v")).get(1, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void completesEverySubmitThatRacesWithClose() throws Exception {
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch submitting = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread submitter = new Thread(() -> {
+                submitting.countDown();
+                // Keep submitting until the writer refuses, so some offers land while it shuts down
+                for (int i = 0; ; i++) {
+                    CompletableFuture<Void> future = writer.submit(put(key(thread, i), "v"));
+                    futures.add(future);
+                    if (future.isCompletedExceptionally()) {
+                        return;
+                    }
+                }
+            });
+            threads.add(submitter);
+            submitter.start();
+        }
+
+        submitting.await();
+        assertTrue(writer.close());
+        for (Thread submitter : threads) {
+            submitter.join(5_000);
+        }
+
+        synchronized (futures) {
+            assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        }
+    }
+
+    @Test
+    void ringHandsEveryOfferToTheConsumerOnce() throws Exception {
+        MpscRing<Integer> ring = new MpscRing<>(1_000);
+        assertEquals(1_024, ring.capacity());
+        assertTrue(ring.isEmpty());
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int base = t * 10_000;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        boolean[] seen = new boolean[40_000];
+        int[] lastPerProducer = {-1, -1, -1, -1};
+        for (int received = 0; received < seen.length; ) {
+            Integer value = ring.poll();
+            if (value == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertFalse(seen[value], "duplicate " + value);
+            seen[value] = true;
+            // Offers from one producer come out in the order they went in
+            assertTrue(value % 10_000 > lastPerProducer[value / 10_000]);
+            lastPerProducer[value / 10_000] = value % 10_000;
+            received++;
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+    }
+
+    private List<CompletableFuture<Void>> submitConcurrently(OperationFactory operations) throws Exception {
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Thread submitter = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    futures.add(writer.submit(operations.create(thread, i)));
+                }
+            });
+            threads.add(submitter);
+            submitter.start();
+        }
+        start.countDown();
+        for (Thread submitter : threads) {
+            submitter.join();
+        }
+        return futures;
+    }
+
+    @FunctionalInterface
+    private interface OperationFactory {
+        GroupCommitWriter.WriteOperation create(int thread, int index);
+    }
+
+    private static GroupCommitWriter.WriteOperation put(String key, String value) {
+        return batch -> batch.put(bytes(key), bytes(value));
+    }
+
+    private static String key(int thread, int index) {
+        return "t" + thread + "-" + index;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
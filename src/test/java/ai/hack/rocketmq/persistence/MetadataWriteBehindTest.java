@@ -0,0 +1,105 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.model.MessageStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the metadata write-behind buffer.
+ */
+class MetadataWriteBehindTest {
+
+    @Test
+    void coalescesTransitionsPerMessageIntoOneRow() {
+        RecordingSink sink = new RecordingSink();
+        MetadataWriteBehind writeBehind = new MetadataWriteBehind(sink, 1_000, Duration.ofSeconds(10), 10_000);
+        writeBehind.start();
+
+        writeBehind.recordMetadata("m1", "orders", null, MessageStatus.PROCESSING, 0, "NORMAL");
+        writeBehind.recordStatus("m1", MessageStatus.COMMITTED, 0);
+        writeBehind.recordStatus("m2", MessageStatus.FAILED, 1);
+        writeBehind.close();
+
+        assertEquals(1, sink.upserts.size());
+        MetadataWriteBehind.PendingMetadata upsert = sink.upserts.get(0);
+        assertEquals("m1", upsert.messageId);
+        assertEquals("orders", upsert.topic);
+        assertEquals(MessageStatus.COMMITTED, upsert.status);
+
+        assertEquals(1, sink.statusUpdates.size());
+        assertEquals("m2", sink.statusUpdates.get(0).messageId);
+        assertEquals(MessageStatus.FAILED, sink.statusUpdates.get(0).status);
+        assertEquals(3, writeBehind.getRecordedWrites());
+        assertEquals(2, writeBehind.getFlushedRows());
+        assertEquals(0, writeBehind.getPendingRows());
+    }
+
+    @Test
+    void flushesWhenBatchSizeIsReached() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        MetadataWriteBehind writeBehind = new MetadataWriteBehind(sink, 10, Duration.ofMinutes(1), 1_000);
+        writeBehind.start();
+
+        for (int i = 0; i < 10; i++) {
+            writeBehind.recordMetadata("m" + i, "orders", null, MessageStatus.PROCESSING, 0, "NORMAL");
+        }
+
+        assertTrue(sink.firstFlush.await(5, TimeUnit.SECONDS));
+        writeBehind.close();
+        assertEquals(10, writeBehind.getFlushedRows());
+    }
+
+    @Test
+    void blocksProducersWhenFlusherFallsBehind() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public synchronized void write(List<MetadataWriteBehind.PendingMetadata> upserts,
+                                           List<MetadataWriteBehind.PendingMetadata> statusUpdates) throws Exception {
+                release.await();
+                super.write(upserts, statusUpdates);
+            }
+        };
+        MetadataWriteBehind writeBehind = new MetadataWriteBehind(sink, 2, Duration.ofMillis(1), 4);
+        writeBehind.start();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                writeBehind.recordMetadata("m" + i, "orders", null, MessageStatus.PROCESSING, 0, "NORMAL");
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        assertTrue(producer.isAlive());
+        assertTrue(writeBehind.getPendingRows() <= 4);
+        assertTrue(writeBehind.getBlockedWrites() > 0);
+
+        release.countDown();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        writeBehind.close();
+        assertEquals(20, writeBehind.getFlushedRows());
+    }
+
+    private static class RecordingSink implements MetadataWriteBehind.MetadataSink {
+        final List<MetadataWriteBehind.PendingMetadata> upserts = new ArrayList<>();
+        final List<MetadataWriteBehind.PendingMetadata> statusUpdates = new ArrayList<>();
+        final CountDownLatch firstFlush = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(List<MetadataWriteBehind.PendingMetadata> upserts,
+                                       List<MetadataWriteBehind.PendingMetadata> statusUpdates) throws Exception {
+            this.upserts.addAll(upserts);
+            this.statusUpdates.addAll(statusUpdates);
+            firstFlush.countDown();
+        }
+    }
+}
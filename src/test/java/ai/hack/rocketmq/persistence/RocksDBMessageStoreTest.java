@@ -0,0 +1,292 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.config.WalPolicy;
+import ai.hack.rocketmq.model.Message;
+import ai.hack.rocketmq.model.MessagePriority;
+import ai.hack.rocketmq.model.MessageStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.DBOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksIterator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RocksDB message store.
+ */
+class RocksDBMessageStoreTest {
+
+    private static final List<String> COLUMN_FAMILIES = List.of("default", RocksDBMessageStore.MESSAGES_CF,
+            RocksDBMessageStore.TOPIC_INDEX_CF, RocksDBMessageStore.METADATA_CF, RocksDBMessageStore.OUTBOX_CF);
+
+    @TempDir
+    Path dataDir;
+
+    private String dbPath;
+    private RocksDBMessageStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbPath = dataDir.resolve("messages").toString();
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    void storesMessagesInTheMessagesColumnFamily() throws Exception {
+        store.storeMessage(message("m1", "orders")).get(5, TimeUnit.SECONDS);
+
+        Message stored = store.retrieveMessage("m1");
+        assertEquals("orders", stored.getTopic());
+        assertArrayEquals(payload("m1"), stored.getPayload());
+        assertNull(store.retrieveMessage("missing"));
+
+        close();
+        assertEquals(List.of("m1"), rawKeys(RocksDBMessageStore.MESSAGES_CF));
+        assertEquals(1, rawKeys(RocksDBMessageStore.TOPIC_INDEX_CF).size());
+        assertTrue(rawKeys("default").isEmpty());
+    }
+
+    @Test
+    void scansOnlyTheRequestedTopicInStoreOrder() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            store.storeMessage(message("o" + i, "orders"));
+            store.storeMessage(message("a" + i, "audit"));
+        }
+        store.flushBatch();
+
+        List<String> orders = ids(store.getMessagesByTopic("orders"));
+        assertEquals(300, orders.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals("o" + i, orders.get(i));
+        }
+        assertEquals(300, store.getMessagesByTopic("audit").size());
+        assertTrue(store.getMessagesByTopic("unknown").isEmpty());
+    }
+
+    @Test
+    void pagesThroughATopicWithResumeTokens() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            store.storeMessage(message("m" + i, "orders"));
+            store.storeMessage(message("x" + i, "audit"));
+        }
+        store.flushBatch();
+
+        List<String> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String token = null;
+        do {
+            RocksDBMessageStore.TopicPage page = store.readMessagesByTopic("orders", token, 4);
+            seen.addAll(ids(page.getMessages()));
+            pageSizes.add(page.getMessages().size());
+            token = page.getResumeToken();
+        } while (token != null);
+
+        assertEquals(List.of(4, 4, 2), pageSizes);
+        assertEquals(ids(store.getMessagesByTopic("orders")), seen);
+        assertThrows(IllegalArgumentException.class, () -> store.readMessagesByTopic("orders", "not base64!", 4));
+    }
+
+    @Test
+    void resumeTokenSkipsMessagesDeletedSinceThePreviousPage() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            store.storeMessage(message("m" + i, "orders"));
+        }
+        store.flushBatch();
+
+        RocksDBMessageStore.TopicPage first = store.readMessagesByTopic("orders", null, 3);
+        store.deleteMessage("m3").get(5, TimeUnit.SECONDS);
+        RocksDBMessageStore.TopicPage second = store.readMessagesByTopic("orders", first.getResumeToken(), 3);
+
+        assertEquals(List.of("m0", "m1", "m2"), ids(first.getMessages()));
+        assertEquals(List.of("m4", "m5"), ids(second.getMessages()));
+        assertFalse(second.hasMore());
+    }
+
+    @Test
+    void restoringAMessageReplacesItsIndexEntry() throws Exception {
+        store.storeMessage(message("m1", "orders")).get(5, TimeUnit.SECONDS);
+        store.storeMessage(message("m2", "orders")).get(5, TimeUnit.SECONDS);
+        store.storeMessage(message("m1", "orders")).get(5, TimeUnit.SECONDS);
+
+        // Stored twice within one group, the second store must see the first one's index entry
+        CompletableFuture<Void> first = store.storeMessage(message("m3", "orders"));
+        CompletableFuture<Void> second = store.storeMessage(message("m3", "audit"));
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("m2", "m1"), ids(store.getMessagesByTopic("orders")));
+        assertEquals(List.of("m3"), ids(store.getMessagesByTopic("audit")));
+
+        close();
+        assertEquals(3, rawKeys(RocksDBMessageStore.TOPIC_INDEX_CF).size());
+    }
+
+    @Test
+    void deletingAMessageRemovesItsIndexEntry() throws Exception {
+        store.storeMessage(message("m1", "orders"));
+        store.storeMessage(message("m2", "orders"));
+        store.deleteMessage("m1").get(5, TimeUnit.SECONDS);
+
+        assertNull(store.retrieveMessage("m1"));
+        assertEquals(List.of("m2"), ids(store.getMessagesByTopic("orders")));
+
+        close();
+        assertEquals(1, rawKeys(RocksDBMessageStore.TOPIC_INDEX_CF).size());
+        assertEquals(List.of("m2"), rawKeys(RocksDBMessageStore.MESSAGES_CF));
+    }
+
+    @Test
+    void continuesTheIndexAfterReopening() throws Exception {
+        store.storeMessage(message("m1", "orders")).get(5, TimeUnit.SECONDS);
+        close();
+
+        store = open();
+        store.storeMessage(message("m2", "orders")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("m1", "m2"), ids(store.getMessagesByTopic("orders")));
+    }
+
+    @Test
+    void readsMessagesStoredBeforeTheColumnFamilySplit() throws Exception {
+        close();
+        try (Options options = new Options().setCreateIfMissing(true);
+             RocksDB legacy = RocksDB.open(options, dataDir.resolve("legacy").toString())) {
+            legacy.put("msg:old-1".getBytes(StandardCharsets.UTF_8),
+                    "old-1|orders|hello|2024-01-01T00:00:00Z|HIGH".getBytes(StandardCharsets.UTF_8));
+        }
+        dbPath = dataDir.resolve("legacy").toString();
+        store = open();
+
+        Message legacy = store.retrieveMessage("old-1");
+
+        assertEquals("orders", legacy.getTopic());
+        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), legacy.getPayload());
+        assertEquals(MessagePriority.HIGH, legacy.getPriority());
+
+        store.deleteMessage("old-1").get(5, TimeUnit.SECONDS);
+        assertNull(store.retrieveMessage("old-1"));
+    }
+
+    @Test
+    void keepsOutboxEntriesUntilTheyAreSettled() throws Exception {
+        store.appendOutbox(List.of(message("m1", "orders"), message("m2", "orders"), message("m3", "orders")))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("m1", "m2", "m3"), outboxIds());
+        assertNull(store.retrieveMessage("m1"));
+        assertTrue(store.getMessagesByTopic("orders").isEmpty());
+    }
+
+    @Test
+    void movesCommittedOutboxEntriesIntoTheTopic() throws Exception {
+        Message m1 = message("m1", "orders");
+        store.appendOutbox(List.of(m1, message("m2", "orders"))).get(5, TimeUnit.SECONDS);
+
+        store.commitOutbox(m1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("m2"), outboxIds());
+        assertEquals(MessageStatus.COMMITTED, store.retrieveMessage("m1").getStatus());
+        assertEquals(List.of("m1"), ids(store.getMessagesByTopic("orders")));
+    }
+
+    @Test
+    void discardsOutboxEntriesWithoutStoringThem() throws Exception {
+        store.appendOutbox(List.of(message("m1", "orders"), message("m2", "orders"))).get(5, TimeUnit.SECONDS);
+
+        store.discardOutbox("m1").get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("m2"), outboxIds());
+        assertNull(store.retrieveMessage("m1"));
+    }
+
+    @Test
+    void streamsTheOutboxFromASnapshot() throws Exception {
+        store.appendOutbox(List.of(message("m1", "orders"), message("m2", "orders"))).get(5, TimeUnit.SECONDS);
+
+        try (Stream<Message> pending = store.streamOutbox()) {
+            store.discardOutbox("m1").get(5, TimeUnit.SECONDS);
+            store.appendOutbox(List.of(message("m3", "orders"))).get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of("m1", "m2"), ids(pending.collect(Collectors.toList())));
+        }
+        assertEquals(List.of("m2", "m3"), outboxIds());
+    }
+
+    private RocksDBMessageStore open() throws Exception {
+        RocksDBMessageStore opened = new RocksDBMessageStore(dbPath, Duration.ofMillis(50), 4 * 1024 * 1024,
+                8 * 1024 * 1024, WalPolicy.ASYNC);
+        opened.afterPropertiesSet();
+        return opened;
+    }
+
+    private void close() throws Exception {
+        store.destroy();
+        store = null;
+    }
+
+    /**
+     * Reads the keys of one column family directly, with the store closed.
+     */
+    private List<String> rawKeys(String columnFamily) throws Exception {
+        List<ColumnFamilyDescriptor> descriptors = COLUMN_FAMILIES.stream()
+                .map(name -> new ColumnFamilyDescriptor(name.getBytes(StandardCharsets.UTF_8)))
+                .collect(Collectors.toList());
+        List<ColumnFamilyHandle> handles = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        try (DBOptions options = new DBOptions();
+             RocksDB db = RocksDB.open(options, dbPath, descriptors, handles)) {
+            try (RocksIterator iterator = db.newIterator(handles.get(COLUMN_FAMILIES.indexOf(columnFamily)))) {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    keys.add(new String(iterator.key(), StandardCharsets.UTF_8));
+                }
+            } finally {
+                handles.forEach(ColumnFamilyHandle::close);
+            }
+        }
+        return keys;
+    }
+
+    private List<String> outboxIds() throws Exception {
+        try (Stream<Message> pending = store.streamOutbox()) {
+            return ids(pending.collect(Collectors.toList()));
+        }
+    }
+
+    private static Message message(String id, String topic) {
+        return Message.builder()
+                .messageId(id)
+                .topic(topic)
+                .payload(payload(id))
+                .build();
+    }
+
+    private static byte[] payload(String id) {
+        return ("payload-" + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> ids(List<Message> messages) {
+        return messages.stream().map(Message::getMessageId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,97 @@
+package ai.hack.rocketmq.persistence;
+
+import ai.hack.rocketmq.exception.RocketMQException;
+import ai.hack.rocketmq.model.MessageStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RocksDB metadata store.
+ */
+class RocksDBMetadataStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    private RocksDBMetadataStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new RocksDBMetadataStore(dataDir.resolve("metadata").toString());
+        store.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.destroy();
+    }
+
+    @Test
+    void foldsStatusMergesAndKeepsCreationTime() throws Exception {
+        store.storeMessageMetadata("m1", "orders", "orders-reply", MessageStatus.PROCESSING, 0, "HIGH");
+        Object createdAt = store.getMessageMetadata("m1").get("created_at");
+
+        store.updateMessageStatusAsync("m1", MessageStatus.FAILED, 1);
+        store.storeMessageMetadata("m1", "orders", "orders-reply", MessageStatus.PROCESSING, 1, "HIGH");
+        store.updateMessageStatus("m1", MessageStatus.COMMITTED, 1);
+
+        Map<String, Object> row = store.getMessageMetadata("m1");
+        assertEquals("COMMITTED", row.get("STATUS"));
+        assertEquals(1, row.get("retry_count"));
+        assertEquals("orders-reply", row.get("callback_topic"));
+        assertEquals(createdAt, row.get("created_at"));
+        assertEquals(1, store.getWriteBehindStats().getFlushedRows());
+    }
+
+    @Test
+    void ignoresStatusUpdatesForUnknownMessages() {
+        store.updateMessageStatusAsync("missing", MessageStatus.COMMITTED, 0);
+        assertThrows(RocketMQException.class, () -> store.getMessageMetadata("missing"));
+    }
+
+    @Test
+    void returnsOldestMessagesWithStatus() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            store.storeMessageMetadata("m" + i, "orders", null, MessageStatus.PROCESSING, 0, "NORMAL");
+            Thread.sleep(2);
+        }
+        store.updateMessageStatus("m0", MessageStatus.COMMITTED, 0);
+
+        List<Map<String, Object>> processing = store.getMessagesByStatus(MessageStatus.PROCESSING, 2);
+        assertEquals(2, processing.size());
+        assertEquals("m1", processing.get(0).get("message_id"));
+        assertEquals("m2", processing.get(1).get("message_id"));
+    }
+
+    @Test
+    void removesCorrelationsOnReadAndExpiry() throws Exception {
+        store.storeCorrelation("c1", "m1", "replies", Instant.now().plusSeconds(60));
+        store.storeCorrelation("c2", "m2", "replies", Instant.now().minusSeconds(60));
+
+        assertEquals(1, store.cleanupExpiredCorrelations());
+        assertEquals("m1", store.getAndRemoveCorrelation("c1").get("message_id"));
+        assertThrows(RocketMQException.class, () -> store.getAndRemoveCorrelation("c1"));
+    }
+
+    @Test
+    void returnsNewestMetricsFirstPerName() throws Exception {
+        store.storeMetric("latency", 1.0);
+        Thread.sleep(2);
+        store.storeMetric("latency", 2.0);
+        store.storeMetric("latency.p99", 9.0);
+
+        List<Map<String, Object>> metrics = store.getRecentMetrics("latency", 10);
+        assertEquals(2, metrics.size());
+        assertEquals(2.0, metrics.get(0).get("metric_value"));
+        assertEquals(1.0, metrics.get(1).get("metric_value"));
+    }
+}